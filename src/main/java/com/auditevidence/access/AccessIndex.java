@@ -0,0 +1,345 @@
+package com.auditevidence.access;
+
+import com.auditevidence.exporter.DigestingOutputStream;
+import com.auditevidence.exporter.FileDigest;
+import com.auditevidence.model.RepoCollaborator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Org-wide user-to-repository permission index. Each grant is one int:
+ * the user or repo slot shifted left by {@link AccessPermissions#BITS}, OR'ed with the permission bits.
+ * Where the access comes from (see {@link TeamGraph}) is kept per repository, next to its grants; each user
+ * grant keeps the position of its source there.
+ */
+public class AccessIndex {
+    public static final String ACCESS_REVIEW_FILE = "ACCESS_REVIEW.csv";
+    private static final String ACCESS_REVIEW_HEADER = "login,user_id,repository,role,admin,maintain,push,triage,pull,source\n";
+
+    private final LongIntHashMap userSlots = new LongIntHashMap(1024);
+    private final Map<String, Integer> repoSlots = new HashMap<>();
+    private final Map<String, Integer> loginSlots = new HashMap<>();
+    private long[] userIds = new long[1024];
+    private String[] userLogins = new String[1024];
+    private int[][] userGrants = new int[1024][];
+    private int[][] userGrantSources = new int[1024][];
+    private int[] userGrantCounts = new int[1024];
+    private int userCount;
+    private String[] repoNames = new String[256];
+    private int[][] repoGrants = new int[256][];
+    private String[][] repoSources = new String[256][];
+    private final Map<String, String> sourceNames = new HashMap<>();
+    private int repoCount;
+
+    /**
+     * @param source where the access comes from, e.g. "team platform:write; direct:admin", or empty when
+     *               not known
+     */
+    public record Grant(long userId, String login, String repo, int permissions, String source) {
+        public boolean isAdmin() {
+            return (permissions & AccessPermissions.ADMIN) != 0;
+        }
+
+        public String role() {
+            return AccessPermissions.highestRole(permissions);
+        }
+    }
+
+    public void addRepository(String repo, List<RepoCollaborator> collaborators) {
+        addRepository(repo, collaborators, collaborator -> "");
+    }
+
+    public synchronized void addRepository(String repo, List<RepoCollaborator> collaborators,
+                                           Function<RepoCollaborator, String> sourceOf) {
+        int repoSlot = repoSlot(repo);
+        removeUserGrants(repoSlot);
+
+        int[] grants = new int[collaborators.size()];
+        String[] sources = new String[collaborators.size()];
+        int count = 0;
+        for (RepoCollaborator collaborator : collaborators) {
+            int bits = AccessPermissions.pack(collaborator.permissions());
+            if (bits == 0) {
+                continue;
+            }
+            int userSlot = userSlot(collaborator.id(), collaborator.login());
+            String source = sourceOf.apply(collaborator);
+            sources[count] = sourceNames.computeIfAbsent(source == null ? "" : source, name -> name);
+            appendUserGrant(userSlot, (repoSlot << AccessPermissions.BITS) | bits, count);
+            grants[count++] = (userSlot << AccessPermissions.BITS) | bits;
+        }
+        repoGrants[repoSlot] = count == grants.length ? grants : Arrays.copyOf(grants, count);
+        repoSources[repoSlot] = count == sources.length ? sources : Arrays.copyOf(sources, count);
+    }
+
+    public synchronized void removeRepository(String repo) {
+        Integer repoSlot = repoSlots.get(repo);
+        if (repoSlot != null) {
+            removeUserGrants(repoSlot);
+            repoGrants[repoSlot] = new int[0];
+            repoSources[repoSlot] = new String[0];
+        }
+    }
+
+    public synchronized List<Grant> accessByRepo(String repo) {
+        Integer repoSlot = repoSlots.get(repo);
+        List<Grant> result = new ArrayList<>();
+        if (repoSlot == null) {
+            return result;
+        }
+        int[] grants = repoGrants[repoSlot];
+        for (int i = 0; i < grants.length; i++) {
+            int userSlot = grants[i] >>> AccessPermissions.BITS;
+            result.add(new Grant(userIds[userSlot], userLogins[userSlot], repo, grants[i] & AccessPermissions.MASK,
+                    repoSources[repoSlot][i]));
+        }
+        return result;
+    }
+
+    public synchronized List<Grant> accessByUser(long userId) {
+        int userSlot = userSlots.get(userId, -1);
+        return userSlot < 0 ? new ArrayList<>() : userGrantList(userSlot);
+    }
+
+    public synchronized List<Grant> accessByUser(String login) {
+        Integer userSlot = loginSlots.get(login.toLowerCase(Locale.ROOT));
+        return userSlot == null ? new ArrayList<>() : userGrantList(userSlot);
+    }
+
+    public synchronized List<Grant> admins() {
+        List<Grant> result = new ArrayList<>();
+        for (int userSlot = 0; userSlot < userCount; userSlot++) {
+            for (int i = 0; i < userGrantCounts[userSlot]; i++) {
+                int grant = userGrants[userSlot][i];
+                if ((grant & AccessPermissions.ADMIN) != 0) {
+                    result.add(toUserGrant(userSlot, i));
+                }
+            }
+        }
+        return result;
+    }
+
+    public synchronized int userCount() {
+        return userCount;
+    }
+
+    public synchronized int repoCount() {
+        return repoSlots.size();
+    }
+
+    /**
+     * @return the digest of the written file
+     */
+    public synchronized FileDigest writeAccessReview(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+
+        Integer[] order = new Integer[userCount];
+        for (int i = 0; i < userCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> userLogins[a].compareToIgnoreCase(userLogins[b]));
+
+        DigestingOutputStream digest = DigestingOutputStream.create(file);
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(digest, StandardCharsets.UTF_8))) {
+            writer.write(ACCESS_REVIEW_HEADER);
+            for (int userSlot : order) {
+                List<Grant> grants = userGrantList(userSlot);
+                grants.sort((a, b) -> a.repo().compareTo(b.repo()));
+                for (Grant grant : grants) {
+                    RepoCollaborator.Permissions p = AccessPermissions.unpack(grant.permissions());
+                    writer.write(csv(grant.login()) + "," + grant.userId() + "," + csv(grant.repo()) + ","
+                            + grant.role() + "," + p.admin() + "," + p.maintain() + "," + p.push() + ","
+                            + p.triage() + "," + p.pull() + "," + csv(grant.source()) + "\n");
+                }
+            }
+        }
+        return digest.getDigest();
+    }
+
+    /**
+     * Merges access reviews written for disjoint sets of repositories (e.g. by separate shards) into one
+     * file in the same login-then-repository order, reading one line per input at a time.
+     *
+     * @return the digest of the merged file
+     */
+    public static FileDigest mergeAccessReviews(List<Path> files, Path target) throws IOException {
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        List<BufferedReader> readers = new ArrayList<>();
+        DigestingOutputStream digest = DigestingOutputStream.create(target);
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(digest, StandardCharsets.UTF_8))) {
+            PriorityQueue<ReviewLine> queue = new PriorityQueue<>();
+            for (Path file : files) {
+                BufferedReader reader = Files.newBufferedReader(file);
+                readers.add(reader);
+                reader.readLine();
+                ReviewLine.next(reader, queue);
+            }
+            writer.write(ACCESS_REVIEW_HEADER);
+            while (!queue.isEmpty()) {
+                ReviewLine line = queue.poll();
+                writer.write(line.text());
+                writer.write('\n');
+                ReviewLine.next(line.reader(), queue);
+            }
+        } finally {
+            for (BufferedReader reader : readers) {
+                reader.close();
+            }
+        }
+        return digest.getDigest();
+    }
+
+    private record ReviewLine(String login, String repo, String text, BufferedReader reader)
+            implements Comparable<ReviewLine> {
+
+        static void next(BufferedReader reader, PriorityQueue<ReviewLine> queue) throws IOException {
+            String text = reader.readLine();
+            if (text != null && !text.isEmpty()) {
+                List<String> fields = parseCsv(text);
+                queue.add(new ReviewLine(fields.get(0), fields.size() > 2 ? fields.get(2) : "", text, reader));
+            }
+        }
+
+        @Override
+        public int compareTo(ReviewLine other) {
+            int byLogin = login.compareToIgnoreCase(other.login);
+            return byLogin != 0 ? byLogin : repo.compareTo(other.repo);
+        }
+    }
+
+    private static List<String> parseCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private List<Grant> userGrantList(int userSlot) {
+        List<Grant> result = new ArrayList<>(userGrantCounts[userSlot]);
+        for (int i = 0; i < userGrantCounts[userSlot]; i++) {
+            result.add(toUserGrant(userSlot, i));
+        }
+        return result;
+    }
+
+    private Grant toUserGrant(int userSlot, int index) {
+        int grant = userGrants[userSlot][index];
+        int repoSlot = grant >>> AccessPermissions.BITS;
+        return new Grant(userIds[userSlot], userLogins[userSlot], repoNames[repoSlot],
+                grant & AccessPermissions.MASK, repoSources[repoSlot][userGrantSources[userSlot][index]]);
+    }
+
+    private int userSlot(long userId, String login) {
+        int slot = userSlots.get(userId, -1);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (userCount == userIds.length) {
+            int capacity = userIds.length * 2;
+            userIds = Arrays.copyOf(userIds, capacity);
+            userLogins = Arrays.copyOf(userLogins, capacity);
+            userGrants = Arrays.copyOf(userGrants, capacity);
+            userGrantSources = Arrays.copyOf(userGrantSources, capacity);
+            userGrantCounts = Arrays.copyOf(userGrantCounts, capacity);
+        }
+        slot = userCount++;
+        userIds[slot] = userId;
+        userLogins[slot] = login;
+        userGrants[slot] = new int[4];
+        userGrantSources[slot] = new int[4];
+        userSlots.put(userId, slot);
+        loginSlots.put(login.toLowerCase(Locale.ROOT), slot);
+        return slot;
+    }
+
+    private int repoSlot(String repo) {
+        Integer slot = repoSlots.get(repo);
+        if (slot != null) {
+            return slot;
+        }
+        if (repoCount == repoNames.length) {
+            repoNames = Arrays.copyOf(repoNames, repoCount * 2);
+            repoGrants = Arrays.copyOf(repoGrants, repoCount * 2);
+            repoSources = Arrays.copyOf(repoSources, repoCount * 2);
+        }
+        int newSlot = repoCount++;
+        repoNames[newSlot] = repo;
+        repoGrants[newSlot] = new int[0];
+        repoSources[newSlot] = new String[0];
+        repoSlots.put(repo, newSlot);
+        return newSlot;
+    }
+
+    /**
+     * @param source the position of the grant's source in its repository's sources
+     */
+    private void appendUserGrant(int userSlot, int grant, int source) {
+        int count = userGrantCounts[userSlot];
+        if (count == userGrants[userSlot].length) {
+            userGrants[userSlot] = Arrays.copyOf(userGrants[userSlot], count * 2);
+            userGrantSources[userSlot] = Arrays.copyOf(userGrantSources[userSlot], count * 2);
+        }
+        userGrants[userSlot][count] = grant;
+        userGrantSources[userSlot][count] = source;
+        userGrantCounts[userSlot] = count + 1;
+    }
+
+    private void removeUserGrants(int repoSlot) {
+        for (int grant : repoGrants[repoSlot]) {
+            int userSlot = grant >>> AccessPermissions.BITS;
+            int[] grants = userGrants[userSlot];
+            int[] sources = userGrantSources[userSlot];
+            int count = userGrantCounts[userSlot];
+            for (int i = 0; i < count; i++) {
+                if (grants[i] >>> AccessPermissions.BITS == repoSlot) {
+                    grants[i] = grants[--count];
+                    sources[i] = sources[count];
+                    break;
+                }
+            }
+            userGrantCounts[userSlot] = count;
+        }
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,47 @@
+package com.auditevidence.access;
+
+import com.auditevidence.model.RepoCollaborator;
+
+public final class AccessPermissions {
+    public static final int ADMIN = 1;
+    public static final int MAINTAIN = 1 << 1;
+    public static final int PUSH = 1 << 2;
+    public static final int TRIAGE = 1 << 3;
+    public static final int PULL = 1 << 4;
+    public static final int BITS = 5;
+    public static final int MASK = (1 << BITS) - 1;
+
+    private AccessPermissions() {}
+
+    public static int pack(RepoCollaborator.Permissions permissions) {
+        if (permissions == null) {
+            return 0;
+        }
+        int bits = 0;
+        if (permissions.admin()) bits |= ADMIN;
+        if (permissions.maintain()) bits |= MAINTAIN;
+        if (permissions.push()) bits |= PUSH;
+        if (permissions.triage()) bits |= TRIAGE;
+        if (permissions.pull()) bits |= PULL;
+        return bits;
+    }
+
+    public static RepoCollaborator.Permissions unpack(int bits) {
+        return new RepoCollaborator.Permissions(
+                (bits & ADMIN) != 0,
+                (bits & MAINTAIN) != 0,
+                (bits & PUSH) != 0,
+                (bits & TRIAGE) != 0,
+                (bits & PULL) != 0
+        );
+    }
+
+    public static String highestRole(int bits) {
+        if ((bits & ADMIN) != 0) return "admin";
+        if ((bits & MAINTAIN) != 0) return "maintain";
+        if ((bits & PUSH) != 0) return "write";
+        if ((bits & TRIAGE) != 0) return "triage";
+        if ((bits & PULL) != 0) return "read";
+        return "none";
+    }
+}
@@ -0,0 +1,230 @@
+package com.auditevidence.access;
+
+import com.auditevidence.github.RawResponse;
+import com.auditevidence.model.GithubMember;
+import com.auditevidence.model.GithubTeam;
+import com.auditevidence.model.RepoCollaborator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The organization's teams, their nesting and their repository grants, built once per organization so the
+ * access of every repository can be attributed to teams without fetching teams per repository. A team's
+ * member listing already includes the members of its child teams, so each grant reaches everyone in the
+ * team's subtree; the source names the most deeply nested team the user actually belongs to.
+ */
+public class TeamGraph {
+    public static final String DIRECT = "direct";
+    public static final String TEAM = "team";
+
+    private static final Pattern TEAM_ENDPOINT =
+            Pattern.compile("/orgs/[^/]+/teams(?:/([^/?]+)/(members|repos))?(?:\\?.*)?$");
+
+    private final Map<String, List<TeamGrant>> grantsByRepo = new HashMap<>();
+    private final Map<String, Set<Long>> membersBySlug = new HashMap<>();
+    private final Map<String, List<String>> childrenBySlug = new HashMap<>();
+    private final Map<String, String> parentBySlug = new HashMap<>();
+    private final Map<String, RawResponse> teamResponses = new HashMap<>();
+    private final Map<String, Map<Long, RawResponse>> memberResponses = new HashMap<>();
+    private final Map<String, Map<String, RawResponse>> repoResponses = new HashMap<>();
+
+    private record TeamGrant(String team, int permissions) {}
+
+    /**
+     * @param type {@link #TEAM}, or {@link #DIRECT} for access not explained by any team (a direct
+     *             collaborator grant, organization ownership or the organization's base permission)
+     * @param team the team whose grant gives the access
+     * @param via the child team of {@code team} the user is a member of, or null when they are in
+     *            {@code team} itself
+     */
+    public record Source(String type, String team, String via, String role) {
+        @Override
+        public String toString() {
+            if (team == null) {
+                return type + ":" + role;
+            }
+            return type + " " + team + (via != null ? " via " + via : "") + ":" + role;
+        }
+    }
+
+    public TeamGraph(List<GithubTeam> teams) {
+        this(teams, List.of());
+    }
+
+    /**
+     * @param responses the API responses {@code teams} was parsed from, in the order they were read; each
+     *                  team, membership and grant keeps the slice of the listing page it came from
+     */
+    public TeamGraph(List<GithubTeam> teams, List<RawResponse> responses) {
+        for (GithubTeam team : teams) {
+            Set<Long> members = new HashSet<>();
+            if (team.members() != null) {
+                for (GithubMember member : team.members()) {
+                    members.add(member.id());
+                }
+            }
+            membersBySlug.put(team.slug(), members);
+            if (team.parent() != null) {
+                childrenBySlug.computeIfAbsent(team.parent().slug(), slug -> new ArrayList<>()).add(team.slug());
+                parentBySlug.put(team.slug(), team.parent().slug());
+            }
+            if (team.repositories() != null) {
+                for (GithubTeam.TeamRepository repo : team.repositories()) {
+                    int bits = AccessPermissions.pack(repo.permissions());
+                    if (bits != 0) {
+                        grantsByRepo.computeIfAbsent(repo.name(), name -> new ArrayList<>())
+                                .add(new TeamGrant(team.slug(), bits));
+                    }
+                }
+            }
+        }
+        for (List<TeamGrant> grants : grantsByRepo.values()) {
+            grants.sort((a, b) -> Integer.compare(Integer.lowestOneBit(a.permissions()),
+                    Integer.lowestOneBit(b.permissions())));
+        }
+        indexResponses(teams, responses);
+    }
+
+    /**
+     * @return where {@code collaborator}'s access to {@code repo} comes from, strongest first: every team
+     *         grant that reaches them, plus a {@link #DIRECT} source when their permission is higher than all
+     *         of those grants
+     */
+    public List<Source> sources(String repo, RepoCollaborator collaborator) {
+        int effective = AccessPermissions.pack(collaborator.permissions());
+        List<Source> sources = new ArrayList<>();
+        int fromTeams = 0;
+        for (TeamGrant grant : grantsByRepo.getOrDefault(repo, List.of())) {
+            if (membersBySlug.get(grant.team()).contains(collaborator.id())) {
+                String member = deepestMembership(grant.team(), collaborator.id());
+                sources.add(new Source(TEAM, grant.team(), member.equals(grant.team()) ? null : member,
+                        AccessPermissions.highestRole(grant.permissions())));
+                fromTeams |= grant.permissions();
+            }
+        }
+        boolean beyondTeams = fromTeams == 0 || Integer.lowestOneBit(effective) < Integer.lowestOneBit(fromTeams);
+        if (effective != 0 && beyondTeams) {
+            sources.add(0, new Source(DIRECT, null, null, AccessPermissions.highestRole(effective)));
+        }
+        return sources;
+    }
+
+    /**
+     * @return the slices of the team listings that show {@code sources}: each team on the way from the
+     *         granting team down to the user's own team, the user's membership and the team's grant on
+     *         {@code repo}
+     */
+    public List<RawResponse> responses(String repo, RepoCollaborator collaborator, List<Source> sources) {
+        Set<RawResponse> responses = new LinkedHashSet<>();
+        for (Source source : sources) {
+            if (source.team() == null) {
+                continue;
+            }
+            String member = source.via() != null ? source.via() : source.team();
+            String team = member;
+            while (team != null) {
+                addIfPresent(responses, teamResponses.get(team));
+                team = team.equals(source.team()) ? null : parentBySlug.get(team);
+            }
+            addIfPresent(responses, memberResponses.getOrDefault(member, Map.of()).get(collaborator.id()));
+            addIfPresent(responses, repoResponses.getOrDefault(source.team(), Map.of()).get(repo));
+        }
+        return new ArrayList<>(responses);
+    }
+
+    /**
+     * @return the repositories whose access changes when the members or nesting of team {@code slug} change:
+     *         those granted to it, to a team it is nested in, or to a team nested in it
+     */
+    public Set<String> repositoriesAffectedBy(String slug) {
+        Set<String> teams = new HashSet<>();
+        for (String parent = slug; parent != null; parent = parentBySlug.get(parent)) {
+            teams.add(parent);
+        }
+        List<String> nested = new ArrayList<>(childrenBySlug.getOrDefault(slug, List.of()));
+        while (!nested.isEmpty()) {
+            String child = nested.remove(nested.size() - 1);
+            if (teams.add(child)) {
+                nested.addAll(childrenBySlug.getOrDefault(child, List.of()));
+            }
+        }
+        Set<String> repos = new HashSet<>();
+        grantsByRepo.forEach((repo, grants) -> {
+            if (grants.stream().anyMatch(grant -> teams.contains(grant.team()))) {
+                repos.add(repo);
+            }
+        });
+        return repos;
+    }
+
+    private String deepestMembership(String team, long userId) {
+        for (String child : childrenBySlug.getOrDefault(team, List.of())) {
+            Set<Long> members = membersBySlug.get(child);
+            if (members != null && members.contains(userId)) {
+                return deepestMembership(child, userId);
+            }
+        }
+        return team;
+    }
+
+    /**
+     * Lines the elements of each listing's pages up with the records parsed from them, as the repository
+     * listing is split in the prefetch. A listing whose element count does not match is left out.
+     */
+    private void indexResponses(List<GithubTeam> teams, List<RawResponse> responses) {
+        Map<String, List<RawResponse>> elementsByListing = new LinkedHashMap<>();
+        try {
+            for (RawResponse response : responses) {
+                Matcher matcher = TEAM_ENDPOINT.matcher(response.endpoint());
+                if (matcher.find()) {
+                    String listing = matcher.group(1) == null ? "" : matcher.group(1) + "/" + matcher.group(2);
+                    elementsByListing.computeIfAbsent(listing, key -> new ArrayList<>())
+                            .addAll(response.arrayElements());
+                }
+            }
+        } catch (IOException e) {
+            return;
+        }
+
+        List<RawResponse> teamElements = elementsByListing.getOrDefault("", List.of());
+        if (teamElements.size() == teams.size()) {
+            for (int i = 0; i < teams.size(); i++) {
+                teamResponses.put(teams.get(i).slug(), teamElements.get(i));
+            }
+        }
+        for (GithubTeam team : teams) {
+            List<RawResponse> members = elementsByListing.getOrDefault(team.slug() + "/members", List.of());
+            if (team.members() != null && members.size() == team.members().size()) {
+                Map<Long, RawResponse> byId = new HashMap<>();
+                for (int i = 0; i < members.size(); i++) {
+                    byId.put(team.members().get(i).id(), members.get(i));
+                }
+                memberResponses.put(team.slug(), byId);
+            }
+            List<RawResponse> repos = elementsByListing.getOrDefault(team.slug() + "/repos", List.of());
+            if (team.repositories() != null && repos.size() == team.repositories().size()) {
+                Map<String, RawResponse> byName = new HashMap<>();
+                for (int i = 0; i < repos.size(); i++) {
+                    byName.put(team.repositories().get(i).name(), repos.get(i));
+                }
+                repoResponses.put(team.slug(), byName);
+            }
+        }
+    }
+
+    private static void addIfPresent(Set<RawResponse> responses, RawResponse response) {
+        if (response != null) {
+            responses.add(response);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.auditevidence.access;
+
+import com.auditevidence.github.GithubApiException;
+import com.auditevidence.github.GithubClient;
+import com.auditevidence.github.RawResponse;
+import com.auditevidence.github.ResponseCapture;
+import com.auditevidence.model.GithubTeam;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The {@link TeamGraph} of each organization, built from a single read of its teams however many
+ * repositories are evaluated and whichever client they are evaluated with. A graph is kept until it is
+ * {@linkplain #invalidate invalidated}, e.g. by a webhook event that changes teams. A replaced graph keeps
+ * its team listings until no check uses it any more.
+ */
+public class TeamGraphCache {
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private static final class Entry {
+        private boolean built;
+        private TeamGraph graph;
+    }
+
+    /**
+     * @return the organization's team graph, read through {@code client} the first time it is needed, or null
+     *         when teams cannot be read
+     */
+    public TeamGraph get(GithubClient client, String orgName) throws GithubApiException {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.computeIfAbsent(key(orgName), key -> new Entry());
+        }
+        synchronized (entry) {
+            if (!entry.built) {
+                entry.graph = build(client, orgName);
+                entry.built = true;
+            }
+            return entry.graph;
+        }
+    }
+
+    /**
+     * @return the graph of {@code orgName} if it has been built, without reading teams; null also when its
+     *         teams cannot be read, which {@link #isCached} tells apart
+     */
+    public TeamGraph getIfCached(String orgName) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key(orgName));
+        }
+        if (entry == null) {
+            return null;
+        }
+        synchronized (entry) {
+            return entry.graph;
+        }
+    }
+
+    /**
+     * @return whether the graph of {@code orgName}, or the fact that its teams cannot be read, is cached
+     */
+    public boolean isCached(String orgName) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key(orgName));
+        }
+        if (entry == null) {
+            return false;
+        }
+        synchronized (entry) {
+            return entry.built;
+        }
+    }
+
+    /**
+     * Drops the graph of {@code orgName}, so the next {@link #get} reads its teams again.
+     */
+    public void invalidate(String orgName) {
+        synchronized (entries) {
+            entries.remove(key(orgName));
+        }
+    }
+
+    private static TeamGraph build(GithubClient client, String orgName) throws GithubApiException {
+        try (ResponseCapture capture = ResponseCapture.start()) {
+            List<GithubTeam> teams = client.getOrganizationTeams(orgName);
+            return new TeamGraph(teams, RawResponse.retainAll(capture.getResponses()));
+        } catch (GithubApiException e) {
+            if (e.getStatusCode() != 403 && e.getStatusCode() != 404) {
+                throw e;
+            }
+            // Listing teams needs read:org; without it access is reported without its source
+            return null;
+        }
+    }
+
+    private static String key(String orgName) {
+        return orgName.toLowerCase(Locale.ROOT);
+    }
+}
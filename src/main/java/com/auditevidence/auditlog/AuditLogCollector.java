@@ -0,0 +1,202 @@
+package com.auditevidence.auditlog;
+
+import com.auditevidence.github.GithubApiException;
+import com.auditevidence.github.GithubClient;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+public class AuditLogCollector {
+    public static final String DIRECTORY = "audit-log";
+    private static final String CHECKPOINT_FILE = "checkpoint.json";
+    private static final DateTimeFormatter SEGMENT_FORMAT = DateTimeFormatter
+            .ofPattern("yyyyMMdd'T'HHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+
+    private final Function<String, Path> outputDirForOrg;
+    private final LocalDate since;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter lineWriter;
+
+    public record Checkpoint(
+        String phrase,
+        String afterCursor,
+        long lastTimestamp,
+        List<String> lastDocumentIds,
+        long totalEvents,
+        long firstTimestamp,
+        Map<String, Long> actionsByType,
+        Map<String, Long> actionsByActor
+    ) {
+        Checkpoint withoutCursor() {
+            return new Checkpoint(phrase, null, lastTimestamp, lastDocumentIds, totalEvents, firstTimestamp,
+                    actionsByType, actionsByActor);
+        }
+    }
+
+    public record Summary(
+        String phrase,
+        long newEvents,
+        long totalEvents,
+        Instant firstEvent,
+        Instant lastEvent,
+        String segmentFile,
+        Map<String, Long> actionsByType,
+        Map<String, Long> actionsByActor
+    ) {}
+
+    public AuditLogCollector(Function<String, Path> outputDirForOrg, LocalDate since) {
+        this.outputDirForOrg = outputDirForOrg;
+        this.since = since;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        this.lineWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    public Summary collect(GithubClient client, String orgName) throws GithubApiException, IOException {
+        Path dir = outputDirForOrg.apply(orgName).resolve(DIRECTORY);
+        Files.createDirectories(dir);
+
+        String phrase = since == null ? null : "created:>=" + since;
+        Checkpoint checkpoint = readCheckpoint(dir.resolve(CHECKPOINT_FILE), phrase);
+
+        Instant startedAt = Instant.now();
+        String segmentName = "audit-log-" + SEGMENT_FORMAT.format(startedAt) + ".ndjson.gz";
+        Path partFile = dir.resolve(segmentName + ".part");
+        Path segmentFile = dir.resolve(segmentName);
+
+        EventAccumulator accumulator = new EventAccumulator(checkpoint);
+        String cursor;
+        try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(partFile)))) {
+            cursor = client.streamAuditLog(orgName, phrase, checkpoint.afterCursor(), event -> {
+                if (accumulator.accept(event)) {
+                    out.write(lineWriter.writeValueAsBytes(event));
+                    out.write('\n');
+                }
+            });
+        } catch (GithubApiException e) {
+            Files.deleteIfExists(partFile);
+            if (checkpoint.afterCursor() != null && isRejectedCursor(e)) {
+                // Start over at the beginning of the period; events already collected are skipped by timestamp
+                writeCheckpoint(dir.resolve(CHECKPOINT_FILE), checkpoint.withoutCursor());
+                throw new GithubApiException("Saved audit log cursor was rejected and has been reset, the next run"
+                        + " collects from the start of the period: " + e.getMessage(), e.getStatusCode(), e);
+            }
+            throw e;
+        } catch (IOException e) {
+            Files.deleteIfExists(partFile);
+            throw e;
+        }
+
+        String writtenSegment = null;
+        if (accumulator.newEvents > 0) {
+            Files.move(partFile, segmentFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            writtenSegment = segmentName;
+        } else {
+            Files.delete(partFile);
+        }
+
+        Checkpoint updated = accumulator.toCheckpoint(phrase, cursor);
+        writeCheckpoint(dir.resolve(CHECKPOINT_FILE), updated);
+
+        return new Summary(
+                phrase,
+                accumulator.newEvents,
+                updated.totalEvents(),
+                updated.firstTimestamp() > 0 ? Instant.ofEpochMilli(updated.firstTimestamp()) : null,
+                updated.lastTimestamp() > 0 ? Instant.ofEpochMilli(updated.lastTimestamp()) : null,
+                writtenSegment,
+                updated.actionsByType(),
+                updated.actionsByActor()
+        );
+    }
+
+    private static boolean isRejectedCursor(GithubApiException e) {
+        return e.getStatusCode() == 400 || e.getStatusCode() == 422;
+    }
+
+    private Checkpoint readCheckpoint(Path file, String phrase) throws IOException {
+        if (Files.exists(file)) {
+            Checkpoint checkpoint = objectMapper.readValue(file.toFile(), Checkpoint.class);
+            if (Objects.equals(checkpoint.phrase(), phrase)) {
+                return checkpoint;
+            }
+            System.out.println("⚠ Audit log period changed - collecting from the start of the new period");
+        }
+        return new Checkpoint(phrase, null, 0, List.of(), 0, 0, Map.of(), Map.of());
+    }
+
+    private void writeCheckpoint(Path file, Checkpoint checkpoint) throws IOException {
+        Path temp = file.resolveSibling(CHECKPOINT_FILE + ".tmp");
+        objectMapper.writeValue(temp.toFile(), checkpoint);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static final class EventAccumulator {
+        private final Set<String> seenAtLastTimestamp;
+        private final Map<String, Long> actionsByType;
+        private final Map<String, Long> actionsByActor;
+        private long lastTimestamp;
+        private long firstTimestamp;
+        private long totalEvents;
+        private long newEvents;
+
+        EventAccumulator(Checkpoint checkpoint) {
+            this.seenAtLastTimestamp = new HashSet<>(checkpoint.lastDocumentIds());
+            this.actionsByType = new TreeMap<>(checkpoint.actionsByType());
+            this.actionsByActor = new TreeMap<>(checkpoint.actionsByActor());
+            this.lastTimestamp = checkpoint.lastTimestamp();
+            this.firstTimestamp = checkpoint.firstTimestamp();
+            this.totalEvents = checkpoint.totalEvents();
+        }
+
+        boolean accept(JsonNode event) {
+            long timestamp = event.path("@timestamp").asLong(0);
+            String documentId = event.path("_document_id").asText("");
+
+            if (timestamp < lastTimestamp || (timestamp == lastTimestamp && seenAtLastTimestamp.contains(documentId))) {
+                return false;
+            }
+            if (timestamp > lastTimestamp) {
+                lastTimestamp = timestamp;
+                seenAtLastTimestamp.clear();
+            }
+            seenAtLastTimestamp.add(documentId);
+
+            if (firstTimestamp == 0 || (timestamp > 0 && timestamp < firstTimestamp)) {
+                firstTimestamp = timestamp;
+            }
+            actionsByType.merge(event.path("action").asText("unknown"), 1L, Long::sum);
+            actionsByActor.merge(event.path("actor").asText("unknown"), 1L, Long::sum);
+            totalEvents++;
+            newEvents++;
+            return true;
+        }
+
+        Checkpoint toCheckpoint(String phrase, String cursor) {
+            return new Checkpoint(phrase, cursor, lastTimestamp, new ArrayList<>(seenAtLastTimestamp),
+                    totalEvents, firstTimestamp, actionsByType, actionsByActor);
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package com.auditevidence.checks;
 
+import com.auditevidence.auditlog.AuditLogCollector;
 import com.auditevidence.github.GithubApiException;
 import com.auditevidence.github.GithubClient;
 import com.auditevidence.model.CheckResult;
 
+import java.io.IOException;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class AuditLogCheck implements Soc2Check {
     private static final String CLAUSE_ID = "CC7.3";
@@ -14,6 +18,16 @@ public class AuditLogCheck implements Soc2Check {
     private static final String STANDARD = "SOC2";
     private static final String DESCRIPTION = "Confirm audit log access is enabled for the organization";
 
+    private final AuditLogCollector collector;
+
+    public AuditLogCheck() {
+        this(null);
+    }
+
+    public AuditLogCheck(AuditLogCollector collector) {
+        this.collector = collector;
+    }
+
     @Override
     public String getClauseId() {
         return CLAUSE_ID;
@@ -29,6 +43,11 @@ public class AuditLogCheck implements Soc2Check {
         return false;
     }
 
+    @Override
+    public Set<DataRequirement> getDataRequirements() {
+        return EnumSet.of(DataRequirement.ORGANIZATION, DataRequirement.AUDIT_LOG_STATUS);
+    }
+
     @Override
     public CheckResult run(GithubClient client, String orgName, String repoName) throws GithubApiException {
         String dataSource = client.getApiEndpoint("/orgs/" + orgName + "/audit-log");
@@ -51,6 +70,23 @@ public class AuditLogCheck implements Soc2Check {
         rawData.put("auditLogAccessible", auditLogEnabled);
         rawData.put("note", "Audit log API access requires GitHub Enterprise Cloud");
 
+        if (auditLogEnabled && collector != null) {
+            try {
+                AuditLogCollector.Summary summary = collector.collect(client, orgName);
+                rawData.put("auditLogEvents", summary);
+            } catch (GithubApiException e) {
+                if (e.getStatusCode() >= 500) {
+                    // Recorded as unavailable and collected again on --resume
+                    throw e;
+                }
+                return CheckResult.partial(STANDARD, CLAUSE_ID, CHECK_NAME, DESCRIPTION, dataSource, rawData,
+                        List.of("Audit log is accessible but events could not be read: " + e.getMessage()));
+            } catch (IOException e) {
+                return CheckResult.partial(STANDARD, CLAUSE_ID, CHECK_NAME, DESCRIPTION, dataSource, rawData,
+                        List.of("Audit log is accessible but events could not be written: " + e.getMessage()));
+            }
+        }
+
         if (auditLogEnabled) {
             return CheckResult.pass(STANDARD, CLAUSE_ID, CHECK_NAME, DESCRIPTION, dataSource, rawData);
         }
@@ -2,21 +2,37 @@ package com.auditevidence.checks;
 
 import com.auditevidence.github.GithubApiException;
 import com.auditevidence.github.GithubClient;
-import com.auditevidence.model.BranchProtection;
 import com.auditevidence.model.CheckResult;
 import com.auditevidence.model.GithubRepo;
+import com.auditevidence.rulesets.EffectivePolicy;
+import com.auditevidence.rulesets.RulesetCache;
 
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
 
 public class BranchProtectionCheck implements Soc2Check {
+    public static final String CHECK_NAME = "Branch Protection Rules";
     private static final String CLAUSE_ID = "CC7.2";
-    private static final String CHECK_NAME = "Branch Protection Rules";
     private static final String STANDARD = "SOC2";
     private static final String DESCRIPTION = "Verify protection exists for default branch";
 
+    private final RulesetCache rulesets;
+
+    public BranchProtectionCheck() {
+        this(new RulesetCache());
+    }
+
+    public BranchProtectionCheck(RulesetCache rulesets) {
+        this.rulesets = rulesets;
+    }
+
+    public RulesetCache getRulesets() {
+        return rulesets;
+    }
+
     @Override
     public String getClauseId() {
         return CLAUSE_ID;
@@ -32,6 +48,12 @@ public class BranchProtectionCheck implements Soc2Check {
         return true;
     }
 
+    @Override
+    public Set<DataRequirement> getDataRequirements() {
+        return EnumSet.of(DataRequirement.REPOSITORY, DataRequirement.DEFAULT_BRANCH_PROTECTION,
+                DataRequirement.ORGANIZATION_RULESETS);
+    }
+
     @Override
     public CheckResult run(GithubClient client, String orgName, String repoName) throws GithubApiException {
         GithubRepo repo = client.getRepository(orgName, repoName);
@@ -39,22 +61,23 @@ public class BranchProtectionCheck implements Soc2Check {
         String dataSource = client.getApiEndpoint("/repos/" + orgName + "/" + repoName +
                 "/branches/" + defaultBranch + "/protection");
 
-        Optional<BranchProtection> protection = client.getBranchProtection(orgName, repoName, defaultBranch);
+        EffectivePolicy policy = EffectivePolicy.resolve(client, orgName, repo, rulesets.get(client, orgName));
 
         Map<String, Object> rawData = new HashMap<>();
         rawData.put("repository", repo);
         rawData.put("defaultBranch", defaultBranch);
-        rawData.put("branchProtection", protection.orElse(null));
+        rawData.put("branchProtection", policy.branchProtection());
+        rawData.put("rulesets", policy.rulesets());
+        rawData.put("protectionSources", policy.sources());
 
-        if (protection.isEmpty()) {
+        if (!policy.isProtected()) {
             return CheckResult.fail(STANDARD, CLAUSE_ID, CHECK_NAME, DESCRIPTION, dataSource, rawData,
-                    List.of("No branch protection configured for default branch: " + defaultBranch));
+                    List.of("No branch protection or ruleset configured for default branch: " + defaultBranch));
         }
 
-        BranchProtection bp = protection.get();
-        rawData.put("enforceAdmins", bp.enforceAdmins() != null && bp.enforceAdmins().enabled());
-        rawData.put("requireStatusChecks", bp.requiredStatusChecks() != null);
-        rawData.put("allowForcePushes", bp.allowForcePushes() != null && bp.allowForcePushes().enabled());
+        rawData.put("enforceAdmins", policy.enforceAdmins());
+        rawData.put("requireStatusChecks", policy.requireStatusChecks());
+        rawData.put("allowForcePushes", policy.allowForcePushes());
 
         return CheckResult.pass(STANDARD, CLAUSE_ID, CHECK_NAME, DESCRIPTION, dataSource, rawData);
     }
@@ -0,0 +1,98 @@
+package com.auditevidence.checks;
+
+import com.auditevidence.access.AccessIndex;
+import com.auditevidence.auditlog.AuditLogCollector;
+import com.auditevidence.model.CheckResult;
+import com.auditevidence.rulesets.RulesetCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The checks and the clause each one provides evidence for in every supported standard. A check is evaluated
+ * once per organization or repository and its result is filed under all requested standards, instead of
+ * collecting and evaluating the same data once per standard.
+ */
+public class CheckRegistry {
+    private final List<Soc2Check> checks = new ArrayList<>();
+    private final Map<String, Map<Standard, String>> clausesByCheck = new LinkedHashMap<>();
+
+    /**
+     * The built-in checks, mapped to ISO/IEC 27001:2022 Annex A controls and PCI DSS v4.0 requirements.
+     */
+    public static CheckRegistry defaults(AuditLogCollector auditLogCollector,
+                                         Function<String, AccessIndex> accessIndexForOrg) {
+        // Both branch checks match repositories against the same rulesets, read once per organization
+        RulesetCache rulesets = new RulesetCache();
+        return new CheckRegistry()
+                .register(new MfaEnabledCheck(), Map.of(
+                        Standard.ISO_27001, "A.8.5",
+                        Standard.PCI_DSS, "8.4.2"))
+                .register(new RepoAccessControlCheck(accessIndexForOrg), Map.of(
+                        Standard.ISO_27001, "A.5.18",
+                        Standard.PCI_DSS, "7.2.1"))
+                .register(new BranchProtectionCheck(rulesets), Map.of(
+                        Standard.ISO_27001, "A.8.32",
+                        Standard.PCI_DSS, "6.5.1"))
+                .register(new PrReviewsRequiredCheck(rulesets), Map.of(
+                        Standard.ISO_27001, "A.8.28",
+                        Standard.PCI_DSS, "6.2.3"))
+                .register(new AuditLogCheck(auditLogCollector), Map.of(
+                        Standard.ISO_27001, "A.8.15",
+                        Standard.PCI_DSS, "10.2.1"));
+    }
+
+    /**
+     * Registers {@code check} under its SOC2 clause and {@code otherClauses}.
+     */
+    public CheckRegistry register(Soc2Check check, Map<Standard, String> otherClauses) {
+        Map<Standard, String> clauses = new EnumMap<>(Standard.class);
+        clauses.put(Standard.SOC2, check.getClauseId());
+        clauses.putAll(otherClauses);
+        checks.add(check);
+        clausesByCheck.put(check.getCheckName(), clauses);
+        return this;
+    }
+
+    public List<String> getCheckNames() {
+        return List.copyOf(clausesByCheck.keySet());
+    }
+
+    /**
+     * @return the registered checks with a clause in at least one of {@code standards}, in registration order
+     */
+    public List<Soc2Check> getChecks(List<Standard> standards) {
+        return checks.stream()
+                .filter(check -> standards.stream().anyMatch(clausesByCheck.get(check.getCheckName())::containsKey))
+                .toList();
+    }
+
+    /**
+     * Files {@code result} under the first of {@code standards} its check has a clause in. When more than one
+     * standard is requested, the result also lists its clause in each of them.
+     */
+    public CheckResult map(CheckResult result, List<Standard> standards) {
+        Map<Standard, String> clauses = clausesByCheck.get(result.checkName());
+        if (clauses == null) {
+            return result;
+        }
+        Map<String, String> mapped = new LinkedHashMap<>();
+        for (Standard standard : standards) {
+            String clauseId = clauses.get(standard);
+            if (clauseId != null) {
+                mapped.put(standard.displayName(), clauseId);
+            }
+        }
+        if (mapped.isEmpty()) {
+            return result;
+        }
+        Map.Entry<String, String> primary = mapped.entrySet().iterator().next();
+        return result.mappedTo(primary.getKey(), primary.getValue(),
+                standards.size() > 1 ? Collections.unmodifiableMap(mapped) : Map.of());
+    }
+}
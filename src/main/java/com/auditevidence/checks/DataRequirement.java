@@ -0,0 +1,23 @@
+package com.auditevidence.checks;
+
+public enum DataRequirement {
+    ORGANIZATION(false),
+    MEMBERS(false),
+    MEMBERS_WITHOUT_MFA(false),
+    AUDIT_LOG_STATUS(false),
+    ORGANIZATION_RULESETS(false),
+    ORGANIZATION_TEAMS(false),
+    REPOSITORY(true),
+    COLLABORATORS(true),
+    DEFAULT_BRANCH_PROTECTION(true);
+
+    private final boolean repoLevel;
+
+    DataRequirement(boolean repoLevel) {
+        this.repoLevel = repoLevel;
+    }
+
+    public boolean isRepoLevel() {
+        return repoLevel;
+    }
+}
@@ -6,9 +6,11 @@ import com.auditevidence.model.CheckResult;
 import com.auditevidence.model.GithubMember;
 import com.auditevidence.model.GithubOrg;
 
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class MfaEnabledCheck implements Soc2Check {
     private static final String CLAUSE_ID = "CC6.1";
@@ -31,6 +33,11 @@ public class MfaEnabledCheck implements Soc2Check {
         return false;
     }
 
+    @Override
+    public Set<DataRequirement> getDataRequirements() {
+        return EnumSet.of(DataRequirement.ORGANIZATION, DataRequirement.MEMBERS, DataRequirement.MEMBERS_WITHOUT_MFA);
+    }
+
     @Override
     public CheckResult run(GithubClient client, String orgName, String repoName) throws GithubApiException {
         String dataSource = client.getApiEndpoint("/orgs/" + orgName + "/members?filter=2fa_disabled");
@@ -2,15 +2,17 @@ package com.auditevidence.checks;
 
 import com.auditevidence.github.GithubApiException;
 import com.auditevidence.github.GithubClient;
-import com.auditevidence.model.BranchProtection;
 import com.auditevidence.model.CheckResult;
 import com.auditevidence.model.GithubRepo;
+import com.auditevidence.rulesets.EffectivePolicy;
+import com.auditevidence.rulesets.RulesetCache;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
 
 public class PrReviewsRequiredCheck implements Soc2Check {
     private static final String CLAUSE_ID = "CC7.2";
@@ -18,6 +20,20 @@ public class PrReviewsRequiredCheck implements Soc2Check {
     private static final String STANDARD = "SOC2";
     private static final String DESCRIPTION = "Check if PR approvals are required before merging";
 
+    private final RulesetCache rulesets;
+
+    public PrReviewsRequiredCheck() {
+        this(new RulesetCache());
+    }
+
+    public PrReviewsRequiredCheck(RulesetCache rulesets) {
+        this.rulesets = rulesets;
+    }
+
+    public RulesetCache getRulesets() {
+        return rulesets;
+    }
+
     @Override
     public String getClauseId() {
         return CLAUSE_ID;
@@ -33,6 +49,12 @@ public class PrReviewsRequiredCheck implements Soc2Check {
         return true;
     }
 
+    @Override
+    public Set<DataRequirement> getDataRequirements() {
+        return EnumSet.of(DataRequirement.REPOSITORY, DataRequirement.DEFAULT_BRANCH_PROTECTION,
+                DataRequirement.ORGANIZATION_RULESETS);
+    }
+
     @Override
     public CheckResult run(GithubClient client, String orgName, String repoName) throws GithubApiException {
         GithubRepo repo = client.getRepository(orgName, repoName);
@@ -40,39 +62,39 @@ public class PrReviewsRequiredCheck implements Soc2Check {
         String dataSource = client.getApiEndpoint("/repos/" + orgName + "/" + repoName +
                 "/branches/" + defaultBranch + "/protection");
 
-        Optional<BranchProtection> protection = client.getBranchProtection(orgName, repoName, defaultBranch);
+        EffectivePolicy policy = EffectivePolicy.resolve(client, orgName, repo, rulesets.get(client, orgName));
 
         Map<String, Object> rawData = new HashMap<>();
         rawData.put("repository", repo);
         rawData.put("defaultBranch", defaultBranch);
-        rawData.put("branchProtection", protection.orElse(null));
+        rawData.put("branchProtection", policy.branchProtection());
+        rawData.put("rulesets", policy.rulesets());
+        rawData.put("protectionSources", policy.sources());
 
-        if (protection.isEmpty()) {
+        if (!policy.isProtected()) {
             return CheckResult.fail(STANDARD, CLAUSE_ID, CHECK_NAME, DESCRIPTION, dataSource, rawData,
-                    List.of("No branch protection configured - PR reviews cannot be enforced"));
+                    List.of("No branch protection or ruleset configured - PR reviews cannot be enforced"));
         }
 
-        BranchProtection bp = protection.get();
-        BranchProtection.RequiredPullRequestReviews prReviews = bp.requiredPullRequestReviews();
-
-        if (prReviews == null) {
+        if (!policy.requiresPullRequestReviews()) {
             return CheckResult.fail(STANDARD, CLAUSE_ID, CHECK_NAME, DESCRIPTION, dataSource, rawData,
                     List.of("PR reviews are not required for merging"));
         }
 
-        rawData.put("requiredApprovingReviewCount", prReviews.requiredApprovingReviewCount());
-        rawData.put("dismissStaleReviews", prReviews.dismissStaleReviews());
-        rawData.put("requireCodeOwnerReviews", prReviews.requireCodeOwnerReviews());
+        int approvals = policy.requiredApprovingReviewCount();
+        rawData.put("requiredApprovingReviewCount", approvals);
+        rawData.put("dismissStaleReviews", policy.dismissStaleReviews());
+        rawData.put("requireCodeOwnerReviews", policy.requireCodeOwnerReviews());
 
         List<String> findings = new ArrayList<>();
-        if (prReviews.requiredApprovingReviewCount() < 1) {
+        if (approvals < 1) {
             findings.add("Required approving review count is 0");
         }
-        if (!prReviews.dismissStaleReviews()) {
+        if (!policy.dismissStaleReviews()) {
             findings.add("Stale reviews are not dismissed on new commits");
         }
 
-        if (prReviews.requiredApprovingReviewCount() >= 1) {
+        if (approvals >= 1) {
             if (findings.isEmpty()) {
                 return CheckResult.pass(STANDARD, CLAUSE_ID, CHECK_NAME, DESCRIPTION, dataSource, rawData);
             }
@@ -1,22 +1,48 @@
 package com.auditevidence.checks;
 
+import com.auditevidence.access.AccessIndex;
+import com.auditevidence.access.TeamGraph;
+import com.auditevidence.access.TeamGraphCache;
 import com.auditevidence.github.GithubApiException;
 import com.auditevidence.github.GithubClient;
+import com.auditevidence.github.ResponseCapture;
 import com.auditevidence.model.CheckResult;
 import com.auditevidence.model.GithubRepo;
 import com.auditevidence.model.RepoCollaborator;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 public class RepoAccessControlCheck implements Soc2Check {
+    public static final String CHECK_NAME = "Repository Access Control";
     private static final String CLAUSE_ID = "CC6.2";
-    private static final String CHECK_NAME = "Repository Access Control";
     private static final String STANDARD = "SOC2";
     private static final String DESCRIPTION = "List users with admin/write access to repository";
 
+    private final Function<String, AccessIndex> accessIndexForOrg;
+    private final TeamGraphCache teamGraphs = new TeamGraphCache();
+
+    public RepoAccessControlCheck() {
+        this(org -> null);
+    }
+
+    public RepoAccessControlCheck(Function<String, AccessIndex> accessIndexForOrg) {
+        this.accessIndexForOrg = accessIndexForOrg;
+    }
+
+    /**
+     * @return the team graphs this check attributes access with, one per organization
+     */
+    public TeamGraphCache getTeamGraphs() {
+        return teamGraphs;
+    }
+
     @Override
     public String getClauseId() {
         return CLAUSE_ID;
@@ -32,12 +58,36 @@ public class RepoAccessControlCheck implements Soc2Check {
         return true;
     }
 
+    @Override
+    public Set<DataRequirement> getDataRequirements() {
+        return EnumSet.of(DataRequirement.REPOSITORY, DataRequirement.COLLABORATORS,
+                DataRequirement.ORGANIZATION_TEAMS);
+    }
+
     @Override
     public CheckResult run(GithubClient client, String orgName, String repoName) throws GithubApiException {
         String dataSource = client.getApiEndpoint("/repos/" + orgName + "/" + repoName + "/collaborators");
 
         GithubRepo repo = client.getRepository(orgName, repoName);
         List<RepoCollaborator> collaborators = client.getRepoCollaborators(orgName, repoName);
+        // The evidence keeps only the parts of the team listings behind this repository's access
+        TeamGraph teams = teamGraphs.get(client, orgName);
+
+        Map<String, List<TeamGraph.Source>> accessSources = new LinkedHashMap<>();
+        if (teams != null) {
+            for (RepoCollaborator collaborator : collaborators) {
+                List<TeamGraph.Source> sources = teams.sources(repoName, collaborator);
+                accessSources.put(collaborator.login(), sources);
+                ResponseCapture.record(teams.responses(repoName, collaborator, sources));
+            }
+        }
+
+        AccessIndex accessIndex = accessIndexForOrg.apply(orgName);
+        if (accessIndex != null) {
+            accessIndex.addRepository(repoName, collaborators, collaborator -> String.join("; ",
+                    accessSources.getOrDefault(collaborator.login(), List.of()).stream()
+                            .map(TeamGraph.Source::toString).toList()));
+        }
 
         List<RepoCollaborator> admins = collaborators.stream()
                 .filter(RepoCollaborator::hasAdminAccess)
@@ -53,6 +103,8 @@ public class RepoAccessControlCheck implements Soc2Check {
         rawData.put("admins", admins);
         rawData.put("writers", writers);
         rawData.put("allCollaborators", collaborators);
+        rawData.put("teamsAvailable", teams != null);
+        rawData.put("accessSources", accessSources);
 
         List<String> findings = new ArrayList<>();
         for (RepoCollaborator admin : admins) {
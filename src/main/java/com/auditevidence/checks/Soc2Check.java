@@ -4,9 +4,12 @@ import com.auditevidence.github.GithubApiException;
 import com.auditevidence.github.GithubClient;
 import com.auditevidence.model.CheckResult;
 
+import java.util.Set;
+
 public interface Soc2Check {
     String getClauseId();
     String getCheckName();
     CheckResult run(GithubClient client, String orgName, String repoName) throws GithubApiException;
     boolean requiresRepo();
+    Set<DataRequirement> getDataRequirements();
 }
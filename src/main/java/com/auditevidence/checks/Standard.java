@@ -0,0 +1,33 @@
+package com.auditevidence.checks;
+
+import java.util.Locale;
+
+public enum Standard {
+    SOC2("SOC2"),
+    ISO_27001("ISO 27001"),
+    PCI_DSS("PCI DSS");
+
+    private final String displayName;
+
+    Standard(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String displayName() {
+        return displayName;
+    }
+
+    /**
+     * Parses a standard ignoring case and separators, e.g. "iso27001", "ISO-27001" or "pci".
+     */
+    public static Standard parse(String value) {
+        String key = value.toUpperCase(Locale.ROOT).replaceAll("[^A-Z0-9]", "");
+        return switch (key) {
+            case "SOC2" -> SOC2;
+            case "ISO27001" -> ISO_27001;
+            case "PCI", "PCIDSS" -> PCI_DSS;
+            default -> throw new IllegalArgumentException("Unknown standard '" + value
+                    + "' (supported: SOC2, ISO27001, PCI-DSS)");
+        };
+    }
+}
@@ -1,14 +1,38 @@
 package com.auditevidence.cli;
 
+import com.auditevidence.auditlog.AuditLogCollector;
 import com.auditevidence.checks.*;
-import com.auditevidence.exporter.json.JsonExporter;
-import com.auditevidence.exporter.pdf.PdfExporter;
-import com.auditevidence.exporter.zip.ZipExporter;
+import com.auditevidence.exporter.EvidenceManifest;
+import com.auditevidence.exporter.RenderCache;
+import com.auditevidence.github.EndpointPolicies;
 import com.auditevidence.github.GithubApiException;
 import com.auditevidence.github.GithubClient;
+import com.auditevidence.github.auth.TokenPool;
+import com.auditevidence.history.EvidenceHistory;
 import com.auditevidence.license.LicenseValidator;
 import com.auditevidence.model.AuditReport;
 import com.auditevidence.model.CheckResult;
+import com.auditevidence.model.GithubRepo;
+import com.auditevidence.policy.CompiledPolicy;
+import com.auditevidence.prefetch.PrefetchPlanner;
+import com.auditevidence.sweep.AuditorReadme;
+import com.auditevidence.sweep.BatchSummary;
+import com.auditevidence.sweep.EvidencePipeline;
+import com.auditevidence.sweep.FairShareExecutor;
+import com.auditevidence.snapshot.InMemorySnapshot;
+import com.auditevidence.snapshot.MappedSnapshot;
+import com.auditevidence.snapshot.SnapshotGithubClient;
+import com.auditevidence.snapshot.SnapshotWriter;
+import com.auditevidence.sweep.OrgRun;
+import com.auditevidence.sweep.ProgressJournal;
+import com.auditevidence.sweep.RepoCosts;
+import com.auditevidence.sweep.RepoSample;
+import com.auditevidence.sweep.ShardAssignment;
+import com.auditevidence.webhook.IncrementalUpdater;
+import com.auditevidence.webhook.WebhookReplay;
+import com.auditevidence.webhook.WebhookServer;
+import com.auditevidence.webhook.WebhookSignature;
+import okhttp3.OkHttpClient;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
@@ -16,21 +40,41 @@ import picocli.CommandLine.Option;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 @Command(
     name = "audit-evidence",
     mixinStandardHelpOptions = true,
     version = "1.0.0",
-    description = "GitHub SOC2 Audit Evidence Exporter - Generate auditor-ready evidence PDFs"
+    description = "GitHub SOC2 Audit Evidence Exporter - Generate auditor-ready evidence PDFs",
+    subcommands = {DiffCommand.class, MergeCommand.class, HistoryCommand.class}
 )
 public class AuditEvidenceCli implements Callable<Integer> {
 
-    @Option(names = {"--standard", "-s"}, description = "Compliance standard (default: SOC2)", defaultValue = "SOC2")
-    private String standard;
+    @Option(names = {"--standard", "-s"}, split = ",", description = "Compliance standards, comma-separated: SOC2, ISO27001, PCI-DSS. Data is collected and evaluated once for all of them (default: SOC2)", defaultValue = "SOC2")
+    private List<String> standardNames;
+
+    private final List<Standard> standards = new ArrayList<>();
 
     @Option(names = {"--provider", "-p"}, description = "Cloud provider (default: github)", defaultValue = "github")
     private String provider;
@@ -50,23 +94,96 @@ public class AuditEvidenceCli implements Callable<Integer> {
     @Option(names = {"--zip"}, description = "Create ZIP archive of all evidence files")
     private boolean createZip;
 
-    private static final List<Soc2Check> ALL_CHECKS = List.of(
-        new MfaEnabledCheck(),
-        new RepoAccessControlCheck(),
-        new BranchProtectionCheck(),
-        new PrReviewsRequiredCheck(),
-        new AuditLogCheck()
-    );
+    @Option(names = {"--html-report"}, description = "Also write audit-report.html, a browsable report of all results that loads raw data on demand")
+    private boolean htmlReport;
+
+    @Option(names = {"--analytics-export"}, description = "Also write repository and access tables in Apache Arrow format to analytics/, for pandas, Polars, DuckDB or Spark")
+    private boolean analyticsExport;
+
+    @Option(names = {"--orgs-file"}, description = "File listing GitHub organizations, one per line, for a batch run")
+    private String orgsFile;
+
+    @Option(names = {"--all-repos"}, description = "Run repository checks against every repository in the organization")
+    private boolean allRepos;
+
+    @Option(names = {"--threads"}, description = "Number of concurrent workers shared by all organizations (default: 8)", defaultValue = "8")
+    private int threads;
+
+    @Option(names = {"--render-threads"}, description = "Number of threads rendering PDF/JSON evidence while checks run (default: number of CPUs)")
+    private Integer renderThreads;
+
+    @Option(names = {"--render-cache"}, description = "Directory of previously rendered evidence; results that only changed their timestamp reuse the earlier file")
+    private String renderCachePath;
+
+    @Option(names = {"--listen"}, description = "After the run, listen for GitHub webhooks on this port and keep the evidence current (requires GITHUB_WEBHOOK_SECRET)")
+    private Integer listenPort;
+
+    @Option(names = {"--listen-host"}, description = "Interface for the webhook listener (default: 127.0.0.1)", defaultValue = "127.0.0.1")
+    private String listenHost;
+
+    @Option(names = {"--replay"}, description = "After the run, apply recorded webhook payloads from this file or directory")
+    private String replayPath;
+
+    @Option(names = {"--save-snapshot"}, description = "Collect all org data once, save it as a snapshot (a directory in batch mode) and evaluate checks against it")
+    private String saveSnapshotPath;
+
+    @Option(names = {"--hedge-percentile"}, description = "Send a duplicate GET when a response takes longer than this latency percentile of its endpoint; 0 disables (default: 95)", defaultValue = "95")
+    private int hedgePercentile;
+
+    @Option(names = {"--policy"}, description = "JSON policy file with additional pass/fail rules applied to every result")
+    private String policyPath;
+
+    @Option(names = {"--history"}, description = "Append every outcome of this run to the history store in this directory; query it with 'history'")
+    private String historyPath;
+
+    @Option(names = {"--deadline"}, description = "Finish the run within this time, e.g. 90s, 25m or 1h30m: the time left is split across the pending checks and repositories, and results not collected in time are recorded as PARTIAL")
+    private String deadlineSpec;
+
+    @Option(names = {"--resume"}, description = "Skip results recorded in the progress journal of a previous, interrupted run")
+    private boolean resume;
+
+    @Option(names = {"--shard"}, description = "Only sweep this shard of the organization's repositories, as i/N (e.g. 2/4); combine the shard outputs with 'merge'")
+    private String shardSpec;
+
+    private ShardAssignment shard = new ShardAssignment(1, 1);
+
+    @Option(names = {"--sample"}, arity = "0..1", fallbackValue = "5%", paramLabel = "SIZE", description = "Run repository checks on a random sample of the organization's repositories, stratified by visibility and activity, and estimate pass rates with 95% confidence intervals; SIZE is a percentage or a number of repositories (default: 5%)")
+    private String sampleSpec;
+
+    @Option(names = {"--sample-seed"}, description = "Seed of the --sample draw; the same seed draws the same sample from the same repositories (default: random, printed and recorded in the report)")
+    private Long sampleSeed;
+
+    private RepoSample sample;
+
+    @Option(names = {"--offline"}, description = "Evaluate checks against a saved snapshot file or directory without calling GitHub")
+    private String offlinePath;
+
+    private static final String SNAPSHOT_EXTENSION = ".snapshot";
+    private static final int RENDER_QUEUE_PER_THREAD = 4;
+    private static final int FETCH_WINDOW_PER_THREAD = 4;
+    private static final Duration RENDER_CACHE_MAX_AGE = Duration.ofDays(30);
+    private static final Duration MIN_FINISH_RESERVE = Duration.ofSeconds(5);
+
+    @Option(names = {"--audit-log-since"}, description = "Collect audit log events from this date (YYYY-MM-DD) as compressed NDJSON; later runs fetch only new events")
+    private String auditLogSince;
 
     @Override
     public Integer call() {
+        Instant startedAt = Instant.now();
         System.out.println("╔═══════════════════════════════════════════════════════════╗");
         System.out.println("║     GitHub SOC2 Audit Evidence Exporter v1.0.0            ║");
         System.out.println("╚═══════════════════════════════════════════════════════════╝");
         System.out.println();
 
-        if (!standard.equalsIgnoreCase("SOC2")) {
-            System.err.println("Error: Only SOC2 standard is supported in this version.");
+        try {
+            for (String name : standardNames) {
+                Standard standard = Standard.parse(name.trim());
+                if (!standards.contains(standard)) {
+                    standards.add(standard);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: --standard: " + e.getMessage());
             return 1;
         }
 
@@ -75,172 +192,692 @@ public class AuditEvidenceCli implements Callable<Integer> {
             return 1;
         }
 
-        String githubToken = System.getenv("GITHUB_TOKEN");
-        if (githubToken == null || githubToken.isBlank()) {
-            System.err.println("Error: GITHUB_TOKEN environment variable is required.");
+        if (renderThreads != null && renderThreads < 1) {
+            System.err.println("Error: --render-threads must be at least 1.");
             return 1;
         }
 
-        if (orgName == null || orgName.isBlank()) {
-            System.err.println("Error: Organization name is required. Use --org <name>");
+        if (hedgePercentile < 0 || hedgePercentile >= 100) {
+            System.err.println("Error: --hedge-percentile must be between 0 and 99.");
             return 1;
         }
 
+        if (shardSpec != null) {
+            try {
+                shard = ShardAssignment.parse(shardSpec);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error: --shard: " + e.getMessage());
+                return 1;
+            }
+            if (!allRepos || (repoName != null && !repoName.isBlank())) {
+                System.err.println("Error: --shard splits --all-repos and cannot be used with --repo.");
+                return 1;
+            }
+            if (listenPort != null || replayPath != null) {
+                System.err.println("Error: --listen and --replay cannot be used with --shard.");
+                return 1;
+            }
+        }
+
+        if (sampleSpec != null) {
+            if ((repoName != null && !repoName.isBlank()) || shardSpec != null) {
+                System.err.println("Error: --sample draws from all repositories and cannot be used with --repo or --shard.");
+                return 1;
+            }
+            if (listenPort != null || replayPath != null) {
+                System.err.println("Error: --listen and --replay cannot be used with --sample.");
+                return 1;
+            }
+            if (resume && sampleSeed == null) {
+                System.err.println("Error: --resume with --sample needs the --sample-seed of the interrupted run.");
+                return 1;
+            }
+            try {
+                sample = RepoSample.parse(sampleSpec,
+                        sampleSeed != null ? sampleSeed : ThreadLocalRandom.current().nextLong());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error: --sample: " + e.getMessage());
+                return 1;
+            }
+            // The sample is drawn from the listing of every repository
+            allRepos = true;
+        }
+
+        Duration deadline = null;
+        if (deadlineSpec != null) {
+            try {
+                deadline = parseDuration(deadlineSpec);
+            } catch (DateTimeParseException e) {
+                System.err.println("Error: --deadline must be a duration such as 90s, 25m, 1h30m or PT2H");
+                return 1;
+            }
+            if (deadline.isNegative() || deadline.isZero()) {
+                System.err.println("Error: --deadline must be positive.");
+                return 1;
+            }
+        }
+
+        CompiledPolicy policy = null;
+        if (policyPath != null) {
+            try {
+                policy = CompiledPolicy.load(Path.of(policyPath),
+                        CheckRegistry.defaults(null, org -> null).getCheckNames());
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Error: Could not load policy " + policyPath + ": " + e.getMessage());
+                return 1;
+            }
+        }
+
+        OkHttpClient httpClient = GithubClient.newHttpClient();
+        TokenPool tokenPool;
+        try {
+            tokenPool = TokenPool.fromEnvironment(System.getenv(), httpClient);
+        } catch (IOException | GeneralSecurityException e) {
+            System.err.println("Error: Could not load GitHub App private key: " + e.getMessage());
+            return 1;
+        }
+        if (tokenPool == null && offlinePath == null) {
+            System.err.println("Error: GITHUB_TOKEN environment variable (or GitHub App credentials) is required.");
+            return 1;
+        }
+        if (offlinePath != null && (listenPort != null || replayPath != null || auditLogSince != null)) {
+            System.err.println("Error: --listen, --replay and --audit-log-since need live GitHub access and cannot be used with --offline.");
+            return 1;
+        }
+
+        Map<String, Path> offlineSnapshots = new HashMap<>();
+        List<String> orgs;
+        try {
+            if (offlinePath != null) {
+                offlineSnapshots = findSnapshots(Path.of(offlinePath));
+            }
+            orgs = resolveOrgs(offlineSnapshots);
+        } catch (IOException e) {
+            System.err.println("Error: Could not read organizations: " + e.getMessage());
+            return 1;
+        }
+        if (orgs.isEmpty()) {
+            System.err.println("Error: Organization name is required. Use --org <name> or --orgs-file <path>");
+            return 1;
+        }
+        boolean batch = orgs.size() > 1 || orgsFile != null;
+        for (String org : orgs) {
+            if (offlinePath != null && !offlineSnapshots.containsKey(org)) {
+                System.err.println("Error: No snapshot found for organization " + org + " in " + offlinePath);
+                return 1;
+            }
+        }
+
         String licenseKey = System.getenv("AUDIT_EVIDENCE_LICENSE_KEY");
         LicenseValidator validator = new LicenseValidator();
         LicenseValidator.LicenseInfo licenseInfo = validator.validate(licenseKey);
 
         System.out.println("License: " + licenseInfo.tier() + " - " + licenseInfo.message());
-        System.out.println("Organization: " + orgName);
+        if (offlinePath != null) {
+            System.out.println("Mode: offline (snapshot " + offlinePath + ")");
+        } else if (tokenPool.size() > 1) {
+            System.out.println("Credentials: " + tokenPool.size());
+        }
+        System.out.println(batch ? "Organizations: " + String.join(", ", orgs) : "Organization: " + orgs.get(0));
+        if (standards.size() > 1 || standards.get(0) != Standard.SOC2) {
+            System.out.println("Standards: " + String.join(", ", standards.stream().map(Standard::displayName).toList()));
+        }
         if (repoName != null) {
             System.out.println("Repository: " + repoName);
+        } else if (shardSpec != null) {
+            System.out.println("Repositories: shard " + shard);
+        } else if (sample != null) {
+            System.out.println("Repositories: sample of " + sampleSpec.trim() + " (seed " + sample.getSeed() + ")");
+        } else if (allRepos) {
+            System.out.println("Repositories: all");
+        }
+        // Collection stops early enough to write the README, report and ZIP before the deadline
+        Duration finishReserve = deadline == null ? null
+                : Duration.ofMillis(Math.max(deadline.toMillis() / 10,
+                        Math.min(MIN_FINISH_RESERVE.toMillis(), deadline.toMillis() / 2)));
+        Instant sweepEnd = deadline == null ? null : startedAt.plus(deadline).minus(finishReserve);
+        if (deadline != null) {
+            System.out.println("Deadline: " + deadlineSpec + " (collection stops at " + sweepEnd + ")");
         }
         System.out.println();
 
-        GithubClient client = new GithubClient(githubToken);
-
-        List<Soc2Check> checksToRun = selectChecks(licenseInfo);
-        List<CheckResult> results = new ArrayList<>();
-        List<Path> generatedFiles = new ArrayList<>();
+        GithubClient client = tokenPool == null ? null
+                : new GithubClient(tokenPool, httpClient, new EndpointPolicies(hedgePercentile));
 
         Path outputPath = Path.of(outputDir);
-
-        System.out.println("Running " + checksToRun.size() + " checks...");
-        System.out.println();
-
-        for (Soc2Check check : checksToRun) {
-            if (check.requiresRepo() && (repoName == null || repoName.isBlank())) {
-                System.out.println("⏭  Skipping " + check.getCheckName() + " (requires --repo)");
-                continue;
-            }
-
-            System.out.print("▶ Running: " + check.getCheckName() + "... ");
-
+        AuditLogCollector auditLogCollector = null;
+        if (auditLogSince != null) {
             try {
-                CheckResult result = check.run(client, orgName, repoName);
-                results.add(result);
-
-                String statusIcon = switch (result.status()) {
-                    case PASS -> "✓";
-                    case FAIL -> "✗";
-                    case PARTIAL -> "◐";
-                };
-                System.out.println(statusIcon + " " + result.status());
-
-                Path filePath = exportResult(result, outputPath, licenseInfo);
-                if (filePath != null) {
-                    generatedFiles.add(filePath);
-                }
-            } catch (GithubApiException e) {
-                System.out.println("✗ API Error: " + e.getMessage());
-            } catch (IOException e) {
-                System.out.println("✗ Export error: " + e.getMessage());
-            } catch (Exception e) {
-                System.out.println("✗ Unexpected error: " + e.getMessage());
+                auditLogCollector = new AuditLogCollector(org -> batch ? outputPath.resolve(org) : outputPath,
+                        LocalDate.parse(auditLogSince));
+            } catch (DateTimeParseException e) {
+                System.err.println("Error: --audit-log-since must be a date in YYYY-MM-DD format");
+                return 1;
             }
         }
+        Map<String, OrgRun> runsByOrg = new ConcurrentHashMap<>();
+        CheckRegistry registry = CheckRegistry.defaults(auditLogCollector,
+                org -> runsByOrg.containsKey(org) ? runsByOrg.get(org).getAccessIndex() : null);
+        List<Soc2Check> checksToRun = selectChecks(licenseInfo, registry);
+
+        String manifestKey = EvidenceManifest.keyFromEnvironment(System.getenv());
+        if (manifestKey == null) {
+            System.out.println(EvidenceManifest.unsignedWarning());
+        }
+        System.out.println("Running " + checksToRun.size() + " checks...");
+        System.out.println();
 
+        List<OrgRun> runs = new ArrayList<>();
+        FairShareExecutor executor = new FairShareExecutor(threads);
+        executor.setDeadline(sweepEnd);
+        int renderers = renderThreads != null ? renderThreads : Runtime.getRuntime().availableProcessors();
+        EvidencePipeline pipeline = new EvidencePipeline(renderers, RENDER_QUEUE_PER_THREAD * Math.max(1, renderers));
+        RenderCache renderCache = renderCachePath == null ? null : new RenderCache(Path.of(renderCachePath));
         try {
-            createReadmeForAuditor(outputPath, results);
-            generatedFiles.add(outputPath.resolve("README_FOR_AUDITOR.txt"));
+            for (String org : orgs) {
+                OrgRun run = new OrgRun(org, batch ? outputPath.resolve(org) : outputPath, format, licenseInfo,
+                        allRepos, batch ? "[" + org + "] " : "");
+                run.usePolicy(policy);
+                run.useStandards(registry, standards);
+                run.usePipeline(pipeline, createZip);
+                run.useRenderCache(renderCache);
+                run.useManifestKey(manifestKey);
+                run.useHtmlReport(htmlReport);
+                run.useJournal(ProgressJournal.open(run.getOutputDir(), resume));
+                run.useAnalyticsExport(analyticsExport);
+                runs.add(run);
+                runsByOrg.put(org, run);
+                expectChecks(run, checksToRun);
+                Path snapshotPath = offlinePath != null ? offlineSnapshots.get(org)
+                        : saveSnapshotPath == null ? null
+                        : batch ? Path.of(saveSnapshotPath).resolve(org + SNAPSHOT_EXTENSION)
+                        : Path.of(saveSnapshotPath);
+                executor.submit(org, () -> scheduleOrg(executor, client, snapshotPath, run, checksToRun));
+            }
+            if (sweepEnd == null) {
+                executor.awaitCompletion();
+            } else if (!executor.awaitCompletion(sweepEnd)) {
+                stopAtDeadline(executor, sweepEnd.plus(finishReserve.dividedBy(4)));
+            }
+            pipeline.awaitCompletion();
+            if (sweepEnd != null) {
+                // Also when every task ended in time: one cancelled at its share of the deadline, such as a
+                // prefetch, can leave checks unscheduled
+                recordUnfinished(runs);
+            }
         } catch (IOException e) {
-            System.err.println("Warning: Could not create README_FOR_AUDITOR.txt: " + e.getMessage());
+            System.err.println("Error: Could not open " + ProgressJournal.JOURNAL_FILE + ": " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Error: Run was interrupted");
+            return 1;
+        } finally {
+            executor.shutdown();
+            pipeline.shutdown();
         }
 
-        if (createZip) {
-            if (!licenseInfo.canExportZip()) {
-                System.out.println();
-                System.out.println("⚠ ZIP export is only available in the paid tier.");
-            } else {
+        System.out.println();
+        for (OrgRun run : runs) {
+            run.finish(createZip);
+            if (offlinePath == null) {
                 try {
-                    ZipExporter zipExporter = new ZipExporter();
-                    Path zipPath = outputPath.resolve("SOC2_Evidence_" + orgName + ".zip");
-                    zipExporter.createZip(generatedFiles, zipPath);
-                    System.out.println();
-                    System.out.println("📦 Created ZIP archive: " + zipPath);
+                    run.getRepoCosts().save(run.getOutputDir());
                 } catch (IOException e) {
-                    System.err.println("Error creating ZIP: " + e.getMessage());
+                    System.err.println("Warning: Could not save " + RepoCosts.FILE + ": " + e.getMessage());
                 }
             }
+            if (shardSpec != null) {
+                try {
+                    shard.writeMarker(run.getOutputDir());
+                } catch (IOException e) {
+                    System.err.println("Warning: Could not create " + ShardAssignment.SHARD_FILE + ": " + e.getMessage());
+                }
+            }
+        }
+
+        if (historyPath != null) {
+            appendHistory(Path.of(historyPath), startedAt, runs);
+        }
+
+        if (renderCache != null) {
+            System.out.println("♻ Reused " + renderCache.getHits() + " of "
+                    + (renderCache.getHits() + renderCache.getMisses()) + " evidence files from the render cache");
+            try {
+                renderCache.prune(RENDER_CACHE_MAX_AGE);
+            } catch (IOException e) {
+                System.err.println("Warning: Could not prune render cache: " + e.getMessage());
+            }
+        }
+
+        if (batch) {
+            try {
+                BatchSummary.write(outputPath, runs.stream().map(BatchSummary.Line::of).toList());
+            } catch (IOException e) {
+                System.err.println("Warning: Could not create " + BatchSummary.FILE + ": " + e.getMessage());
+            }
         }
 
         System.out.println();
         System.out.println("════════════════════════════════════════════════════════════");
-        System.out.println("Summary: " + results.stream().filter(r -> r.status() == CheckResult.Status.PASS).count() + " passed, "
-                + results.stream().filter(r -> r.status() == CheckResult.Status.FAIL).count() + " failed, "
-                + results.stream().filter(r -> r.status() == CheckResult.Status.PARTIAL).count() + " partial");
+        for (OrgRun run : runs) {
+            System.out.println((batch ? run.getOrgName() + " - " : "") + "Summary: "
+                    + run.count(CheckResult.Status.PASS) + " passed, "
+                    + run.count(CheckResult.Status.FAIL) + " failed, "
+                    + run.count(CheckResult.Status.PARTIAL) + " partial");
+            AuditReport.Sample sampleSummary = run.getSampleSummary();
+            if (sampleSummary != null) {
+                for (String line : AuditorReadme.sampleLines(sampleSummary)) {
+                    System.out.println("  " + line);
+                }
+            }
+        }
         System.out.println("Output directory: " + outputPath.toAbsolutePath());
         System.out.println("════════════════════════════════════════════════════════════");
 
+        if (replayPath != null || listenPort != null) {
+            return runIncrementalUpdates(client, checksToRun, runs);
+        }
         return 0;
     }
 
-    private List<Soc2Check> selectChecks(LicenseValidator.LicenseInfo licenseInfo) {
-        int maxChecks = licenseInfo.maxChecks();
-        if (maxChecks >= ALL_CHECKS.size()) {
-            return ALL_CHECKS;
+    private int runIncrementalUpdates(GithubClient client, List<Soc2Check> checks, List<OrgRun> runs) {
+        String secret = System.getenv("GITHUB_WEBHOOK_SECRET");
+        WebhookSignature signature = secret == null || secret.isBlank() ? null : new WebhookSignature(secret);
+        IncrementalUpdater updater = new IncrementalUpdater(client, checks, runs, allRepos, createZip);
+
+        if (replayPath != null) {
+            System.out.println();
+            try {
+                int rerun = new WebhookReplay(updater, signature).replay(Path.of(replayPath));
+                System.out.println("Replayed webhook payloads from " + replayPath + ": " + rerun + " check(s) re-run");
+            } catch (IOException e) {
+                System.err.println("Error: Could not replay webhook payloads: " + e.getMessage());
+                return 1;
+            }
+        }
+
+        if (listenPort == null) {
+            return 0;
+        }
+        if (signature == null) {
+            System.err.println("Error: GITHUB_WEBHOOK_SECRET environment variable is required for --listen.");
+            return 1;
         }
-        return ALL_CHECKS.subList(0, maxChecks);
+
+        WebhookServer server = new WebhookServer(updater, signature);
+        CountDownLatch stopped = new CountDownLatch(1);
+        try {
+            server.start(listenHost, listenPort);
+        } catch (IOException e) {
+            System.err.println("Error: Could not start webhook listener: " + e.getMessage());
+            return 1;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            stopped.countDown();
+        }));
+
+        System.out.println();
+        System.out.println("👂 Listening for webhooks on http://" + listenHost + ":" + listenPort + WebhookServer.PATH);
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 0;
     }
 
-    private Path exportResult(CheckResult result, Path outputPath, LicenseValidator.LicenseInfo licenseInfo)
-            throws IOException {
-        String fileName = "SOC2_" + result.clauseId() + "_" + sanitizeFileName(result.checkName());
+    /**
+     * Drops the tasks that have not started and gives the running ones (whose GitHub calls are already
+     * cancelled at the deadline) until {@code grace} to record their result.
+     */
+    private void stopAtDeadline(FairShareExecutor executor, Instant grace) throws InterruptedException {
+        int dropped = executor.cancelQueued();
+        executor.awaitCompletion(grace);
+        System.out.println();
+        System.out.println("⏰ Deadline reached, " + dropped + " queued task(s) dropped");
+    }
 
-        if (format.equalsIgnoreCase("json")) {
-            Path jsonPath = outputPath.resolve(fileName + ".json");
-            JsonExporter jsonExporter = new JsonExporter();
-            jsonExporter.export(result, jsonPath);
-            return jsonPath;
-        } else {
-            Path pdfPath = outputPath.resolve(fileName + ".pdf");
-            PdfExporter pdfExporter = new PdfExporter(licenseInfo.showWatermark());
-            pdfExporter.export(result, pdfPath);
-            return pdfPath;
+    /**
+     * Records every scheduled check without a result as PARTIAL.
+     */
+    private void recordUnfinished(List<OrgRun> runs) {
+        for (OrgRun run : runs) {
+            int unfinished = run.recordUnfinished("Not collected before the run deadline (--deadline "
+                    + deadlineSpec + ")");
+            if (unfinished > 0) {
+                System.out.println(run.getLogPrefix() + "◐ " + unfinished + " result(s) recorded as PARTIAL");
+            }
+        }
+    }
+
+    private void appendHistory(Path storeDir, Instant at, List<OrgRun> runs) {
+        try (EvidenceHistory history = EvidenceHistory.open(storeDir)) {
+            for (OrgRun run : runs) {
+                Map<EvidenceHistory.Series, CheckResult.Status> outcomes = new HashMap<>();
+                for (OrgRun.Entry entry : run.getEntries()) {
+                    CheckResult result = entry.result();
+                    outcomes.put(new EvidenceHistory.Series(run.getOrgName(), entry.repo(), result.checkName(),
+                            result.standard(), result.clauseId()), result.status());
+                }
+                history.append(at, outcomes);
+            }
+            System.out.println("🕘 Recorded " + runs.size() + " run(s) in history " + storeDir + " ("
+                    + history.runCount() + " runs, " + history.seriesCount() + " series)");
+        } catch (IOException e) {
+            System.err.println("Warning: Could not update history " + storeDir + ": " + e.getMessage());
+        }
+    }
+
+    private List<String> resolveOrgs(Map<String, Path> offlineSnapshots) throws IOException {
+        List<String> orgs = new ArrayList<>();
+        if (orgName != null && !orgName.isBlank()) {
+            orgs.add(orgName.trim());
+        }
+        if (orgsFile != null) {
+            for (String line : Files.readAllLines(Path.of(orgsFile))) {
+                String org = line.trim();
+                if (!org.isEmpty() && !org.startsWith("#") && !orgs.contains(org)) {
+                    orgs.add(org);
+                }
+            }
+        }
+        if (orgs.isEmpty()) {
+            orgs.addAll(offlineSnapshots.keySet());
+        }
+        return orgs;
+    }
+
+    private void scheduleOrg(FairShareExecutor executor, GithubClient liveClient, Path snapshotPath, OrgRun run,
+                             List<Soc2Check> checks) {
+        String org = run.getOrgName();
+        if (offlinePath != null) {
+            MappedSnapshot snapshot;
+            try {
+                snapshot = MappedSnapshot.open(snapshotPath);
+            } catch (IOException e) {
+                System.out.println(run.getLogPrefix() + "✗ Could not load snapshot: " + e.getMessage());
+                return;
+            }
+            scheduleChecks(executor, new SnapshotGithubClient(snapshot), run, checks, snapshot::close);
+            return;
+        }
+
+        List<String> repos = repoName != null && !repoName.isBlank() ? List.of(repoName)
+                : allRepos ? null : List.of();
+
+        if (snapshotPath == null) {
+            Set<DataRequirement> requirements = PrefetchPlanner.requirementsOf(checks.stream()
+                    .filter(check -> check.requiresRepo() || (shard.isPrimary() && !run.isCompleted(check, null)))
+                    .toList());
+            Predicate<String> needsRepoData = repo -> shard.owns(repo) && checks.stream()
+                    .anyMatch(check -> check.requiresRepo() && !run.isCompleted(check, repo));
+            PrefetchPlanner.RepoSelection selection = sample == null ? listed -> needsRepoData
+                    : listed -> needsRepoData.and(drawSample(run, listed)::contains);
+            streamOrg(executor, liveClient, run, checks, requirements, repos, selection);
+            return;
         }
+
+        // A saved snapshot holds all of the shard's data, whatever this run's checks read
+        Predicate<String> owned = shard::owns;
+        PrefetchPlanner.RepoSelection selection = sample == null ? listed -> owned
+                : listed -> owned.and(sample.draw(listed)::contains);
+        new PrefetchPlanner(liveClient)
+                .prefetch(org, EnumSet.allOf(DataRequirement.class), repos, selection, run.getRepoCosts(),
+                        (task, cost) -> executor.submit(org, cost, task))
+                .thenAccept(result -> {
+                    for (String error : result.errors()) {
+                        System.out.println(run.getLogPrefix() + "✗ " + error);
+                    }
+                    InMemorySnapshot snapshot = result.snapshot();
+                    try {
+                        new SnapshotWriter().write(snapshot, snapshotPath);
+                        System.out.println(run.getLogPrefix() + "💾 Saved snapshot of " + org + " ("
+                                + snapshot.getRepos().size() + " repositories): " + snapshotPath);
+                    } catch (IOException e) {
+                        System.out.println(run.getLogPrefix() + "✗ Could not save snapshot: " + e.getMessage());
+                    }
+                    scheduleChecks(executor, new SnapshotGithubClient(snapshot, liveClient), run, checks,
+                            snapshot::release);
+                })
+                .exceptionally(e -> {
+                    System.out.println(run.getLogPrefix() + "✗ Could not prefetch data: " + e.getMessage());
+                    return null;
+                });
     }
 
-    private String sanitizeFileName(String name) {
-        return name.replaceAll("[^a-zA-Z0-9]", "_");
+    /**
+     * Runs an organization's checks as its data streams in: its own checks once the organization's data is
+     * fetched, and each repository's checks as soon as that repository's data is. A repository's data is
+     * dropped once its checks have been evaluated, which lets the next one be fetched; every check keeps the
+     * responses it read until its evidence is rendered. The organization's data is released once every check
+     * has rendered its evidence.
+     */
+    private void streamOrg(FairShareExecutor executor, GithubClient liveClient, OrgRun run, List<Soc2Check> checks,
+                           Set<DataRequirement> requirements, List<String> repos,
+                           PrefetchPlanner.RepoSelection selection) {
+        String org = run.getOrgName();
+        AtomicReference<InMemorySnapshot> fetched = new AtomicReference<>();
+        // One count for the streaming itself, so checks that finish early cannot release the data
+        AtomicInteger pending = new AtomicInteger(1);
+        Runnable rendered = () -> {
+            if (pending.decrementAndGet() == 0 && fetched.get() != null) {
+                fetched.get().release();
+            }
+        };
+        if (repos != null && repos.isEmpty()) {
+            for (Soc2Check check : checks) {
+                if (check.requiresRepo()) {
+                    System.out.println(run.getLogPrefix() + "⏭  Skipping " + check.getCheckName() + " (requires --repo or --all-repos)");
+                }
+            }
+        }
+
+        PrefetchPlanner.Listener listener = new PrefetchPlanner.Listener() {
+            @Override
+            public void organizationFetched(InMemorySnapshot snapshot) {
+                fetched.set(snapshot);
+                GithubClient client = new SnapshotGithubClient(snapshot, liveClient);
+                for (Soc2Check check : checks) {
+                    if (!check.requiresRepo() && shard.isPrimary() && !run.isCompleted(check, null)) {
+                        run.expect(check, null);
+                        pending.incrementAndGet();
+                        executor.submit(org, () -> run.runCheck(check, client, null, rendered));
+                    }
+                }
+            }
+
+            @Override
+            public void repositoriesSelected(List<String> repoNames) {
+                for (Soc2Check check : checks) {
+                    for (String repo : repoNames) {
+                        if (check.requiresRepo() && !run.isCompleted(check, repo)) {
+                            run.expect(check, repo);
+                        }
+                    }
+                }
+            }
+
+            @Override
+            public void repositoryFetched(InMemorySnapshot snapshot, String repo, Runnable evaluated) {
+                GithubClient client = new SnapshotGithubClient(snapshot, liveClient);
+                List<Soc2Check> repoChecks = checks.stream()
+                        .filter(check -> check.requiresRepo() && !run.isCompleted(check, repo))
+                        .toList();
+                AtomicInteger unevaluated = new AtomicInteger(repoChecks.size());
+                for (Soc2Check check : repoChecks) {
+                    pending.incrementAndGet();
+                    executor.submit(org, run.getRepoCosts().estimate(repo), () -> {
+                        try {
+                            run.runCheck(check, client, repo, rendered);
+                        } finally {
+                            if (unevaluated.decrementAndGet() == 0) {
+                                evaluated.run();
+                            }
+                        }
+                    });
+                }
+                if (repoChecks.isEmpty()) {
+                    evaluated.run();
+                }
+            }
+        };
+
+        new PrefetchPlanner(liveClient)
+                .stream(org, requirements, repos, selection, run.getRepoCosts(),
+                        (task, cost) -> executor.submit(org, cost, task),
+                        FETCH_WINDOW_PER_THREAD * Math.max(1, threads), listener)
+                .whenComplete((result, e) -> {
+                    if (e != null) {
+                        System.out.println(run.getLogPrefix() + "✗ Could not prefetch data: " + e.getMessage());
+                        return;
+                    }
+                    for (String error : result.errors()) {
+                        System.out.println(run.getLogPrefix() + "✗ " + error);
+                    }
+                    fetched.set(result.snapshot());
+                    rendered.run();
+                });
     }
 
-    private void createReadmeForAuditor(Path outputPath, List<CheckResult> results) throws IOException {
-        Files.createDirectories(outputPath);
+    /**
+     * Notes the checks {@link #scheduleChecks} will run, before the repositories are listed.
+     */
+    private void expectChecks(OrgRun run, List<Soc2Check> checks) {
+        for (Soc2Check check : checks) {
+            if (!check.requiresRepo()) {
+                if (shard.isPrimary() && !run.isCompleted(check, null)) {
+                    run.expect(check, null);
+                }
+            } else if (repoName != null && !repoName.isBlank()) {
+                if (!run.isCompleted(check, repoName)) {
+                    run.expect(check, repoName);
+                }
+            } else if (allRepos) {
+                run.expect(check, null);
+            }
+        }
+    }
 
-        StringBuilder sb = new StringBuilder();
-        sb.append("SOC2 AUDIT EVIDENCE PACKAGE\n");
-        sb.append("===========================\n\n");
-        sb.append("Generated: ").append(Instant.now()).append("\n");
-        sb.append("Standard: SOC2\n");
-        sb.append("Provider: GitHub\n\n");
+    /**
+     * @param evaluated run once every scheduled check has rendered its evidence, so the data {@code client}
+     *                  serves can be released; not run when a check is dropped at the deadline
+     */
+    private void scheduleChecks(FairShareExecutor executor, GithubClient client, OrgRun run, List<Soc2Check> checks,
+                                Runnable evaluated) {
+        String org = run.getOrgName();
+        // One count for the scheduling itself, so checks that finish early cannot release the data
+        AtomicInteger pending = new AtomicInteger(1);
+        Runnable rendered = () -> {
+            if (pending.decrementAndGet() == 0) {
+                evaluated.run();
+            }
+        };
+        for (Soc2Check check : checks) {
+            if (!check.requiresRepo() && shard.isPrimary() && !run.isCompleted(check, null)) {
+                run.expect(check, null);
+                pending.incrementAndGet();
+                executor.submit(org, () -> run.runCheck(check, client, null, rendered));
+            }
+        }
 
-        sb.append("CONTENTS\n");
-        sb.append("--------\n");
-        for (CheckResult result : results) {
-            sb.append("- ").append(result.clauseId()).append(": ").append(result.checkName());
-            sb.append(" [").append(result.status()).append("]\n");
+        List<String> repos;
+        try {
+            repos = resolveRepos(client, run);
+        } catch (GithubApiException e) {
+            System.out.println(run.getLogPrefix() + "✗ Could not list repositories: " + e.getMessage());
+            rendered.run();
+            return;
         }
 
-        sb.append("\nNOTES FOR AUDITOR\n");
-        sb.append("-----------------\n");
-        sb.append("1. Each PDF/JSON file contains:\n");
-        sb.append("   - The SOC2 clause being addressed\n");
-        sb.append("   - Timestamp of data collection\n");
-        sb.append("   - Raw API response data\n");
-        sb.append("   - Pass/Fail determination with findings\n\n");
+        for (Soc2Check check : checks) {
+            if (!check.requiresRepo()) {
+                continue;
+            }
+            if (repos.isEmpty()) {
+                System.out.println(run.getLogPrefix() + "⏭  Skipping " + check.getCheckName() + " (requires --repo or --all-repos)");
+                continue;
+            }
+            for (String repo : repos) {
+                if (!run.isCompleted(check, repo)) {
+                    run.expect(check, repo);
+                    pending.incrementAndGet();
+                    executor.submit(org, run.getRepoCosts().estimate(repo),
+                            () -> run.runCheck(check, client, repo, rendered));
+                }
+            }
+        }
+        rendered.run();
+    }
 
-        sb.append("2. Data Source:\n");
-        sb.append("   All evidence was collected directly from the GitHub REST API.\n");
-        sb.append("   API endpoints used are documented in each evidence file.\n\n");
+    private Map<String, Path> findSnapshots(Path path) throws IOException {
+        List<Path> files;
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> list = Files.list(path)) {
+                files = list.filter(f -> f.getFileName().toString().endsWith(SNAPSHOT_EXTENSION)).sorted().toList();
+            }
+        } else {
+            files = List.of(path);
+        }
 
-        sb.append("3. Verification:\n");
-        sb.append("   The raw JSON data can be independently verified by calling\n");
-        sb.append("   the documented GitHub API endpoints with appropriate authentication.\n\n");
+        Map<String, Path> snapshots = new LinkedHashMap<>();
+        for (Path file : files) {
+            try (MappedSnapshot snapshot = MappedSnapshot.open(file)) {
+                snapshots.put(snapshot.getOrgName(), file);
+            }
+        }
+        return snapshots;
+    }
 
-        sb.append("Generated by: GitHub SOC2 Audit Evidence Exporter\n");
-        sb.append("https://github.com/jekka001/audit-evidence\n");
+    private List<String> resolveRepos(GithubClient client, OrgRun run) throws GithubApiException {
+        if (repoName != null && !repoName.isBlank()) {
+            return List.of(repoName);
+        }
+        if (!allRepos) {
+            return List.of();
+        }
+        List<GithubRepo> listed = client.getOrganizationRepos(run.getOrgName());
+        // The same draw as the prefetch's, which had the same listing
+        RepoSample.Draw draw = sample == null ? null : drawSample(run, listed);
+        RepoCosts costs = run.getRepoCosts();
+        List<String> repos = new ArrayList<>();
+        for (GithubRepo repo : listed) {
+            if (shard.owns(repo.name()) && (draw == null || draw.contains(repo.name()))) {
+                costs.observe(repo);
+                repos.add(repo.name());
+            }
+        }
+        return repos;
+    }
+
+    private RepoSample.Draw drawSample(OrgRun run, List<GithubRepo> listed) {
+        RepoSample.Draw draw = sample.draw(listed);
+        run.useSample(draw);
+        System.out.println(run.getLogPrefix() + "🎲 Sampled " + draw.size() + " of " + draw.population()
+                + " repositories (seed " + sample.getSeed() + ")");
+        return draw;
+    }
 
-        Files.writeString(outputPath.resolve("README_FOR_AUDITOR.txt"), sb.toString());
+    private List<Soc2Check> selectChecks(LicenseValidator.LicenseInfo licenseInfo, CheckRegistry registry) {
+        List<Soc2Check> allChecks = registry.getChecks(standards);
+
+        int maxChecks = licenseInfo.maxChecks();
+        if (maxChecks >= allChecks.size()) {
+            return allChecks;
+        }
+        return allChecks.subList(0, maxChecks);
+    }
+
+    /**
+     * Parses 90s, 25m, 1h30m and other combinations of h, m and s, or an ISO-8601 duration such as PT2H.
+     */
+    static Duration parseDuration(String value) {
+        String trimmed = value.trim();
+        if (trimmed.matches("(?i)(\\d+[hms])+")) {
+            return Duration.parse("PT" + trimmed.toUpperCase(Locale.ROOT));
+        }
+        return Duration.parse(trimmed);
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,83 @@
+package com.auditevidence.cli;
+
+import com.auditevidence.diff.EvidenceDiff;
+import com.auditevidence.diff.EvidenceSet;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+@Command(
+    name = "diff",
+    mixinStandardHelpOptions = true,
+    description = "Compare two evidence runs (audit-report.json files or output directories)"
+)
+public class DiffCommand implements Callable<Integer> {
+    private static final Map<EvidenceDiff.Kind, String> HEADINGS = Map.of(
+            EvidenceDiff.Kind.STATUS_CHANGED, "STATUS CHANGES",
+            EvidenceDiff.Kind.NEW_ADMIN, "NEW ADMINS",
+            EvidenceDiff.Kind.ADMIN_REMOVED, "REMOVED ADMINS",
+            EvidenceDiff.Kind.PROTECTION_REMOVED, "REMOVED PROTECTIONS",
+            EvidenceDiff.Kind.PROTECTION_WEAKENED, "WEAKENED PROTECTIONS",
+            EvidenceDiff.Kind.ADDED, "NEW RESULTS",
+            EvidenceDiff.Kind.REMOVED, "MISSING RESULTS",
+            EvidenceDiff.Kind.DATA_CHANGED, "OTHER CHANGES"
+    );
+
+    @Parameters(index = "0", description = "Earlier evidence (report file or directory)")
+    private Path before;
+
+    @Parameters(index = "1", description = "Later evidence (report file or directory)")
+    private Path after;
+
+    @Option(names = {"--json"}, description = "Print the change report as JSON")
+    private boolean json;
+
+    @Override
+    public Integer call() {
+        EvidenceDiff.Report report;
+        try {
+            report = EvidenceDiff.compare(EvidenceSet.load(before), EvidenceSet.load(after));
+        } catch (IOException e) {
+            System.err.println("Error: Could not read evidence: " + e.getMessage());
+            return 1;
+        }
+
+        if (json) {
+            try {
+                System.out.println(new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                        .writeValueAsString(report));
+            } catch (IOException e) {
+                System.err.println("Error: " + e.getMessage());
+                return 1;
+            }
+            return 0;
+        }
+
+        System.out.println("Comparing " + before + " -> " + after);
+        System.out.println("Compared " + report.compared() + " results: " + report.unchanged() + " unchanged, "
+                + (report.compared() - report.unchanged()) + " changed");
+
+        for (EvidenceDiff.Kind kind : EvidenceDiff.Kind.values()) {
+            List<EvidenceDiff.Change> changes = report.changes().stream()
+                    .filter(c -> c.kind() == kind)
+                    .toList();
+            if (changes.isEmpty()) {
+                continue;
+            }
+            System.out.println();
+            System.out.println(HEADINGS.get(kind) + " (" + changes.size() + ")");
+            for (EvidenceDiff.Change change : changes) {
+                System.out.println("  " + change.result() + ": " + change.detail());
+            }
+        }
+        return 0;
+    }
+}
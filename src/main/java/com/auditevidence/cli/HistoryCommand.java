@@ -0,0 +1,124 @@
+package com.auditevidence.cli;
+
+import com.auditevidence.history.EvidenceHistory;
+import com.auditevidence.model.CheckResult;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
+
+@Command(
+    name = "history",
+    mixinStandardHelpOptions = true,
+    description = "Query the outcomes recorded with --history, as CSV"
+)
+public class HistoryCommand implements Callable<Integer> {
+
+    @Parameters(index = "0", description = "History store directory")
+    private Path storeDir;
+
+    @Option(names = {"--org", "-o"}, description = "Only this organization")
+    private String orgName;
+
+    @Option(names = {"--repo", "-r"}, description = "Only this repository")
+    private String repoName;
+
+    @Option(names = {"--check", "-c"}, description = "Only this check, e.g. \"Pull Request Reviews Required\"")
+    private String checkName;
+
+    @Option(names = {"--clause"}, description = "Only this clause ID, e.g. CC6.1 or A.8.5")
+    private String clauseId;
+
+    @Option(names = {"--since"}, description = "First day to include (YYYY-MM-DD, UTC)")
+    private String since;
+
+    @Option(names = {"--months"}, description = "Include the last N months (instead of --since)")
+    private Integer months;
+
+    @Option(names = {"--until"}, description = "Last day to include (YYYY-MM-DD, UTC)")
+    private String until;
+
+    @Option(names = {"--changes"}, description = "Only print each series' first outcome and the outcomes where its status changed")
+    private boolean changes;
+
+    @Option(names = {"--first"}, description = "Only print the first outcome with this status (PASS, FAIL, PARTIAL) of each series")
+    private CheckResult.Status first;
+
+    @Override
+    public Integer call() {
+        if (!Files.exists(storeDir.resolve(EvidenceHistory.INDEX_FILE))) {
+            System.err.println("Error: No history store in " + storeDir);
+            return 1;
+        }
+        if (since != null && months != null) {
+            System.err.println("Error: Use either --since or --months.");
+            return 1;
+        }
+
+        Instant from;
+        Instant to;
+        try {
+            from = months != null ? ZonedDateTime.now(ZoneOffset.UTC).minusMonths(months).toInstant()
+                    : since != null ? LocalDate.parse(since).atStartOfDay(ZoneOffset.UTC).toInstant()
+                    : Instant.EPOCH;
+            to = until != null ? LocalDate.parse(until).plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant()
+                    : Instant.MAX;
+        } catch (DateTimeParseException e) {
+            System.err.println("Error: --since and --until must be dates in YYYY-MM-DD format");
+            return 1;
+        }
+
+        Predicate<EvidenceHistory.Series> filter = series ->
+                (orgName == null || orgName.equalsIgnoreCase(series.organization()))
+                        && (repoName == null || repoName.equalsIgnoreCase(series.repo()))
+                        && (checkName == null || checkName.equalsIgnoreCase(series.checkName()))
+                        && (clauseId == null || clauseId.equalsIgnoreCase(series.clauseId()));
+
+        Map<EvidenceHistory.Series, CheckResult.Status> previous = new HashMap<>();
+        Map<EvidenceHistory.Series, EvidenceHistory.Outcome> firsts = new LinkedHashMap<>();
+        System.out.println("Timestamp,Organization,Repository,Standard,Clause,Check,Status");
+        try (EvidenceHistory history = EvidenceHistory.open(storeDir)) {
+            history.scan(filter, from, to, outcome -> {
+                if (first != null) {
+                    if (outcome.status() == first) {
+                        firsts.putIfAbsent(outcome.series(), outcome);
+                    }
+                } else if (!changes || previous.put(outcome.series(), outcome.status()) != outcome.status()) {
+                    print(outcome);
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Error: Could not read history: " + e.getMessage());
+            return 1;
+        }
+        firsts.values().forEach(HistoryCommand::print);
+        return 0;
+    }
+
+    private static void print(EvidenceHistory.Outcome outcome) {
+        EvidenceHistory.Series series = outcome.series();
+        System.out.println(String.join(",", outcome.at().toString(), csv(series.organization()),
+                csv(series.repo() == null ? "" : series.repo()), csv(series.standard()), csv(series.clauseId()),
+                csv(series.checkName()), outcome.status().name()));
+    }
+
+    private static String csv(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
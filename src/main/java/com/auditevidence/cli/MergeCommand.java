@@ -0,0 +1,77 @@
+package com.auditevidence.cli;
+
+import com.auditevidence.exporter.EvidenceManifest;
+import com.auditevidence.license.LicenseValidator;
+import com.auditevidence.merge.ShardMerger;
+import com.auditevidence.sweep.BatchSummary;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+@Command(
+    name = "merge",
+    mixinStandardHelpOptions = true,
+    description = "Combine the output directories of --shard runs into one evidence package"
+)
+public class MergeCommand implements Callable<Integer> {
+
+    @Parameters(arity = "1..*", description = "Output directories of the shard runs")
+    private List<Path> shardDirs;
+
+    @Option(names = {"--output", "-O"}, description = "Output directory (default: ./audit-evidence)", defaultValue = "./audit-evidence")
+    private Path outputDir;
+
+    @Option(names = {"--zip"}, description = "Create ZIP archive of all evidence files")
+    private boolean createZip;
+
+    @Option(names = {"--html-report"}, description = "Also write audit-report.html, a browsable report of all results that loads raw data on demand")
+    private boolean htmlReport;
+
+    @Override
+    public Integer call() {
+        LicenseValidator.LicenseInfo licenseInfo = new LicenseValidator()
+                .validate(System.getenv("AUDIT_EVIDENCE_LICENSE_KEY"));
+        boolean zip = createZip && licenseInfo.canExportZip();
+        if (createZip && !zip) {
+            System.out.println("⚠ ZIP export is only available in the paid tier.");
+        }
+
+        String manifestKey = EvidenceManifest.keyFromEnvironment(System.getenv());
+        if (manifestKey == null) {
+            System.out.println(EvidenceManifest.unsignedWarning());
+        }
+
+        List<BatchSummary.Line> merged;
+        try {
+            merged = new ShardMerger(zip, manifestKey, htmlReport)
+                    .merge(shardDirs, outputDir);
+        } catch (IOException e) {
+            System.err.println("Error: Could not merge shards: " + e.getMessage());
+            return 1;
+        }
+
+        boolean batch = merged.size() > 1
+                || merged.stream().anyMatch(line -> !line.outputDir().equals(outputDir));
+        if (batch) {
+            try {
+                BatchSummary.write(outputDir, merged);
+            } catch (IOException e) {
+                System.err.println("Warning: Could not create " + BatchSummary.FILE + ": " + e.getMessage());
+            }
+        }
+
+        for (BatchSummary.Line line : merged) {
+            System.out.println((batch ? line.orgName() + " - " : "") + "Summary: "
+                    + line.pass() + " passed, "
+                    + line.fail() + " failed, "
+                    + line.partial() + " partial");
+        }
+        System.out.println("Output directory: " + outputDir.toAbsolutePath());
+        return 0;
+    }
+}
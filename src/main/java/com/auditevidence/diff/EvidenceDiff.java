@@ -0,0 +1,170 @@
+package com.auditevidence.diff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Compares two evidence runs. Identical runs are detected from their root hashes alone; otherwise only
+ * results whose hashes differ are inspected for status flips, admin changes and weakened protection.
+ */
+public final class EvidenceDiff {
+
+    public enum Kind {
+        STATUS_CHANGED,
+        ADDED,
+        REMOVED,
+        NEW_ADMIN,
+        ADMIN_REMOVED,
+        PROTECTION_REMOVED,
+        PROTECTION_WEAKENED,
+        DATA_CHANGED
+    }
+
+    public record Change(Kind kind, String result, String detail) {}
+
+    public record Report(int compared, int unchanged, List<Change> changes) {
+        public long count(Kind kind) {
+            return changes.stream().filter(c -> c.kind() == kind).count();
+        }
+    }
+
+    private EvidenceDiff() {
+    }
+
+    public static Report compare(EvidenceSet before, EvidenceSet after) {
+        Map<String, EvidenceSet.Result> oldResults = before.getResults();
+        Map<String, EvidenceSet.Result> newResults = after.getResults();
+        if (before.sameAs(after)) {
+            return new Report(newResults.size(), newResults.size(), List.of());
+        }
+
+        Set<String> keys = new TreeSet<>(oldResults.keySet());
+        keys.addAll(newResults.keySet());
+
+        List<Change> changes = new ArrayList<>();
+        int unchanged = 0;
+        for (String key : keys) {
+            EvidenceSet.Result oldResult = oldResults.get(key);
+            EvidenceSet.Result newResult = newResults.get(key);
+            if (oldResult == null) {
+                changes.add(new Change(Kind.ADDED, key, newResult.status()));
+                continue;
+            }
+            if (newResult == null) {
+                changes.add(new Change(Kind.REMOVED, key, "was " + oldResult.status()));
+                continue;
+            }
+            if (Arrays.equals(oldResult.hash(), newResult.hash())) {
+                unchanged++;
+                continue;
+            }
+            compareResult(key, oldResult, newResult, changes);
+        }
+        return new Report(keys.size(), unchanged, changes);
+    }
+
+    private static void compareResult(String key, EvidenceSet.Result before, EvidenceSet.Result after,
+                                      List<Change> changes) {
+        int found = changes.size();
+        if (!before.status().equals(after.status())) {
+            changes.add(new Change(Kind.STATUS_CHANGED, key, before.status() + " -> " + after.status()));
+        }
+        if (before.rawData().sameAs(after.rawData())) {
+            return;
+        }
+
+        JsonNode oldData = before.rawData().value();
+        JsonNode newData = after.rawData().value();
+        compareAdmins(key, oldData, newData, changes);
+        compareProtection(key, oldData, newData, changes);
+
+        if (changes.size() == found) {
+            changes.add(new Change(Kind.DATA_CHANGED, key,
+                    String.join(", ", before.rawData().changedPaths(after.rawData()))));
+        }
+    }
+
+    private static void compareAdmins(String key, JsonNode before, JsonNode after, List<Change> changes) {
+        if (!after.path("admins").isArray()) {
+            return;
+        }
+        Set<String> oldAdmins = logins(before.path("admins"));
+        for (String admin : logins(after.path("admins"))) {
+            if (!oldAdmins.remove(admin)) {
+                changes.add(new Change(Kind.NEW_ADMIN, key, admin));
+            }
+        }
+        for (String admin : oldAdmins) {
+            changes.add(new Change(Kind.ADMIN_REMOVED, key, admin));
+        }
+    }
+
+    private static void compareProtection(String key, JsonNode before, JsonNode after, List<Change> changes) {
+        if (!after.has("defaultBranch")) {
+            return;
+        }
+        boolean wasProtected = hasProtection(before);
+        boolean isProtected = hasProtection(after);
+        if (wasProtected && !isProtected) {
+            changes.add(new Change(Kind.PROTECTION_REMOVED, key,
+                    "default branch " + after.path("defaultBranch").asText() + " is no longer protected"));
+            return;
+        }
+
+        Set<String> removedSources = texts(before.path("protectionSources"));
+        removedSources.removeAll(texts(after.path("protectionSources")));
+        for (String source : removedSources) {
+            changes.add(new Change(Kind.PROTECTION_REMOVED, key, source));
+        }
+
+        weakened(key, before, after, "enforceAdmins", true, "admins are no longer subject to protection", changes);
+        weakened(key, before, after, "requireStatusChecks", true, "status checks are no longer required", changes);
+        weakened(key, before, after, "allowForcePushes", false, "force pushes are now allowed", changes);
+        weakened(key, before, after, "dismissStaleReviews", true, "stale reviews are no longer dismissed", changes);
+
+        int oldApprovals = before.path("requiredApprovingReviewCount").asInt(-1);
+        int newApprovals = after.path("requiredApprovingReviewCount").asInt(-1);
+        if (oldApprovals > 0 && newApprovals < oldApprovals) {
+            changes.add(new Change(Kind.PROTECTION_WEAKENED, key, "required approvals " + oldApprovals + " -> "
+                    + Math.max(newApprovals, 0)));
+        }
+    }
+
+    private static void weakened(String key, JsonNode before, JsonNode after, String field, boolean safeValue,
+                                 String detail, List<Change> changes) {
+        if (before.path(field).isBoolean() && before.path(field).asBoolean() == safeValue
+                && after.path(field).isBoolean() && after.path(field).asBoolean() != safeValue) {
+            changes.add(new Change(Kind.PROTECTION_WEAKENED, key, detail));
+        }
+    }
+
+    private static boolean hasProtection(JsonNode rawData) {
+        JsonNode sources = rawData.path("protectionSources");
+        if (sources.isArray()) {
+            return !sources.isEmpty();
+        }
+        return rawData.path("branchProtection").isObject();
+    }
+
+    private static Set<String> logins(JsonNode users) {
+        Set<String> logins = new TreeSet<>();
+        for (JsonNode user : users) {
+            logins.add(user.path("login").asText());
+        }
+        return logins;
+    }
+
+    private static Set<String> texts(JsonNode array) {
+        Set<String> values = new TreeSet<>();
+        for (JsonNode value : array) {
+            values.add(value.asText());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,133 @@
+package com.auditevidence.diff;
+
+import com.auditevidence.sweep.OrgRun;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Check results of one evidence run keyed by organization, check and repository, with a Merkle tree
+ * over each result's raw data and a root hash over the whole run.
+ */
+public final class EvidenceSet {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Map<String, Result> results;
+    private final byte[] rootHash;
+
+    public record Result(String organization, String checkName, String repo, String status,
+                         List<String> findings, MerkleNode rawData, byte[] hash) {}
+
+    private EvidenceSet(Map<String, Result> results) {
+        this.results = results;
+        MessageDigest digest = MerkleNode.newDigest();
+        for (Map.Entry<String, Result> entry : results.entrySet()) {
+            digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(entry.getValue().hash());
+        }
+        this.rootHash = digest.digest();
+    }
+
+    /**
+     * Loads an audit-report.json file, or a directory holding one or more of them (batch output).
+     * Directories without a report fall back to the individual JSON evidence files.
+     */
+    public static EvidenceSet load(Path path) throws IOException {
+        Map<String, Result> results = new TreeMap<>();
+        if (Files.isRegularFile(path)) {
+            addReport(results, OBJECT_MAPPER.readTree(path.toFile()));
+            return new EvidenceSet(results);
+        }
+        if (!Files.isDirectory(path)) {
+            throw new IOException("No such file or directory: " + path);
+        }
+
+        List<Path> reports;
+        try (Stream<Path> files = Files.walk(path, 2)) {
+            reports = files.filter(f -> f.getFileName().toString().equals(OrgRun.REPORT_FILE)).sorted().toList();
+        }
+        if (!reports.isEmpty()) {
+            for (Path report : reports) {
+                addReport(results, OBJECT_MAPPER.readTree(report.toFile()));
+            }
+            return new EvidenceSet(results);
+        }
+
+        List<Path> evidenceFiles;
+        try (Stream<Path> files = Files.walk(path)) {
+            evidenceFiles = files.filter(f -> f.getFileName().toString().endsWith(".json")).sorted().toList();
+        }
+        for (Path file : evidenceFiles) {
+            JsonNode result = OBJECT_MAPPER.readTree(file.toFile());
+            if (result.has("checkName") && result.has("rawData")) {
+                add(results, null, result);
+            }
+        }
+        if (results.isEmpty()) {
+            throw new IOException("No " + OrgRun.REPORT_FILE + " or JSON evidence found in " + path);
+        }
+        return new EvidenceSet(results);
+    }
+
+    public boolean sameAs(EvidenceSet other) {
+        return Arrays.equals(rootHash, other.rootHash);
+    }
+
+    public Map<String, Result> getResults() {
+        return results;
+    }
+
+    private static void addReport(Map<String, Result> results, JsonNode report) throws IOException {
+        if (!report.path("results").isArray()) {
+            throw new IOException("Not an audit report: missing results");
+        }
+        String organization = report.path("organizationName").asText(null);
+        for (JsonNode result : report.path("results")) {
+            add(results, organization, result);
+        }
+    }
+
+    private static void add(Map<String, Result> results, String organization, JsonNode result) {
+        String checkName = result.path("checkName").asText();
+        String repo = repository(result);
+        String status = result.path("status").asText();
+        List<String> findings = result.path("findings").isArray()
+                ? OBJECT_MAPPER.convertValue(result.path("findings"), OBJECT_MAPPER.getTypeFactory()
+                        .constructCollectionType(List.class, String.class))
+                : List.of();
+
+        MerkleNode rawData = MerkleNode.of(result.path("rawData"));
+        MessageDigest digest = MerkleNode.newDigest();
+        digest.update(status.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(rawData.hash());
+        byte[] hash = digest.digest();
+
+        String key = (organization == null ? "" : organization + ": ")
+                + (repo == null ? checkName : checkName + " [" + repo + "]");
+        results.put(key, new Result(organization, checkName, repo, status, findings, rawData, hash));
+    }
+
+    /**
+     * @return the repository {@code result} is evidence of, or null for an organization-level result; reports
+     *         written before results named their repository fall back to the repository in its rawData
+     */
+    private static String repository(JsonNode result) {
+        if (result.has("repository")) {
+            return result.path("repository").asText(null);
+        }
+        JsonNode repository = result.path("rawData").path("repository");
+        return repository.isObject() ? repository.path("name").asText(null) : null;
+    }
+}
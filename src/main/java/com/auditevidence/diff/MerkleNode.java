@@ -0,0 +1,112 @@
+package com.auditevidence.diff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * SHA-256 hash tree over a JSON value. Object members are hashed in key order, so two trees are equal
+ * exactly when their hashes are, and comparing two subtrees costs one hash comparison.
+ */
+public final class MerkleNode {
+    private static final int MAX_CHANGED_PATHS = 20;
+
+    private final byte[] hash;
+    private final Map<String, MerkleNode> children;
+    private final JsonNode value;
+
+    private MerkleNode(byte[] hash, Map<String, MerkleNode> children, JsonNode value) {
+        this.hash = hash;
+        this.children = children;
+        this.value = value;
+    }
+
+    public static MerkleNode of(JsonNode node) {
+        MessageDigest digest = newDigest();
+        if (node == null || node.isMissingNode() || node.isNull()) {
+            digest.update((byte) 'N');
+            return new MerkleNode(digest.digest(), Map.of(), node);
+        }
+        if (node.isObject()) {
+            Map<String, MerkleNode> children = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                children.put(field.getKey(), of(field.getValue()));
+            }
+            digest.update((byte) 'O');
+            for (Map.Entry<String, MerkleNode> child : children.entrySet()) {
+                digest.update(child.getKey().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(child.getValue().hash);
+            }
+            return new MerkleNode(digest.digest(), children, node);
+        }
+        if (node.isArray()) {
+            Map<String, MerkleNode> children = new LinkedHashMap<>();
+            digest.update((byte) 'A');
+            for (int i = 0; i < node.size(); i++) {
+                MerkleNode child = of(node.get(i));
+                children.put(String.valueOf(i), child);
+                digest.update(child.hash);
+            }
+            return new MerkleNode(digest.digest(), children, node);
+        }
+        digest.update((byte) (node.isTextual() ? 'S' : node.isBoolean() ? 'B' : 'V'));
+        digest.update(node.asText().getBytes(StandardCharsets.UTF_8));
+        return new MerkleNode(digest.digest(), Map.of(), node);
+    }
+
+    public boolean sameAs(MerkleNode other) {
+        return other != null && Arrays.equals(hash, other.hash);
+    }
+
+    public JsonNode value() {
+        return value;
+    }
+
+    /**
+     * JSON-pointer-like paths of the leaves that differ, descending only into subtrees whose hashes differ.
+     */
+    public List<String> changedPaths(MerkleNode other) {
+        List<String> paths = new ArrayList<>();
+        collectChanges("", this, other, paths);
+        return paths;
+    }
+
+    private static void collectChanges(String path, MerkleNode before, MerkleNode after, List<String> paths) {
+        if (paths.size() >= MAX_CHANGED_PATHS || (before != null && before.sameAs(after))) {
+            return;
+        }
+        if (before == null || after == null || before.children.isEmpty() || after.children.isEmpty()) {
+            paths.add(path.isEmpty() ? "/" : path);
+            return;
+        }
+        Map<String, MerkleNode> keys = new TreeMap<>(before.children);
+        after.children.forEach(keys::putIfAbsent);
+        for (String key : keys.keySet()) {
+            collectChanges(path + "/" + key, before.children.get(key), after.children.get(key), paths);
+        }
+    }
+
+    public byte[] hash() {
+        return hash.clone();
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
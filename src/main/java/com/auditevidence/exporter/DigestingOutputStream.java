@@ -0,0 +1,57 @@
+package com.auditevidence.exporter;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Passes bytes through to another stream and takes their SHA-256 and count on the way, so a file's digest is
+ * known once it is written without reading it back.
+ */
+public class DigestingOutputStream extends FilterOutputStream {
+    private final MessageDigest digest;
+    private long size;
+    private FileDigest result;
+
+    public DigestingOutputStream(OutputStream out) {
+        super(out);
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static DigestingOutputStream create(Path file) throws IOException {
+        return new DigestingOutputStream(Files.newOutputStream(file));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        digest.update((byte) b);
+        size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        digest.update(b, off, len);
+        size += len;
+    }
+
+    /**
+     * @return the digest of everything written; nothing may be written after this is called
+     */
+    public FileDigest getDigest() {
+        if (result == null) {
+            result = new FileDigest(size, HexFormat.of().formatHex(digest.digest()));
+        }
+        return result;
+    }
+}
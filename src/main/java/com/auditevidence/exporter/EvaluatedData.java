@@ -0,0 +1,77 @@
+package com.auditevidence.exporter;
+
+import com.auditevidence.model.GithubRepo;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What a result's raw data adds to the API responses embedded verbatim next to it. Records parsed from those
+ * responses (repositories, members, collaborators, protection, rulesets) are cut down to the fields that
+ * identify them, which is what findings refer to; their full content is in the responses. What the check
+ * derived from them, e.g. counts, flags and where access or protection comes from, is kept as it is.
+ */
+public final class EvaluatedData {
+    private static final String MODEL_PACKAGE = GithubRepo.class.getPackageName();
+    private static final Set<String> IDENTITY = Set.of("id", "name", "login");
+    private static final Object OMITTED = new Object();
+
+    private EvaluatedData() {
+    }
+
+    public static Object of(Object rawData) {
+        Object evaluated = reduce(rawData);
+        return evaluated == OMITTED ? null : evaluated;
+    }
+
+    private static Object reduce(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> reduced = new LinkedHashMap<>();
+            map.forEach((key, entry) -> {
+                Object evaluated = reduce(entry);
+                if (evaluated != OMITTED) {
+                    reduced.put(key, evaluated);
+                }
+            });
+            return reduced;
+        }
+        if (value instanceof Collection<?> values) {
+            List<Object> reduced = new ArrayList<>(values.size());
+            for (Object element : values) {
+                Object evaluated = reduce(element);
+                if (evaluated != OMITTED) {
+                    reduced.add(evaluated);
+                }
+            }
+            return reduced;
+        }
+        if (value instanceof Record record && record.getClass().getPackageName().equals(MODEL_PACKAGE)) {
+            return identity(record);
+        }
+        return value;
+    }
+
+    /**
+     * @return the id, name and login of {@code record}, or {@link #OMITTED} when it has none of them
+     */
+    private static Object identity(Record record) {
+        Map<String, Object> identity = new LinkedHashMap<>();
+        for (RecordComponent component : record.getClass().getRecordComponents()) {
+            if (IDENTITY.contains(component.getName())) {
+                try {
+                    identity.put(component.getName(), component.getAccessor().invoke(record));
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new IllegalStateException("Cannot read " + component.getName() + " of "
+                            + record.getClass().getSimpleName(), e);
+                }
+            }
+        }
+        return identity.isEmpty() ? OMITTED : identity;
+    }
+}
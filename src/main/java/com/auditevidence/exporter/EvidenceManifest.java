@@ -0,0 +1,156 @@
+package com.auditevidence.exporter;
+
+import com.auditevidence.license.LicenseValidator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The SHA-256 of every file in an evidence package, written as {@link #FILE} in sha256sum format (so
+ * {@code sha256sum -c} checks it) and, with a key, signed with HMAC-SHA256 in {@link #SIGNATURE_FILE} in the
+ * format of {@code openssl dgst -sha256 -hmac}. Digests are recorded as the files are written; only files
+ * nothing recorded (e.g. audit log segments kept from an earlier run) are read when the manifest is written.
+ */
+public class EvidenceManifest {
+    public static final String FILE = "evidence-manifest.sha256";
+    public static final String SIGNATURE_FILE = FILE + ".hmac";
+    public static final String CHECKSUM_EXTENSION = ".sha256";
+    public static final String KEY_VARIABLE = "AUDIT_EVIDENCE_MANIFEST_KEY";
+
+    private final Path baseDir;
+    private final Map<Path, FileDigest> digests = new ConcurrentHashMap<>();
+
+    public EvidenceManifest(Path baseDir) {
+        this.baseDir = baseDir;
+    }
+
+    /**
+     * @return the manifest signing key from {@link #KEY_VARIABLE}, or null when it is not set. The key must be
+     *         one the auditor can be given, so nothing else (such as the license key) stands in for it.
+     */
+    public static String keyFromEnvironment(Map<String, String> env) {
+        String key = env.get(KEY_VARIABLE);
+        return key == null || key.isBlank() ? null : key;
+    }
+
+    public static String unsignedWarning() {
+        return "⚠ " + KEY_VARIABLE + " is not set, " + FILE + " is written unsigned.";
+    }
+
+    public void record(Path file, FileDigest digest) {
+        if (digest != null) {
+            digests.put(normalize(file), digest);
+        }
+    }
+
+    public void recordIfAbsent(Path file, FileDigest digest) {
+        if (digest != null) {
+            digests.putIfAbsent(normalize(file), digest);
+        }
+    }
+
+    public FileDigest get(Path file) {
+        return digests.get(normalize(file));
+    }
+
+    /**
+     * Takes the digests listed in the manifest in {@code packageDir} for the files at the same relative paths
+     * under this manifest's directory, e.g. evidence files linked from a shard's output. Sizes are taken
+     * from the linked files.
+     */
+    public void load(Path packageDir) throws IOException {
+        Path manifest = packageDir.resolve(FILE);
+        if (!Files.exists(manifest)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(manifest)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf("  ");
+                if (separator < 0) {
+                    continue;
+                }
+                Path file = baseDir.resolve(line.substring(separator + 2));
+                if (Files.isRegularFile(file)) {
+                    record(file, new FileDigest(Files.size(file), line.substring(0, separator)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the manifest of {@code files} (missing files are left out) and, when {@code key} is given, its
+     * signature. A signature left by an earlier run is removed when there is no key.
+     *
+     * @return the files written
+     */
+    public List<Path> write(List<Path> files, String key) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        Set<String> listed = new LinkedHashSet<>();
+        for (Path file : files) {
+            String name = relative(file);
+            if (!Files.isRegularFile(file) || name.equals(FILE) || name.equals(SIGNATURE_FILE)
+                    || !listed.add(name)) {
+                continue;
+            }
+            FileDigest digest = get(file);
+            if (digest == null) {
+                digest = FileDigest.of(file);
+                record(file, digest);
+            }
+            sb.append(digest.sha256()).append("  ").append(name).append('\n');
+        }
+
+        Files.createDirectories(baseDir);
+        byte[] manifest = sb.toString().getBytes(StandardCharsets.UTF_8);
+        Path manifestFile = baseDir.resolve(FILE);
+        Files.write(manifestFile, manifest);
+        List<Path> written = new ArrayList<>(List.of(manifestFile));
+
+        Path signatureFile = baseDir.resolve(SIGNATURE_FILE);
+        if (key == null || key.isBlank()) {
+            Files.deleteIfExists(signatureFile);
+            return written;
+        }
+        try {
+            Files.writeString(signatureFile, "HMAC-SHA256(" + FILE + ")= "
+                    + HexFormat.of().formatHex(LicenseValidator.hmacSha256(key, manifest)) + "\n");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+        written.add(signatureFile);
+        return written;
+    }
+
+    /**
+     * Writes {@code digest} next to {@code file} (e.g. the ZIP archive, which cannot list itself) as
+     * "&lt;file&gt;.sha256" in sha256sum format.
+     */
+    public static Path writeChecksum(Path file, FileDigest digest) throws IOException {
+        Path checksum = file.resolveSibling(file.getFileName() + CHECKSUM_EXTENSION);
+        Files.writeString(checksum, digest.sha256() + "  " + file.getFileName() + "\n");
+        return checksum;
+    }
+
+    private String relative(Path file) {
+        Path base = baseDir.toAbsolutePath().normalize();
+        Path absolute = normalize(file);
+        return absolute.startsWith(base) ? base.relativize(absolute).toString().replace('\\', '/')
+                : file.getFileName().toString();
+    }
+
+    private static Path normalize(Path file) {
+        return file.toAbsolutePath().normalize();
+    }
+}
@@ -0,0 +1,24 @@
+package com.auditevidence.exporter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Size and SHA-256 (hex) of a file, usually taken by a {@link DigestingOutputStream} while it was written.
+ */
+public record FileDigest(long size, String sha256) {
+
+    /**
+     * Reads {@code file} to digest it, for files that were not written through a {@link DigestingOutputStream}.
+     */
+    public static FileDigest of(Path file) throws IOException {
+        DigestingOutputStream digest = new DigestingOutputStream(OutputStream.nullOutputStream());
+        try (InputStream in = Files.newInputStream(file)) {
+            in.transferTo(digest);
+        }
+        return digest.getDigest();
+    }
+}
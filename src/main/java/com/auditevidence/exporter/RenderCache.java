@@ -0,0 +1,217 @@
+package com.auditevidence.exporter;
+
+import com.auditevidence.github.RawResponse;
+import com.auditevidence.model.CheckResult;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store of rendered evidence files. The key is a SHA-256 over the result serialized with
+ * sorted keys and without its timestamp, the embedded API response bodies (without their fetch times) and the
+ * output variant (format, watermark, time zone), so a result
+ * that only differs from an earlier run by its collection time reuses a copy of the earlier file instead of
+ * being rendered again. Entries are private copies, never links to output files, so a later run writing to
+ * the same output directory cannot change them. Each entry keeps its {@link FileDigest} in a ".sha256" file
+ * next to it; the entry is digested as it is copied out and only reused when it still matches.
+ */
+public class RenderCache {
+    /** Bump when exporters change what they write, so older renderings are no longer reused. */
+    private static final int RENDER_VERSION = 2;
+    private static final String DIGEST_EXTENSION = ".sha256";
+
+    private static final ObjectMapper CANONICAL = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private final Path dir;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    @FunctionalInterface
+    public interface Renderer {
+        FileDigest render(CheckResult result, Path outputPath) throws IOException;
+    }
+
+    public RenderCache(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Writes {@code result} to {@code outputPath}, from the cache when an identical result was rendered
+     * before and with {@code renderer} otherwise.
+     *
+     * @return the digest of the written file
+     */
+    public FileDigest export(CheckResult result, List<RawResponse> responses, String variant, Path outputPath,
+                             Renderer renderer) throws IOException {
+        String extension = extension(outputPath);
+        String key = key(result, responses, variant);
+        Path cached = dir.resolve(key.substring(0, 2)).resolve(key + extension);
+
+        Files.createDirectories(outputPath.toAbsolutePath().getParent());
+        Files.deleteIfExists(outputPath);
+        if (Files.exists(cached)) {
+            FileDigest reused = reuse(cached, outputPath);
+            if (reused != null) {
+                hits.incrementAndGet();
+                return reused;
+            }
+        }
+
+        FileDigest digest = renderer.render(result, outputPath);
+        misses.incrementAndGet();
+        Files.createDirectories(cached.getParent());
+        Path temp = cached.resolveSibling(key + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.copy(outputPath, temp);
+            Files.move(temp, cached, StandardCopyOption.ATOMIC_MOVE);
+            writeDigest(cached, digest);
+        } catch (FileAlreadyExistsException e) {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            System.err.println("Warning: Could not add " + outputPath.getFileName() + " to the render cache: "
+                    + e.getMessage());
+        }
+        return digest;
+    }
+
+    /**
+     * Copies a cache entry to {@code outputPath}, digesting it on the way, and checks the digest against the one
+     * kept with the entry. An entry that no longer matches is deleted; one cached without a digest gets it.
+     *
+     * @return the digest of the copied file, or null when the entry was pruned meanwhile or did not match
+     */
+    private static FileDigest reuse(Path cached, Path outputPath) throws IOException {
+        FileDigest digest;
+        try (InputStream in = Files.newInputStream(cached);
+             DigestingOutputStream out = DigestingOutputStream.create(outputPath)) {
+            in.transferTo(out);
+            digest = out.getDigest();
+        } catch (NoSuchFileException e) {
+            Files.deleteIfExists(outputPath);
+            return null;
+        }
+
+        FileDigest expected = storedDigest(cached);
+        if (expected == null) {
+            writeDigest(cached, digest);
+        } else if (!expected.equals(digest)) {
+            System.err.println("Warning: Render cache entry " + cached.getFileName()
+                    + " does not match its digest; rendering again");
+            Files.deleteIfExists(cached);
+            Files.deleteIfExists(digestFile(cached));
+            Files.deleteIfExists(outputPath);
+            return null;
+        } else {
+            Files.setLastModifiedTime(digestFile(cached), FileTime.from(Instant.now()));
+        }
+        Files.setLastModifiedTime(cached, FileTime.from(Instant.now()));
+        return digest;
+    }
+
+    private static FileDigest storedDigest(Path cached) {
+        try {
+            String[] fields = Files.readString(digestFile(cached)).trim().split(" ");
+            return new FileDigest(Long.parseLong(fields[1]), fields[0]);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void writeDigest(Path cached, FileDigest digest) throws IOException {
+        Path temp = cached.resolveSibling(cached.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        Files.writeString(temp, digest.sha256() + " " + digest.size());
+        Files.move(temp, digestFile(cached), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Path digestFile(Path entry) {
+        return entry.resolveSibling(entry.getFileName() + DIGEST_EXTENSION);
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Deletes cache entries that have not been used for {@code maxAge}.
+     *
+     * @return the number of entries deleted
+     */
+    public int prune(Duration maxAge) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        FileTime cutoff = FileTime.from(Instant.now().minus(maxAge));
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(dir, 2)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        }
+        int deleted = 0;
+        for (Path file : files) {
+            if (Files.getLastModifiedTime(file).compareTo(cutoff) < 0 && Files.deleteIfExists(file)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    static String key(CheckResult result, List<RawResponse> responses, String variant) throws IOException {
+        CheckResult timeless = new CheckResult(result.standard(), result.clauseId(), result.mappedClauses(),
+                result.checkName(), result.status(), result.description(), result.dataSource(), null, result.rawData(),
+                result.findings(), result.repository());
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((RENDER_VERSION + ":" + variant + ":").getBytes(StandardCharsets.UTF_8));
+            digest.update(CANONICAL.writeValueAsBytes(timeless));
+            for (RawResponse response : responses) {
+                digest.update((byte) 0);
+                digest.update((response.endpoint() + " " + response.status()).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                try (InputStream body = response.openStream()) {
+                    body.transferTo(new DigestOutputStream(OutputStream.nullOutputStream(), digest));
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String extension(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot);
+    }
+}
@@ -0,0 +1,181 @@
+package com.auditevidence.exporter.arrow;
+
+import com.auditevidence.access.TeamGraph;
+import com.auditevidence.checks.BranchProtectionCheck;
+import com.auditevidence.checks.RepoAccessControlCheck;
+import com.auditevidence.exporter.FileDigest;
+import com.auditevidence.model.BranchProtection;
+import com.auditevidence.model.CheckResult;
+import com.auditevidence.model.GithubRepo;
+import com.auditevidence.model.RepoCollaborator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.auditevidence.exporter.arrow.ArrowFileWriter.Type.BOOL;
+import static com.auditevidence.exporter.arrow.ArrowFileWriter.Type.INT32;
+import static com.auditevidence.exporter.arrow.ArrowFileWriter.Type.INT64;
+import static com.auditevidence.exporter.arrow.ArrowFileWriter.Type.TIMESTAMP;
+import static com.auditevidence.exporter.arrow.ArrowFileWriter.Type.UTF8;
+
+/**
+ * The repository and access data of a sweep as two Arrow tables for analytics tools, so they need not parse
+ * the evidence files: {@link #REPOSITORIES_FILE}, one row per repository with its settings and default branch
+ * protection, and {@link #ACCESS_FILE}, one row per (repository, user) with the user's permissions. Rows are
+ * added as the Branch Protection and Repository Access Control results come in and written in batches of
+ * {@link #BATCH_ROWS}.
+ */
+public class AnalyticsExport {
+    public static final String DIRECTORY = "analytics";
+    public static final String REPOSITORIES_FILE = "repositories.arrow";
+    public static final String ACCESS_FILE = "repository-access.arrow";
+    static final int BATCH_ROWS = 4096;
+
+    public static final List<ArrowFileWriter.Column> REPOSITORY_COLUMNS = List.of(
+            new ArrowFileWriter.Column("organization", UTF8),
+            new ArrowFileWriter.Column("repo_id", INT64),
+            new ArrowFileWriter.Column("name", UTF8),
+            new ArrowFileWriter.Column("full_name", UTF8),
+            new ArrowFileWriter.Column("private", BOOL),
+            new ArrowFileWriter.Column("visibility", UTF8),
+            new ArrowFileWriter.Column("default_branch", UTF8),
+            new ArrowFileWriter.Column("size_kb", INT64),
+            new ArrowFileWriter.Column("branch_protection_status", UTF8),
+            new ArrowFileWriter.Column("classic_branch_protection", BOOL),
+            new ArrowFileWriter.Column("required_status_checks_strict", BOOL),
+            new ArrowFileWriter.Column("required_status_checks", UTF8),
+            new ArrowFileWriter.Column("enforce_admins", BOOL),
+            new ArrowFileWriter.Column("required_approving_review_count", INT32),
+            new ArrowFileWriter.Column("dismiss_stale_reviews", BOOL),
+            new ArrowFileWriter.Column("require_code_owner_reviews", BOOL),
+            new ArrowFileWriter.Column("required_signatures", BOOL),
+            new ArrowFileWriter.Column("allow_force_pushes", BOOL),
+            new ArrowFileWriter.Column("allow_deletions", BOOL),
+            new ArrowFileWriter.Column("collected_at", TIMESTAMP));
+
+    public static final List<ArrowFileWriter.Column> ACCESS_COLUMNS = List.of(
+            new ArrowFileWriter.Column("organization", UTF8),
+            new ArrowFileWriter.Column("repo_id", INT64),
+            new ArrowFileWriter.Column("repository", UTF8),
+            new ArrowFileWriter.Column("user_id", INT64),
+            new ArrowFileWriter.Column("login", UTF8),
+            new ArrowFileWriter.Column("role_name", UTF8),
+            new ArrowFileWriter.Column("admin", BOOL),
+            new ArrowFileWriter.Column("maintain", BOOL),
+            new ArrowFileWriter.Column("push", BOOL),
+            new ArrowFileWriter.Column("triage", BOOL),
+            new ArrowFileWriter.Column("pull", BOOL),
+            new ArrowFileWriter.Column("source", UTF8),
+            new ArrowFileWriter.Column("collected_at", TIMESTAMP));
+
+    private static final ObjectMapper RAW_DATA = new ObjectMapper();
+
+    private final String orgName;
+    private final Path repositoriesFile;
+    private final Path accessFile;
+    private final ArrowFileWriter repositories;
+    private final ArrowFileWriter access;
+
+    public AnalyticsExport(Path outputDir, String orgName) throws IOException {
+        this.orgName = orgName;
+        Path dir = outputDir.resolve(DIRECTORY);
+        Files.createDirectories(dir);
+        this.repositoriesFile = dir.resolve(REPOSITORIES_FILE);
+        this.accessFile = dir.resolve(ACCESS_FILE);
+        this.repositories = new ArrowFileWriter(repositoriesFile, REPOSITORY_COLUMNS, BATCH_ROWS);
+        this.access = new ArrowFileWriter(accessFile, ACCESS_COLUMNS, BATCH_ROWS);
+    }
+
+    /**
+     * Adds the rows of {@code result} when it is a repository's Branch Protection or Repository Access
+     * Control result with its data collected. {@code result}'s raw data may hold the model records of a live
+     * run or the maps read back from a journal.
+     */
+    public synchronized void add(CheckResult result) throws IOException {
+        if (!(result.rawData() instanceof Map<?, ?> rawData) || rawData.get("repository") == null) {
+            return;
+        }
+        // The size is not written to evidence, so results read back from a journal do not have it
+        Long size = rawData.get("repository") instanceof GithubRepo listed ? listed.size() : null;
+        GithubRepo repo = convert(rawData.get("repository"), GithubRepo.class);
+        if (result.checkName().equals(BranchProtectionCheck.CHECK_NAME)) {
+            addRepository(repo, size, convert(rawData.get("branchProtection"), BranchProtection.class), result);
+        } else if (result.checkName().equals(RepoAccessControlCheck.CHECK_NAME)
+                && rawData.get("allCollaborators") != null) {
+            List<RepoCollaborator> collaborators = RAW_DATA.convertValue(rawData.get("allCollaborators"),
+                    new TypeReference<List<RepoCollaborator>>() {});
+            Map<String, List<TeamGraph.Source>> sources = rawData.get("accessSources") == null ? Map.of()
+                    : RAW_DATA.convertValue(rawData.get("accessSources"),
+                            new TypeReference<LinkedHashMap<String, List<TeamGraph.Source>>>() {});
+            boolean teamsAvailable = Boolean.TRUE.equals(rawData.get("teamsAvailable"));
+            for (RepoCollaborator collaborator : collaborators) {
+                RepoCollaborator.Permissions permissions = collaborator.permissions();
+                List<TeamGraph.Source> userSources = sources.get(collaborator.login());
+                access.append(orgName, repo.id(), repo.name(), collaborator.id(), collaborator.login(),
+                        collaborator.roleName(),
+                        permissions == null ? null : permissions.admin(),
+                        permissions == null ? null : permissions.maintain(),
+                        permissions == null ? null : permissions.push(),
+                        permissions == null ? null : permissions.triage(),
+                        permissions == null ? null : permissions.pull(),
+                        !teamsAvailable || userSources == null ? null
+                                : userSources.stream().map(TeamGraph.Source::toString)
+                                        .collect(Collectors.joining("; ")),
+                        result.timestamp());
+            }
+        }
+    }
+
+    /**
+     * Writes the last batches and the footers.
+     *
+     * @return both files with their digests
+     */
+    public synchronized Map<Path, FileDigest> finish() throws IOException {
+        Map<Path, FileDigest> written = new LinkedHashMap<>();
+        written.put(repositoriesFile, repositories.finish());
+        written.put(accessFile, access.finish());
+        return written;
+    }
+
+    private void addRepository(GithubRepo repo, Long size, BranchProtection protection, CheckResult result)
+            throws IOException {
+        BranchProtection.RequiredStatusChecks statusChecks = protection == null ? null
+                : protection.requiredStatusChecks();
+        BranchProtection.RequiredPullRequestReviews reviews = protection == null ? null
+                : protection.requiredPullRequestReviews();
+        repositories.append(orgName, repo.id(), repo.name(), repo.fullName(), repo.isPrivate(), repo.visibility(),
+                repo.defaultBranch(), size,
+                result.status().name(),
+                protection != null,
+                statusChecks == null ? null : statusChecks.strict(),
+                statusChecks == null || statusChecks.contexts() == null ? null
+                        : String.join(",", statusChecks.contexts()),
+                protection == null || protection.enforceAdmins() == null ? null
+                        : protection.enforceAdmins().enabled(),
+                reviews == null ? null : reviews.requiredApprovingReviewCount(),
+                reviews == null ? null : reviews.dismissStaleReviews(),
+                reviews == null ? null : reviews.requireCodeOwnerReviews(),
+                protection == null || protection.requiredSignatures() == null ? null
+                        : protection.requiredSignatures().enabled(),
+                protection == null || protection.allowForcePushes() == null ? null
+                        : protection.allowForcePushes().enabled(),
+                protection == null || protection.allowDeletions() == null ? null
+                        : protection.allowDeletions().enabled(),
+                result.timestamp());
+    }
+
+    private static <T> T convert(Object value, Class<T> type) {
+        if (value == null || type.isInstance(value)) {
+            return type.cast(value);
+        }
+        return RAW_DATA.convertValue(value, type);
+    }
+}
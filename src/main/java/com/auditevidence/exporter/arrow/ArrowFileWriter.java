@@ -0,0 +1,352 @@
+package com.auditevidence.exporter.arrow;
+
+import com.auditevidence.exporter.DigestingOutputStream;
+import com.auditevidence.exporter.FileDigest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes a table in the Apache Arrow IPC file format, which pandas, Polars, DuckDB and Spark read directly.
+ * Rows are buffered by column and written as a record batch every {@code batchRows} rows, so a table of any
+ * size is written in one pass with only one batch in memory. Buffers are uncompressed and every column is
+ * nullable.
+ */
+public class ArrowFileWriter implements Closeable {
+    private static final byte[] MAGIC = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+    private static final int CONTINUATION = 0xFFFFFFFF;
+    private static final int METADATA_V5 = 4;
+    private static final int HEADER_SCHEMA = 1;
+    private static final int HEADER_RECORD_BATCH = 3;
+    private static final int TYPE_INT = 2;
+    private static final int TYPE_UTF8 = 5;
+    private static final int TYPE_BOOL = 6;
+    private static final int TYPE_TIMESTAMP = 10;
+    private static final int MICROSECOND = 2;
+
+    /**
+     * Column types; {@link #TIMESTAMP} is microseconds since the epoch, UTC, appended as an {@link Instant}.
+     */
+    public enum Type { INT32, INT64, BOOL, UTF8, TIMESTAMP }
+
+    public record Column(String name, Type type) {}
+
+    private record Block(long offset, int metadataLength, long bodyLength) {}
+
+    private final List<Column> schema;
+    private final int batchRows;
+    private final DigestingOutputStream digest;
+    private final OutputStream out;
+    private final ColumnBuffer[] columns;
+    private final List<Block> batches = new ArrayList<>();
+    private long position;
+    private int rows;
+    private FileDigest result;
+
+    public ArrowFileWriter(Path file, List<Column> schema, int batchRows) throws IOException {
+        this.schema = List.copyOf(schema);
+        this.batchRows = batchRows;
+        this.digest = DigestingOutputStream.create(file);
+        this.out = new BufferedOutputStream(digest, 64 * 1024);
+        this.columns = new ColumnBuffer[schema.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ColumnBuffer(schema.get(i).type(), batchRows);
+        }
+        write(MAGIC);
+        write(new byte[2]);
+        writeMessage(HEADER_SCHEMA, schemaTable(), 0);
+    }
+
+    /**
+     * Adds a row; values are in schema order, as {@link Number}, {@link Boolean}, {@link String} or
+     * {@link Instant} for the column's type, or null.
+     */
+    public void append(Object... values) throws IOException {
+        if (values.length != columns.length) {
+            throw new IllegalArgumentException("Expected " + columns.length + " values, got " + values.length);
+        }
+        for (int i = 0; i < values.length; i++) {
+            columns[i].append(values[i]);
+        }
+        if (++rows == batchRows) {
+            writeBatch();
+        }
+    }
+
+    /**
+     * Copies the record batches of {@code file}, an Arrow file written with the same schema, after the rows
+     * appended so far.
+     */
+    public void appendBatches(Path file) throws IOException {
+        if (rows > 0) {
+            writeBatch();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            in.skipNBytes(MAGIC.length + 2);
+            while (true) {
+                int continuation = Integer.reverseBytes(in.readInt());
+                int length = Integer.reverseBytes(in.readInt());
+                if (continuation != CONTINUATION) {
+                    throw new IOException("Not an Arrow file: " + file);
+                }
+                if (length == 0) {
+                    return;
+                }
+                byte[] metadata = in.readNBytes(length);
+                long bodyLength = FlatTable.readScalar(metadata, 3, 8);
+                if (FlatTable.readScalar(metadata, 1, 1) != HEADER_RECORD_BATCH) {
+                    in.skipNBytes(bodyLength);
+                    continue;
+                }
+                batches.add(new Block(position, 8 + length, bodyLength));
+                writeInt(CONTINUATION);
+                writeInt(length);
+                write(metadata);
+                for (long copied = 0; copied < bodyLength; ) {
+                    byte[] chunk = in.readNBytes((int) Math.min(64 * 1024, bodyLength - copied));
+                    if (chunk.length == 0) {
+                        throw new IOException("Truncated Arrow file: " + file);
+                    }
+                    write(chunk);
+                    copied += chunk.length;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the last batch and the footer.
+     *
+     * @return the digest of the file
+     */
+    public FileDigest finish() throws IOException {
+        if (result == null) {
+            if (rows > 0) {
+                writeBatch();
+            }
+            writeInt(CONTINUATION);
+            writeInt(0);
+            byte[] footer = footerTable().toBytes();
+            write(footer);
+            writeInt(footer.length);
+            write(MAGIC);
+            out.close();
+            result = digest.getDigest();
+        }
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    private void writeBatch() throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        ByteArrayOutputStream nodes = new ByteArrayOutputStream();
+        ByteArrayOutputStream buffers = new ByteArrayOutputStream();
+        int bufferCount = 0;
+        for (ColumnBuffer column : columns) {
+            putLong(nodes, rows);
+            putLong(nodes, column.nulls);
+            for (byte[] buffer : column.buffers(rows)) {
+                putLong(buffers, body.size());
+                putLong(buffers, buffer.length);
+                body.write(buffer);
+                pad(body);
+                bufferCount++;
+            }
+            column.reset();
+        }
+        FlatTable batch = new FlatTable()
+                .addLong(0, rows)
+                .addStructs(1, columns.length, nodes.toByteArray())
+                .addStructs(2, bufferCount, buffers.toByteArray());
+        batches.add(writeMessage(HEADER_RECORD_BATCH, batch, body.size()));
+        body.writeTo(out);
+        position += body.size();
+        rows = 0;
+    }
+
+    /**
+     * Writes an encapsulated message: continuation marker, metadata length, the Message flatbuffer and,
+     * after it, {@code bodyLength} bytes of body the caller writes.
+     */
+    private Block writeMessage(int headerType, FlatTable header, long bodyLength) throws IOException {
+        byte[] metadata = new FlatTable()
+                .addShort(0, METADATA_V5)
+                .addByte(1, headerType)
+                .addTable(2, header)
+                .addLong(3, bodyLength)
+                .toBytes();
+        long offset = position;
+        writeInt(CONTINUATION);
+        writeInt(metadata.length);
+        write(metadata);
+        return new Block(offset, 8 + metadata.length, bodyLength);
+    }
+
+    private FlatTable schemaTable() {
+        List<FlatTable> fields = new ArrayList<>();
+        for (Column column : schema) {
+            FlatTable type = new FlatTable();
+            int typeType = switch (column.type()) {
+                case INT32, INT64 -> {
+                    type.addInt(0, column.type() == Type.INT32 ? 32 : 64).addBoolean(1, true);
+                    yield TYPE_INT;
+                }
+                case BOOL -> TYPE_BOOL;
+                case UTF8 -> TYPE_UTF8;
+                case TIMESTAMP -> {
+                    type.addShort(0, MICROSECOND).addString(1, "UTC");
+                    yield TYPE_TIMESTAMP;
+                }
+            };
+            fields.add(new FlatTable()
+                    .addString(0, column.name())
+                    .addBoolean(1, true)
+                    .addByte(2, typeType)
+                    .addTable(3, type)
+                    .addTables(5, List.of()));
+        }
+        return new FlatTable().addShort(0, 0).addTables(1, fields);
+    }
+
+    private FlatTable footerTable() {
+        ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+        for (Block block : batches) {
+            putLong(blocks, block.offset());
+            putLong(blocks, block.metadataLength() & 0xFFFFFFFFL);
+            putLong(blocks, block.bodyLength());
+        }
+        return new FlatTable()
+                .addShort(0, METADATA_V5)
+                .addTable(1, schemaTable())
+                .addStructs(2, 0, new byte[0])
+                .addStructs(3, batches.size(), blocks.toByteArray());
+    }
+
+    private void writeInt(int value) throws IOException {
+        for (int i = 0; i < 4; i++) {
+            out.write(value >>> (8 * i));
+        }
+        position += 4;
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        out.write(bytes);
+        position += bytes.length;
+    }
+
+    private static void putLong(ByteArrayOutputStream out, long value) {
+        for (int i = 0; i < 8; i++) {
+            out.write((int) (value >>> (8 * i)));
+        }
+    }
+
+    private static void pad(ByteArrayOutputStream out) {
+        while (out.size() % 8 != 0) {
+            out.write(0);
+        }
+    }
+
+    /**
+     * One column of the batch being built: its validity bitmap and its values, or for strings their offsets
+     * and UTF-8 bytes.
+     */
+    private static final class ColumnBuffer {
+        private final Type type;
+        private final byte[] validity;
+        private final long[] longs;
+        private final byte[] bits;
+        private final int[] offsets;
+        private final ByteArrayOutputStream utf8;
+        private int length;
+        private int nulls;
+
+        ColumnBuffer(Type type, int capacity) {
+            this.type = type;
+            this.validity = new byte[(capacity + 7) / 8];
+            this.longs = type == Type.INT32 || type == Type.INT64 || type == Type.TIMESTAMP
+                    ? new long[capacity] : null;
+            this.bits = type == Type.BOOL ? new byte[(capacity + 7) / 8] : null;
+            this.offsets = type == Type.UTF8 ? new int[capacity + 1] : null;
+            this.utf8 = type == Type.UTF8 ? new ByteArrayOutputStream() : null;
+        }
+
+        void append(Object value) {
+            if (value == null) {
+                nulls++;
+            } else {
+                validity[length / 8] |= (byte) (1 << (length % 8));
+                switch (type) {
+                    case INT32, INT64 -> longs[length] = ((Number) value).longValue();
+                    case TIMESTAMP -> longs[length] = ChronoUnit.MICROS.between(Instant.EPOCH, (Instant) value);
+                    case BOOL -> {
+                        if ((Boolean) value) {
+                            bits[length / 8] |= (byte) (1 << (length % 8));
+                        }
+                    }
+                    case UTF8 -> utf8.writeBytes(value.toString().getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            length++;
+            if (offsets != null) {
+                offsets[length] = utf8.size();
+            }
+        }
+
+        List<byte[]> buffers(int rows) {
+            byte[] valid = Arrays.copyOf(validity, (rows + 7) / 8);
+            return switch (type) {
+                case INT32 -> List.of(valid, values(rows, 4));
+                case INT64, TIMESTAMP -> List.of(valid, values(rows, 8));
+                case BOOL -> List.of(valid, Arrays.copyOf(bits, (rows + 7) / 8));
+                case UTF8 -> {
+                    ByteArrayOutputStream packed = new ByteArrayOutputStream((rows + 1) * 4);
+                    for (int i = 0; i <= rows; i++) {
+                        for (int b = 0; b < 4; b++) {
+                            packed.write(offsets[i] >>> (8 * b));
+                        }
+                    }
+                    yield List.of(valid, packed.toByteArray(), utf8.toByteArray());
+                }
+            };
+        }
+
+        private byte[] values(int rows, int width) {
+            byte[] values = new byte[rows * width];
+            for (int i = 0; i < rows; i++) {
+                for (int b = 0; b < width; b++) {
+                    values[i * width + b] = (byte) (longs[i] >>> (8 * b));
+                }
+            }
+            return values;
+        }
+
+        void reset() {
+            Arrays.fill(validity, (byte) 0);
+            if (bits != null) {
+                Arrays.fill(bits, (byte) 0);
+            }
+            if (utf8 != null) {
+                utf8.reset();
+            }
+            length = 0;
+            nulls = 0;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.auditevidence.exporter.arrow;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A FlatBuffers table, enough of the format to write Arrow's metadata without the FlatBuffers runtime. Unlike
+ * the official builder, which fills its buffer back to front, a table is written before the strings, vectors
+ * and tables it refers to, and each reference is patched once its target is written, so every offset points
+ * forward as the format requires. Everything is aligned to its size from the start of the buffer.
+ */
+final class FlatTable {
+    private final List<Object> slots = new ArrayList<>();
+
+    private record Scalar(int size, long value) {}
+
+    private record Structs(int count, byte[] data) {}
+
+    private record Tables(List<FlatTable> tables) {}
+
+    private record Reference(int position, Object target) {}
+
+    FlatTable addByte(int slot, int value) {
+        return set(slot, new Scalar(1, value));
+    }
+
+    FlatTable addBoolean(int slot, boolean value) {
+        return set(slot, new Scalar(1, value ? 1 : 0));
+    }
+
+    FlatTable addShort(int slot, int value) {
+        return set(slot, new Scalar(2, value));
+    }
+
+    FlatTable addInt(int slot, int value) {
+        return set(slot, new Scalar(4, value));
+    }
+
+    FlatTable addLong(int slot, long value) {
+        return set(slot, new Scalar(8, value));
+    }
+
+    FlatTable addString(int slot, String value) {
+        return set(slot, value);
+    }
+
+    FlatTable addTable(int slot, FlatTable table) {
+        return set(slot, table);
+    }
+
+    FlatTable addTables(int slot, List<FlatTable> tables) {
+        return set(slot, new Tables(tables));
+    }
+
+    /**
+     * @param data {@code count} little-endian structs laid out back to back, each aligned to 8 bytes
+     */
+    FlatTable addStructs(int slot, int count, byte[] data) {
+        return set(slot, new Structs(count, data));
+    }
+
+    /**
+     * @return this table as the root of a buffer, padded to a multiple of 8 bytes
+     */
+    byte[] toBytes() {
+        Buffer buffer = new Buffer();
+        buffer.putInt(0);
+        buffer.patch(0, buffer.write(this));
+        buffer.align(8);
+        return Arrays.copyOf(buffer.bytes, buffer.size);
+    }
+
+    /**
+     * @return a scalar field of the root table of {@code buffer}, or 0 when it is absent
+     */
+    static long readScalar(byte[] buffer, int slot, int size) {
+        int table = (int) read(buffer, 0, 4);
+        int vtable = table - (int) read(buffer, table, 4);
+        int entry = 4 + 2 * slot;
+        if (entry >= read(buffer, vtable, 2)) {
+            return 0;
+        }
+        int offset = (int) read(buffer, vtable + entry, 2);
+        return offset == 0 ? 0 : read(buffer, table + offset, size);
+    }
+
+    private static long read(byte[] buffer, int position, int size) {
+        long value = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            value = (value << 8) | (buffer[position + i] & 0xFF);
+        }
+        return size < 8 && (value & (1L << (8 * size - 1))) != 0 ? value - (1L << (8 * size)) : value;
+    }
+
+    private FlatTable set(int slot, Object value) {
+        while (slots.size() <= slot) {
+            slots.add(null);
+        }
+        slots.set(slot, value);
+        return this;
+    }
+
+    private static final class Buffer {
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        /**
+         * Writes {@code object} followed by everything it refers to.
+         *
+         * @return the position of {@code object}
+         */
+        int write(Object object) {
+            List<Reference> references = new ArrayList<>();
+            int position;
+            if (object instanceof FlatTable table) {
+                position = writeTable(table, references);
+            } else if (object instanceof String string) {
+                align(4);
+                position = size;
+                byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+                putInt(utf8.length);
+                put(utf8);
+                putByte(0);
+            } else if (object instanceof Structs structs) {
+                // The elements, not the length before them, are aligned to 8
+                align(8);
+                if (size % 8 == 0) {
+                    putInt(0);
+                }
+                position = size;
+                putInt(structs.count());
+                put(structs.data());
+            } else {
+                List<FlatTable> tables = ((Tables) object).tables();
+                align(4);
+                position = size;
+                putInt(tables.size());
+                for (FlatTable table : tables) {
+                    references.add(new Reference(size, table));
+                    putInt(0);
+                }
+            }
+            for (Reference reference : references) {
+                patch(reference.position(), write(reference.target()));
+            }
+            return position;
+        }
+
+        private int writeTable(FlatTable table, List<Reference> references) {
+            // Field offsets within the table, largest fields first after the soffset to the vtable
+            int[] offsets = new int[table.slots.size()];
+            int tableSize = 4;
+            for (int pass = 8; pass >= 1; pass /= 2) {
+                for (int slot = 0; slot < offsets.length; slot++) {
+                    if (fieldSize(table.slots.get(slot)) == pass) {
+                        offsets[slot] = tableSize;
+                        tableSize += pass;
+                    }
+                }
+            }
+            // The table starts 8-aligned, so 8 byte fields need 4 bytes of padding after the soffset
+            boolean hasLongs = table.slots.stream().anyMatch(value -> fieldSize(value) == 8);
+            if (hasLongs) {
+                for (int slot = 0; slot < offsets.length; slot++) {
+                    if (offsets[slot] != 0) {
+                        offsets[slot] += 4;
+                    }
+                }
+                tableSize += 4;
+            }
+
+            align(2);
+            int vtable = size;
+            putShort(4 + 2 * offsets.length);
+            putShort(tableSize);
+            for (int offset : offsets) {
+                putShort(offset);
+            }
+            align(8);
+            int position = size;
+            putInt(position - vtable);
+            if (hasLongs) {
+                putInt(0);
+            }
+            for (int slot = 0; slot < offsets.length; slot++) {
+                Object value = table.slots.get(slot);
+                if (value == null) {
+                    continue;
+                }
+                int at = position + offsets[slot];
+                if (value instanceof Scalar scalar) {
+                    putAt(at, scalar.size(), scalar.value());
+                } else {
+                    references.add(new Reference(at, value));
+                }
+            }
+            size = position + tableSize;
+            ensure(0);
+            return position;
+        }
+
+        private static int fieldSize(Object value) {
+            if (value == null) {
+                return 0;
+            }
+            return value instanceof Scalar scalar ? scalar.size() : 4;
+        }
+
+        void patch(int position, int target) {
+            putAt(position, 4, target - position);
+        }
+
+        void align(int alignment) {
+            while (size % alignment != 0) {
+                putByte(0);
+            }
+        }
+
+        void putByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void putShort(int value) {
+            ensure(2);
+            putAt(size, 2, value);
+            size += 2;
+        }
+
+        void putInt(int value) {
+            ensure(4);
+            putAt(size, 4, value);
+            size += 4;
+        }
+
+        void put(byte[] data) {
+            ensure(data.length);
+            System.arraycopy(data, 0, bytes, size, data.length);
+            size += data.length;
+        }
+
+        private void putAt(int position, int length, long value) {
+            ensure(position + length - size);
+            for (int i = 0; i < length; i++) {
+                bytes[position + i] = (byte) (value >>> (8 * i));
+            }
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.auditevidence.exporter.html;
+
+/**
+ * The page written by {@link HtmlReportWriter}. Placeholders are {{name}}; {{data}} is the JSON holding the
+ * check names and one row per result: check, clause, repository, status, findings, evidence file, raw data
+ * chunk and position in the chunk.
+ */
+final class HtmlReportTemplate {
+    static final String PAGE = """
+            <!DOCTYPE html>
+            <html lang="en">
+            <head>
+            <meta charset="utf-8">
+            <meta name="viewport" content="width=device-width, initial-scale=1">
+            <title>{{title}}</title>
+            <style>
+            body { font-family: -apple-system, "Segoe UI", Helvetica, Arial, sans-serif; margin: 2em; color: #1f2328; }
+            h1 { font-size: 1.5em; margin-bottom: 0.2em; }
+            .meta { color: #59636e; margin-top: 0; }
+            .notice { background: #fff8c5; border: 1px solid #d4a72c; padding: 0.5em 1em; }
+            .summary { display: flex; gap: 1em; margin: 1.5em 0; }
+            .card { border: 1px solid #d1d9e0; border-radius: 6px; padding: 0.8em 1.2em; min-width: 7em; }
+            .card span { display: block; font-size: 1.8em; font-weight: 600; }
+            nav { display: flex; gap: 0.8em; align-items: center; margin-bottom: 1em; }
+            #search { flex: 1; max-width: 40em; padding: 0.4em; }
+            table { border-collapse: collapse; width: 100%; }
+            th, td { text-align: left; vertical-align: top; padding: 0.4em 0.6em; border-bottom: 1px solid #d1d9e0; }
+            th { background: #f6f8fa; }
+            td ul { margin: 0; padding-left: 1.2em; }
+            .status { font-weight: 600; }
+            .PASS { color: #1a7f37; }
+            .FAIL { color: #d1242f; }
+            .PARTIAL { color: #9a6700; }
+            pre { background: #f6f8fa; padding: 1em; overflow: auto; max-height: 40em; margin: 0; }
+            #pager { margin-top: 1em; display: flex; gap: 1em; align-items: center; }
+            </style>
+            </head>
+            <body>
+            <h1>{{title}}</h1>
+            <p class="meta">Generated {{generated}}</p>
+            {{notice}}
+            <div class="summary">
+            <div class="card"><span>{{total}}</span>Results</div>
+            <div class="card PASS"><span>{{pass}}</span>Passed</div>
+            <div class="card FAIL"><span>{{fail}}</span>Failed</div>
+            <div class="card PARTIAL"><span>{{partial}}</span>Partial</div>
+            </div>
+            <nav>
+            <input id="search" type="search" placeholder="Search checks, repositories, findings and raw data">
+            <select id="status">
+            <option value="">All statuses</option>
+            <option>PASS</option>
+            <option>FAIL</option>
+            <option>PARTIAL</option>
+            </select>
+            <span id="count"></span>
+            </nav>
+            <table>
+            <thead><tr><th>Status</th><th>Clause</th><th>Check</th><th>Repository</th><th>Findings</th><th></th></tr></thead>
+            <tbody id="rows"></tbody>
+            </table>
+            <div id="pager"><button id="prev">Previous</button><span id="page"></span><button id="next">Next</button></div>
+            <script type="application/json" id="report">{{data}}</script>
+            <script>
+            (function () {
+              var PAGE_SIZE = 100;
+              var report = JSON.parse(document.getElementById('report').textContent);
+              var loads = {};
+              var handlers = {};
+              var matches = null;
+              var query = '';
+              var page = 0;
+
+              window.AuditReport = {
+                chunk: function (number, data) { if (handlers['raw-' + number]) handlers['raw-' + number](data); },
+                index: function (data) { if (handlers.index) handlers.index(data); }
+              };
+
+              // Data files are scripts rather than fetched, so the report also works when opened from disk
+              function load(key, src) {
+                if (!loads[key]) {
+                  loads[key] = new Promise(function (resolve, reject) {
+                    handlers[key] = resolve;
+                    var script = document.createElement('script');
+                    script.src = src;
+                    script.onerror = function () {
+                      delete loads[key];
+                      reject(new Error('Could not load ' + src));
+                    };
+                    document.head.appendChild(script);
+                  }).then(inflate);
+                }
+                return loads[key];
+              }
+
+              function inflate(data) {
+                var bytes = Uint8Array.from(atob(data), function (c) { return c.charCodeAt(0); });
+                var stream = new Blob([bytes]).stream().pipeThrough(new DecompressionStream('gzip'));
+                return new Response(stream).text().then(function (text) { return JSON.parse(text); });
+              }
+
+              function words(text) {
+                return text.toLowerCase().split(/[^\\p{L}\\p{N}._-]+/u)
+                    .map(function (word) { return word.replace(/^[._-]+|[._-]+$/g, ''); })
+                    .filter(function (word) { return word.length > 0 && !/^[0-9]+$/.test(word); });
+              }
+
+              // Every word must be the start of a token of the result
+              function search(text) {
+                query = text;
+                var terms = words(text);
+                if (terms.length === 0) {
+                  matches = null;
+                  page = 0;
+                  render();
+                  return;
+                }
+                document.getElementById('count').textContent = 'Searching…';
+                load('index', 'report-data/search-index.js').then(function (index) {
+                  if (query !== text) {
+                    return;
+                  }
+                  var found = null;
+                  terms.forEach(function (term) {
+                    var ids = new Set();
+                    var low = 0;
+                    var high = index.keys.length;
+                    while (low < high) {
+                      var mid = (low + high) >> 1;
+                      if (index.keys[mid] < term) { low = mid + 1; } else { high = mid; }
+                    }
+                    for (var i = low; i < index.keys.length && index.keys[i].startsWith(term); i++) {
+                      var id = 0;
+                      index.ids[i].forEach(function (gap) { id += gap; ids.add(id); });
+                    }
+                    found = found === null ? ids : new Set(Array.from(found).filter(function (id) { return ids.has(id); }));
+                  });
+                  matches = found;
+                  page = 0;
+                  render();
+                }, function (error) {
+                  document.getElementById('count').textContent = error.message;
+                });
+              }
+
+              function visible() {
+                var status = document.getElementById('status').value;
+                var ids = [];
+                for (var id = 0; id < report.rows.length; id++) {
+                  if ((!status || report.rows[id][3] === status) && (matches === null || matches.has(id))) {
+                    ids.push(id);
+                  }
+                }
+                return ids;
+              }
+
+              function cell(tr, text, className) {
+                var td = document.createElement('td');
+                td.textContent = text || '';
+                if (className) {
+                  td.className = className;
+                }
+                tr.appendChild(td);
+                return td;
+              }
+
+              function showRawData(row, tr, button) {
+                var next = tr.nextSibling;
+                if (next && next.className === 'raw') {
+                  next.remove();
+                  button.textContent = 'Raw data';
+                  return;
+                }
+                var detail = document.createElement('tr');
+                detail.className = 'raw';
+                var td = document.createElement('td');
+                td.colSpan = 6;
+                var pre = document.createElement('pre');
+                pre.textContent = 'Loading…';
+                td.appendChild(pre);
+                detail.appendChild(td);
+                tr.parentNode.insertBefore(detail, tr.nextSibling);
+                button.textContent = 'Hide raw data';
+                var name = String(row[6]).padStart(5, '0');
+                load('raw-' + row[6], 'report-data/raw-' + name + '.js').then(function (chunk) {
+                  pre.textContent = JSON.stringify(chunk[row[7]], null, 2);
+                }, function (error) {
+                  pre.textContent = error.message;
+                });
+              }
+
+              function render() {
+                var ids = visible();
+                var pages = Math.max(1, Math.ceil(ids.length / PAGE_SIZE));
+                page = Math.min(page, pages - 1);
+                var body = document.getElementById('rows');
+                body.textContent = '';
+                ids.slice(page * PAGE_SIZE, (page + 1) * PAGE_SIZE).forEach(function (id) {
+                  var row = report.rows[id];
+                  var tr = document.createElement('tr');
+                  cell(tr, row[3], 'status ' + row[3]);
+                  cell(tr, row[1]);
+                  cell(tr, report.checks[row[0]]);
+                  cell(tr, row[2]);
+                  var findings = cell(tr, '');
+                  if (row[4].length > 0) {
+                    var list = document.createElement('ul');
+                    row[4].forEach(function (finding) {
+                      var li = document.createElement('li');
+                      li.textContent = finding;
+                      list.appendChild(li);
+                    });
+                    findings.appendChild(list);
+                  }
+                  var actions = cell(tr, '');
+                  var button = document.createElement('button');
+                  button.textContent = 'Raw data';
+                  button.onclick = function () { showRawData(row, tr, button); };
+                  actions.appendChild(button);
+                  if (row[5]) {
+                    var link = document.createElement('a');
+                    link.href = encodeURI(row[5]);
+                    link.textContent = ' Evidence';
+                    actions.appendChild(link);
+                  }
+                  body.appendChild(tr);
+                });
+                document.getElementById('count').textContent = ids.length + ' of ' + report.rows.length + ' results';
+                document.getElementById('page').textContent = 'Page ' + (page + 1) + ' of ' + pages;
+                document.getElementById('prev').disabled = page === 0;
+                document.getElementById('next').disabled = page >= pages - 1;
+              }
+
+              var timer;
+              document.getElementById('search').addEventListener('input', function (event) {
+                clearTimeout(timer);
+                timer = setTimeout(function () { search(event.target.value); }, 200);
+              });
+              document.getElementById('status').addEventListener('change', function () { page = 0; render(); });
+              document.getElementById('prev').addEventListener('click', function () { page--; render(); });
+              document.getElementById('next').addEventListener('click', function () { page++; render(); });
+              render();
+            })();
+            </script>
+            </body>
+            </html>
+            """;
+
+    private HtmlReportTemplate() {
+    }
+}
@@ -0,0 +1,248 @@
+package com.auditevidence.exporter.html;
+
+import com.auditevidence.exporter.DigestingOutputStream;
+import com.auditevidence.exporter.FileDigest;
+import com.auditevidence.model.CheckResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes audit-report.html, a static report of every result that opens quickly however large the sweep. The
+ * page itself holds the summary and each result's status and findings; raw data is written to gzip-compressed
+ * chunk files under {@link #DATA_DIRECTORY} that the page loads when a result is expanded, and searching loads
+ * a token index built here instead of the raw data. Chunks are loaded as scripts, so the report also works
+ * when opened straight from disk.
+ */
+public class HtmlReportWriter {
+    public static final String FILE = "audit-report.html";
+    public static final String DATA_DIRECTORY = "report-data";
+    public static final String FREE_TIER_NOTICE = "FREE TIER - for evaluation use only";
+    private static final String SEARCH_INDEX_FILE = "search-index.js";
+    private static final int CHUNK_BYTES = 256 * 1024;
+    private static final int MAX_TOKEN_LENGTH = 64;
+    private static final Set<String> STOP_WORDS = Set.of("true", "false", "null");
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final Path outputDir;
+    private final Path dataDir;
+    private final Map<Path, FileDigest> written = new LinkedHashMap<>();
+    private final ArrayNode rows = objectMapper.createArrayNode();
+    private final Map<String, Integer> checkIds = new LinkedHashMap<>();
+    private final Map<String, List<Integer>> postings = new HashMap<>();
+    private final long[] counts = new long[3];
+    private final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+    private int chunkResults;
+
+    /**
+     * Removes the chunk files of an earlier report in {@code outputDir}.
+     */
+    public HtmlReportWriter(Path outputDir) throws IOException {
+        this.outputDir = outputDir;
+        this.dataDir = outputDir.resolve(DATA_DIRECTORY);
+        if (Files.isDirectory(dataDir)) {
+            try (Stream<Path> files = Files.list(dataDir)) {
+                for (Path file : files.filter(f -> f.getFileName().toString().endsWith(".js")).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+        Files.createDirectories(dataDir);
+    }
+
+    public void add(CheckResult result, String evidenceFile) throws IOException {
+        add(objectMapper.valueToTree(result), evidenceFile);
+    }
+
+    /**
+     * @param result a result as serialized in audit-report.json
+     * @param evidenceFile the result's evidence file relative to the output directory, or null when it has none
+     */
+    public void add(JsonNode result, String evidenceFile) throws IOException {
+        int id = rows.size();
+        String checkName = result.path("checkName").asText();
+        String status = result.path("status").asText();
+        JsonNode repository = result.path("rawData").path("repository");
+        String repo = repository.isObject() ? repository.path("name").asText(null) : null;
+
+        ArrayNode row = rows.addArray();
+        row.add(checkIds.computeIfAbsent(checkName, name -> checkIds.size()));
+        row.add(result.path("clauseId").asText());
+        row.add(repo);
+        row.add(status);
+        row.add(result.path("findings").isArray() ? result.get("findings") : objectMapper.createArrayNode());
+        row.add(evidenceFile);
+        row.add(written.size());
+        row.add(chunkResults);
+
+        switch (status) {
+            case "PASS" -> counts[0]++;
+            case "FAIL" -> counts[1]++;
+            case "PARTIAL" -> counts[2]++;
+            default -> {
+            }
+        }
+
+        Set<String> tokens = new HashSet<>();
+        tokenize(checkName, tokens);
+        tokenize(result.path("clauseId").asText(), tokens);
+        tokenize(repo, tokens);
+        tokenize(status, tokens);
+        tokenize(result.path("description").asText(), tokens);
+        tokenizeValues(result.path("findings"), tokens);
+        tokenizeValues(result.path("rawData"), tokens);
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, t -> new ArrayList<>()).add(id);
+        }
+
+        chunk.write(chunkResults == 0 ? '[' : ',');
+        objectMapper.writeValue(chunk, result.path("rawData"));
+        chunkResults++;
+        if (chunk.size() >= CHUNK_BYTES) {
+            flushChunk();
+        }
+    }
+
+    /**
+     * Writes the last chunk, the search index and the page.
+     *
+     * @param notice a line shown above the summary (e.g. the free tier notice), or null
+     * @return every file written, with its digest
+     */
+    public Map<Path, FileDigest> finish(String orgName, String standard, Instant generatedAt, String notice)
+            throws IOException {
+        if (chunkResults > 0) {
+            flushChunk();
+        }
+
+        TreeMap<String, List<Integer>> sorted = new TreeMap<>(postings);
+        ObjectNode index = objectMapper.createObjectNode();
+        ArrayNode keys = index.putArray("keys");
+        ArrayNode ids = index.putArray("ids");
+        for (Map.Entry<String, List<Integer>> posting : sorted.entrySet()) {
+            keys.add(posting.getKey());
+            // Ascending ids are stored as gaps, which compress to a few bits each
+            ArrayNode gaps = ids.addArray();
+            int previous = 0;
+            for (int id : posting.getValue()) {
+                gaps.add(id - previous);
+                previous = id;
+            }
+        }
+        Path indexFile = dataDir.resolve(SEARCH_INDEX_FILE);
+        written.put(indexFile, writeScript(indexFile, "AuditReport.index(", objectMapper.writeValueAsBytes(index)));
+
+        ObjectNode data = objectMapper.createObjectNode();
+        ArrayNode checks = data.putArray("checks");
+        checkIds.keySet().forEach(checks::add);
+        data.set("rows", rows);
+        String json = objectMapper.writeValueAsString(data).replace("</", "<\\/");
+
+        String title = standard.toUpperCase(Locale.ROOT) + " Audit Evidence: " + orgName;
+        String page = HtmlReportTemplate.PAGE
+                .replace("{{title}}", escape(title))
+                .replace("{{generated}}", escape(generatedAt.toString()))
+                .replace("{{notice}}", notice == null ? "" : "<p class=\"notice\">" + escape(notice) + "</p>")
+                .replace("{{total}}", String.valueOf(rows.size()))
+                .replace("{{pass}}", String.valueOf(counts[0]))
+                .replace("{{fail}}", String.valueOf(counts[1]))
+                .replace("{{partial}}", String.valueOf(counts[2]))
+                .replace("{{data}}", json);
+        Path pageFile = outputDir.resolve(FILE);
+        DigestingOutputStream digest = DigestingOutputStream.create(pageFile);
+        try (OutputStream out = digest) {
+            out.write(page.getBytes(StandardCharsets.UTF_8));
+        }
+        written.put(pageFile, digest.getDigest());
+        return written;
+    }
+
+    private void flushChunk() throws IOException {
+        chunk.write(']');
+        int number = written.size();
+        Path file = dataDir.resolve(String.format("raw-%05d.js", number));
+        written.put(file, writeScript(file, "AuditReport.chunk(" + number + ",", chunk.toByteArray()));
+        chunk.reset();
+        chunkResults = 0;
+    }
+
+    /**
+     * Writes {@code json} gzip-compressed and base64-encoded as the argument of a call to {@code call}.
+     */
+    private static FileDigest writeScript(Path file, String call, byte[] json) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json);
+        }
+        DigestingOutputStream digest = DigestingOutputStream.create(file);
+        try (OutputStream out = digest) {
+            out.write((call + "\"").getBytes(StandardCharsets.US_ASCII));
+            out.write(Base64.getEncoder().encode(compressed.toByteArray()));
+            out.write("\");\n".getBytes(StandardCharsets.US_ASCII));
+        }
+        return digest.getDigest();
+    }
+
+    private static void tokenizeValues(JsonNode node, Set<String> tokens) {
+        if (node.isTextual()) {
+            tokenize(node.asText(), tokens);
+        } else if (node.isContainerNode()) {
+            for (JsonNode child : node) {
+                tokenizeValues(child, tokens);
+            }
+        }
+    }
+
+    /**
+     * Adds the lower-cased words of {@code text}: runs of letters and digits, also kept joined by the
+     * punctuation common in names (e.g. "release-v2" adds "release", "v2" and "release-v2"). Numbers alone
+     * are left out.
+     */
+    private static void tokenize(String text, Set<String> tokens) {
+        if (text == null) {
+            return;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}._-]+")) {
+            addToken(word.replaceAll("^[._-]+|[._-]+$", ""), tokens);
+            for (String part : word.split("[._-]+")) {
+                addToken(part, tokens);
+            }
+        }
+    }
+
+    private static void addToken(String token, Set<String> tokens) {
+        if (token.length() > 1 && token.length() <= MAX_TOKEN_LENGTH && !STOP_WORDS.contains(token)
+                && !token.chars().allMatch(Character::isDigit)) {
+            tokens.add(token);
+        }
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -1,14 +1,25 @@
 package com.auditevidence.exporter.json;
 
+import com.auditevidence.exporter.DigestingOutputStream;
+import com.auditevidence.exporter.EvaluatedData;
+import com.auditevidence.exporter.FileDigest;
+import com.auditevidence.github.RawResponse;
 import com.auditevidence.model.AuditReport;
 import com.auditevidence.model.CheckResult;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 
 public class JsonExporter {
     private final ObjectMapper objectMapper;
@@ -20,13 +31,64 @@ public class JsonExporter {
         this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
     }
 
-    public void export(CheckResult result, Path outputPath) throws IOException {
+    public FileDigest export(CheckResult result, Path outputPath) throws IOException {
+        return export(result, List.of(), outputPath);
+    }
+
+    /**
+     * Writes {@code result} followed by an "apiResponses" array holding each response's endpoint, status,
+     * fetch time and body. JSON bodies are copied byte for byte rather than re-serialized, and the result's
+     * raw data keeps only what the check {@linkplain EvaluatedData evaluated} from them.
+     *
+     * @return the digest of the written file
+     */
+    public FileDigest export(CheckResult result, List<RawResponse> responses, Path outputPath) throws IOException {
         Files.createDirectories(outputPath.getParent());
-        objectMapper.writeValue(outputPath.toFile(), result);
+        DigestingOutputStream digest = DigestingOutputStream.create(outputPath);
+        if (responses.isEmpty()) {
+            try (OutputStream out = new BufferedOutputStream(digest)) {
+                objectMapper.writeValue(out, result);
+            }
+            return digest.getDigest();
+        }
+
+        ObjectNode fields = objectMapper.valueToTree(result.withRawData(EvaluatedData.of(result.rawData())));
+        try (OutputStream out = new BufferedOutputStream(digest);
+             JsonGenerator generator = objectMapper.writer().createGenerator(out)) {
+            generator.writeStartObject();
+            for (Map.Entry<String, JsonNode> field : fields.properties()) {
+                generator.writeFieldName(field.getKey());
+                generator.writeTree(field.getValue());
+            }
+            generator.writeArrayFieldStart("apiResponses");
+            for (RawResponse response : responses) {
+                generator.writeStartObject();
+                generator.writeStringField("endpoint", response.endpoint());
+                generator.writeNumberField("status", response.status());
+                generator.writeStringField("fetchedAt", response.fetchedAt().toString());
+                generator.writeFieldName("body");
+                if (response.isJson()) {
+                    // An empty raw value makes the generator emit the separator; the body follows verbatim
+                    generator.writeRawValue("");
+                    generator.flush();
+                    response.writeTo(out);
+                } else {
+                    generator.writeString(response.text());
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        return digest.getDigest();
     }
 
-    public void exportReport(AuditReport report, Path outputPath) throws IOException {
+    public FileDigest exportReport(AuditReport report, Path outputPath) throws IOException {
         Files.createDirectories(outputPath.getParent());
-        objectMapper.writeValue(outputPath.toFile(), report);
+        DigestingOutputStream digest = DigestingOutputStream.create(outputPath);
+        try (OutputStream out = new BufferedOutputStream(digest)) {
+            objectMapper.writeValue(out, report);
+        }
+        return digest.getDigest();
     }
 }
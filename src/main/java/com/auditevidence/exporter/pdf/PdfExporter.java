@@ -1,5 +1,9 @@
 package com.auditevidence.exporter.pdf;
 
+import com.auditevidence.exporter.DigestingOutputStream;
+import com.auditevidence.exporter.EvaluatedData;
+import com.auditevidence.exporter.FileDigest;
+import com.auditevidence.github.RawResponse;
 import com.auditevidence.model.CheckResult;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -8,14 +12,19 @@ import com.lowagie.text.*;
 import com.lowagie.text.pdf.PdfWriter;
 
 import java.awt.Color;
-import java.io.FileOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.stream.Collectors;
 
 public class PdfExporter {
+    private static final int BODY_CHUNK_CHARS = 64 * 1024;
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter
             .ofPattern("yyyy-MM-dd HH:mm:ss z")
             .withZone(ZoneId.systemDefault());
@@ -30,18 +39,28 @@ public class PdfExporter {
         this.objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
     }
 
-    public void export(CheckResult result, Path outputPath) throws IOException {
+    public FileDigest export(CheckResult result, Path outputPath) throws IOException {
+        return export(result, java.util.List.of(), outputPath);
+    }
+
+    /**
+     * @return the digest of the written file
+     */
+    public FileDigest export(CheckResult result, java.util.List<RawResponse> responses, Path outputPath)
+            throws IOException {
         Files.createDirectories(outputPath.getParent());
 
+        DigestingOutputStream digest = DigestingOutputStream.create(outputPath);
         Document document = new Document(PageSize.A4);
         try {
-            PdfWriter.getInstance(document, new FileOutputStream(outputPath.toFile()));
+            PdfWriter.getInstance(document, new BufferedOutputStream(digest));
             document.open();
 
             addHeader(document, result);
             addSummary(document, result);
             addFindings(document, result);
-            addRawData(document, result);
+            addRawData(document, result, !responses.isEmpty());
+            addApiResponses(document, responses);
             addFooter(document);
 
             if (addWatermark) {
@@ -52,13 +71,14 @@ public class PdfExporter {
         } finally {
             document.close();
         }
+        return digest.getDigest();
     }
 
     private void addHeader(Document document, CheckResult result) throws DocumentException {
         Font titleFont = new Font(Font.HELVETICA, 20, Font.BOLD, new Color(33, 37, 41));
         Font subtitleFont = new Font(Font.HELVETICA, 14, Font.NORMAL, new Color(108, 117, 125));
 
-        Paragraph title = new Paragraph("SOC2 Audit Evidence", titleFont);
+        Paragraph title = new Paragraph(result.standard() + " Audit Evidence", titleFont);
         title.setAlignment(Element.ALIGN_CENTER);
         title.setSpacingAfter(10);
         document.add(title);
@@ -82,6 +102,11 @@ public class PdfExporter {
 
         addLabelValue(document, "Standard:", result.standard(), labelFont, valueFont);
         addLabelValue(document, "Clause ID:", result.clauseId(), labelFont, valueFont);
+        if (!result.mappedClauses().isEmpty()) {
+            addLabelValue(document, "Mapped Clauses:", result.mappedClauses().entrySet().stream()
+                    .map(clause -> clause.getKey() + " " + clause.getValue())
+                    .collect(Collectors.joining(", ")), labelFont, valueFont);
+        }
         addLabelValue(document, "Check Name:", result.checkName(), labelFont, valueFont);
         addLabelValue(document, "Description:", result.description(), labelFont, valueFont);
         addLabelValue(document, "Timestamp:", DATE_FORMAT.format(result.timestamp()), labelFont, valueFont);
@@ -124,26 +149,97 @@ public class PdfExporter {
         document.add(list);
     }
 
-    private void addRawData(Document document, CheckResult result) throws DocumentException {
+    private void addRawData(Document document, CheckResult result, boolean hasResponses) throws DocumentException {
         Font sectionFont = new Font(Font.HELVETICA, 14, Font.BOLD, new Color(33, 37, 41));
         Font codeFont = new Font(Font.COURIER, 8, Font.NORMAL, new Color(33, 37, 41));
 
-        Paragraph rawDataTitle = new Paragraph("Raw Data (API Response)", sectionFont);
+        Paragraph rawDataTitle = new Paragraph(hasResponses ? "Evaluated Data" : "Raw Data (API Response)", sectionFont);
         rawDataTitle.setSpacingBefore(30);
         rawDataTitle.setSpacingAfter(10);
         document.add(rawDataTitle);
 
         try {
-            String jsonData = objectMapper.writeValueAsString(result.rawData());
-            Paragraph rawData = new Paragraph(jsonData, codeFont);
-            rawData.setSpacingAfter(10);
-            document.add(rawData);
+            Object rawData = hasResponses ? EvaluatedData.of(result.rawData()) : result.rawData();
+            String jsonData = objectMapper.writeValueAsString(rawData);
+            Paragraph data = new Paragraph(jsonData, codeFont);
+            data.setSpacingAfter(10);
+            document.add(data);
         } catch (Exception e) {
             Paragraph error = new Paragraph("Unable to serialize raw data: " + e.getMessage(), codeFont);
             document.add(error);
         }
     }
 
+    private void addApiResponses(Document document, java.util.List<RawResponse> responses)
+            throws DocumentException, IOException {
+        if (responses.isEmpty()) {
+            return;
+        }
+
+        Font sectionFont = new Font(Font.HELVETICA, 14, Font.BOLD, new Color(33, 37, 41));
+        Font labelFont = new Font(Font.HELVETICA, 9, Font.BOLD, new Color(33, 37, 41));
+        Font codeFont = new Font(Font.COURIER, 8, Font.NORMAL, new Color(33, 37, 41));
+
+        Paragraph title = new Paragraph("API Responses (verbatim)", sectionFont);
+        title.setSpacingBefore(30);
+        title.setSpacingAfter(10);
+        document.add(title);
+
+        for (RawResponse response : responses) {
+            Paragraph source = new Paragraph("GET " + response.endpoint() + " - HTTP " + response.status()
+                    + " - fetched " + DATE_FORMAT.format(response.fetchedAt()), labelFont);
+            source.setSpacingBefore(10);
+            source.setSpacingAfter(5);
+            document.add(source);
+
+            addBody(document, response, codeFont);
+        }
+    }
+
+    /**
+     * Adds the body of {@code response}. A spilled body is read and laid out a chunk at a time rather than as
+     * one string; each chunk ends after its last newline or comma, so the breaks fall between JSON values.
+     */
+    private void addBody(Document document, RawResponse response, Font codeFont) throws DocumentException, IOException {
+        if (response.length() <= RawResponse.SPILL_THRESHOLD) {
+            Paragraph body = new Paragraph(response.text(), codeFont);
+            body.setSpacingAfter(10);
+            document.add(body);
+            return;
+        }
+
+        try (Reader reader = new InputStreamReader(response.openStream(), StandardCharsets.UTF_8)) {
+            char[] buffer = new char[BODY_CHUNK_CHARS];
+            int length = 0;
+            boolean end = false;
+            while (!end) {
+                int read = reader.read(buffer, length, buffer.length - length);
+                end = read == -1;
+                length += Math.max(read, 0);
+                if (length < buffer.length && !end) {
+                    continue;
+                }
+                int cut = end ? length : chunkEnd(buffer, length);
+                Paragraph chunk = new Paragraph(new String(buffer, 0, cut), codeFont);
+                if (end) {
+                    chunk.setSpacingAfter(10);
+                }
+                document.add(chunk);
+                System.arraycopy(buffer, cut, buffer, 0, length - cut);
+                length -= cut;
+            }
+        }
+    }
+
+    private static int chunkEnd(char[] buffer, int length) {
+        for (int i = length - 1; i > 0; i--) {
+            if (buffer[i] == '\n' || buffer[i] == ',') {
+                return i + 1;
+            }
+        }
+        return Character.isHighSurrogate(buffer[length - 1]) ? length - 1 : length;
+    }
+
     private void addFooter(Document document) throws DocumentException {
         Font footerFont = new Font(Font.HELVETICA, 9, Font.ITALIC, new Color(108, 117, 125));
 
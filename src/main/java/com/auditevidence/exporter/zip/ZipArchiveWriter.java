@@ -0,0 +1,66 @@
+package com.auditevidence.exporter.zip;
+
+import com.auditevidence.exporter.DigestingOutputStream;
+import com.auditevidence.exporter.FileDigest;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * A ZIP archive that is written while evidence is still being collected. Entries go to a ".part" file
+ * that is renamed to the final name on {@link #close()}, so an interrupted run never leaves a truncated
+ * archive under the real name. The archive and every entry are digested as they are written.
+ */
+public class ZipArchiveWriter implements AutoCloseable {
+    private final Path baseDir;
+    private final Path outputZipPath;
+    private final Path partPath;
+    private final DigestingOutputStream digest;
+    private final ZipOutputStream zos;
+    private final Set<String> entries = new HashSet<>();
+
+    public ZipArchiveWriter(Path baseDir, Path outputZipPath) throws IOException {
+        Files.createDirectories(outputZipPath.toAbsolutePath().getParent());
+        this.baseDir = baseDir;
+        this.outputZipPath = outputZipPath;
+        this.partPath = outputZipPath.resolveSibling(outputZipPath.getFileName() + ".part");
+        this.digest = DigestingOutputStream.create(partPath);
+        this.zos = new ZipOutputStream(new BufferedOutputStream(digest));
+    }
+
+    /**
+     * Adds {@code file} unless an entry with the same name was already written.
+     *
+     * @return the digest of the file as it was copied, or null if it was not added
+     */
+    public synchronized FileDigest add(Path file) throws IOException {
+        String name = ZipExporter.entryName(file, baseDir);
+        if (!Files.exists(file) || !entries.add(name)) {
+            return null;
+        }
+        return ZipExporter.copyEntry(file, name, zos);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        zos.close();
+        Files.move(partPath, outputZipPath, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @return the digest of the archive; only complete after {@link #close()}
+     */
+    public FileDigest getDigest() {
+        return digest.getDigest();
+    }
+
+    public Path getPath() {
+        return outputZipPath;
+    }
+}
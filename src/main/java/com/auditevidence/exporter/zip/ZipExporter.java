@@ -1,6 +1,9 @@
 package com.auditevidence.exporter.zip;
 
-import java.io.FileOutputStream;
+import com.auditevidence.exporter.DigestingOutputStream;
+import com.auditevidence.exporter.FileDigest;
+
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -10,20 +13,46 @@ import java.util.zip.ZipOutputStream;
 
 public class ZipExporter {
 
-    public void createZip(List<Path> files, Path outputZipPath) throws IOException {
-        Files.createDirectories(outputZipPath.getParent());
+    public FileDigest createZip(List<Path> files, Path outputZipPath) throws IOException {
+        return createZip(files, null, outputZipPath);
+    }
 
-        try (FileOutputStream fos = new FileOutputStream(outputZipPath.toFile());
-             ZipOutputStream zos = new ZipOutputStream(fos)) {
+    /**
+     * @return the digest of the archive, taken while it was written
+     */
+    public FileDigest createZip(List<Path> files, Path baseDir, Path outputZipPath) throws IOException {
+        Files.createDirectories(outputZipPath.getParent());
 
+        DigestingOutputStream digest = DigestingOutputStream.create(outputZipPath);
+        try (ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(digest))) {
             for (Path file : files) {
                 if (Files.exists(file)) {
-                    ZipEntry zipEntry = new ZipEntry(file.getFileName().toString());
-                    zos.putNextEntry(zipEntry);
-                    Files.copy(file, zos);
-                    zos.closeEntry();
+                    copyEntry(file, entryName(file, baseDir), zos);
                 }
             }
         }
+        return digest.getDigest();
+    }
+
+    /**
+     * Writes {@code file} as the entry {@code name}, digesting it on the way.
+     */
+    static FileDigest copyEntry(Path file, String name, ZipOutputStream zos) throws IOException {
+        zos.putNextEntry(new ZipEntry(name));
+        DigestingOutputStream entry = new DigestingOutputStream(zos);
+        Files.copy(file, entry);
+        zos.closeEntry();
+        return entry.getDigest();
+    }
+
+    static String entryName(Path file, Path baseDir) {
+        if (baseDir != null) {
+            Path absoluteBase = baseDir.toAbsolutePath().normalize();
+            Path absoluteFile = file.toAbsolutePath().normalize();
+            if (absoluteFile.startsWith(absoluteBase)) {
+                return absoluteBase.relativize(absoluteFile).toString().replace('\\', '/');
+            }
+        }
+        return file.getFileName().toString();
     }
 }
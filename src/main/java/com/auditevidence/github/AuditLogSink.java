@@ -0,0 +1,10 @@
+package com.auditevidence.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface AuditLogSink {
+    void accept(JsonNode event) throws IOException;
+}
@@ -0,0 +1,55 @@
+package com.auditevidence.github;
+
+import java.time.Instant;
+
+/**
+ * The time the GitHub calls made by a block of code on the current thread may take, e.g. one check's share of
+ * a run's {@code --deadline}. {@link GithubClient} gives every request a timeout of the time remaining and
+ * fails with {@link DeadlineExceededException} once it has run out.
+ */
+public final class CallBudget implements AutoCloseable {
+    private static final ThreadLocal<CallBudget> CURRENT = new ThreadLocal<>();
+
+    private final CallBudget previous;
+    private final long untilMillis;
+
+    private CallBudget(CallBudget previous, long untilMillis) {
+        this.previous = previous;
+        this.untilMillis = untilMillis;
+    }
+
+    /**
+     * Starts a budget ending at {@code until}, or at the end of an enclosing budget if that is earlier.
+     */
+    public static CallBudget start(Instant until) {
+        CallBudget enclosing = CURRENT.get();
+        long untilMillis = until.toEpochMilli();
+        if (enclosing != null) {
+            untilMillis = Math.min(untilMillis, enclosing.untilMillis);
+        }
+        CallBudget budget = new CallBudget(enclosing, untilMillis);
+        CURRENT.set(budget);
+        return budget;
+    }
+
+    /**
+     * @return the milliseconds left in the current thread's budget, or {@link Long#MAX_VALUE} without one
+     */
+    public static long remainingMillis() {
+        CallBudget budget = CURRENT.get();
+        return budget == null ? Long.MAX_VALUE : budget.untilMillis - System.currentTimeMillis();
+    }
+
+    public static boolean isExhausted() {
+        return remainingMillis() <= 0;
+    }
+
+    @Override
+    public void close() {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.auditevidence.github;
+
+/**
+ * Consecutive-failure breaker for one endpoint family. After {@code failureThreshold} server errors or
+ * I/O failures in a row the breaker opens and requests fail immediately; once {@code openMillis} have
+ * passed a single probe request is let through and its outcome closes or re-opens the breaker. A request
+ * that ends without an outcome, because it was cancelled or ran out of the run deadline, must be
+ * {@linkplain #release released} so a probe that never reports back does not keep the breaker half open.
+ */
+public class CircuitBreaker {
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    public enum Permit {
+        REFUSED, GRANTED, PROBE
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * @return whether a request may be sent now, and whether it is the half-open probe
+     */
+    public synchronized Permit tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return Permit.GRANTED;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt >= openMillis) {
+                    state = State.HALF_OPEN;
+                    return Permit.PROBE;
+                }
+                return Permit.REFUSED;
+            default:
+                return Permit.REFUSED;
+        }
+    }
+
+    /**
+     * Ends a request without recording an outcome. A released probe re-opens the breaker without restarting
+     * its open period, so the next request becomes the probe.
+     */
+    public synchronized void release(Permit permit) {
+        if (permit == Permit.PROBE && state == State.HALF_OPEN) {
+            state = State.OPEN;
+        }
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
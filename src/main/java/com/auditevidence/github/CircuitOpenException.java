@@ -0,0 +1,21 @@
+package com.auditevidence.github;
+
+import java.io.IOException;
+
+/**
+ * Thrown without contacting GitHub while the circuit breaker of an endpoint family is open.
+ */
+public class CircuitOpenException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final String endpoint;
+
+    public CircuitOpenException(String endpoint) {
+        super("GitHub endpoint " + endpoint + " is failing; skipping request until it recovers");
+        this.endpoint = endpoint;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+}
@@ -0,0 +1,14 @@
+package com.auditevidence.github;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the {@link CallBudget} of the current thread ran out before or while a request was sent.
+ */
+public class DeadlineExceededException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(String endpoint) {
+        super("Time budget for " + endpoint + " ran out before the run deadline");
+    }
+}
@@ -0,0 +1,70 @@
+package com.auditevidence.github;
+
+import okhttp3.HttpUrl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latency statistics and circuit breakers per endpoint family. A family is the request path with owner,
+ * repository, branch and other identifiers replaced by a wildcard, so every repository's branch
+ * protection endpoint shares one breaker and one latency window.
+ */
+public class EndpointPolicies {
+    public static final int DEFAULT_HEDGE_PERCENTILE = 95;
+    private static final int LATENCY_WINDOW = 256;
+    private static final int MIN_SAMPLES_FOR_HEDGING = 20;
+    private static final long MIN_HEDGE_DELAY_MILLIS = 50;
+    private static final int FAILURE_THRESHOLD = 5;
+    private static final long OPEN_MILLIS = 30_000;
+
+    private final int hedgePercentile;
+    private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * @param hedgePercentile latency percentile after which a duplicate GET is sent; 0 disables hedging
+     */
+    public EndpointPolicies(int hedgePercentile) {
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    public static String family(HttpUrl url) {
+        List<String> segments = url.pathSegments();
+        int identifiers = segments.isEmpty() ? 0 : switch (segments.get(0)) {
+            case "repos" -> 2;
+            case "orgs", "users" -> 1;
+            default -> 0;
+        };
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < segments.size(); i++) {
+            boolean identifier = i > 0 && (i <= identifiers || (i - identifiers) % 2 == 0);
+            sb.append('/').append(identifier ? "*" : segments.get(i));
+        }
+        return sb.toString();
+    }
+
+    public CircuitBreaker breaker(String family) {
+        return breakers.computeIfAbsent(family, f -> new CircuitBreaker(FAILURE_THRESHOLD, OPEN_MILLIS));
+    }
+
+    public LatencyTracker latency(String family) {
+        return latencies.computeIfAbsent(family, f -> new LatencyTracker(LATENCY_WINDOW));
+    }
+
+    /**
+     * @return how long to wait for a response before hedging, or -1 when the request should not be hedged
+     */
+    public long hedgeDelayMillis(String family) {
+        if (hedgePercentile <= 0) {
+            return -1;
+        }
+        LatencyTracker tracker = latency(family);
+        if (tracker.count() < MIN_SAMPLES_FOR_HEDGING) {
+            return -1;
+        }
+        return Math.max(MIN_HEDGE_DELAY_MILLIS, tracker.percentile(hedgePercentile));
+    }
+}
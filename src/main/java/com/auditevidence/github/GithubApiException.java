@@ -1,6 +1,14 @@
 package com.auditevidence.github;
 
 public class GithubApiException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Status of a request whose {@link CallBudget} ran out, reported like a server error so the result is
+     * recorded as PARTIAL rather than failed.
+     */
+    public static final int DEADLINE_EXCEEDED = 599;
+
     private final int statusCode;
 
     public GithubApiException(String message, int statusCode, Throwable cause) {
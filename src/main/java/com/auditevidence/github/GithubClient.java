@@ -1,14 +1,25 @@
 package com.auditevidence.github;
 
+import com.auditevidence.github.auth.Credential;
+import com.auditevidence.github.auth.TokenPool;
 import com.auditevidence.model.*;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -18,14 +29,29 @@ public class GithubClient {
     private static final String API_BASE = "https://api.github.com";
     private final OkHttpClient httpClient;
     private final ObjectMapper objectMapper;
-    private final String token;
+    private final TokenPool tokenPool;
+    private final EndpointPolicies policies;
 
     public GithubClient(String token) {
-        this.token = token;
-        this.httpClient = new OkHttpClient.Builder()
-                .connectTimeout(30, TimeUnit.SECONDS)
-                .readTimeout(30, TimeUnit.SECONDS)
-                .build();
+        this(TokenPool.of(token));
+    }
+
+    public GithubClient(TokenPool tokenPool) {
+        this(tokenPool, newHttpClient());
+    }
+
+    protected GithubClient() {
+        this(null, null);
+    }
+
+    public GithubClient(TokenPool tokenPool, OkHttpClient httpClient) {
+        this(tokenPool, httpClient, new EndpointPolicies(EndpointPolicies.DEFAULT_HEDGE_PERCENTILE));
+    }
+
+    public GithubClient(TokenPool tokenPool, OkHttpClient httpClient, EndpointPolicies policies) {
+        this.tokenPool = tokenPool;
+        this.httpClient = httpClient;
+        this.policies = policies;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
     }
@@ -87,89 +113,429 @@ public class GithubClient {
         }
     }
 
+    /**
+     * Lists the organization's rulesets and fetches the conditions and rules of those targeting branches.
+     */
+    public List<Ruleset> getOrganizationRulesets(String orgName) throws GithubApiException {
+        String url = API_BASE + "/orgs/" + orgName + "/rulesets";
+        List<Ruleset> summaries = executePaginatedRequest(url, new TypeReference<List<Ruleset>>() {});
+        List<Ruleset> rulesets = new ArrayList<>(summaries.size());
+        for (Ruleset summary : summaries) {
+            rulesets.add(summary.targetsBranches()
+                    ? executeRequest(url + "/" + summary.id(), new TypeReference<Ruleset>() {})
+                    : summary);
+        }
+        return rulesets;
+    }
+
+    /**
+     * Lists the organization's teams with their members and repository grants: one listing plus two per
+     * team, however many repositories the organization has.
+     */
+    public List<GithubTeam> getOrganizationTeams(String orgName) throws GithubApiException {
+        String url = API_BASE + "/orgs/" + orgName + "/teams";
+        List<GithubTeam> summaries = executePaginatedRequest(url, new TypeReference<List<GithubTeam>>() {});
+        List<GithubTeam> teams = new ArrayList<>(summaries.size());
+        for (GithubTeam team : summaries) {
+            teams.add(team.withAccess(
+                    executePaginatedRequest(url + "/" + team.slug() + "/members",
+                            new TypeReference<List<GithubMember>>() {}),
+                    executePaginatedRequest(url + "/" + team.slug() + "/repos",
+                            new TypeReference<List<GithubTeam.TeamRepository>>() {})));
+        }
+        return teams;
+    }
+
     public boolean isAuditLogEnabled(String orgName) throws GithubApiException {
         String url = API_BASE + "/orgs/" + orgName + "/audit-log?per_page=1";
         try {
-            Request request = new Request.Builder()
-                    .url(url)
-                    .header("Authorization", "Bearer " + token)
-                    .header("Accept", "application/vnd.github+json")
-                    .header("X-GitHub-Api-Version", "2022-11-28")
-                    .get()
-                    .build();
+            Request request = newRequest(url);
 
-            try (Response response = httpClient.newCall(request).execute()) {
-                return response.isSuccessful();
+            try (Response response = execute(request)) {
+                RawResponse raw = capture(url, response);
+                try {
+                    return response.isSuccessful();
+                } finally {
+                    raw.release();
+                }
             }
         } catch (IOException e) {
-            throw new GithubApiException("Failed to check audit log: " + e.getMessage(), 0, e);
+            throw failure("Failed to check audit log", e);
         }
     }
 
+    public String streamAuditLog(String orgName, String phrase, String afterCursor, AuditLogSink sink)
+            throws GithubApiException {
+        HttpUrl.Builder urlBuilder = HttpUrl.get(API_BASE + "/orgs/" + orgName + "/audit-log").newBuilder()
+                .addQueryParameter("per_page", "100")
+                .addQueryParameter("order", "asc");
+        if (phrase != null) {
+            urlBuilder.addQueryParameter("phrase", phrase);
+        }
+        if (afterCursor != null) {
+            urlBuilder.addQueryParameter("after", afterCursor);
+        }
+
+        String nextUrl = urlBuilder.build().toString();
+        String cursor = afterCursor;
+        while (nextUrl != null) {
+            try (Response response = execute(newRequest(nextUrl))) {
+                if (!response.isSuccessful()) {
+                    String body = response.body() != null ? response.body().string() : "";
+                    throw new GithubApiException(
+                            "GitHub API error: " + response.code() + " " + body,
+                            response.code(),
+                            null
+                    );
+                }
+                if (response.body() != null) {
+                    try (JsonParser parser = objectMapper.createParser(response.body().byteStream())) {
+                        if (parser.nextToken() != JsonToken.START_ARRAY) {
+                            throw new GithubApiException("Unexpected audit log response", response.code(), null);
+                        }
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            sink.accept(objectMapper.readTree(parser));
+                        }
+                    }
+                }
+
+                nextUrl = parseLinkHeader(response.header("Link"));
+                if (nextUrl != null) {
+                    String nextCursor = HttpUrl.get(nextUrl).queryParameter("after");
+                    if (nextCursor != null) {
+                        cursor = nextCursor;
+                    }
+                }
+            } catch (IOException e) {
+                throw failure("Failed to stream audit log", e);
+            }
+        }
+        return cursor;
+    }
+
     public String getApiEndpoint(String path) {
         return API_BASE + path;
     }
 
-    private <T> T executeRequest(String url, TypeReference<T> typeRef) throws GithubApiException {
-        Request request = new Request.Builder()
+    public TokenPool getTokenPool() {
+        return tokenPool;
+    }
+
+    public static OkHttpClient newHttpClient() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(256);
+        dispatcher.setMaxRequestsPerHost(128);
+        return new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectTimeout(30, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS)
+                .build();
+    }
+
+    private Request newRequest(String url) {
+        return new Request.Builder()
                 .url(url)
-                .header("Authorization", "Bearer " + token)
                 .header("Accept", "application/vnd.github+json")
                 .header("X-GitHub-Api-Version", "2022-11-28")
                 .get()
                 .build();
+    }
 
-        try (Response response = httpClient.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                String body = response.body() != null ? response.body().string() : "";
-                throw new GithubApiException(
-                        "GitHub API error: " + response.code() + " " + body,
-                        response.code(),
-                        null
-                );
-            }
-            String body = response.body() != null ? response.body().string() : "";
-            return objectMapper.readValue(body, typeRef);
+    private Response execute(Request request) throws IOException {
+        String family = EndpointPolicies.family(request.url());
+        CircuitBreaker breaker = policies.breaker(family);
+        if (CallBudget.isExhausted()) {
+            throw new DeadlineExceededException(family);
+        }
+        CircuitBreaker.Permit permit = breaker.tryAcquire();
+        if (permit == CircuitBreaker.Permit.REFUSED) {
+            throw new CircuitOpenException(family);
+        }
+        boolean settled = false;
+        try {
+            Response response = executeWithCredentials(request, family);
+            if (response.code() >= 500) {
+                breaker.recordFailure();
+            } else {
+                breaker.recordSuccess();
+            }
+            settled = true;
+            return response;
+        } catch (DeadlineExceededException e) {
+            throw e;
         } catch (IOException e) {
-            throw new GithubApiException("Failed to execute request: " + e.getMessage(), 0, e);
+            if (CallBudget.isExhausted()) {
+                throw (IOException) new DeadlineExceededException(family).initCause(e);
+            }
+            // A slow endpoint is a failing one; a request cancelled or interrupted on our side is not
+            if (!(e instanceof InterruptedIOException) || e instanceof SocketTimeoutException) {
+                breaker.recordFailure();
+                settled = true;
+            }
+            throw e;
+        } finally {
+            if (!settled) {
+                breaker.release(permit);
+            }
         }
     }
 
-    private <T> List<T> executePaginatedRequest(String url, TypeReference<List<T>> typeRef)
-            throws GithubApiException {
-        List<T> allResults = new ArrayList<>();
-        String nextUrl = url + (url.contains("?") ? "&" : "?") + "per_page=100";
+    private Response executeWithCredentials(Request request, String family) throws IOException {
+        String account = account(request.url());
+        int attempts = tokenPool.credentialsFor(account).size();
+        while (true) {
+            Credential credential = tokenPool.select(account);
+            try {
+                if (!credential.getBudget().acquire(CallBudget.remainingMillis())) {
+                    throw new DeadlineExceededException(family);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for rate limit reset");
+            }
 
-        while (nextUrl != null) {
-            Request request = new Request.Builder()
-                    .url(nextUrl)
-                    .header("Authorization", "Bearer " + token)
-                    .header("Accept", "application/vnd.github+json")
-                    .header("X-GitHub-Api-Version", "2022-11-28")
-                    .get()
-                    .build();
-
-            try (Response response = httpClient.newCall(request).execute()) {
+            Response response = send(request, credential, family);
+
+            if (--attempts > 0 && isRateLimited(response)) {
+                response.close();
+                continue;
+            }
+            return response;
+        }
+    }
+
+    /**
+     * Sends an idempotent GET and, if no response has arrived once the family's hedge delay has passed,
+     * a duplicate on another credential. The first response wins and the other call is cancelled.
+     */
+    private Response send(Request request, Credential credential, String family) throws IOException {
+        long hedgeDelay = "GET".equals(request.method()) ? policies.hedgeDelayMillis(family) : -1;
+        if (hedgeDelay < 0) {
+            long startedAt = System.nanoTime();
+            Response response = newCall(request, credential).execute();
+            credential.getBudget().update(response);
+            recordLatency(family, response, startedAt);
+            return response;
+        }
+
+        HedgedCall hedged = new HedgedCall(family);
+        hedged.start(newCall(request, credential), credential);
+        try {
+            Response response = hedged.await(hedgeDelay);
+            if (response == null) {
+                Credential hedgeCredential = tokenPool.select(account(request.url()));
+                if (hedgeCredential.getBudget().tryAcquire()) {
+                    try {
+                        hedged.start(newCall(request, hedgeCredential), hedgeCredential);
+                    } catch (IOException e) {
+                        // Without a token for the duplicate, keep waiting for the original request
+                    }
+                }
+                response = hedged.await(0);
+            }
+            return response;
+        } catch (InterruptedException e) {
+            hedged.cancelAll();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for GitHub");
+        }
+    }
+
+    /**
+     * Creates a call that is cancelled when the current thread's {@link CallBudget} runs out.
+     */
+    private Call newCall(Request request, Credential credential) throws IOException {
+        Call call = httpClient.newCall(request.newBuilder()
+                .header("Authorization", "Bearer " + credential.getToken())
+                .build());
+        long remaining = CallBudget.remainingMillis();
+        if (remaining != Long.MAX_VALUE) {
+            call.timeout().timeout(Math.max(1, remaining), TimeUnit.MILLISECONDS);
+        }
+        return call;
+    }
+
+    /**
+     * @return the organization or user whose resources the request reads, or null for other endpoints
+     */
+    private static String account(HttpUrl url) {
+        List<String> segments = url.pathSegments();
+        if (segments.size() < 2) {
+            return null;
+        }
+        return switch (segments.get(0)) {
+            case "orgs", "repos", "users" -> segments.get(1);
+            default -> null;
+        };
+    }
+
+    private void recordLatency(String family, Response response, long startedAt) {
+        if (response.code() < 500) {
+            policies.latency(family).record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        }
+    }
+
+    private static GithubApiException failure(String message, IOException e) {
+        int status = e instanceof CircuitOpenException ? 503
+                : e instanceof DeadlineExceededException || CallBudget.isExhausted()
+                ? GithubApiException.DEADLINE_EXCEEDED : 0;
+        return new GithubApiException(message + ": " + e.getMessage(), status, e);
+    }
+
+    private final class HedgedCall {
+        private final String family;
+        private final List<Call> calls = new ArrayList<>();
+        private Response winner;
+        private IOException failure;
+        private int pending;
+
+        HedgedCall(String family) {
+            this.family = family;
+        }
+
+        void start(Call call, Credential credential) {
+            long startedAt = System.nanoTime();
+            synchronized (this) {
+                calls.add(call);
+                pending++;
+            }
+            call.enqueue(new Callback() {
+                @Override
+                public void onResponse(Call call, Response response) {
+                    credential.getBudget().update(response);
+                    recordLatency(family, response, startedAt);
+                    List<Call> losers;
+                    synchronized (HedgedCall.this) {
+                        pending--;
+                        if (winner != null) {
+                            response.close();
+                            return;
+                        }
+                        winner = response;
+                        losers = new ArrayList<>(calls);
+                        losers.remove(call);
+                        HedgedCall.this.notifyAll();
+                    }
+                    losers.forEach(Call::cancel);
+                }
+
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    synchronized (HedgedCall.this) {
+                        pending--;
+                        if (winner == null && !call.isCanceled()) {
+                            failure = e;
+                        }
+                        HedgedCall.this.notifyAll();
+                    }
+                }
+            });
+        }
+
+        /**
+         * @param timeoutMillis how long to wait, or 0 to wait until a call succeeds or all have failed
+         * @return the winning response, or null when the timeout passed first
+         */
+        synchronized Response await(long timeoutMillis) throws IOException, InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            while (winner == null && pending > 0) {
+                if (timeoutMillis == 0) {
+                    wait();
+                } else {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return null;
+                    }
+                    wait(remaining);
+                }
+            }
+            if (winner != null) {
+                return winner;
+            }
+            throw failure != null ? failure : new IOException("Request to " + family + " was cancelled");
+        }
+
+        void cancelAll() {
+            List<Call> toCancel;
+            synchronized (this) {
+                toCancel = new ArrayList<>(calls);
+            }
+            toCancel.forEach(Call::cancel);
+        }
+    }
+
+    private boolean isRateLimited(Response response) {
+        return (response.code() == 403 || response.code() == 429)
+                && "0".equals(response.header("X-RateLimit-Remaining"));
+    }
+
+    private <T> T executeRequest(String url, TypeReference<T> typeRef) throws GithubApiException {
+        Request request = newRequest(url);
+
+        try (Response response = execute(request)) {
+            RawResponse raw = capture(url, response);
+            try {
                 if (!response.isSuccessful()) {
-                    String body = response.body() != null ? response.body().string() : "";
                     throw new GithubApiException(
-                            "GitHub API error: " + response.code() + " " + body,
+                            "GitHub API error: " + response.code() + " " + raw.text(),
                             response.code(),
                             null
                     );
                 }
-                String body = response.body() != null ? response.body().string() : "";
-                List<T> pageResults = objectMapper.readValue(body, typeRef);
-                allResults.addAll(pageResults);
+                try (InputStream body = raw.openStream()) {
+                    return objectMapper.readValue(body, typeRef);
+                }
+            } finally {
+                raw.release();
+            }
+        } catch (IOException e) {
+            throw failure("Failed to execute request", e);
+        }
+    }
+
+    private <T> List<T> executePaginatedRequest(String url, TypeReference<List<T>> typeRef)
+            throws GithubApiException {
+        List<T> allResults = new ArrayList<>();
+        String nextUrl = url + (url.contains("?") ? "&" : "?") + "per_page=100";
+
+        while (nextUrl != null) {
+            Request request = newRequest(nextUrl);
+
+            try (Response response = execute(request)) {
+                RawResponse raw = capture(nextUrl, response);
+                try {
+                    if (!response.isSuccessful()) {
+                        throw new GithubApiException(
+                                "GitHub API error: " + response.code() + " " + raw.text(),
+                                response.code(),
+                                null
+                        );
+                    }
+                    try (InputStream body = raw.openStream()) {
+                        allResults.addAll(objectMapper.readValue(body, typeRef));
+                    }
+                } finally {
+                    raw.release();
+                }
 
                 nextUrl = parseLinkHeader(response.header("Link"));
             } catch (IOException e) {
-                throw new GithubApiException("Failed to execute request: " + e.getMessage(), 0, e);
+                throw failure("Failed to execute request", e);
             }
         }
         return allResults;
     }
 
+    /**
+     * Keeps the response body as received and records it with the current {@link ResponseCapture}; the
+     * parsed records are read from the same bytes. The caller releases it once they are parsed.
+     */
+    private static RawResponse capture(String url, Response response) throws IOException {
+        RawResponse raw = RawResponse.read(url, response.code(), response.body());
+        ResponseCapture.record(raw);
+        return raw;
+    }
+
     private String parseLinkHeader(String linkHeader) {
         if (linkHeader == null) return null;
         String[] links = linkHeader.split(",");
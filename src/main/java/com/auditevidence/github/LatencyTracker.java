@@ -0,0 +1,45 @@
+package com.auditevidence.github;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window of the most recent response latencies of one endpoint family.
+ */
+public class LatencyTracker {
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    public LatencyTracker(int window) {
+        this.samples = new long[window];
+    }
+
+    public synchronized void record(long millis) {
+        samples[next] = millis;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    /**
+     * @return the latency below which {@code percentile} percent of the recorded samples fall,
+     *         or -1 when nothing has been recorded yet
+     */
+    public long percentile(double percentile) {
+        long[] sorted;
+        synchronized (this) {
+            if (count == 0) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
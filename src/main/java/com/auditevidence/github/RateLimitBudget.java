@@ -0,0 +1,82 @@
+package com.auditevidence.github;
+
+import okhttp3.Response;
+
+public class RateLimitBudget {
+    private int remaining = -1;
+    private long resetEpochSeconds;
+
+    public void acquire() throws InterruptedException {
+        acquire(Long.MAX_VALUE);
+    }
+
+    /**
+     * Takes one request from the budget, waiting for the reset if it is at most {@code maxWaitMillis} away.
+     *
+     * @return false, without waiting, when the reset is further away
+     */
+    public boolean acquire(long maxWaitMillis) throws InterruptedException {
+        long waitMillis;
+        synchronized (this) {
+            if (remaining != 0) {
+                if (remaining > 0) {
+                    remaining--;
+                }
+                return true;
+            }
+            waitMillis = resetEpochSeconds * 1000 - System.currentTimeMillis();
+            if (waitMillis > maxWaitMillis) {
+                return false;
+            }
+        }
+
+        if (waitMillis > 0) {
+            Thread.sleep(waitMillis);
+        }
+
+        synchronized (this) {
+            if (remaining == 0 && System.currentTimeMillis() >= resetEpochSeconds * 1000) {
+                remaining = -1;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Takes one request from the budget only if that does not require waiting for the reset.
+     */
+    public synchronized boolean tryAcquire() {
+        if (remaining == 0 && System.currentTimeMillis() < resetEpochSeconds * 1000) {
+            return false;
+        }
+        if (remaining == 0) {
+            remaining = -1;
+        }
+        if (remaining > 0) {
+            remaining--;
+        }
+        return true;
+    }
+
+    public synchronized void update(Response response) {
+        String remainingHeader = response.header("X-RateLimit-Remaining");
+        String resetHeader = response.header("X-RateLimit-Reset");
+        if (remainingHeader == null || resetHeader == null) {
+            return;
+        }
+        try {
+            remaining = Integer.parseInt(remainingHeader.trim());
+            resetEpochSeconds = Long.parseLong(resetHeader.trim());
+        } catch (NumberFormatException ignored) {
+            // Malformed headers leave the previous budget in place
+        }
+    }
+
+    public synchronized int getRemaining() {
+        return remaining;
+    }
+
+    public synchronized long getResetEpochSeconds() {
+        return resetEpochSeconds;
+    }
+}
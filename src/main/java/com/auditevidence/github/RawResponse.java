@@ -0,0 +1,305 @@
+package com.auditevidence.github;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import okhttp3.ResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.Cleaner;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * The body of one GitHub API response exactly as received, with its endpoint, status and fetch time.
+ * Bodies up to {@link #SPILL_THRESHOLD} stay in memory; larger ones are spilled to a temporary file.
+ * {@link #slice} and {@link #arrayElements} share the underlying buffer or file instead of copying.
+ * <p>
+ * A spill file is reference counted: it starts with one holder, whoever read the response, and every other
+ * holder that keeps the response (or a slice of it) beyond that {@link #retain}s it and {@link #release}s it
+ * when done. The file is deleted when the last holder releases it, or at the latest once no response
+ * sharing it is reachable any more.
+ */
+public final class RawResponse {
+    public static final int SPILL_THRESHOLD = 1 << 20;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static Path spillDir;
+
+    private final String endpoint;
+    private final int status;
+    private final Instant fetchedAt;
+    private final byte[] buffer;
+    private final Spill spill;
+    private final long offset;
+    private final long length;
+
+    private RawResponse(String endpoint, int status, Instant fetchedAt, byte[] buffer, Spill spill, long offset,
+                        long length) {
+        this.endpoint = endpoint;
+        this.status = status;
+        this.fetchedAt = fetchedAt;
+        this.buffer = buffer;
+        this.spill = spill;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public static RawResponse of(String endpoint, int status, byte[] body) throws IOException {
+        Instant fetchedAt = Instant.now();
+        if (body.length > SPILL_THRESHOLD) {
+            Path spilled = newSpillFile();
+            Files.write(spilled, body);
+            return new RawResponse(endpoint, status, fetchedAt, null, new Spill(spilled), 0, body.length);
+        }
+        return new RawResponse(endpoint, status, fetchedAt, body, null, 0, body.length);
+    }
+
+    /**
+     * Reads {@code body} into memory up to the spill threshold and streams the rest straight to a temporary
+     * file. The length is not known in advance for compressed or chunked bodies, which is how GitHub
+     * usually sends them.
+     */
+    public static RawResponse read(String endpoint, int status, ResponseBody body) throws IOException {
+        if (body == null) {
+            return of(endpoint, status, new byte[0]);
+        }
+        Instant fetchedAt = Instant.now();
+        try (InputStream in = body.byteStream()) {
+            byte[] head = in.readNBytes(SPILL_THRESHOLD + 1);
+            if (head.length <= SPILL_THRESHOLD) {
+                return new RawResponse(endpoint, status, fetchedAt, head, null, 0, head.length);
+            }
+            Path spilled = newSpillFile();
+            try (OutputStream out = Files.newOutputStream(spilled)) {
+                out.write(head);
+                long size = head.length + in.transferTo(out);
+                return new RawResponse(endpoint, status, fetchedAt, null, new Spill(spilled), 0, size);
+            } catch (IOException e) {
+                Files.deleteIfExists(spilled);
+                throw e;
+            }
+        }
+    }
+
+    public String endpoint() {
+        return endpoint;
+    }
+
+    public int status() {
+        return status;
+    }
+
+    public Instant fetchedAt() {
+        return fetchedAt;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public RawResponse slice(long sliceOffset, long sliceLength) {
+        if (sliceOffset < 0 || sliceLength < 0 || sliceOffset + sliceLength > length) {
+            throw new IndexOutOfBoundsException("Slice " + sliceOffset + "+" + sliceLength + " of " + length);
+        }
+        return new RawResponse(endpoint, status, fetchedAt, buffer, spill, offset + sliceOffset, sliceLength);
+    }
+
+    /**
+     * Keeps the spill file of this response, and of every slice sharing it, until {@link #release}.
+     *
+     * @return this response
+     */
+    public RawResponse retain() {
+        if (spill != null) {
+            spill.retain();
+        }
+        return this;
+    }
+
+    public void release() {
+        if (spill != null) {
+            spill.release();
+        }
+    }
+
+    public static List<RawResponse> retainAll(List<RawResponse> responses) {
+        responses.forEach(RawResponse::retain);
+        return responses;
+    }
+
+    public static void releaseAll(Collection<RawResponse> responses) {
+        responses.forEach(RawResponse::release);
+    }
+
+    public InputStream openStream() throws IOException {
+        if (buffer != null) {
+            return new ByteArrayInputStream(buffer, (int) offset, (int) length);
+        }
+        FileChannel channel = FileChannel.open(spill.file, StandardOpenOption.READ);
+        channel.position(offset);
+        return new BoundedInputStream(Channels.newInputStream(channel), length);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        if (buffer != null) {
+            out.write(buffer, (int) offset, (int) length);
+            return;
+        }
+        try (InputStream in = openStream()) {
+            in.transferTo(out);
+        }
+    }
+
+    public String text() throws IOException {
+        if (buffer != null) {
+            return new String(buffer, (int) offset, (int) length, StandardCharsets.UTF_8);
+        }
+        try (InputStream in = openStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * @return whether the body is a JSON object or array, and can be embedded into JSON output as is
+     */
+    public boolean isJson() throws IOException {
+        try (InputStream in = openStream()) {
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                    return b == '{' || b == '[';
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Splits a JSON array body into one slice per element, in order, without copying the bytes.
+     */
+    public List<RawResponse> arrayElements() throws IOException {
+        List<RawResponse> elements = new ArrayList<>();
+        try (InputStream in = openStream(); JsonParser parser = JSON_FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Response from " + endpoint + " is not a JSON array");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                long start = parser.currentTokenLocation().getByteOffset();
+                parser.skipChildren();
+                long end = token.isStructStart() ? parser.currentTokenLocation().getByteOffset() + 1
+                        : parser.currentLocation().getByteOffset();
+                elements.add(slice(start, end - start));
+            }
+        }
+        return elements;
+    }
+
+    private static synchronized Path newSpillFile() throws IOException {
+        if (spillDir == null) {
+            Path dir = Files.createTempDirectory("audit-evidence-responses");
+            // One hook for the whole directory, rather than a deleteOnExit entry per file for the life of
+            // the process, removes files whose responses were still held at exit
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteSpillDir(dir)));
+            spillDir = dir;
+        }
+        return Files.createTempFile(spillDir, "response", ".json");
+    }
+
+    private static void deleteSpillDir(Path dir) {
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(RawResponse::deleteSpillFile);
+            Files.deleteIfExists(dir);
+        } catch (IOException e) {
+            // Temporary files; the OS cleans up what is left
+        }
+    }
+
+    private static void deleteSpillFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Left for the shutdown hook or the OS
+        }
+    }
+
+    /**
+     * A spill file and its holders, shared by a response and its slices.
+     */
+    private static final class Spill {
+        private final Path file;
+        private final AtomicInteger holders = new AtomicInteger(1);
+        private final Cleaner.Cleanable cleanable;
+
+        Spill(Path file) {
+            this.file = file;
+            this.cleanable = CLEANER.register(this, () -> deleteSpillFile(file));
+        }
+
+        void retain() {
+            if (holders.getAndIncrement() <= 0) {
+                throw new IllegalStateException("Response body " + file + " was already released");
+            }
+        }
+
+        void release() {
+            if (holders.decrementAndGet() == 0) {
+                cleanable.clean();
+            }
+        }
+    }
+
+    private static final class BoundedInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            this.in = in;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.auditevidence.github;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects the raw responses a block of code was served from on the current thread, e.g. everything a
+ * check read while it ran. Clients call {@link #record} for each response they parse or replay. The capture
+ * holds its responses until it is closed; whoever keeps them longer {@linkplain RawResponse#retain retains}
+ * them first.
+ */
+public final class ResponseCapture implements AutoCloseable {
+    private static final ThreadLocal<ResponseCapture> CURRENT = new ThreadLocal<>();
+
+    private final ResponseCapture previous;
+    private final List<RawResponse> responses = new ArrayList<>();
+    private final Set<RawResponse> recorded = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private ResponseCapture(ResponseCapture previous) {
+        this.previous = previous;
+    }
+
+    public static ResponseCapture start() {
+        ResponseCapture capture = new ResponseCapture(CURRENT.get());
+        CURRENT.set(capture);
+        return capture;
+    }
+
+    public static void record(RawResponse response) {
+        ResponseCapture capture = CURRENT.get();
+        if (capture != null && capture.recorded.add(response)) {
+            capture.responses.add(response.retain());
+        }
+    }
+
+    public static void record(Collection<RawResponse> responses) {
+        for (RawResponse response : responses) {
+            record(response);
+        }
+    }
+
+    public List<RawResponse> getResponses() {
+        return List.copyOf(responses);
+    }
+
+    @Override
+    public void close() {
+        RawResponse.releaseAll(responses);
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
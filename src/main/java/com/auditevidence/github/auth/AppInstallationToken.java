@@ -0,0 +1,186 @@
+package com.auditevidence.github.auth;
+
+import com.auditevidence.github.RateLimitBudget;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+public class AppInstallationToken implements Credential {
+    private static final String API_BASE = "https://api.github.com";
+    private static final Duration REFRESH_MARGIN = Duration.ofMinutes(5);
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final String appId;
+    private final String installationId;
+    private final String account;
+    private final PrivateKey privateKey;
+    private final OkHttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RateLimitBudget budget = new RateLimitBudget();
+
+    private String token;
+    private Instant expiresAt = Instant.EPOCH;
+
+    public AppInstallationToken(String appId, String installationId, String account, PrivateKey privateKey,
+                                OkHttpClient httpClient) {
+        this.appId = appId;
+        this.installationId = installationId;
+        this.account = account;
+        this.privateKey = privateKey;
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Looks up the account (organization or user login) the installation belongs to; its tokens can only
+     * read that account's resources.
+     */
+    public static AppInstallationToken resolve(String appId, String installationId, PrivateKey privateKey,
+                                               OkHttpClient httpClient) throws IOException {
+        AppInstallationToken unresolved = new AppInstallationToken(appId, installationId, null, privateKey, httpClient);
+        Request request = new Request.Builder()
+                .url(API_BASE + "/app/installations/" + installationId)
+                .header("Authorization", "Bearer " + unresolved.createJwt())
+                .header("Accept", "application/vnd.github+json")
+                .header("X-GitHub-Api-Version", "2022-11-28")
+                .get()
+                .build();
+
+        try (Response response = httpClient.newCall(request).execute()) {
+            String body = response.body() != null ? response.body().string() : "";
+            if (!response.isSuccessful()) {
+                throw new IOException("Could not look up " + unresolved.describe()
+                        + ": " + response.code() + " " + body);
+            }
+            String account = unresolved.objectMapper.readTree(body).path("account").path("login").asText();
+            if (account.isEmpty()) {
+                throw new IOException("No account found for " + unresolved.describe());
+            }
+            return new AppInstallationToken(appId, installationId, account, privateKey, httpClient);
+        }
+    }
+
+    @Override
+    public synchronized String getToken() throws IOException {
+        if (token == null || Instant.now().isAfter(expiresAt.minus(REFRESH_MARGIN))) {
+            refresh();
+        }
+        return token;
+    }
+
+    @Override
+    public RateLimitBudget getBudget() {
+        return budget;
+    }
+
+    @Override
+    public String getAccount() {
+        return account;
+    }
+
+    @Override
+    public String describe() {
+        return "app " + appId + " installation " + installationId + (account != null ? " (" + account + ")" : "");
+    }
+
+    private void refresh() throws IOException {
+        Request request = new Request.Builder()
+                .url(API_BASE + "/app/installations/" + installationId + "/access_tokens")
+                .header("Authorization", "Bearer " + createJwt())
+                .header("Accept", "application/vnd.github+json")
+                .header("X-GitHub-Api-Version", "2022-11-28")
+                .post(RequestBody.create(new byte[0], MediaType.get("application/json")))
+                .build();
+
+        try (Response response = httpClient.newCall(request).execute()) {
+            String body = response.body() != null ? response.body().string() : "";
+            if (!response.isSuccessful()) {
+                throw new IOException("Could not mint installation token for " + describe()
+                        + ": " + response.code() + " " + body);
+            }
+            JsonNode json = objectMapper.readTree(body);
+            token = json.path("token").asText();
+            expiresAt = Instant.parse(json.path("expires_at").asText());
+        }
+    }
+
+    private String createJwt() throws IOException {
+        long now = Instant.now().getEpochSecond();
+        String header = "{\"alg\":\"RS256\",\"typ\":\"JWT\"}";
+        String payload = "{\"iat\":" + (now - 60) + ",\"exp\":" + (now + 540) + ",\"iss\":\"" + appId + "\"}";
+        String signingInput = BASE64_URL.encodeToString(header.getBytes(StandardCharsets.UTF_8)) + "."
+                + BASE64_URL.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initSign(privateKey);
+            signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+            return signingInput + "." + BASE64_URL.encodeToString(signature.sign());
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to sign GitHub App JWT: " + e.getMessage(), e);
+        }
+    }
+
+    public static PrivateKey parsePrivateKey(String pem) throws GeneralSecurityException {
+        boolean pkcs1 = pem.contains("BEGIN RSA PRIVATE KEY");
+        String base64 = pem.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+        byte[] der = Base64.getDecoder().decode(base64);
+        if (pkcs1) {
+            der = wrapPkcs1(der);
+        }
+        return KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(der));
+    }
+
+    private static byte[] wrapPkcs1(byte[] pkcs1) {
+        byte[] version = {0x02, 0x01, 0x00};
+        byte[] algorithm = {
+                0x30, 0x0d, 0x06, 0x09, 0x2a, (byte) 0x86, 0x48, (byte) 0x86,
+                (byte) 0xf7, 0x0d, 0x01, 0x01, 0x01, 0x05, 0x00
+        };
+        byte[] octetString = derElement(0x04, pkcs1);
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        content.writeBytes(version);
+        content.writeBytes(algorithm);
+        content.writeBytes(octetString);
+        return derElement(0x30, content.toByteArray());
+    }
+
+    private static byte[] derElement(int tag, byte[] value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(tag);
+        int length = value.length;
+        if (length < 0x80) {
+            out.write(length);
+        } else if (length <= 0xff) {
+            out.write(0x81);
+            out.write(length);
+        } else if (length <= 0xffff) {
+            out.write(0x82);
+            out.write(length >> 8);
+            out.write(length);
+        } else {
+            out.write(0x83);
+            out.write(length >> 16);
+            out.write(length >> 8);
+            out.write(length);
+        }
+        out.writeBytes(value);
+        return out.toByteArray();
+    }
+}
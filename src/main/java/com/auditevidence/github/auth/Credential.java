@@ -0,0 +1,17 @@
+package com.auditevidence.github.auth;
+
+import com.auditevidence.github.RateLimitBudget;
+
+import java.io.IOException;
+
+public interface Credential {
+    String getToken() throws IOException;
+    RateLimitBudget getBudget();
+
+    /**
+     * @return the login of the only account this credential can read, or null when it is not tied to one
+     */
+    String getAccount();
+
+    String describe();
+}
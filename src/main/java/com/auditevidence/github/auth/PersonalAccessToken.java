@@ -0,0 +1,33 @@
+package com.auditevidence.github.auth;
+
+import com.auditevidence.github.RateLimitBudget;
+
+public class PersonalAccessToken implements Credential {
+    private final String token;
+    private final RateLimitBudget budget = new RateLimitBudget();
+
+    public PersonalAccessToken(String token) {
+        this.token = token;
+    }
+
+    @Override
+    public String getToken() {
+        return token;
+    }
+
+    @Override
+    public RateLimitBudget getBudget() {
+        return budget;
+    }
+
+    @Override
+    public String getAccount() {
+        return null;
+    }
+
+    @Override
+    public String describe() {
+        String suffix = token.length() > 4 ? token.substring(token.length() - 4) : "";
+        return "token ****" + suffix;
+    }
+}
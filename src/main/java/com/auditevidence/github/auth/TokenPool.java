@@ -0,0 +1,154 @@
+package com.auditevidence.github.auth;
+
+import com.auditevidence.github.RateLimitBudget;
+import okhttp3.OkHttpClient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Credentials a client spreads its requests over. App installation credentials only serve requests for
+ * the account they are installed on; credentials not tied to an account serve every other account, so
+ * each account's requests are always answered with the same kind of access.
+ */
+public class TokenPool {
+    private static final int UNKNOWN_REMAINING = Integer.MAX_VALUE;
+
+    private final List<Credential> credentials;
+    private final List<Credential> unscoped = new ArrayList<>();
+    private final Map<String, List<Credential>> byAccount = new HashMap<>();
+
+    public TokenPool(List<Credential> credentials) {
+        if (credentials.isEmpty()) {
+            throw new IllegalArgumentException("Token pool requires at least one credential");
+        }
+        this.credentials = List.copyOf(credentials);
+        for (Credential credential : this.credentials) {
+            if (credential.getAccount() == null) {
+                unscoped.add(credential);
+            } else {
+                byAccount.computeIfAbsent(key(credential.getAccount()), k -> new ArrayList<>()).add(credential);
+            }
+        }
+    }
+
+    public static TokenPool of(String token) {
+        return new TokenPool(List.of(new PersonalAccessToken(token)));
+    }
+
+    public static TokenPool fromEnvironment(Map<String, String> env, OkHttpClient httpClient)
+            throws IOException, GeneralSecurityException {
+        List<Credential> credentials = new ArrayList<>();
+        String appId = env.get("GITHUB_APP_ID");
+        String privateKey = env.get("GITHUB_APP_PRIVATE_KEY");
+        String installationIds = env.get("GITHUB_APP_INSTALLATION_ID");
+        boolean app = isSet(appId) && isSet(privateKey) && isSet(installationIds);
+        if (app) {
+            PrivateKey key = AppInstallationToken.parsePrivateKey(readPem(privateKey));
+            for (String installationId : installationIds.split(",")) {
+                if (!installationId.isBlank()) {
+                    credentials.add(AppInstallationToken.resolve(appId.trim(), installationId.trim(), key, httpClient));
+                }
+            }
+        }
+
+        // The workflow's GITHUB_TOKEN is scoped to one repository; with an app configured it would only
+        // answer some requests differently from the installation serving the same organization
+        List<String> tokens = new ArrayList<>();
+        if (!app) {
+            addTokens(tokens, env.get("GITHUB_TOKEN"));
+        }
+        addTokens(tokens, env.get("GITHUB_TOKENS"));
+        for (String token : tokens) {
+            credentials.add(new PersonalAccessToken(token));
+        }
+
+        return credentials.isEmpty() ? null : new TokenPool(credentials);
+    }
+
+    /**
+     * @param account login of the organization or user the request reads, or null when it reads none
+     * @return the credentials allowed to serve the request: the account's installations if it has any,
+     *         otherwise the credentials not tied to an account
+     */
+    public List<Credential> credentialsFor(String account) {
+        if (account == null) {
+            return unscoped.isEmpty() ? credentials : unscoped;
+        }
+        return byAccount.getOrDefault(key(account), unscoped);
+    }
+
+    /**
+     * @return the allowed credential with the most remaining quota, or the one whose quota resets first
+     * @throws IOException when no configured credential can read the account
+     */
+    public Credential select(String account) throws IOException {
+        List<Credential> candidates = credentialsFor(account);
+        if (candidates.isEmpty()) {
+            throw new IOException("No configured credential can access " + account
+                    + "; install the GitHub App on it or provide GITHUB_TOKENS");
+        }
+        Credential best = null;
+        long bestScore = Long.MIN_VALUE;
+        for (Credential credential : candidates) {
+            RateLimitBudget budget = credential.getBudget();
+            int remaining = budget.getRemaining();
+            long score;
+            if (remaining < 0) {
+                score = UNKNOWN_REMAINING;
+            } else if (remaining > 0) {
+                score = remaining;
+            } else {
+                score = -budget.getResetEpochSeconds();
+            }
+            if (score > bestScore) {
+                best = credential;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    public List<Credential> getCredentials() {
+        return credentials;
+    }
+
+    public int size() {
+        return credentials.size();
+    }
+
+    private static String key(String account) {
+        return account.toLowerCase(Locale.ROOT);
+    }
+
+    private static void addTokens(List<String> tokens, String value) {
+        if (!isSet(value)) {
+            return;
+        }
+        for (String token : value.split(",")) {
+            String trimmed = token.trim();
+            if (!trimmed.isEmpty() && !tokens.contains(trimmed)) {
+                tokens.add(trimmed);
+            }
+        }
+    }
+
+    private static String readPem(String value) throws IOException {
+        if (value.contains("-----BEGIN")) {
+            return value;
+        }
+        return Files.readString(Path.of(value.trim()));
+    }
+
+    private static boolean isSet(String value) {
+        return value != null && !value.isBlank();
+    }
+}
@@ -0,0 +1,311 @@
+package com.auditevidence.history;
+
+import com.auditevidence.model.CheckResult;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Append-only store of check outcomes over time, one block per appended run. Three files make up the store:
+ * <ul>
+ *     <li>series.dat: every distinct (organization, repository, check, standard, clause), numbered in the
+ *     order first seen;</li>
+ *     <li>outcomes.dat: per run, its outcomes sorted by series number, each a varint of the gap to the
+ *     previous series number and the status in the low two bits, so a run usually costs about one byte per
+ *     outcome;</li>
+ *     <li>runs.idx: fixed-size entries with each run's time and block position, and the size of series.dat
+ *     when it was appended. An entry is written last, so a run interrupted while appending is ignored and
+ *     overwritten by the next one.</li>
+ * </ul>
+ * The run index is kept in memory sorted by time, so a range query only reads the blocks in the range.
+ */
+public class EvidenceHistory implements Closeable {
+    public static final String SERIES_FILE = "series.dat";
+    public static final String OUTCOMES_FILE = "outcomes.dat";
+    public static final String INDEX_FILE = "runs.idx";
+
+    private static final int INDEX_ENTRY_BYTES = 36;
+    private static final CheckResult.Status[] STATUSES = CheckResult.Status.values();
+
+    private final Path dir;
+    private final FileChannel index;
+    private final FileChannel outcomes;
+    private final FileChannel series;
+    private final List<Series> seriesById = new ArrayList<>();
+    private final Map<Series, Integer> seriesIds = new HashMap<>();
+    private final List<Run> runs = new ArrayList<>();
+    private List<Run> runsByTime = List.of();
+
+    public record Series(String organization, String repo, String checkName, String standard, String clauseId) {}
+
+    public record Outcome(Instant at, Series series, CheckResult.Status status) {}
+
+    private record Run(Instant at, long offset, int length, int count, int seriesCount, long seriesLength) {}
+
+    private EvidenceHistory(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        this.index = open(INDEX_FILE);
+        this.outcomes = open(OUTCOMES_FILE);
+        this.series = open(SERIES_FILE);
+    }
+
+    public static EvidenceHistory open(Path dir) throws IOException {
+        EvidenceHistory history = new EvidenceHistory(dir);
+        try {
+            history.refresh();
+        } catch (IOException e) {
+            history.close();
+            throw e;
+        }
+        return history;
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    public synchronized int runCount() {
+        return runs.size();
+    }
+
+    public synchronized int seriesCount() {
+        return seriesById.size();
+    }
+
+    /**
+     * Appends the outcomes of one run at {@code at}. Other processes appending to the same store at the same
+     * time (e.g. the shards of a sweep) are serialized by a lock on the index.
+     */
+    public synchronized void append(Instant at, Map<Series, CheckResult.Status> runOutcomes) throws IOException {
+        if (runOutcomes.isEmpty()) {
+            return;
+        }
+        FileLock lock = index.lock();
+        try {
+            refresh();
+            Run last = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+            long seriesEnd = last == null ? 0 : last.seriesLength();
+            long outcomesEnd = last == null ? 0 : last.offset() + last.length();
+
+            ByteArrayOutputStream newSeries = new ByteArrayOutputStream();
+            DataOutputStream seriesOut = new DataOutputStream(newSeries);
+            List<Series> added = new ArrayList<>();
+            long[] packed = new long[runOutcomes.size()];
+            int i = 0;
+            for (Map.Entry<Series, CheckResult.Status> outcome : runOutcomes.entrySet()) {
+                Integer id = seriesIds.get(outcome.getKey());
+                if (id == null) {
+                    id = seriesById.size() + added.size();
+                    writeSeries(seriesOut, outcome.getKey());
+                    added.add(outcome.getKey());
+                }
+                packed[i++] = ((long) id << 2) | outcome.getValue().ordinal();
+            }
+            Arrays.sort(packed);
+
+            ByteArrayOutputStream block = new ByteArrayOutputStream(packed.length + 16);
+            long previous = 0;
+            for (long entry : packed) {
+                long id = entry >>> 2;
+                writeVarint(block, ((id - previous) << 2) | (entry & 3));
+                previous = id;
+            }
+
+            series.truncate(seriesEnd);
+            write(series, seriesEnd, newSeries.toByteArray());
+            outcomes.truncate(outcomesEnd);
+            write(outcomes, outcomesEnd, block.toByteArray());
+            series.force(false);
+            outcomes.force(false);
+
+            Run run = new Run(at, outcomesEnd, block.size(), packed.length, seriesById.size() + added.size(),
+                    seriesEnd + newSeries.size());
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+            entry.putLong(run.at().toEpochMilli()).putLong(run.offset()).putInt(run.length()).putInt(run.count())
+                    .putInt(run.seriesCount()).putLong(run.seriesLength()).flip();
+            long indexEnd = (long) runs.size() * INDEX_ENTRY_BYTES;
+            index.truncate(indexEnd);
+            write(index, indexEnd, entry.array());
+            index.force(false);
+            added.forEach(this::addSeries);
+            addRun(run);
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Calls {@code consumer} with every outcome of a series matching {@code filter} recorded in
+     * [{@code from}, {@code to}), oldest run first.
+     */
+    public synchronized void scan(Predicate<Series> filter, Instant from, Instant to, Consumer<Outcome> consumer)
+            throws IOException {
+        refresh();
+        BitSet matches = new BitSet(seriesById.size());
+        for (int id = 0; id < seriesById.size(); id++) {
+            if (filter.test(seriesById.get(id))) {
+                matches.set(id);
+            }
+        }
+        if (matches.isEmpty()) {
+            return;
+        }
+
+        int start = firstAtOrAfter(from);
+        for (int r = start; r < runsByTime.size() && runsByTime.get(r).at().isBefore(to); r++) {
+            Run run = runsByTime.get(r);
+            ByteBuffer block = read(outcomes, run.offset(), run.length());
+            long id = 0;
+            for (int n = 0; n < run.count(); n++) {
+                long value = readVarint(block);
+                id += value >>> 2;
+                if (matches.get((int) id)) {
+                    consumer.accept(new Outcome(run.at(), seriesById.get((int) id), STATUSES[(int) (value & 3)]));
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            index.close();
+            outcomes.close();
+        } finally {
+            series.close();
+        }
+    }
+
+    /**
+     * Loads index entries and series appended since the last refresh, by this or another process.
+     */
+    private void refresh() throws IOException {
+        long entries = index.size() / INDEX_ENTRY_BYTES;
+        if (entries <= runs.size()) {
+            return;
+        }
+        ByteBuffer buffer = read(index, (long) runs.size() * INDEX_ENTRY_BYTES,
+                (int) ((entries - runs.size()) * INDEX_ENTRY_BYTES));
+        List<Run> added = new ArrayList<>();
+        while (buffer.hasRemaining()) {
+            added.add(new Run(Instant.ofEpochMilli(buffer.getLong()), buffer.getLong(), buffer.getInt(),
+                    buffer.getInt(), buffer.getInt(), buffer.getLong()));
+        }
+        Run last = added.get(added.size() - 1);
+        long seriesStart = runs.isEmpty() ? 0 : runs.get(runs.size() - 1).seriesLength();
+        if (last.seriesCount() > seriesById.size()) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(series.position(seriesStart))));
+            while (seriesById.size() < last.seriesCount()) {
+                addSeries(readSeries(in));
+            }
+        }
+        for (Run run : added) {
+            addRun(run);
+        }
+    }
+
+    private void addSeries(Series entry) {
+        seriesIds.put(entry, seriesById.size());
+        seriesById.add(entry);
+    }
+
+    private void addRun(Run run) {
+        runs.add(run);
+        List<Run> sorted = new ArrayList<>(runs);
+        sorted.sort(Comparator.comparing(Run::at));
+        runsByTime = sorted;
+    }
+
+    private int firstAtOrAfter(Instant from) {
+        int low = 0;
+        int high = runsByTime.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (runsByTime.get(mid).at().isBefore(from)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private FileChannel open(String name) throws IOException {
+        return FileChannel.open(dir.resolve(name), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    private ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated history store in " + dir);
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void write(FileChannel channel, long position, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static void writeSeries(DataOutputStream out, Series entry) throws IOException {
+        out.writeUTF(entry.organization());
+        out.writeUTF(entry.repo() == null ? "" : entry.repo());
+        out.writeUTF(entry.checkName());
+        out.writeUTF(entry.standard());
+        out.writeUTF(entry.clauseId());
+    }
+
+    private static Series readSeries(DataInputStream in) throws IOException {
+        String organization = in.readUTF();
+        String repo = in.readUTF();
+        return new Series(organization, repo.isEmpty() ? null : repo, in.readUTF(), in.readUTF(), in.readUTF());
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
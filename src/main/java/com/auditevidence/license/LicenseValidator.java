@@ -3,6 +3,7 @@ package com.auditevidence.license;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -87,13 +88,20 @@ public class LicenseValidator {
             secret = "audit-evidence-default-key-change-in-production";
         }
 
-        Mac mac = Mac.getInstance(HMAC_ALGORITHM);
-        SecretKeySpec keySpec = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
-        mac.init(keySpec);
-        byte[] hash = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        byte[] hash = hmacSha256(secret, data.getBytes(StandardCharsets.UTF_8));
         return Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 16);
     }
 
+    /**
+     * HMAC-SHA256 of {@code data} keyed with the UTF-8 bytes of {@code secret}, as used for license keys and
+     * evidence manifest signatures.
+     */
+    public static byte[] hmacSha256(String secret, byte[] data) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+        return mac.doFinal(data);
+    }
+
     private boolean constantTimeEquals(String a, String b) {
         if (a.length() != b.length()) {
             return false;
@@ -118,10 +126,7 @@ public class LicenseValidator {
             secret = "audit-evidence-default-key-change-in-production";
         }
 
-        Mac mac = Mac.getInstance(HMAC_ALGORITHM);
-        SecretKeySpec keySpec = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
-        mac.init(keySpec);
-        byte[] hash = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        byte[] hash = hmacSha256(secret, data.getBytes(StandardCharsets.UTF_8));
         String signature = Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 16);
 
         return LICENSE_PREFIX + orgHash + "-" + expiryEncoded + "-" + signature;
@@ -0,0 +1,413 @@
+package com.auditevidence.merge;
+
+import com.auditevidence.access.AccessIndex;
+import com.auditevidence.auditlog.AuditLogCollector;
+import com.auditevidence.exporter.DigestingOutputStream;
+import com.auditevidence.exporter.EvidenceManifest;
+import com.auditevidence.exporter.FileDigest;
+import com.auditevidence.exporter.arrow.AnalyticsExport;
+import com.auditevidence.exporter.arrow.ArrowFileWriter;
+import com.auditevidence.exporter.html.HtmlReportWriter;
+import com.auditevidence.exporter.zip.ZipExporter;
+import com.auditevidence.sweep.AuditorReadme;
+import com.auditevidence.sweep.BatchSummary;
+import com.auditevidence.sweep.OrgRun;
+import com.auditevidence.sweep.ProgressJournal;
+import com.auditevidence.sweep.RepoCosts;
+import com.auditevidence.sweep.ShardAssignment;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Combines the outputs of {@code --shard} runs into one evidence package per organization. Reports are
+ * streamed result by result, evidence files are hard-linked (or copied) and access reviews are merge-sorted,
+ * so memory use does not grow with the number of results.
+ */
+public final class ShardMerger {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Set<String> BOOKKEEPING_FILES = Set.of(OrgRun.REPORT_FILE, OrgRun.README_FILE,
+            AccessIndex.ACCESS_REVIEW_FILE, ProgressJournal.JOURNAL_FILE, ShardAssignment.SHARD_FILE,
+            BatchSummary.FILE, RepoCosts.FILE, EvidenceManifest.FILE, EvidenceManifest.SIGNATURE_FILE,
+            HtmlReportWriter.FILE);
+    private static final List<String> EVIDENCE_EXTENSIONS = List.of(".pdf", ".json");
+
+    private final boolean createZip;
+    private final String manifestKey;
+    private final boolean htmlReport;
+
+    public record Shard(ShardAssignment.Marker marker, Path dir) {}
+
+    /**
+     * @param manifestKey signs the merged evidence manifest, or null to write it unsigned
+     * @param htmlReport also writes {@link HtmlReportWriter#FILE} for the merged results
+     */
+    public ShardMerger(boolean createZip, String manifestKey, boolean htmlReport) {
+        this.createZip = createZip;
+        this.manifestKey = manifestKey;
+        this.htmlReport = htmlReport;
+    }
+
+    /**
+     * Finds the shard outputs of every organization under {@code shardDirs} (single-organization or batch
+     * layout) and merges each into the matching directory under {@code outputDir}.
+     */
+    public List<BatchSummary.Line> merge(List<Path> shardDirs, Path outputDir) throws IOException {
+        Map<Path, List<Shard>> groups = new TreeMap<>();
+        for (Path shardDir : shardDirs) {
+            if (!Files.isDirectory(shardDir)) {
+                throw new IOException("No such directory: " + shardDir);
+            }
+            if (shardDir.toAbsolutePath().normalize().equals(outputDir.toAbsolutePath().normalize())) {
+                throw new IOException("Output directory must differ from the shard directories: " + shardDir);
+            }
+            List<Path> reports;
+            try (Stream<Path> files = Files.walk(shardDir, 2)) {
+                reports = files.filter(f -> f.getFileName().toString().equals(OrgRun.REPORT_FILE)).sorted().toList();
+            }
+            if (reports.isEmpty()) {
+                throw new IOException("No " + OrgRun.REPORT_FILE + " found in " + shardDir);
+            }
+            for (Path report : reports) {
+                Path dir = report.getParent();
+                ShardAssignment.Marker marker = ShardAssignment.readMarker(dir);
+                if (marker == null) {
+                    throw new IOException(dir + " is not the output of a --shard run (missing "
+                            + ShardAssignment.SHARD_FILE + ")");
+                }
+                groups.computeIfAbsent(shardDir.relativize(dir), k -> new ArrayList<>()).add(new Shard(marker, dir));
+            }
+        }
+
+        List<BatchSummary.Line> merged = new ArrayList<>();
+        for (Map.Entry<Path, List<Shard>> group : groups.entrySet()) {
+            merged.add(mergeOrg(checkComplete(group.getKey(), group.getValue()),
+                    outputDir.resolve(group.getKey())));
+        }
+        return merged;
+    }
+
+    private static List<Shard> checkComplete(Path group, List<Shard> shards) throws IOException {
+        int count = shards.get(0).marker().count();
+        Shard[] byIndex = new Shard[count];
+        for (Shard shard : shards) {
+            ShardAssignment.Marker marker = shard.marker();
+            if (marker.index() < 1 || marker.index() > marker.count()) {
+                throw new IOException("Invalid " + ShardAssignment.SHARD_FILE + " in " + shard.dir());
+            }
+            if (marker.count() != count) {
+                throw new IOException("Shards of " + name(group) + " were split different ways: "
+                        + marker.index() + "/" + marker.count() + " and ?/" + count);
+            }
+            if (byIndex[marker.index() - 1] != null) {
+                throw new IOException("Shard " + marker.index() + "/" + count + " of " + name(group)
+                        + " given twice: " + byIndex[marker.index() - 1].dir() + " and " + shard.dir());
+            }
+            byIndex[marker.index() - 1] = shard;
+        }
+        for (int i = 0; i < count; i++) {
+            if (byIndex[i] == null) {
+                throw new IOException("Shard " + (i + 1) + "/" + count + " of " + name(group) + " is missing");
+            }
+        }
+        return List.of(byIndex);
+    }
+
+    private BatchSummary.Line mergeOrg(List<Shard> shards, Path outputDir) throws IOException {
+        Files.createDirectories(outputDir);
+        Path firstReport = shards.get(0).dir().resolve(OrgRun.REPORT_FILE);
+        String orgName = readField(firstReport, "organizationName");
+        if (orgName == null) {
+            throw new IOException("Not an audit report: missing organizationName in " + firstReport);
+        }
+
+        List<Path> zipFiles = new ArrayList<>();
+        EvidenceManifest manifest = new EvidenceManifest(outputDir);
+        for (Shard shard : shards) {
+            linkEvidence(shard.dir(), outputDir, zipFiles);
+            // Linked files are the shard's own, so the digests its run took still hold
+            manifest.load(shard.dir());
+        }
+
+        List<Path> accessReviews = new ArrayList<>();
+        for (Shard shard : shards) {
+            Path accessReview = shard.dir().resolve(AccessIndex.ACCESS_REVIEW_FILE);
+            if (Files.exists(accessReview)) {
+                accessReviews.add(accessReview);
+            }
+        }
+        if (!accessReviews.isEmpty()) {
+            Path accessReview = outputDir.resolve(AccessIndex.ACCESS_REVIEW_FILE);
+            manifest.record(accessReview, AccessIndex.mergeAccessReviews(accessReviews, accessReview));
+            zipFiles.add(accessReview);
+        }
+
+        mergeAnalytics(shards, outputDir, AnalyticsExport.REPOSITORIES_FILE, AnalyticsExport.REPOSITORY_COLUMNS,
+                manifest, zipFiles);
+        mergeAnalytics(shards, outputDir, AnalyticsExport.ACCESS_FILE, AnalyticsExport.ACCESS_COLUMNS,
+                manifest, zipFiles);
+
+        Path readme = outputDir.resolve(OrgRun.README_FILE);
+        Path report = outputDir.resolve(OrgRun.REPORT_FILE);
+        long[] counts = new long[3];
+        List<String> notCollected = new ArrayList<>();
+        Map<String, List<String>> otherSections = new LinkedHashMap<>();
+        HtmlReportWriter html = htmlReport ? new HtmlReportWriter(outputDir) : null;
+        DigestingOutputStream readmeDigest = DigestingOutputStream.create(readme);
+        DigestingOutputStream reportDigest = DigestingOutputStream.create(report);
+        try (BufferedWriter readmeWriter = new BufferedWriter(
+                     new OutputStreamWriter(readmeDigest, StandardCharsets.UTF_8));
+             JsonGenerator generator = OBJECT_MAPPER.getFactory().createGenerator(
+                     new BufferedOutputStream(reportDigest), JsonEncoding.UTF8)) {
+            generator.useDefaultPrettyPrinter();
+            String standard = Objects.requireNonNullElse(readField(firstReport, "standard"), "SOC2");
+            AuditorReadme.writeHeader(readmeWriter, orgName, standard);
+
+            generator.writeStartObject();
+            generator.writeStringField("organizationName", orgName);
+            generator.writeStringField("standard", standard);
+            generator.writeStringField("generatedAt", Instant.now().toString());
+            generator.writeArrayFieldStart("results");
+            JsonNode licenseInfo = null;
+            Set<String> seen = new HashSet<>();
+            for (Shard shard : shards) {
+                JsonNode shardLicense = copyResults(shard.dir().resolve(OrgRun.REPORT_FILE), orgName, generator,
+                        readmeWriter, html, outputDir, seen, counts);
+                if (licenseInfo == null || (shardLicense != null && !shardLicense.path("isPaid").asBoolean())) {
+                    licenseInfo = shardLicense;
+                }
+
+                Map<String, List<String>> sections = AuditorReadme.readSections(shard.dir().resolve(OrgRun.README_FILE));
+                for (Map.Entry<String, List<String>> section : sections.entrySet()) {
+                    if (section.getKey().equals(AuditorReadme.NOT_COLLECTED)) {
+                        notCollected.addAll(section.getValue());
+                    } else {
+                        List<String> lines = otherSections.computeIfAbsent(section.getKey(), k -> new ArrayList<>());
+                        section.getValue().stream().filter(line -> !lines.contains(line)).forEach(lines::add);
+                    }
+                }
+            }
+            generator.writeEndArray();
+            if (licenseInfo != null) {
+                generator.writeFieldName("licenseInfo");
+                generator.writeTree(licenseInfo);
+            }
+            generator.writeEndObject();
+
+            if (!notCollected.isEmpty()) {
+                AuditorReadme.writeSection(readmeWriter, AuditorReadme.NOT_COLLECTED, notCollected);
+            }
+            for (Map.Entry<String, List<String>> section : otherSections.entrySet()) {
+                AuditorReadme.writeSection(readmeWriter, section.getKey(), section.getValue());
+            }
+            AuditorReadme.writeNotes(readmeWriter);
+
+            if (html != null) {
+                boolean paid = licenseInfo != null && licenseInfo.path("isPaid").asBoolean();
+                Map<Path, FileDigest> written = html.finish(orgName, standard, Instant.now(),
+                        paid ? null : HtmlReportWriter.FREE_TIER_NOTICE);
+                written.forEach(manifest::record);
+                zipFiles.addAll(written.keySet());
+            }
+        }
+        manifest.record(readme, readmeDigest.getDigest());
+        manifest.record(report, reportDigest.getDigest());
+        zipFiles.add(readme);
+        zipFiles.add(report);
+        zipFiles.addAll(manifest.write(zipFiles, manifestKey));
+
+        if (createZip) {
+            Path zipPath = outputDir.resolve(OrgRun.zipFileName(orgName));
+            EvidenceManifest.writeChecksum(zipPath, new ZipExporter().createZip(zipFiles, outputDir, zipPath));
+        }
+        return new BatchSummary.Line(orgName, counts[0], counts[1], counts[2], notCollected.size(), outputDir);
+    }
+
+    /**
+     * Streams the results of one shard report into {@code generator}, one result in memory at a time.
+     *
+     * @return the shard's licenseInfo
+     */
+    private static JsonNode copyResults(Path report, String orgName, JsonGenerator generator, BufferedWriter readme,
+                                        HtmlReportWriter html, Path outputDir, Set<String> seen, long[] counts)
+            throws IOException {
+        JsonNode licenseInfo = null;
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(report.toFile())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Not an audit report: " + report);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("organizationName") && !orgName.equals(parser.getText())) {
+                    throw new IOException(report + " is for organization " + parser.getText() + ", not " + orgName);
+                } else if (field.equals("results") && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        JsonNode result = OBJECT_MAPPER.readTree(parser);
+                        if (copyResult(result, generator, readme, seen, counts) && html != null) {
+                            html.add(result, evidenceFile(outputDir, result));
+                        }
+                    }
+                } else if (field.equals("licenseInfo")) {
+                    licenseInfo = OBJECT_MAPPER.readTree(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return licenseInfo;
+    }
+
+    /**
+     * @return whether {@code result} was copied, i.e. is not a duplicate of one copied earlier
+     */
+    private static boolean copyResult(JsonNode result, JsonGenerator generator, BufferedWriter readme,
+                                      Set<String> seen, long[] counts) throws IOException {
+        String checkName = result.path("checkName").asText();
+        String repo = result.path("repository").asText(null);
+        String label = repo == null ? checkName : checkName + " [" + repo + "]";
+        if (!seen.add(label)) {
+            return false;
+        }
+
+        generator.writeTree(result);
+        String status = result.path("status").asText();
+        AuditorReadme.writeEntry(readme, result.path("clauseId").asText(), checkName, repo, status);
+        switch (status) {
+            case "PASS" -> counts[0]++;
+            case "FAIL" -> counts[1]++;
+            case "PARTIAL" -> counts[2]++;
+            default -> {
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the linked evidence file of {@code result} relative to {@code outputDir}, found by the name the
+     *         shard run gave it, or null when there is none (e.g. a result not collected before the deadline)
+     */
+    private static String evidenceFile(Path outputDir, JsonNode result) {
+        String name = OrgRun.evidenceFileName(result.path("standard").asText(), result.path("clauseId").asText(),
+                result.path("checkName").asText());
+        String repo = result.path("repository").asText(null);
+        for (String extension : EVIDENCE_EXTENSIONS) {
+            List<String> candidates = repo == null ? List.of(name + extension)
+                    : List.of(OrgRun.sanitizeFileName(repo) + "/" + name + extension, name + extension);
+            for (String candidate : candidates) {
+                if (Files.isRegularFile(outputDir.resolve(candidate))) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Links every evidence file of a shard into {@code outputDir}, keeping its relative path, and adds the
+     * ones that belong in the ZIP to {@code zipFiles}.
+     */
+    private static void linkEvidence(Path shardDir, Path outputDir, List<Path> zipFiles) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(shardDir)) {
+            files = walk.filter(Files::isRegularFile)
+                    .filter(f -> !(f.getParent().equals(shardDir)
+                            && BOOKKEEPING_FILES.contains(f.getFileName().toString())))
+                    .filter(f -> !f.getParent().equals(shardDir.resolve(HtmlReportWriter.DATA_DIRECTORY)))
+                    .filter(f -> !f.getParent().equals(shardDir.resolve(AnalyticsExport.DIRECTORY)))
+                    .filter(f -> !f.getFileName().toString().endsWith(".zip")
+                            && !f.getFileName().toString().endsWith(".zip" + EvidenceManifest.CHECKSUM_EXTENSION))
+                    .sorted()
+                    .toList();
+        }
+        for (Path file : files) {
+            Path relative = shardDir.relativize(file);
+            Path target = outputDir.resolve(relative.toString());
+            Files.createDirectories(target.getParent());
+            Files.deleteIfExists(target);
+            try {
+                Files.createLink(target, file);
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            boolean auditLog = relative.getNameCount() > 1
+                    && relative.getName(0).toString().equals(AuditLogCollector.DIRECTORY);
+            if (!auditLog || file.getFileName().toString().endsWith(".ndjson.gz")) {
+                zipFiles.add(target);
+            }
+        }
+    }
+
+    /**
+     * Writes one {@code fileName} table with the record batches of every shard that has one, in shard order.
+     */
+    private static void mergeAnalytics(List<Shard> shards, Path outputDir, String fileName,
+                                       List<ArrowFileWriter.Column> columns, EvidenceManifest manifest,
+                                       List<Path> zipFiles) throws IOException {
+        List<Path> tables = new ArrayList<>();
+        for (Shard shard : shards) {
+            Path table = shard.dir().resolve(AnalyticsExport.DIRECTORY).resolve(fileName);
+            if (Files.exists(table)) {
+                tables.add(table);
+            }
+        }
+        if (tables.isEmpty()) {
+            return;
+        }
+        Path merged = outputDir.resolve(AnalyticsExport.DIRECTORY).resolve(fileName);
+        Files.createDirectories(merged.getParent());
+        try (ArrowFileWriter writer = new ArrowFileWriter(merged, columns, 1)) {
+            for (Path table : tables) {
+                writer.appendBatches(table);
+            }
+            manifest.record(merged, writer.finish());
+        }
+        zipFiles.add(merged);
+    }
+
+    /**
+     * @return the value of the top-level string field {@code name} of {@code report}, or null
+     */
+    private static String readField(Path report, String name) throws IOException {
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(report.toFile())) {
+            while (parser.nextToken() != null) {
+                if (parser.currentToken() == JsonToken.FIELD_NAME && parser.currentName().equals(name)
+                        && parser.getParsingContext().getParent().inRoot()) {
+                    parser.nextToken();
+                    return parser.getText();
+                }
+                if (parser.currentToken() == JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String name(Path group) {
+        return group.toString().isEmpty() ? "the organization" : group.toString();
+    }
+}
@@ -1,5 +1,7 @@
 package com.auditevidence.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.Instant;
 import java.util.List;
 
@@ -8,13 +10,54 @@ public record AuditReport(
     String standard,
     Instant generatedAt,
     List<CheckResult> results,
-    LicenseInfo licenseInfo
+    LicenseInfo licenseInfo,
+    @JsonInclude(JsonInclude.Include.NON_NULL) Sample sample
 ) {
     public record LicenseInfo(
         boolean isPaid,
         String tier
     ) {}
 
+    /**
+     * How the repositories of a {@code --sample} run were drawn, and the estimated organization-wide pass
+     * rate of each repository check.
+     *
+     * @param population the number of repositories in the organization
+     */
+    public record Sample(
+        long seed,
+        int population,
+        int size,
+        List<Stratum> strata,
+        List<PassRate> passRates
+    ) {}
+
+    public record Stratum(
+        String visibility,
+        String activity,
+        int population,
+        int sampled
+    ) {}
+
+    /**
+     * @param evaluated sampled repositories with a PASS or FAIL result; PARTIAL results are not evaluated
+     * @param passRate the stratified estimate of the share of all repositories that pass, or null when no
+     *                 sampled repository was evaluated
+     * @param lower lower bound of the {@code confidence} interval of {@code passRate}
+     * @param upper upper bound of the {@code confidence} interval of {@code passRate}
+     */
+    public record PassRate(
+        String clauseId,
+        String checkName,
+        int evaluated,
+        int passed,
+        int partial,
+        Double passRate,
+        double lower,
+        double upper,
+        double confidence
+    ) {}
+
     public long passCount() {
         return results.stream().filter(r -> r.status() == CheckResult.Status.PASS).count();
     }
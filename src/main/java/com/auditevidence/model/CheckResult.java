@@ -1,23 +1,63 @@
 package com.auditevidence.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 public record CheckResult(
     String standard,
     String clauseId,
+    @JsonInclude(JsonInclude.Include.NON_EMPTY) Map<String, String> mappedClauses,
     String checkName,
     Status status,
     String description,
     String dataSource,
     Instant timestamp,
     Object rawData,
-    List<String> findings
+    List<String> findings,
+    @JsonInclude(JsonInclude.Include.NON_NULL) String repository
 ) {
     public enum Status {
         PASS, FAIL, PARTIAL
     }
 
+    public CheckResult {
+        if (mappedClauses == null) {
+            mappedClauses = Map.of();
+        }
+    }
+
+    public CheckResult(String standard, String clauseId, String checkName, Status status, String description,
+                       String dataSource, Instant timestamp, Object rawData, List<String> findings) {
+        this(standard, clauseId, Map.of(), checkName, status, description, dataSource, timestamp, rawData, findings,
+                null);
+    }
+
+    /**
+     * @return this result filed under {@code standard}'s {@code clauseId}, with the clause of every standard it
+     *         is evidence for, by standard name
+     */
+    public CheckResult mappedTo(String standard, String clauseId, Map<String, String> mappedClauses) {
+        return new CheckResult(standard, clauseId, mappedClauses, checkName, status, description, dataSource,
+                timestamp, rawData, findings, repository);
+    }
+
+    public CheckResult withRawData(Object rawData) {
+        return new CheckResult(standard, clauseId, mappedClauses, checkName, status, description, dataSource,
+                timestamp, rawData, findings, repository);
+    }
+
+    /**
+     * @return this result as evidence of the repository named {@code repository}, or of the organization
+     *         when it is null
+     */
+    public CheckResult withRepository(String repository) {
+        return new CheckResult(standard, clauseId, mappedClauses, checkName, status, description, dataSource,
+                timestamp, rawData, findings, repository);
+    }
+
     public static CheckResult pass(String standard, String clauseId, String checkName,
                                    String description, String dataSource, Object rawData) {
         return new CheckResult(standard, clauseId, checkName, Status.PASS, description,
@@ -13,5 +13,11 @@ public record GithubRepo(
     boolean isPrivate,
     @JsonProperty("default_branch")
     String defaultBranch,
-    String visibility
+    String visibility,
+    // Read from the listing for cost estimates and sampling, but kept out of evidence: they change with
+    // every push
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    long size,
+    @JsonProperty(value = "pushed_at", access = JsonProperty.Access.WRITE_ONLY)
+    String pushedAt
 ) {}
@@ -0,0 +1,43 @@
+package com.auditevidence.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * An organization team. {@code members} and {@code repositories} are not part of the team resource; they are
+ * filled in from the team's member and repository listings.
+ *
+ * @param members every member of the team, including members of its child teams
+ * @param repositories the repositories granted to this team itself, not those inherited from its parent
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record GithubTeam(
+    long id,
+    String slug,
+    String name,
+    String privacy,
+    Parent parent,
+    List<GithubMember> members,
+    List<TeamRepository> repositories
+) {
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Parent(
+        long id,
+        String slug
+    ) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record TeamRepository(
+        long id,
+        String name,
+        @JsonProperty("role_name")
+        String roleName,
+        RepoCollaborator.Permissions permissions
+    ) {}
+
+    public GithubTeam withAccess(List<GithubMember> members, List<TeamRepository> repositories) {
+        return new GithubTeam(id, slug, name, privacy, parent, members, repositories);
+    }
+}
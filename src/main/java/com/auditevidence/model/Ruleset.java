@@ -0,0 +1,87 @@
+package com.auditevidence.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record Ruleset(
+    long id,
+    String name,
+    String target,
+    String enforcement,
+    @JsonProperty("source_type")
+    String sourceType,
+    @JsonProperty("bypass_actors")
+    List<BypassActor> bypassActors,
+    Conditions conditions,
+    List<Rule> rules
+) {
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record BypassActor(
+        @JsonProperty("actor_id")
+        Long actorId,
+        @JsonProperty("actor_type")
+        String actorType,
+        @JsonProperty("bypass_mode")
+        String bypassMode
+    ) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Conditions(
+        @JsonProperty("ref_name")
+        Patterns refName,
+        @JsonProperty("repository_name")
+        Patterns repositoryName,
+        @JsonProperty("repository_id")
+        RepositoryIds repositoryId,
+        @JsonProperty("repository_property")
+        Object repositoryProperty
+    ) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Patterns(
+        List<String> include,
+        List<String> exclude
+    ) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record RepositoryIds(
+        @JsonProperty("repository_ids")
+        List<Long> repositoryIds
+    ) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Rule(
+        String type,
+        Parameters parameters
+    ) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Parameters(
+        @JsonProperty("required_approving_review_count")
+        Integer requiredApprovingReviewCount,
+        @JsonProperty("dismiss_stale_reviews_on_push")
+        Boolean dismissStaleReviewsOnPush,
+        @JsonProperty("require_code_owner_review")
+        Boolean requireCodeOwnerReview,
+        @JsonProperty("required_status_checks")
+        List<StatusCheck> requiredStatusChecks,
+        @JsonProperty("strict_required_status_checks_policy")
+        Boolean strictRequiredStatusChecksPolicy
+    ) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record StatusCheck(
+        String context
+    ) {}
+
+    public boolean isActive() {
+        return "active".equals(enforcement);
+    }
+
+    public boolean targetsBranches() {
+        return target == null || "branch".equals(target);
+    }
+}
@@ -0,0 +1,205 @@
+package com.auditevidence.policy;
+
+import com.auditevidence.model.CheckResult;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A policy file compiled into one predicate per rule, indexed by check name so that applying the policy
+ * to a result only touches the rules for that check.
+ */
+public final class CompiledPolicy {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+
+    private final String name;
+    private final List<CompiledRule> rules;
+    private final Map<String, List<CompiledRule>> rulesByCheck = new HashMap<>();
+
+    public record CompiledRule(
+        String id,
+        String check,
+        String path,
+        String condition,
+        CheckResult.Status status,
+        String message,
+        JsonPointer pointer,
+        Predicate<JsonNode> predicate
+    ) {}
+
+    private CompiledPolicy(String name, List<CompiledRule> rules) {
+        this.name = name;
+        this.rules = rules;
+        for (CompiledRule rule : rules) {
+            rulesByCheck.computeIfAbsent(key(rule.check()), k -> new ArrayList<>()).add(rule);
+        }
+    }
+
+    /**
+     * @param checkNames the names of the checks a rule may refer to
+     */
+    public static CompiledPolicy load(Path file, Collection<String> checkNames) throws IOException {
+        return compile(OBJECT_MAPPER.readValue(file.toFile(), PolicyDefinition.class), checkNames);
+    }
+
+    /**
+     * @param checkNames the names of the checks a rule may refer to; a rule for any other check would never
+     *                   apply, so it is rejected
+     */
+    public static CompiledPolicy compile(PolicyDefinition definition, Collection<String> checkNames) {
+        if (definition.rules() == null || definition.rules().isEmpty()) {
+            throw new IllegalArgumentException("Policy has no rules");
+        }
+        Set<String> known = new HashSet<>();
+        for (String checkName : checkNames) {
+            known.add(key(checkName));
+        }
+        List<CompiledRule> compiled = new ArrayList<>();
+        for (int i = 0; i < definition.rules().size(); i++) {
+            CompiledRule rule = compileRule(definition.rules().get(i), i + 1);
+            if (!known.contains(key(rule.check()))) {
+                throw new IllegalArgumentException("Policy rule " + rule.id() + " refers to unknown check '"
+                        + rule.check() + "' (known checks: " + String.join(", ", checkNames) + ")");
+            }
+            compiled.add(rule);
+        }
+        return new CompiledPolicy(definition.name() == null ? "Custom policy" : definition.name(), compiled);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<CompiledRule> getRules() {
+        return rules;
+    }
+
+    /**
+     * @return {@code result} with a finding per violated rule and its status raised to the strictest
+     *         violated rule's status, or {@code result} itself when no rule is violated
+     */
+    public CheckResult apply(CheckResult result) {
+        List<CompiledRule> checkRules = rulesByCheck.get(key(result.checkName()));
+        if (checkRules == null) {
+            return result;
+        }
+
+        JsonNode rawData = OBJECT_MAPPER.valueToTree(result.rawData());
+        CheckResult.Status status = result.status();
+        List<String> violations = new ArrayList<>();
+        for (CompiledRule rule : checkRules) {
+            JsonNode value = rawData.at(rule.pointer());
+            if (rule.predicate().test(value)) {
+                continue;
+            }
+            violations.add(rule.message() != null ? rule.message()
+                    : "Policy " + rule.id() + ": " + rule.path() + " is " + describe(value)
+                            + ", required " + rule.condition());
+            status = stricter(status, rule.status());
+        }
+        if (violations.isEmpty()) {
+            return result;
+        }
+
+        List<String> findings = new ArrayList<>(result.findings());
+        findings.addAll(violations);
+        return new CheckResult(result.standard(), result.clauseId(), result.mappedClauses(), result.checkName(),
+                status, result.description(), result.dataSource(), result.timestamp(), result.rawData(), findings,
+                result.repository());
+    }
+
+    private static CompiledRule compileRule(PolicyDefinition.Rule rule, int index) {
+        String id = rule.id() != null ? rule.id() : "rule-" + index;
+        if (rule.check() == null || rule.path() == null) {
+            throw new IllegalArgumentException("Policy rule " + id + " needs 'check' and 'path'");
+        }
+        JsonPointer pointer = JsonPointer.compile("/" + rule.path().replace('.', '/'));
+
+        List<String> conditions = new ArrayList<>();
+        Predicate<JsonNode> predicate = value -> true;
+        if (rule.expected() != null) {
+            JsonNode expected = OBJECT_MAPPER.valueToTree(rule.expected());
+            predicate = predicate.and(value -> value.equals(expected) || (value.isNumber() && expected.isNumber()
+                    && value.decimalValue().compareTo(expected.decimalValue()) == 0));
+            conditions.add("= " + expected);
+        }
+        if (rule.min() != null) {
+            BigDecimal min = rule.min();
+            predicate = predicate.and(value -> value.isNumber() && value.decimalValue().compareTo(min) >= 0);
+            conditions.add(">= " + min.toPlainString());
+        }
+        if (rule.max() != null) {
+            BigDecimal max = rule.max();
+            predicate = predicate.and(value -> value.isNumber() && value.decimalValue().compareTo(max) <= 0);
+            conditions.add("<= " + max.toPlainString());
+        }
+        if (rule.minCount() != null) {
+            int minCount = rule.minCount();
+            predicate = predicate.and(value -> value.isArray() && value.size() >= minCount);
+            conditions.add("at least " + minCount + " entries");
+        }
+        if (rule.maxCount() != null) {
+            int maxCount = rule.maxCount();
+            predicate = predicate.and(value -> value.isArray() && value.size() <= maxCount);
+            conditions.add("at most " + maxCount + " entries");
+        }
+        if (conditions.isEmpty()) {
+            throw new IllegalArgumentException("Policy rule " + id
+                    + " needs one of 'equals', 'min', 'max', 'minCount' or 'maxCount'");
+        }
+
+        CheckResult.Status status;
+        try {
+            status = rule.status() == null ? CheckResult.Status.FAIL
+                    : CheckResult.Status.valueOf(rule.status().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Policy rule " + id + " has unknown status " + rule.status());
+        }
+
+        return new CompiledRule(id, rule.check(), rule.path(), String.join(" and ", conditions), status,
+                rule.message(), pointer, predicate);
+    }
+
+    private static CheckResult.Status stricter(CheckResult.Status a, CheckResult.Status b) {
+        if (a == CheckResult.Status.FAIL || b == CheckResult.Status.FAIL) {
+            return CheckResult.Status.FAIL;
+        }
+        if (a == CheckResult.Status.PARTIAL || b == CheckResult.Status.PARTIAL) {
+            return CheckResult.Status.PARTIAL;
+        }
+        return CheckResult.Status.PASS;
+    }
+
+    private static String describe(JsonNode value) {
+        if (value.isMissingNode() || value.isNull()) {
+            return "not set";
+        }
+        if (value.isArray()) {
+            return value.size() + " entries";
+        }
+        return value.asText();
+    }
+
+    private static String key(String checkName) {
+        return checkName.toLowerCase(Locale.ROOT);
+    }
+}
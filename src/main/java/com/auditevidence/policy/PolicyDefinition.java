@@ -0,0 +1,32 @@
+package com.auditevidence.policy;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * JSON policy file. Each rule names a check, a dotted path into that check's raw data and one or more
+ * conditions; a result that violates a rule gets a finding and at least the rule's status.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PolicyDefinition(
+    String name,
+    List<Rule> rules
+) {
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Rule(
+        String id,
+        String check,
+        String path,
+        @JsonProperty("equals")
+        Object expected,
+        BigDecimal min,
+        BigDecimal max,
+        Integer minCount,
+        Integer maxCount,
+        String status,
+        String message
+    ) {}
+}
@@ -0,0 +1,428 @@
+package com.auditevidence.prefetch;
+
+import com.auditevidence.checks.DataRequirement;
+import com.auditevidence.checks.Soc2Check;
+import com.auditevidence.github.GithubApiException;
+import com.auditevidence.github.GithubClient;
+import com.auditevidence.github.RawResponse;
+import com.auditevidence.github.ResponseCapture;
+import com.auditevidence.model.BranchProtection;
+import com.auditevidence.model.GithubOrg;
+import com.auditevidence.model.GithubRepo;
+import com.auditevidence.model.RepoCollaborator;
+import com.auditevidence.snapshot.Fetched;
+import com.auditevidence.snapshot.InMemorySnapshot;
+import com.auditevidence.snapshot.RepoSnapshot;
+import com.auditevidence.sweep.FairShareExecutor;
+import com.auditevidence.sweep.RepoCosts;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Fetches the union of the data declared by the selected checks in two dependency waves:
+ * organization and repository metadata first, then member lists, audit log status, rulesets, teams and the
+ * per-repository collaborators and default-branch protection. Every resource is requested
+ * exactly once and all requests in a wave run in parallel on the supplied executor. The snapshot holds the
+ * raw responses until it is {@linkplain InMemorySnapshot#release released}.
+ * <p>
+ * {@link #prefetch} builds the whole snapshot before handing it over. {@link #stream} hands each repository
+ * over as soon as its data is in, and fetches only a bounded window of repositories ahead of evaluation.
+ */
+public class PrefetchPlanner {
+    private final GithubClient client;
+
+    public record Result(InMemorySnapshot snapshot, List<String> errors, int apiCalls) {}
+
+    /**
+     * Runs fetches, most expensive first when it can. {@code cost} is the {@link RepoCosts} estimate for
+     * repository data and {@link FairShareExecutor#UNESTIMATED} otherwise.
+     */
+    @FunctionalInterface
+    public interface Scheduler {
+        void submit(Runnable task, long cost);
+    }
+
+    /**
+     * Chooses, once the repositories are listed, those whose collaborators and protection are still needed;
+     * the others keep only their metadata.
+     */
+    @FunctionalInterface
+    public interface RepoSelection {
+        Predicate<String> select(List<GithubRepo> listed);
+    }
+
+    /**
+     * Receives an organization's data from {@link #stream} as it comes in.
+     */
+    public interface Listener {
+        /**
+         * The organization's own data (members, rulesets, teams and so on) is in {@code snapshot}. Called
+         * before any repository is handed over.
+         */
+        void organizationFetched(InMemorySnapshot snapshot);
+
+        /**
+         * @param repoNames the repositories whose data will be handed over, in the order they are fetched
+         */
+        void repositoriesSelected(List<String> repoNames);
+
+        /**
+         * {@code repoName}'s data is in {@code snapshot} next to the organization's. The listener runs
+         * {@code evaluated} once nothing reads the repository's data any more; that drops it from the snapshot
+         * and lets the next repository be fetched.
+         */
+        void repositoryFetched(InMemorySnapshot snapshot, String repoName, Runnable evaluated);
+    }
+
+    public PrefetchPlanner(GithubClient client) {
+        this.client = client;
+    }
+
+    public static Set<DataRequirement> requirementsOf(Collection<Soc2Check> checks) {
+        Set<DataRequirement> requirements = EnumSet.noneOf(DataRequirement.class);
+        for (Soc2Check check : checks) {
+            requirements.addAll(check.getDataRequirements());
+        }
+        return requirements;
+    }
+
+    public CompletableFuture<Result> prefetch(String orgName, Set<DataRequirement> requirements,
+                                              List<String> repoNames, Executor executor) {
+        return prefetch(orgName, requirements, repoNames, listed -> repo -> true, RepoCosts.none(),
+                (task, cost) -> executor.execute(task));
+    }
+
+    /**
+     * @param repoNames repositories to fetch, or {@code null} for every repository in the organization
+     * @param selection chooses the repositories whose collaborators and protection are still needed
+     * @param costs estimates the cost of each repository's fetches, and records the time they took
+     */
+    public CompletableFuture<Result> prefetch(String orgName, Set<DataRequirement> requirements,
+                                              List<String> repoNames, RepoSelection selection,
+                                              RepoCosts costs, Scheduler scheduler) {
+        Executor executor = task -> scheduler.submit(task, FairShareExecutor.UNESTIMATED);
+        InMemorySnapshot snapshot = new InMemorySnapshot(orgName, Instant.now());
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger apiCalls = new AtomicInteger();
+
+        CompletableFuture<Void> orgWave = fetchOrganization(orgName, requirements, snapshot, apiCalls, executor);
+
+        CompletableFuture<Void> repoWave = fetchRepos(orgName, requirements, repoNames, errors, apiCalls, executor)
+                .thenCompose(repoList -> {
+                    List<CompletableFuture<?>> fetches = new ArrayList<>();
+                    Predicate<String> needsRepoData = selection.select(repoList.stream().map(Fetched::value).toList());
+                    for (Fetched<GithubRepo> repo : repoList) {
+                        costs.observe(repo.value());
+                        if (!needsRepoData.test(repo.value().name())) {
+                            snapshot.putRepo(new RepoSnapshot(repo.value(), Fetched.notCollected(),
+                                    Fetched.notCollected(), repo.responses()));
+                            continue;
+                        }
+                        long cost = costs.estimate(repo.value().name());
+                        Executor repoExecutor = task -> scheduler.submit(task, cost);
+                        fetches.add(fetchRepo(orgName, repo, requirements, costs, apiCalls, repoExecutor)
+                                .thenAccept(snapshot::putRepo));
+                    }
+                    return CompletableFuture.allOf(fetches.toArray(new CompletableFuture<?>[0]));
+                });
+
+        return CompletableFuture.allOf(orgWave, repoWave)
+                .thenApply(ignored -> new Result(snapshot, List.copyOf(errors), apiCalls.get()));
+    }
+
+    /**
+     * Fetches like {@link #prefetch}, but hands each selected repository to {@code listener} as soon as its
+     * data and the organization's are in, most expensive first, instead of building the whole snapshot first.
+     * At most {@code window} repositories are being fetched or waiting to be evaluated at a time, so the
+     * snapshot holds the organization's data and that many repositories however large the organization is.
+     * Repositories that are not selected are not kept.
+     *
+     * @return completes once every selected repository has been handed over; its snapshot still holds the
+     *         organization's data until it is {@linkplain InMemorySnapshot#release released}
+     */
+    public CompletableFuture<Result> stream(String orgName, Set<DataRequirement> requirements, List<String> repoNames,
+                                            RepoSelection selection, RepoCosts costs, Scheduler scheduler,
+                                            int window, Listener listener) {
+        Executor executor = task -> scheduler.submit(task, FairShareExecutor.UNESTIMATED);
+        InMemorySnapshot snapshot = new InMemorySnapshot(orgName, Instant.now());
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger apiCalls = new AtomicInteger();
+
+        CompletableFuture<Void> orgWave = fetchOrganization(orgName, requirements, snapshot, apiCalls, executor)
+                .thenRun(() -> listener.organizationFetched(snapshot));
+
+        CompletableFuture<Void> repoWave = fetchRepos(orgName, requirements, repoNames, errors, apiCalls, executor)
+                .thenCompose(repoList -> {
+                    Predicate<String> needsRepoData = selection.select(repoList.stream().map(Fetched::value).toList());
+                    List<Fetched<GithubRepo>> selected = new ArrayList<>();
+                    for (Fetched<GithubRepo> repo : repoList) {
+                        costs.observe(repo.value());
+                        if (needsRepoData.test(repo.value().name())) {
+                            selected.add(repo);
+                        } else {
+                            RawResponse.releaseAll(repo.responses());
+                        }
+                    }
+                    selected.sort(Comparator.comparingLong(
+                            (Fetched<GithubRepo> repo) -> costs.estimate(repo.value().name())).reversed());
+                    listener.repositoriesSelected(selected.stream().map(repo -> repo.value().name()).toList());
+                    return new RepoStream(orgName, requirements, costs, apiCalls, scheduler, snapshot, orgWave,
+                            listener, selected).start(window);
+                });
+
+        return CompletableFuture.allOf(orgWave, repoWave)
+                .thenApply(ignored -> new Result(snapshot, List.copyOf(errors), apiCalls.get()));
+    }
+
+    private CompletableFuture<Void> fetchOrganization(String orgName, Set<DataRequirement> requirements,
+                                                      InMemorySnapshot snapshot, AtomicInteger apiCalls,
+                                                      Executor executor) {
+        boolean needsOrg = requirements.stream().anyMatch(r -> !r.isRepoLevel());
+        CompletableFuture<Fetched<GithubOrg>> org = needsOrg
+                ? fetchAsync(() -> client.getOrganization(orgName), apiCalls, executor)
+                : CompletableFuture.completedFuture(Fetched.notCollected());
+
+        return org.thenCompose(organization -> {
+            snapshot.setOrganization(organization);
+            if (!organization.isOk()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            List<CompletableFuture<?>> fetches = new ArrayList<>();
+            if (requirements.contains(DataRequirement.MEMBERS)) {
+                fetches.add(fetchAsync(() -> client.getOrganizationMembers(orgName), apiCalls, executor)
+                        .thenAccept(snapshot::setMembers));
+            }
+            if (requirements.contains(DataRequirement.MEMBERS_WITHOUT_MFA)) {
+                fetches.add(fetchAsync(() -> client.getMembersWithoutMfa(orgName), apiCalls, executor)
+                        .thenAccept(snapshot::setMembersWithoutMfa));
+            }
+            if (requirements.contains(DataRequirement.AUDIT_LOG_STATUS)) {
+                fetches.add(fetchAsync(() -> client.isAuditLogEnabled(orgName), apiCalls, executor)
+                        .thenAccept(snapshot::setAuditLogEnabled));
+            }
+            if (requirements.contains(DataRequirement.ORGANIZATION_RULESETS)) {
+                fetches.add(fetchAsync(() -> client.getOrganizationRulesets(orgName), apiCalls, executor)
+                        .thenAccept(snapshot::setRulesets));
+            }
+            if (requirements.contains(DataRequirement.ORGANIZATION_TEAMS)) {
+                fetches.add(fetchAsync(() -> client.getOrganizationTeams(orgName), apiCalls, executor)
+                        .thenAccept(snapshot::setTeams));
+            }
+            return CompletableFuture.allOf(fetches.toArray(new CompletableFuture<?>[0]));
+        });
+    }
+
+    private CompletableFuture<List<Fetched<GithubRepo>>> fetchRepos(String orgName, Set<DataRequirement> requirements,
+                                                                    List<String> repoNames, List<String> errors,
+                                                                    AtomicInteger apiCalls, Executor executor) {
+        boolean needsRepos = requirements.stream().anyMatch(DataRequirement::isRepoLevel)
+                && (repoNames == null || !repoNames.isEmpty());
+        return needsRepos ? fetchRepos(orgName, repoNames, errors, apiCalls, executor)
+                : CompletableFuture.completedFuture(List.of());
+    }
+
+    private CompletableFuture<List<Fetched<GithubRepo>>> fetchRepos(String orgName, List<String> repoNames,
+                                                                    List<String> errors, AtomicInteger apiCalls,
+                                                                    Executor executor) {
+        if (repoNames == null) {
+            return fetchAsync(() -> client.getOrganizationRepos(orgName), apiCalls, executor)
+                    .thenApply(fetched -> {
+                        if (!fetched.isOk()) {
+                            errors.add("Could not list repositories (HTTP " + fetched.status() + ")");
+                            RawResponse.releaseAll(fetched.responses());
+                            return List.of();
+                        }
+                        return splitListing(fetched);
+                    });
+        }
+
+        List<CompletableFuture<Fetched<GithubRepo>>> fetches = new ArrayList<>();
+        for (String repoName : repoNames) {
+            fetches.add(fetchAsync(() -> client.getRepository(orgName, repoName), apiCalls, executor)
+                    .whenComplete((fetched, e) -> {
+                        if (fetched != null && !fetched.isOk()) {
+                            errors.add("Could not fetch repository " + repoName + " (HTTP " + fetched.status() + ")");
+                            RawResponse.releaseAll(fetched.responses());
+                        }
+                    }));
+        }
+        return CompletableFuture.allOf(fetches.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> fetches.stream()
+                        .map(CompletableFuture::join)
+                        .filter(Fetched::isOk)
+                        .toList());
+    }
+
+    /**
+     * Gives each listed repository the slice of the listing page it was parsed from, so its evidence can
+     * show the repository's own API response. The slices hold the pages in place of the listing.
+     */
+    private static List<Fetched<GithubRepo>> splitListing(Fetched<List<GithubRepo>> listing) {
+        List<RawResponse> elements = new ArrayList<>();
+        try {
+            for (RawResponse page : listing.responses()) {
+                elements.addAll(page.arrayElements());
+            }
+        } catch (IOException e) {
+            elements.clear();
+        }
+        List<GithubRepo> repos = listing.value();
+        boolean aligned = elements.size() == repos.size();
+        List<Fetched<GithubRepo>> fetched = new ArrayList<>(repos.size());
+        for (int i = 0; i < repos.size(); i++) {
+            Fetched<GithubRepo> repo = Fetched.ok(repos.get(i));
+            fetched.add(aligned ? repo.withResponses(List.of(elements.get(i).retain())) : repo);
+        }
+        RawResponse.releaseAll(listing.responses());
+        return fetched;
+    }
+
+    private CompletableFuture<RepoSnapshot> fetchRepo(String orgName, Fetched<GithubRepo> listed,
+                                                      Set<DataRequirement> requirements, RepoCosts costs,
+                                                      AtomicInteger apiCalls, Executor executor) {
+        GithubRepo repo = listed.value();
+        CompletableFuture<Fetched<List<RepoCollaborator>>> collaborators =
+                requirements.contains(DataRequirement.COLLABORATORS)
+                        ? fetchAsync(timed(() -> client.getRepoCollaborators(orgName, repo.name()), repo, costs),
+                                apiCalls, executor)
+                        : CompletableFuture.completedFuture(Fetched.notCollected());
+
+        CompletableFuture<Fetched<BranchProtection>> protection;
+        if (requirements.contains(DataRequirement.DEFAULT_BRANCH_PROTECTION) && repo.defaultBranch() != null) {
+            protection = fetchAsync(timed(() -> client.getBranchProtection(orgName, repo.name(), repo.defaultBranch()),
+                    repo, costs), apiCalls, executor)
+                    .thenApply(PrefetchPlanner::unwrapProtection);
+        } else {
+            protection = CompletableFuture.completedFuture(Fetched.notCollected());
+        }
+
+        return collaborators.thenCombine(protection, (c, p) -> new RepoSnapshot(repo, c, p, listed.responses()));
+    }
+
+    private static Fetched<BranchProtection> unwrapProtection(Fetched<Optional<BranchProtection>> fetched) {
+        if (!fetched.isOk()) {
+            return Fetched.<BranchProtection>failed(fetched.status()).withResponses(fetched.responses());
+        }
+        return fetched.value().map(Fetched::ok).orElseGet(() -> Fetched.failed(404))
+                .withResponses(fetched.responses());
+    }
+
+    private static <T> ApiCall<T> timed(ApiCall<T> call, GithubRepo repo, RepoCosts costs) {
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                return call.execute();
+            } finally {
+                costs.add(repo.name(), System.nanoTime() - start);
+            }
+        };
+    }
+
+    private <T> CompletableFuture<Fetched<T>> fetchAsync(ApiCall<T> call, AtomicInteger apiCalls, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            apiCalls.incrementAndGet();
+            try (ResponseCapture capture = ResponseCapture.start()) {
+                try {
+                    return Fetched.ok(call.execute()).withResponses(RawResponse.retainAll(capture.getResponses()));
+                } catch (GithubApiException e) {
+                    return Fetched.<T>of(e).withResponses(RawResponse.retainAll(capture.getResponses()));
+                }
+            }
+        }, executor);
+    }
+
+    /**
+     * The window of {@link #stream}: a repository is fetched only when one handed over before it has been
+     * evaluated, so a slow evaluation holds back fetching instead of letting fetched data pile up.
+     */
+    private final class RepoStream {
+        private final String orgName;
+        private final Set<DataRequirement> requirements;
+        private final RepoCosts costs;
+        private final AtomicInteger apiCalls;
+        private final Scheduler scheduler;
+        private final InMemorySnapshot snapshot;
+        private final CompletableFuture<Void> orgWave;
+        private final Listener listener;
+        private final Deque<Fetched<GithubRepo>> waiting;
+        private final AtomicInteger remaining;
+        private final CompletableFuture<Void> handedOver = new CompletableFuture<>();
+
+        RepoStream(String orgName, Set<DataRequirement> requirements, RepoCosts costs, AtomicInteger apiCalls,
+                   Scheduler scheduler, InMemorySnapshot snapshot, CompletableFuture<Void> orgWave,
+                   Listener listener, List<Fetched<GithubRepo>> selected) {
+            this.orgName = orgName;
+            this.requirements = requirements;
+            this.costs = costs;
+            this.apiCalls = apiCalls;
+            this.scheduler = scheduler;
+            this.snapshot = snapshot;
+            this.orgWave = orgWave;
+            this.listener = listener;
+            this.waiting = new ArrayDeque<>(selected);
+            this.remaining = new AtomicInteger(selected.size());
+        }
+
+        CompletableFuture<Void> start(int window) {
+            if (remaining.get() == 0) {
+                handedOver.complete(null);
+            }
+            for (int i = 0; i < Math.max(1, window); i++) {
+                next();
+            }
+            return handedOver;
+        }
+
+        private void next() {
+            Fetched<GithubRepo> repo;
+            synchronized (waiting) {
+                repo = waiting.poll();
+            }
+            if (repo == null) {
+                return;
+            }
+            String name = repo.value().name();
+            long cost = costs.estimate(name);
+            fetchRepo(orgName, repo, requirements, costs, apiCalls, task -> scheduler.submit(task, cost))
+                    .thenCombine(orgWave, (repoSnapshot, ignored) -> repoSnapshot)
+                    .whenComplete((repoSnapshot, e) -> {
+                        if (e != null) {
+                            handedOver.completeExceptionally(e);
+                            return;
+                        }
+                        snapshot.putRepo(repoSnapshot);
+                        AtomicBoolean evaluated = new AtomicBoolean();
+                        listener.repositoryFetched(snapshot, name, () -> {
+                            if (evaluated.compareAndSet(false, true)) {
+                                snapshot.releaseRepo(name);
+                                next();
+                            }
+                        });
+                        if (remaining.decrementAndGet() == 0) {
+                            handedOver.complete(null);
+                        }
+                    });
+        }
+    }
+
+    @FunctionalInterface
+    private interface ApiCall<T> {
+        T execute() throws GithubApiException;
+    }
+}
@@ -0,0 +1,137 @@
+package com.auditevidence.rulesets;
+
+import com.auditevidence.github.GithubApiException;
+import com.auditevidence.github.GithubClient;
+import com.auditevidence.github.ResponseCapture;
+import com.auditevidence.model.BranchProtection;
+import com.auditevidence.model.GithubRepo;
+import com.auditevidence.model.Ruleset;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Default-branch policy of one repository after combining legacy branch protection with every
+ * organization ruleset that applies to it. The strictest setting wins. Only rulesets with at least one
+ * pull request, status check or force-push rule count as protection; a ruleset that only restricts, say,
+ * commit messages or branch names neither protects the branch nor enforces anything on admins.
+ */
+public record EffectivePolicy(
+    BranchProtection branchProtection,
+    List<Ruleset> rulesets,
+    boolean rulesetsAvailable,
+    Integer requiredApprovingReviewCount,
+    boolean dismissStaleReviews,
+    boolean requireCodeOwnerReviews,
+    boolean requireStatusChecks,
+    boolean enforceAdmins,
+    boolean allowForcePushes,
+    List<String> sources
+) {
+    private static final long REPOSITORY_ADMIN_ROLE_ID = 5;
+    private static final Set<String> PROTECTION_RULE_TYPES =
+            Set.of("pull_request", "required_status_checks", "non_fast_forward");
+
+    /**
+     * @param orgRulesets the organization's rulesets, read once for all of its repositories; the responses
+     *                    they were parsed from are recorded as read by this evaluation
+     */
+    public static EffectivePolicy resolve(GithubClient client, String orgName, GithubRepo repo,
+                                          RulesetCache.OrgRulesets orgRulesets) throws GithubApiException {
+        Optional<BranchProtection> protection = client.getBranchProtection(orgName, repo.name(), repo.defaultBranch());
+        ResponseCapture.record(orgRulesets.responses());
+        List<Ruleset> rulesets = RulesetMatcher.forDefaultBranch(orgRulesets.rulesets(), repo);
+        return combine(protection.orElse(null), rulesets, orgRulesets.available());
+    }
+
+    public static EffectivePolicy combine(BranchProtection legacy, List<Ruleset> rulesets, boolean rulesetsAvailable) {
+        Integer approvals = null;
+        boolean dismissStale = false;
+        boolean codeOwners = false;
+        boolean statusChecks = false;
+        boolean enforceAdmins = false;
+        boolean forcePushesBlocked = false;
+        List<String> sources = new ArrayList<>();
+
+        if (legacy != null) {
+            sources.add("branch protection");
+            BranchProtection.RequiredPullRequestReviews reviews = legacy.requiredPullRequestReviews();
+            if (reviews != null) {
+                approvals = reviews.requiredApprovingReviewCount();
+                dismissStale = reviews.dismissStaleReviews();
+                codeOwners = reviews.requireCodeOwnerReviews();
+            }
+            statusChecks = legacy.requiredStatusChecks() != null;
+            enforceAdmins = legacy.enforceAdmins() != null && legacy.enforceAdmins().enabled();
+            forcePushesBlocked = legacy.allowForcePushes() == null || !legacy.allowForcePushes().enabled();
+        }
+
+        for (Ruleset ruleset : rulesets) {
+            if (!hasProtectionRule(ruleset)) {
+                continue;
+            }
+            sources.add("ruleset " + ruleset.name() + " (#" + ruleset.id() + ")");
+            if (!adminsCanBypass(ruleset)) {
+                enforceAdmins = true;
+            }
+            for (Ruleset.Rule rule : ruleset.rules()) {
+                Ruleset.Parameters parameters = rule.parameters();
+                switch (rule.type()) {
+                    case "pull_request" -> {
+                        int count = parameters != null && parameters.requiredApprovingReviewCount() != null
+                                ? parameters.requiredApprovingReviewCount() : 0;
+                        approvals = approvals == null ? count : Math.max(approvals, count);
+                        if (parameters != null) {
+                            dismissStale |= Boolean.TRUE.equals(parameters.dismissStaleReviewsOnPush());
+                            codeOwners |= Boolean.TRUE.equals(parameters.requireCodeOwnerReview());
+                        }
+                    }
+                    case "required_status_checks" -> statusChecks = true;
+                    case "non_fast_forward" -> forcePushesBlocked = true;
+                    default -> {
+                        // Other rule types do not affect the evaluated controls
+                    }
+                }
+            }
+        }
+
+        return new EffectivePolicy(legacy, rulesets, rulesetsAvailable, approvals, dismissStale, codeOwners,
+                statusChecks, enforceAdmins, !forcePushesBlocked, sources);
+    }
+
+    public boolean isProtected() {
+        return !sources.isEmpty();
+    }
+
+    public boolean requiresPullRequestReviews() {
+        return requiredApprovingReviewCount != null;
+    }
+
+    private static boolean hasProtectionRule(Ruleset ruleset) {
+        if (ruleset.rules() == null) {
+            return false;
+        }
+        for (Ruleset.Rule rule : ruleset.rules()) {
+            if (PROTECTION_RULE_TYPES.contains(rule.type())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean adminsCanBypass(Ruleset ruleset) {
+        if (ruleset.bypassActors() == null) {
+            return false;
+        }
+        for (Ruleset.BypassActor actor : ruleset.bypassActors()) {
+            if ("OrganizationAdmin".equals(actor.actorType())
+                    || ("RepositoryRole".equals(actor.actorType())
+                        && Long.valueOf(REPOSITORY_ADMIN_ROLE_ID).equals(actor.actorId()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
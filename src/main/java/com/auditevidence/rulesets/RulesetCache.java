@@ -0,0 +1,90 @@
+package com.auditevidence.rulesets;
+
+import com.auditevidence.github.GithubApiException;
+import com.auditevidence.github.GithubClient;
+import com.auditevidence.github.RawResponse;
+import com.auditevidence.github.ResponseCapture;
+import com.auditevidence.model.Ruleset;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The rulesets of each organization, read once per organization however many repositories are evaluated
+ * and whichever client they are evaluated with, and matched against each repository locally. Rulesets are
+ * kept until they are {@linkplain #invalidate invalidated}, e.g. by a webhook event that changes a ruleset.
+ */
+public class RulesetCache {
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * @param available false when rulesets cannot be read with this token or plan, so policies rest on legacy
+     *                  branch protection alone
+     * @param responses the API responses {@code rulesets} was parsed from
+     */
+    public record OrgRulesets(List<Ruleset> rulesets, boolean available, List<RawResponse> responses) {}
+
+    private static final class Entry {
+        private OrgRulesets rulesets;
+    }
+
+    /**
+     * @return the organization's rulesets, read through {@code client} the first time they are needed
+     */
+    public OrgRulesets get(GithubClient client, String orgName) throws GithubApiException {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.computeIfAbsent(key(orgName), key -> new Entry());
+        }
+        synchronized (entry) {
+            if (entry.rulesets == null) {
+                entry.rulesets = read(client, orgName);
+            }
+            return entry.rulesets;
+        }
+    }
+
+    /**
+     * @return the rulesets of {@code orgName} if they have been read, without reading them
+     */
+    public OrgRulesets getIfCached(String orgName) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key(orgName));
+        }
+        if (entry == null) {
+            return null;
+        }
+        synchronized (entry) {
+            return entry.rulesets;
+        }
+    }
+
+    /**
+     * Drops the rulesets of {@code orgName}, so the next {@link #get} reads them again.
+     */
+    public void invalidate(String orgName) {
+        synchronized (entries) {
+            entries.remove(key(orgName));
+        }
+    }
+
+    private static OrgRulesets read(GithubClient client, String orgName) throws GithubApiException {
+        try (ResponseCapture capture = ResponseCapture.start()) {
+            List<Ruleset> rulesets = client.getOrganizationRulesets(orgName);
+            return new OrgRulesets(rulesets, true, RawResponse.retainAll(capture.getResponses()));
+        } catch (GithubApiException e) {
+            if (e.getStatusCode() != 403 && e.getStatusCode() != 404) {
+                throw e;
+            }
+            // Rulesets are not available on every plan or to every token; fall back to legacy protection
+            return new OrgRulesets(List.of(), false, List.of());
+        }
+    }
+
+    private static String key(String orgName) {
+        return orgName.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,103 @@
+package com.auditevidence.rulesets;
+
+import com.auditevidence.model.GithubRepo;
+import com.auditevidence.model.Ruleset;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Evaluates the repository and ref conditions of organization rulesets locally, the way GitHub does:
+ * {@code ~ALL} matches everything, {@code ~DEFAULT_BRANCH} the repository's default branch, and other
+ * patterns are fnmatch globs where {@code *} stops at {@code /} and {@code **} does not.
+ */
+public final class RulesetMatcher {
+    private static final String ALL = "~ALL";
+    private static final String DEFAULT_BRANCH = "~DEFAULT_BRANCH";
+    private static final Map<String, Pattern> GLOBS = new ConcurrentHashMap<>();
+
+    private RulesetMatcher() {
+    }
+
+    /**
+     * @return the active branch rulesets that apply to the default branch of {@code repo}
+     */
+    public static List<Ruleset> forDefaultBranch(List<Ruleset> rulesets, GithubRepo repo) {
+        List<Ruleset> matching = new ArrayList<>();
+        for (Ruleset ruleset : rulesets) {
+            if (ruleset.isActive() && ruleset.targetsBranches() && appliesTo(ruleset, repo, repo.defaultBranch())) {
+                matching.add(ruleset);
+            }
+        }
+        return matching;
+    }
+
+    public static boolean appliesTo(Ruleset ruleset, GithubRepo repo, String branch) {
+        Ruleset.Conditions conditions = ruleset.conditions();
+        if (conditions == null) {
+            return true;
+        }
+        if (conditions.repositoryProperty() != null) {
+            // Custom property values are not collected, so these rulesets cannot be attributed to a repository
+            return false;
+        }
+        if (conditions.repositoryId() != null) {
+            List<Long> ids = conditions.repositoryId().repositoryIds();
+            if (ids == null || !ids.contains(repo.id())) {
+                return false;
+            }
+        }
+        if (conditions.repositoryName() != null && !matches(conditions.repositoryName(), repo.name(), null)) {
+            return false;
+        }
+        return conditions.refName() == null || matches(conditions.refName(), "refs/heads/" + branch, repo);
+    }
+
+    private static boolean matches(Ruleset.Patterns patterns, String value, GithubRepo repo) {
+        return anyMatch(patterns.include(), value, repo) && !anyMatch(patterns.exclude(), value, repo);
+    }
+
+    private static boolean anyMatch(List<String> patterns, String value, GithubRepo repo) {
+        if (patterns == null) {
+            return false;
+        }
+        for (String pattern : patterns) {
+            if (ALL.equals(pattern)) {
+                return true;
+            }
+            if (DEFAULT_BRANCH.equals(pattern)) {
+                if (repo != null && value.equals("refs/heads/" + repo.defaultBranch())) {
+                    return true;
+                }
+                continue;
+            }
+            if (GLOBS.computeIfAbsent(pattern, RulesetMatcher::compile).matcher(value).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static Pattern compile(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                    regex.append(".*");
+                    i++;
+                } else {
+                    regex.append("[^/]*");
+                }
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
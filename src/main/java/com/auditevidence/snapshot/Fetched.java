@@ -0,0 +1,62 @@
+package com.auditevidence.snapshot;
+
+import com.auditevidence.github.GithubApiException;
+import com.auditevidence.github.RawResponse;
+
+import java.util.List;
+
+/**
+ * @param responses the API responses {@code value} was parsed from; empty when they were not kept, e.g. for
+ *                  data read back from a snapshot file
+ */
+public record Fetched<T>(
+    int status,
+    T value,
+    List<RawResponse> responses
+) {
+    public static final int NOT_COLLECTED = -1;
+    public static final int OK = 200;
+
+    public Fetched(int status, T value) {
+        this(status, value, List.of());
+    }
+
+    public static <T> Fetched<T> ok(T value) {
+        return new Fetched<>(OK, value);
+    }
+
+    public static <T> Fetched<T> failed(int status) {
+        return new Fetched<>(status, null);
+    }
+
+    public static <T> Fetched<T> notCollected() {
+        return new Fetched<>(NOT_COLLECTED, null);
+    }
+
+    public static <T> Fetched<T> of(GithubApiException e) {
+        return new Fetched<>(e.getStatusCode(), null);
+    }
+
+    public Fetched<T> withResponses(List<RawResponse> responses) {
+        return new Fetched<>(status, value, List.copyOf(responses));
+    }
+
+    public boolean isOk() {
+        return status == OK;
+    }
+
+    public boolean isCollected() {
+        return status != NOT_COLLECTED;
+    }
+
+    public T orThrow(String what) throws GithubApiException {
+        if (status == OK) {
+            return value;
+        }
+        if (status == NOT_COLLECTED) {
+            throw new GithubApiException(what + " was not collected in the snapshot", 0, null);
+        }
+        throw new GithubApiException("GitHub API error: " + status + " (recorded in snapshot for " + what + ")",
+                status, null);
+    }
+}
@@ -0,0 +1,138 @@
+package com.auditevidence.snapshot;
+
+import com.auditevidence.github.RawResponse;
+import com.auditevidence.model.GithubMember;
+import com.auditevidence.model.GithubOrg;
+import com.auditevidence.model.GithubRepo;
+import com.auditevidence.model.GithubTeam;
+import com.auditevidence.model.Ruleset;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+public class InMemorySnapshot implements OrgSnapshot {
+    private final String orgName;
+    private final Instant collectedAt;
+    private volatile Fetched<GithubOrg> organization = Fetched.notCollected();
+    private volatile Fetched<List<GithubMember>> members = Fetched.notCollected();
+    private volatile Fetched<List<GithubMember>> membersWithoutMfa = Fetched.notCollected();
+    private volatile Fetched<Boolean> auditLogEnabled = Fetched.notCollected();
+    private volatile Fetched<List<Ruleset>> rulesets = Fetched.notCollected();
+    private volatile Fetched<List<GithubTeam>> teams = Fetched.notCollected();
+    private final Map<String, RepoSnapshot> repos = new ConcurrentSkipListMap<>();
+
+    public InMemorySnapshot(String orgName, Instant collectedAt) {
+        this.orgName = orgName;
+        this.collectedAt = collectedAt;
+    }
+
+    @Override
+    public String getOrgName() {
+        return orgName;
+    }
+
+    @Override
+    public Instant getCollectedAt() {
+        return collectedAt;
+    }
+
+    @Override
+    public Fetched<GithubOrg> getOrganization() {
+        return organization;
+    }
+
+    public void setOrganization(Fetched<GithubOrg> organization) {
+        this.organization = organization;
+    }
+
+    @Override
+    public Fetched<List<GithubMember>> getMembers() {
+        return members;
+    }
+
+    public void setMembers(Fetched<List<GithubMember>> members) {
+        this.members = members;
+    }
+
+    @Override
+    public Fetched<List<GithubMember>> getMembersWithoutMfa() {
+        return membersWithoutMfa;
+    }
+
+    public void setMembersWithoutMfa(Fetched<List<GithubMember>> membersWithoutMfa) {
+        this.membersWithoutMfa = membersWithoutMfa;
+    }
+
+    @Override
+    public Fetched<Boolean> getAuditLogEnabled() {
+        return auditLogEnabled;
+    }
+
+    public void setAuditLogEnabled(Fetched<Boolean> auditLogEnabled) {
+        this.auditLogEnabled = auditLogEnabled;
+    }
+
+    @Override
+    public Fetched<List<Ruleset>> getRulesets() {
+        return rulesets;
+    }
+
+    public void setRulesets(Fetched<List<Ruleset>> rulesets) {
+        this.rulesets = rulesets;
+    }
+
+    @Override
+    public Fetched<List<GithubTeam>> getTeams() {
+        return teams;
+    }
+
+    public void setTeams(Fetched<List<GithubTeam>> teams) {
+        this.teams = teams;
+    }
+
+    @Override
+    public List<GithubRepo> getRepos() {
+        return repos.values().stream().map(RepoSnapshot::repository).toList();
+    }
+
+    @Override
+    public RepoSnapshot getRepo(String name) {
+        return repos.get(name);
+    }
+
+    public void putRepo(RepoSnapshot repo) {
+        repos.put(repo.repository().name(), repo);
+    }
+
+    /**
+     * Drops the repository named {@code name} and releases the raw responses its data was parsed from, once
+     * no check reads it any more.
+     */
+    public void releaseRepo(String name) {
+        RepoSnapshot repo = repos.remove(name);
+        if (repo != null) {
+            release(repo);
+        }
+    }
+
+    /**
+     * Releases the raw responses the data was parsed from, once no check reads this snapshot any more.
+     */
+    public void release() {
+        for (Fetched<?> fetched : List.of(organization, members, membersWithoutMfa, auditLogEnabled, rulesets,
+                teams)) {
+            RawResponse.releaseAll(fetched.responses());
+        }
+        for (RepoSnapshot repo : repos.values()) {
+            release(repo);
+        }
+    }
+
+    private static void release(RepoSnapshot repo) {
+        RawResponse.releaseAll(repo.collaborators().responses());
+        RawResponse.releaseAll(repo.defaultBranchProtection().responses());
+        RawResponse.releaseAll(repo.repositoryResponses());
+    }
+}
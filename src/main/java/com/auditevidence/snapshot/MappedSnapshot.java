@@ -0,0 +1,343 @@
+package com.auditevidence.snapshot;
+
+import com.auditevidence.access.AccessPermissions;
+import com.auditevidence.model.BranchProtection;
+import com.auditevidence.model.GithubMember;
+import com.auditevidence.model.GithubOrg;
+import com.auditevidence.model.GithubRepo;
+import com.auditevidence.model.GithubTeam;
+import com.auditevidence.model.RepoCollaborator;
+import com.auditevidence.model.Ruleset;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A snapshot read in place from its memory-mapped file. {@link #close()} drops the mapping once the run no
+ * longer reads the snapshot; Java unmaps it when the buffer is collected.
+ */
+public class MappedSnapshot implements OrgSnapshot, Closeable {
+    private static final ObjectReader RULESETS_READER = new ObjectMapper()
+            .readerFor(new TypeReference<List<Ruleset>>() {});
+    private static final ObjectReader TEAMS_READER = new ObjectMapper()
+            .readerFor(new TypeReference<List<GithubTeam>>() {});
+
+    private volatile MappedByteBuffer buffer;
+    private final Instant collectedAt;
+    private final String orgName;
+    private final int stringCount;
+    private final int stringOffsetsPosition;
+    private final int stringBytesPosition;
+    private final String[] stringCache;
+    private final Map<String, Integer> repoOffsets = new LinkedHashMap<>();
+    private final int recordsPosition;
+
+    private final Fetched<GithubOrg> organization;
+    private final Fetched<List<GithubMember>> members;
+    private final Fetched<List<GithubMember>> membersWithoutMfa;
+    private final Fetched<Boolean> auditLogEnabled;
+    private final Fetched<List<Ruleset>> rulesets;
+    private final Fetched<List<GithubTeam>> teams;
+
+    private MappedSnapshot(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        byte[] magic = new byte[SnapshotWriter.MAGIC.length];
+        buffer.get(0, magic);
+        if (!Arrays.equals(magic, SnapshotWriter.MAGIC)) {
+            throw new IOException("Not an audit-evidence snapshot");
+        }
+        int position = magic.length;
+        int version = buffer.getInt(position);
+        if (version != SnapshotWriter.VERSION) {
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+        position += 4;
+        this.collectedAt = Instant.ofEpochMilli(buffer.getLong(position));
+        position += 8;
+        int orgNameId = buffer.getInt(position);
+        position += 4;
+
+        this.stringCount = buffer.getInt(position);
+        position += 4;
+        this.stringOffsetsPosition = position;
+        position += (stringCount + 1) * 4;
+        this.stringBytesPosition = position;
+        position += buffer.getInt(stringOffsetsPosition + stringCount * 4);
+        this.stringCache = new String[stringCount];
+        this.orgName = string(orgNameId);
+
+        int repoCount = buffer.getInt(position);
+        position += 4;
+        int[] nameIds = new int[repoCount];
+        int[] offsets = new int[repoCount];
+        for (int i = 0; i < repoCount; i++) {
+            nameIds[i] = buffer.getInt(position);
+            offsets[i] = buffer.getInt(position + 4);
+            position += 8;
+        }
+        position += 4;
+        this.recordsPosition = position;
+        for (int i = 0; i < repoCount; i++) {
+            repoOffsets.put(string(nameIds[i]), recordsPosition + offsets[i]);
+        }
+
+        Reader org = new Reader(recordsPosition);
+        this.organization = readOrganization(org);
+        this.members = readMembers(org);
+        this.membersWithoutMfa = readMembers(org);
+        int auditLogStatus = org.readInt();
+        this.auditLogEnabled = auditLogStatus == Fetched.OK
+                ? Fetched.ok(org.readBoolean())
+                : Fetched.failed(auditLogStatus);
+        this.rulesets = readDocument(org, RULESETS_READER);
+        this.teams = readDocument(org, TEAMS_READER);
+    }
+
+    public static MappedSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot is larger than 2 GB: " + file);
+            }
+            return new MappedSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    @Override
+    public String getOrgName() {
+        return orgName;
+    }
+
+    @Override
+    public Instant getCollectedAt() {
+        return collectedAt;
+    }
+
+    @Override
+    public Fetched<GithubOrg> getOrganization() {
+        return organization;
+    }
+
+    @Override
+    public Fetched<List<GithubMember>> getMembers() {
+        return members;
+    }
+
+    @Override
+    public Fetched<List<GithubMember>> getMembersWithoutMfa() {
+        return membersWithoutMfa;
+    }
+
+    @Override
+    public Fetched<Boolean> getAuditLogEnabled() {
+        return auditLogEnabled;
+    }
+
+    @Override
+    public Fetched<List<Ruleset>> getRulesets() {
+        return rulesets;
+    }
+
+    @Override
+    public Fetched<List<GithubTeam>> getTeams() {
+        return teams;
+    }
+
+    @Override
+    public List<GithubRepo> getRepos() {
+        List<GithubRepo> repos = new ArrayList<>(repoOffsets.size());
+        for (int offset : repoOffsets.values()) {
+            repos.add(readRepository(new Reader(offset)));
+        }
+        return repos;
+    }
+
+    @Override
+    public RepoSnapshot getRepo(String name) {
+        Integer offset = repoOffsets.get(name);
+        if (offset == null) {
+            return null;
+        }
+        Reader reader = new Reader(offset);
+        GithubRepo repo = readRepository(reader);
+
+        Fetched<List<RepoCollaborator>> collaborators;
+        int collaboratorsStatus = reader.readInt();
+        if (collaboratorsStatus == Fetched.OK) {
+            int count = reader.readInt();
+            List<RepoCollaborator> list = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long id = reader.readLong();
+                String login = reader.readString();
+                String roleName = reader.readString();
+                byte permissions = reader.readByte();
+                list.add(new RepoCollaborator(id, login, roleName,
+                        permissions < 0 ? null : AccessPermissions.unpack(permissions)));
+            }
+            collaborators = Fetched.ok(list);
+        } else {
+            collaborators = Fetched.failed(collaboratorsStatus);
+        }
+
+        int protectionStatus = reader.readInt();
+        Fetched<BranchProtection> protection = protectionStatus == Fetched.OK
+                ? Fetched.ok(readProtection(reader))
+                : Fetched.failed(protectionStatus);
+
+        return new RepoSnapshot(repo, collaborators, protection);
+    }
+
+    private Fetched<GithubOrg> readOrganization(Reader reader) {
+        int status = reader.readInt();
+        if (status != Fetched.OK) {
+            return Fetched.failed(status);
+        }
+        long id = reader.readLong();
+        String login = reader.readString();
+        String name = reader.readString();
+        String description = reader.readString();
+        byte twoFactor = reader.readByte();
+        return Fetched.ok(new GithubOrg(id, login, name, description, twoFactor < 0 ? null : twoFactor == 1));
+    }
+
+    private <T> Fetched<T> readDocument(Reader reader, ObjectReader documentReader) throws IOException {
+        int status = reader.readInt();
+        if (status != Fetched.OK) {
+            return Fetched.failed(status);
+        }
+        return Fetched.ok(documentReader.readValue(reader.readString()));
+    }
+
+    private Fetched<List<GithubMember>> readMembers(Reader reader) {
+        int status = reader.readInt();
+        if (status != Fetched.OK) {
+            return Fetched.failed(status);
+        }
+        int count = reader.readInt();
+        List<GithubMember> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(new GithubMember(reader.readLong(), reader.readString(), reader.readString(),
+                    reader.readString(), reader.readBoolean()));
+        }
+        return Fetched.ok(list);
+    }
+
+    private GithubRepo readRepository(Reader reader) {
+        return new GithubRepo(reader.readLong(), reader.readString(), reader.readString(),
+                reader.readBoolean(), reader.readString(), reader.readString(), reader.readLong(), reader.readString());
+    }
+
+    private BranchProtection readProtection(Reader reader) {
+        String url = reader.readString();
+
+        BranchProtection.RequiredStatusChecks statusChecks = null;
+        if (reader.readBoolean()) {
+            boolean strict = reader.readBoolean();
+            int count = reader.readInt();
+            String[] contexts = count < 0 ? null : new String[count];
+            for (int i = 0; i < count; i++) {
+                contexts[i] = reader.readString();
+            }
+            statusChecks = new BranchProtection.RequiredStatusChecks(strict, contexts);
+        }
+
+        BranchProtection.EnforceAdmins enforceAdmins = reader.readBoolean()
+                ? new BranchProtection.EnforceAdmins(reader.readString(), reader.readBoolean())
+                : null;
+
+        BranchProtection.RequiredPullRequestReviews reviews = reader.readBoolean()
+                ? new BranchProtection.RequiredPullRequestReviews(reader.readString(), reader.readBoolean(),
+                        reader.readBoolean(), reader.readInt())
+                : null;
+
+        BranchProtection.RequiredSignatures signatures = reader.readBoolean()
+                ? new BranchProtection.RequiredSignatures(reader.readString(), reader.readBoolean())
+                : null;
+
+        BranchProtection.AllowForcePushes forcePushes = reader.readBoolean()
+                ? new BranchProtection.AllowForcePushes(reader.readBoolean())
+                : null;
+
+        BranchProtection.AllowDeletions deletions = reader.readBoolean()
+                ? new BranchProtection.AllowDeletions(reader.readBoolean())
+                : null;
+
+        return new BranchProtection(url, statusChecks, enforceAdmins, reviews, signatures, forcePushes, deletions);
+    }
+
+    @Override
+    public void close() {
+        buffer = null;
+    }
+
+    private MappedByteBuffer mapped() {
+        MappedByteBuffer mapped = buffer;
+        if (mapped == null) {
+            throw new IllegalStateException("Snapshot of " + orgName + " is closed");
+        }
+        return mapped;
+    }
+
+    private String string(int id) {
+        if (id < 0) {
+            return null;
+        }
+        String value = stringCache[id];
+        if (value == null) {
+            MappedByteBuffer mapped = mapped();
+            int start = mapped.getInt(stringOffsetsPosition + id * 4);
+            int end = mapped.getInt(stringOffsetsPosition + (id + 1) * 4);
+            byte[] bytes = new byte[end - start];
+            mapped.get(stringBytesPosition + start, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            stringCache[id] = value;
+        }
+        return value;
+    }
+
+    private final class Reader {
+        private int position;
+
+        Reader(int position) {
+            this.position = position;
+        }
+
+        int readInt() {
+            int value = mapped().getInt(position);
+            position += 4;
+            return value;
+        }
+
+        long readLong() {
+            long value = mapped().getLong(position);
+            position += 8;
+            return value;
+        }
+
+        byte readByte() {
+            return mapped().get(position++);
+        }
+
+        boolean readBoolean() {
+            return readByte() != 0;
+        }
+
+        String readString() {
+            return string(readInt());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.auditevidence.snapshot;
+
+import com.auditevidence.model.GithubMember;
+import com.auditevidence.model.GithubOrg;
+import com.auditevidence.model.GithubRepo;
+import com.auditevidence.model.GithubTeam;
+import com.auditevidence.model.Ruleset;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface OrgSnapshot {
+    String getOrgName();
+    Instant getCollectedAt();
+    Fetched<GithubOrg> getOrganization();
+    Fetched<List<GithubMember>> getMembers();
+    Fetched<List<GithubMember>> getMembersWithoutMfa();
+    Fetched<Boolean> getAuditLogEnabled();
+    Fetched<List<Ruleset>> getRulesets();
+    Fetched<List<GithubTeam>> getTeams();
+    List<GithubRepo> getRepos();
+    RepoSnapshot getRepo(String name);
+}
@@ -0,0 +1,24 @@
+package com.auditevidence.snapshot;
+
+import com.auditevidence.github.RawResponse;
+import com.auditevidence.model.BranchProtection;
+import com.auditevidence.model.GithubRepo;
+import com.auditevidence.model.RepoCollaborator;
+
+import java.util.List;
+
+/**
+ * @param repositoryResponses the response (or slice of a repository listing page) {@code repository} was
+ *                            parsed from
+ */
+public record RepoSnapshot(
+    GithubRepo repository,
+    Fetched<List<RepoCollaborator>> collaborators,
+    Fetched<BranchProtection> defaultBranchProtection,
+    List<RawResponse> repositoryResponses
+) {
+    public RepoSnapshot(GithubRepo repository, Fetched<List<RepoCollaborator>> collaborators,
+                        Fetched<BranchProtection> defaultBranchProtection) {
+        this(repository, collaborators, defaultBranchProtection, List.of());
+    }
+}
@@ -0,0 +1,160 @@
+package com.auditevidence.snapshot;
+
+import com.auditevidence.github.AuditLogSink;
+import com.auditevidence.github.GithubApiException;
+import com.auditevidence.github.GithubClient;
+import com.auditevidence.github.ResponseCapture;
+import com.auditevidence.model.BranchProtection;
+import com.auditevidence.model.GithubMember;
+import com.auditevidence.model.GithubOrg;
+import com.auditevidence.model.GithubRepo;
+import com.auditevidence.model.GithubTeam;
+import com.auditevidence.model.RepoCollaborator;
+import com.auditevidence.model.Ruleset;
+
+import java.util.List;
+import java.util.Optional;
+
+public class SnapshotGithubClient extends GithubClient {
+    private final OrgSnapshot snapshot;
+    private final GithubClient auditLogClient;
+
+    public SnapshotGithubClient(OrgSnapshot snapshot) {
+        this(snapshot, null);
+    }
+
+    /**
+     * @param auditLogClient live client used to stream audit log events, which are never part of a snapshot
+     */
+    public SnapshotGithubClient(OrgSnapshot snapshot, GithubClient auditLogClient) {
+        this.snapshot = snapshot;
+        this.auditLogClient = auditLogClient;
+    }
+
+    public OrgSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public boolean isOrganization(String name) {
+        return matchesOrg(name) && snapshot.getOrganization().isOk();
+    }
+
+    @Override
+    public GithubOrg getOrganization(String orgName) throws GithubApiException {
+        requireOrg(orgName);
+        return replay(snapshot.getOrganization()).orThrow("organization " + orgName);
+    }
+
+    @Override
+    public List<GithubRepo> getUserRepos(String username) throws GithubApiException {
+        throw new GithubApiException("User repositories are not part of the snapshot", 0, null);
+    }
+
+    @Override
+    public List<GithubMember> getOrganizationMembers(String orgName) throws GithubApiException {
+        requireOrg(orgName);
+        return replay(snapshot.getMembers()).orThrow("members of " + orgName);
+    }
+
+    @Override
+    public List<GithubMember> getMembersWithoutMfa(String orgName) throws GithubApiException {
+        requireOrg(orgName);
+        return replay(snapshot.getMembersWithoutMfa()).orThrow("members without MFA of " + orgName);
+    }
+
+    @Override
+    public List<GithubRepo> getOrganizationRepos(String orgName) throws GithubApiException {
+        requireOrg(orgName);
+        return snapshot.getRepos();
+    }
+
+    @Override
+    public GithubRepo getRepository(String owner, String repo) throws GithubApiException {
+        RepoSnapshot repoSnapshot = requireRepo(owner, repo);
+        ResponseCapture.record(repoSnapshot.repositoryResponses());
+        return repoSnapshot.repository();
+    }
+
+    @Override
+    public List<RepoCollaborator> getRepoCollaborators(String owner, String repo) throws GithubApiException {
+        return replay(requireRepo(owner, repo).collaborators()).orThrow("collaborators of " + repo);
+    }
+
+    @Override
+    public Optional<BranchProtection> getBranchProtection(String owner, String repo, String branch)
+            throws GithubApiException {
+        RepoSnapshot repoSnapshot = requireRepo(owner, repo);
+        if (!branch.equals(repoSnapshot.repository().defaultBranch())) {
+            throw new GithubApiException("Only default branch protection is part of the snapshot", 0, null);
+        }
+        Fetched<BranchProtection> protection = replay(repoSnapshot.defaultBranchProtection());
+        if (protection.status() == 404) {
+            return Optional.empty();
+        }
+        return Optional.of(protection.orThrow("branch protection of " + repo + "/" + branch));
+    }
+
+    @Override
+    public List<Ruleset> getOrganizationRulesets(String orgName) throws GithubApiException {
+        requireOrg(orgName);
+        if (!snapshot.getRulesets().isCollected()) {
+            // Snapshots collected without rulesets are evaluated on legacy protection only
+            throw new GithubApiException("Rulesets of " + orgName + " are not part of the snapshot", 404, null);
+        }
+        return replay(snapshot.getRulesets()).orThrow("rulesets of " + orgName);
+    }
+
+    @Override
+    public List<GithubTeam> getOrganizationTeams(String orgName) throws GithubApiException {
+        requireOrg(orgName);
+        if (!snapshot.getTeams().isCollected()) {
+            // Snapshots collected without teams attribute no access to teams
+            throw new GithubApiException("Teams of " + orgName + " are not part of the snapshot", 404, null);
+        }
+        return replay(snapshot.getTeams()).orThrow("teams of " + orgName);
+    }
+
+    @Override
+    public boolean isAuditLogEnabled(String orgName) throws GithubApiException {
+        requireOrg(orgName);
+        return replay(snapshot.getAuditLogEnabled()).orThrow("audit log status of " + orgName);
+    }
+
+    @Override
+    public String streamAuditLog(String orgName, String phrase, String afterCursor, AuditLogSink sink)
+            throws GithubApiException {
+        if (auditLogClient != null) {
+            return auditLogClient.streamAuditLog(orgName, phrase, afterCursor, sink);
+        }
+        throw new GithubApiException("Audit log events are not part of the snapshot", 0, null);
+    }
+
+    /**
+     * Records the responses behind {@code fetched} with the current {@link ResponseCapture}, as the live
+     * client does when it parses them.
+     */
+    private static <T> Fetched<T> replay(Fetched<T> fetched) {
+        ResponseCapture.record(fetched.responses());
+        return fetched;
+    }
+
+    private boolean matchesOrg(String orgName) {
+        return snapshot.getOrgName().equalsIgnoreCase(orgName);
+    }
+
+    private void requireOrg(String orgName) throws GithubApiException {
+        if (!matchesOrg(orgName)) {
+            throw new GithubApiException("Snapshot holds " + snapshot.getOrgName() + ", not " + orgName, 404, null);
+        }
+    }
+
+    private RepoSnapshot requireRepo(String owner, String repo) throws GithubApiException {
+        requireOrg(owner);
+        RepoSnapshot repoSnapshot = snapshot.getRepo(repo);
+        if (repoSnapshot == null) {
+            throw new GithubApiException("Repository " + repo + " is not part of the snapshot", 404, null);
+        }
+        return repoSnapshot;
+    }
+}
@@ -0,0 +1,239 @@
+package com.auditevidence.snapshot;
+
+import com.auditevidence.access.AccessPermissions;
+import com.auditevidence.model.BranchProtection;
+import com.auditevidence.model.GithubMember;
+import com.auditevidence.model.GithubOrg;
+import com.auditevidence.model.GithubRepo;
+import com.auditevidence.model.GithubTeam;
+import com.auditevidence.model.RepoCollaborator;
+import com.auditevidence.model.Ruleset;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes an {@link OrgSnapshot} in the compact binary layout read by {@link MappedSnapshot}:
+ * header, interned string table, repo index, then the org record followed by one record per repo.
+ */
+public class SnapshotWriter {
+    static final byte[] MAGIC = "AESNAP".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public void write(OrgSnapshot snapshot, Path file) throws IOException {
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        DataOutputStream records = new DataOutputStream(recordBytes);
+
+        writeOrgRecord(records, strings, snapshot);
+
+        List<GithubRepo> repos = snapshot.getRepos();
+        int[] repoNameIds = new int[repos.size()];
+        int[] repoOffsets = new int[repos.size()];
+        for (int i = 0; i < repos.size(); i++) {
+            RepoSnapshot repo = snapshot.getRepo(repos.get(i).name());
+            repoNameIds[i] = strings.id(repo.repository().name());
+            repoOffsets[i] = records.size();
+            writeRepoRecord(records, strings, repo);
+        }
+        int orgNameId = strings.id(snapshot.getOrgName());
+        records.flush();
+
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(snapshot.getCollectedAt().toEpochMilli());
+            out.writeInt(orgNameId);
+
+            strings.writeTo(out);
+
+            out.writeInt(repos.size());
+            for (int i = 0; i < repos.size(); i++) {
+                out.writeInt(repoNameIds[i]);
+                out.writeInt(repoOffsets[i]);
+            }
+
+            out.writeInt(recordBytes.size());
+            recordBytes.writeTo(out);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeOrgRecord(DataOutputStream out, StringTable strings, OrgSnapshot snapshot) throws IOException {
+        Fetched<GithubOrg> org = snapshot.getOrganization();
+        out.writeInt(org.status());
+        if (org.isOk()) {
+            GithubOrg value = org.value();
+            out.writeLong(value.id());
+            out.writeInt(strings.id(value.login()));
+            out.writeInt(strings.id(value.name()));
+            out.writeInt(strings.id(value.description()));
+            out.writeByte(value.twoFactorRequirementEnabled() == null ? -1
+                    : value.twoFactorRequirementEnabled() ? 1 : 0);
+        }
+
+        writeMembers(out, strings, snapshot.getMembers());
+        writeMembers(out, strings, snapshot.getMembersWithoutMfa());
+
+        Fetched<Boolean> auditLog = snapshot.getAuditLogEnabled();
+        out.writeInt(auditLog.status());
+        if (auditLog.isOk()) {
+            out.writeBoolean(auditLog.value());
+        }
+
+        // Rulesets are few and deeply nested, so they are stored as one interned JSON document
+        Fetched<List<Ruleset>> rulesets = snapshot.getRulesets();
+        out.writeInt(rulesets.status());
+        if (rulesets.isOk()) {
+            out.writeInt(strings.id(objectMapper.writeValueAsString(rulesets.value())));
+        }
+
+        Fetched<List<GithubTeam>> teams = snapshot.getTeams();
+        out.writeInt(teams.status());
+        if (teams.isOk()) {
+            out.writeInt(strings.id(objectMapper.writeValueAsString(teams.value())));
+        }
+    }
+
+    private void writeMembers(DataOutputStream out, StringTable strings, Fetched<List<GithubMember>> members)
+            throws IOException {
+        out.writeInt(members.status());
+        if (!members.isOk()) {
+            return;
+        }
+        out.writeInt(members.value().size());
+        for (GithubMember member : members.value()) {
+            out.writeLong(member.id());
+            out.writeInt(strings.id(member.login()));
+            out.writeInt(strings.id(member.avatarUrl()));
+            out.writeInt(strings.id(member.type()));
+            out.writeBoolean(member.siteAdmin());
+        }
+    }
+
+    private void writeRepoRecord(DataOutputStream out, StringTable strings, RepoSnapshot snapshot) throws IOException {
+        GithubRepo repo = snapshot.repository();
+        out.writeLong(repo.id());
+        out.writeInt(strings.id(repo.name()));
+        out.writeInt(strings.id(repo.fullName()));
+        out.writeBoolean(repo.isPrivate());
+        out.writeInt(strings.id(repo.defaultBranch()));
+        out.writeInt(strings.id(repo.visibility()));
+        out.writeLong(repo.size());
+        out.writeInt(strings.id(repo.pushedAt()));
+
+        Fetched<List<RepoCollaborator>> collaborators = snapshot.collaborators();
+        out.writeInt(collaborators.status());
+        if (collaborators.isOk()) {
+            out.writeInt(collaborators.value().size());
+            for (RepoCollaborator collaborator : collaborators.value()) {
+                out.writeLong(collaborator.id());
+                out.writeInt(strings.id(collaborator.login()));
+                out.writeInt(strings.id(collaborator.roleName()));
+                out.writeByte(collaborator.permissions() == null ? -1
+                        : AccessPermissions.pack(collaborator.permissions()));
+            }
+        }
+
+        Fetched<BranchProtection> protection = snapshot.defaultBranchProtection();
+        out.writeInt(protection.status());
+        if (protection.isOk()) {
+            writeProtection(out, strings, protection.value());
+        }
+    }
+
+    private void writeProtection(DataOutputStream out, StringTable strings, BranchProtection bp) throws IOException {
+        out.writeInt(strings.id(bp.url()));
+
+        out.writeBoolean(bp.requiredStatusChecks() != null);
+        if (bp.requiredStatusChecks() != null) {
+            out.writeBoolean(bp.requiredStatusChecks().strict());
+            String[] contexts = bp.requiredStatusChecks().contexts();
+            out.writeInt(contexts == null ? -1 : contexts.length);
+            if (contexts != null) {
+                for (String context : contexts) {
+                    out.writeInt(strings.id(context));
+                }
+            }
+        }
+
+        out.writeBoolean(bp.enforceAdmins() != null);
+        if (bp.enforceAdmins() != null) {
+            out.writeInt(strings.id(bp.enforceAdmins().url()));
+            out.writeBoolean(bp.enforceAdmins().enabled());
+        }
+
+        BranchProtection.RequiredPullRequestReviews reviews = bp.requiredPullRequestReviews();
+        out.writeBoolean(reviews != null);
+        if (reviews != null) {
+            out.writeInt(strings.id(reviews.url()));
+            out.writeBoolean(reviews.dismissStaleReviews());
+            out.writeBoolean(reviews.requireCodeOwnerReviews());
+            out.writeInt(reviews.requiredApprovingReviewCount());
+        }
+
+        out.writeBoolean(bp.requiredSignatures() != null);
+        if (bp.requiredSignatures() != null) {
+            out.writeInt(strings.id(bp.requiredSignatures().url()));
+            out.writeBoolean(bp.requiredSignatures().enabled());
+        }
+
+        out.writeBoolean(bp.allowForcePushes() != null);
+        if (bp.allowForcePushes() != null) {
+            out.writeBoolean(bp.allowForcePushes().enabled());
+        }
+
+        out.writeBoolean(bp.allowDeletions() != null);
+        if (bp.allowDeletions() != null) {
+            out.writeBoolean(bp.allowDeletions().enabled());
+        }
+    }
+
+    private static final class StringTable {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<byte[]> values = new ArrayList<>();
+
+        int id(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                ids.put(value, id);
+                values.add(value.getBytes(StandardCharsets.UTF_8));
+            }
+            return id;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(values.size());
+            int offset = 0;
+            for (byte[] value : values) {
+                out.writeInt(offset);
+                offset += value.length;
+            }
+            out.writeInt(offset);
+            for (byte[] value : values) {
+                out.write(value);
+            }
+        }
+    }
+}
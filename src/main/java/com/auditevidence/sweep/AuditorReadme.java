@@ -0,0 +1,142 @@
+package com.auditevidence.sweep;
+
+import com.auditevidence.model.AuditReport;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes README_FOR_AUDITOR.txt piece by piece, so callers can stream the contents list instead of building
+ * the whole file in memory.
+ */
+public final class AuditorReadme {
+    public static final String NOT_COLLECTED = "NOT COLLECTED";
+    public static final String DEADLINE = "NOT COLLECTED BEFORE DEADLINE (PARTIAL, NO EVIDENCE FILE)";
+    public static final String POLICY_PREFIX = "POLICY: ";
+    public static final String CLAUSE_MAPPING = "CLAUSE MAPPING";
+    public static final String SAMPLE = "SAMPLE (REPOSITORY CHECKS RAN ON A RANDOM SAMPLE)";
+    public static final String UNCHANGED_EVIDENCE = "UNCHANGED EVIDENCE";
+    public static final String UNCHANGED_EVIDENCE_NOTE = "Evidence files whose content is unchanged since an earlier run"
+            + " are reused from that run, so their Timestamp is when the content was first collected. The"
+            + " collection time of every result in this run is in audit-report.json.";
+
+    private AuditorReadme() {
+    }
+
+    public static void writeHeader(Appendable out, String orgName, String standard) throws IOException {
+        String title = standard.toUpperCase(Locale.ROOT) + " AUDIT EVIDENCE PACKAGE";
+        out.append(title).append("\n");
+        out.append("=".repeat(title.length())).append("\n\n");
+        out.append("Generated: ").append(Instant.now().toString()).append("\n");
+        out.append("Organization: ").append(orgName).append("\n");
+        out.append("Standard: ").append(standard).append("\n");
+        out.append("Provider: GitHub\n\n");
+
+        out.append("CONTENTS\n");
+        out.append("--------\n");
+    }
+
+    public static void writeEntry(Appendable out, String clauseId, String checkName, String repo, String status)
+            throws IOException {
+        out.append("- ").append(clauseId).append(": ").append(checkName);
+        if (repo != null) {
+            out.append(" (").append(repo).append(")");
+        }
+        out.append(" [").append(status).append("]\n");
+    }
+
+    public static void writeSection(Appendable out, String title, List<String> lines) throws IOException {
+        out.append("\n").append(title).append("\n");
+        out.append("-".repeat(title.length())).append("\n");
+        for (String line : lines) {
+            out.append("- ").append(line).append("\n");
+        }
+    }
+
+    /**
+     * @return the lines of the {@link #SAMPLE} section: how the sample was drawn, then each check's estimated
+     *         pass rate
+     */
+    public static List<String> sampleLines(AuditReport.Sample sample) {
+        List<String> lines = new ArrayList<>();
+        lines.add(sample.size() + " of " + sample.population() + " repositories, stratified by visibility and"
+                + " activity (seed " + sample.seed() + ")");
+        for (AuditReport.Stratum stratum : sample.strata()) {
+            lines.add(stratum.visibility() + ", " + stratum.activity() + ": " + stratum.sampled() + " of "
+                    + stratum.population());
+        }
+        for (AuditReport.PassRate rate : sample.passRates()) {
+            String estimate = rate.passRate() == null ? "no result evaluated"
+                    : String.format(Locale.ROOT, "%.1f%% pass (%.0f%% CI %.1f%%-%.1f%%)", 100 * rate.passRate(),
+                            100 * rate.confidence(), 100 * rate.lower(), 100 * rate.upper());
+            lines.add(rate.clauseId() + ": " + rate.checkName() + ": " + estimate + ", " + rate.passed() + " of "
+                    + rate.evaluated() + " sampled passed" + (rate.partial() > 0 ? ", " + rate.partial()
+                    + " partial" : ""));
+        }
+        return lines;
+    }
+
+    public static void writeNotes(Appendable out) throws IOException {
+        out.append("\nNOTES FOR AUDITOR\n");
+        out.append("-----------------\n");
+        out.append("1. Each PDF/JSON file contains:\n");
+        out.append("   - The compliance clause(s) being addressed\n");
+        out.append("   - Timestamp of data collection\n");
+        out.append("   - Raw API response data\n");
+        out.append("   - Pass/Fail determination with findings\n\n");
+
+        out.append("2. Data Source:\n");
+        out.append("   All evidence was collected directly from the GitHub REST API.\n");
+        out.append("   API endpoints used are documented in each evidence file.\n\n");
+
+        out.append("3. Verification:\n");
+        out.append("   The raw JSON data can be independently verified by calling\n");
+        out.append("   the documented GitHub API endpoints with appropriate authentication.\n\n");
+
+        out.append("4. Integrity:\n");
+        out.append("   evidence-manifest.sha256 lists the SHA-256 of every file in this package\n");
+        out.append("   (check with: sha256sum -c evidence-manifest.sha256). When present,\n");
+        out.append("   evidence-manifest.sha256.hmac is its HMAC-SHA256 signature.\n\n");
+
+        out.append("Generated by: GitHub SOC2 Audit Evidence Exporter\n");
+        out.append("https://github.com/jekka001/audit-evidence\n");
+    }
+
+    /**
+     * @return the "- " lines of every titled section after CONTENTS (e.g. NOT COLLECTED, POLICY), by title
+     */
+    public static Map<String, List<String>> readSections(Path readme) throws IOException {
+        Map<String, List<String>> sections = new LinkedHashMap<>();
+        if (!Files.exists(readme)) {
+            return sections;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(readme)) {
+            String previous = null;
+            List<String> current = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (previous != null && !previous.isEmpty() && !line.isEmpty() && line.matches("-+")
+                        && line.length() == previous.length()) {
+                    current = previous.equals("CONTENTS") || previous.startsWith("NOTES") ? null : new ArrayList<>();
+                    if (current != null) {
+                        sections.put(previous, current);
+                    }
+                } else if (current != null && line.startsWith("- ")) {
+                    current.add(line.substring(2));
+                } else if (current != null && line.isEmpty()) {
+                    current = null;
+                }
+                previous = line;
+            }
+        }
+        return sections;
+    }
+}
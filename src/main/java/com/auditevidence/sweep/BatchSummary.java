@@ -0,0 +1,57 @@
+package com.auditevidence.sweep;
+
+import com.auditevidence.model.CheckResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+public final class BatchSummary {
+    public static final String FILE = "BATCH_SUMMARY.txt";
+
+    public record Line(String orgName, long pass, long fail, long partial, int notCollected, Path outputDir) {
+        public static Line of(OrgRun run) {
+            return new Line(run.getOrgName(), run.count(CheckResult.Status.PASS), run.count(CheckResult.Status.FAIL),
+                    run.count(CheckResult.Status.PARTIAL), run.getErrors().size(), run.getOutputDir());
+        }
+    }
+
+    private BatchSummary() {
+    }
+
+    public static void write(Path outputPath, List<Line> lines) throws IOException {
+        Files.createDirectories(outputPath);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("SOC2 AUDIT EVIDENCE - BATCH SUMMARY\n");
+        sb.append("===================================\n\n");
+        sb.append("Generated: ").append(Instant.now()).append("\n");
+        sb.append("Organizations: ").append(lines.size()).append("\n\n");
+
+        long pass = 0;
+        long fail = 0;
+        long partial = 0;
+        for (Line line : lines) {
+            pass += line.pass();
+            fail += line.fail();
+            partial += line.partial();
+
+            sb.append(line.orgName()).append(": ")
+                    .append(line.pass()).append(" passed, ")
+                    .append(line.fail()).append(" failed, ")
+                    .append(line.partial()).append(" partial");
+            if (line.notCollected() > 0) {
+                sb.append(", ").append(line.notCollected()).append(" not collected");
+            }
+            sb.append(" -> ").append(outputPath.relativize(line.outputDir())).append("/\n");
+        }
+
+        sb.append("\nTotal: ").append(pass).append(" passed, ")
+                .append(fail).append(" failed, ")
+                .append(partial).append(" partial\n");
+
+        Files.writeString(outputPath.resolve(FILE), sb.toString());
+    }
+}
@@ -0,0 +1,116 @@
+package com.auditevidence.sweep;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The render and archive stages of a sweep. Fetching and evaluation share the {@link FairShareExecutor}
+ * workers: each repository's checks are scheduled as soon as its data is fetched, and only a bounded window
+ * of repositories is fetched ahead of evaluation (see
+ * {@link com.auditevidence.prefetch.PrefetchPlanner#stream}), so the fetched data stays within that window
+ * however many repositories an organization has. Evaluated results are handed to a pool of render threads
+ * and rendered files to a single archive thread. Both hand-offs are bounded queues, so a stage that falls
+ * behind blocks the stage before it instead of letting results pile up in memory.
+ */
+public class EvidencePipeline {
+    private final Stage render;
+    private final Stage archive;
+
+    public EvidencePipeline(int renderThreads, int queueCapacity) {
+        this.render = new Stage("render", Math.max(1, renderThreads), queueCapacity);
+        this.archive = new Stage("archive", 1, queueCapacity);
+    }
+
+    /**
+     * Queues {@code task} for a render thread, blocking while the render queue is full.
+     */
+    public void render(Runnable task) {
+        render.put(task);
+    }
+
+    /**
+     * Queues {@code task} for the archive thread, blocking while the archive queue is full.
+     */
+    public void archive(Runnable task) {
+        archive.put(task);
+    }
+
+    /**
+     * Waits until every queued render task, and every archive task they queued, has run.
+     */
+    public void awaitCompletion() throws InterruptedException {
+        render.awaitCompletion();
+        archive.awaitCompletion();
+    }
+
+    public void shutdown() {
+        render.shutdown();
+        archive.shutdown();
+    }
+
+    private static final class Stage {
+        private final BlockingQueue<Runnable> queue;
+        private final List<Thread> workers = new ArrayList<>();
+        private int pending;
+
+        Stage(String name, int threads, int capacity) {
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+            for (int i = 0; i < threads; i++) {
+                Thread worker = new Thread(this::workLoop, name + "-worker-" + i);
+                worker.setDaemon(true);
+                workers.add(worker);
+                worker.start();
+            }
+        }
+
+        void put(Runnable task) {
+            synchronized (this) {
+                pending++;
+            }
+            try {
+                queue.put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                done();
+                throw new IllegalStateException("Interrupted while queueing " + task, e);
+            }
+        }
+
+        synchronized void awaitCompletion() throws InterruptedException {
+            while (pending > 0) {
+                wait();
+            }
+        }
+
+        void shutdown() {
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+        }
+
+        private void workLoop() {
+            while (true) {
+                Runnable task;
+                try {
+                    task = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Warning: task failed: " + e.getMessage());
+                } finally {
+                    done();
+                }
+            }
+        }
+
+        private synchronized void done() {
+            pending--;
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.auditevidence.sweep;
+
+import com.auditevidence.github.CallBudget;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Runs tasks on a fixed set of workers, handing them out round-robin across
+ * keys (one key per organization) so a large org cannot starve the others.
+ * Within a key, the task with the highest estimated cost runs first (longest job first), so the most
+ * expensive repositories start early instead of leaving one worker busy after the others have finished.
+ * Workers take tasks from the shared queues whenever they become idle, so no worker holds work another
+ * could be doing.
+ * <p>
+ * With a deadline, each task gets a {@link CallBudget} when it starts: the time left until the deadline split
+ * evenly over the tasks still pending, or all of it once no more tasks are pending than there are workers.
+ * Tasks submitted or started after the deadline are dropped.
+ */
+public class FairShareExecutor {
+    /** Cost of tasks without an estimate; they run before estimated tasks, in submission order. */
+    public static final long UNESTIMATED = Long.MAX_VALUE;
+
+    private static final Comparator<Task> LONGEST_FIRST = Comparator.comparingLong(Task::cost).reversed()
+            .thenComparingLong(Task::sequence);
+
+    private final Map<String, PriorityQueue<Task>> queues = new HashMap<>();
+    private final Deque<String> readyKeys = new ArrayDeque<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private long sequence;
+    private int pending;
+    private boolean shutdown;
+    private Instant deadline;
+    private boolean skippedAtDeadline;
+
+    private record Task(long cost, long sequence, Runnable runnable) {}
+
+    public FairShareExecutor(int threads) {
+        for (int i = 0; i < Math.max(1, threads); i++) {
+            Thread worker = new Thread(this::workLoop, "sweep-worker-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    public void submit(String key, Runnable task) {
+        submit(key, UNESTIMATED, task);
+    }
+
+    /**
+     * @param cost estimated cost of {@code task}, in any unit shared by the tasks of {@code key}
+     */
+    public synchronized void submit(String key, long cost, Runnable task) {
+        if (shutdown) {
+            throw new IllegalStateException("Executor has been shut down");
+        }
+        if (isPastDeadline()) {
+            skippedAtDeadline = true;
+            return;
+        }
+        PriorityQueue<Task> queue = queues.computeIfAbsent(key, k -> new PriorityQueue<>(LONGEST_FIRST));
+        if (queue.isEmpty()) {
+            readyKeys.addLast(key);
+        }
+        queue.add(new Task(cost, sequence++, task));
+        pending++;
+        notifyAll();
+    }
+
+    public synchronized void setDeadline(Instant deadline) {
+        this.deadline = deadline;
+    }
+
+    public synchronized void awaitCompletion() throws InterruptedException {
+        while (pending > 0) {
+            wait();
+        }
+    }
+
+    /**
+     * @return false if tasks were still pending at {@code until}, or if a task was dropped or skipped because
+     *         the deadline had passed, so not every submitted task ran
+     */
+    public synchronized boolean awaitCompletion(Instant until) throws InterruptedException {
+        while (pending > 0) {
+            long waitMillis = until.toEpochMilli() - System.currentTimeMillis();
+            if (waitMillis <= 0) {
+                return false;
+            }
+            wait(waitMillis);
+        }
+        return !skippedAtDeadline;
+    }
+
+    /**
+     * Drops every task that has not started yet.
+     *
+     * @return the number of tasks dropped
+     */
+    public synchronized int cancelQueued() {
+        int dropped = 0;
+        for (PriorityQueue<Task> queue : queues.values()) {
+            dropped += queue.size();
+            queue.clear();
+        }
+        readyKeys.clear();
+        pending -= dropped;
+        notifyAll();
+        return dropped;
+    }
+
+    public void shutdown() {
+        synchronized (this) {
+            shutdown = true;
+            notifyAll();
+        }
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    private void workLoop() {
+        while (true) {
+            Runnable task;
+            Instant budget;
+            synchronized (this) {
+                while (readyKeys.isEmpty() && !shutdown) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        if (shutdown) {
+                            return;
+                        }
+                    }
+                }
+                if (shutdown) {
+                    return;
+                }
+                String key = readyKeys.pollFirst();
+                PriorityQueue<Task> queue = queues.get(key);
+                task = queue.poll().runnable();
+                if (!queue.isEmpty()) {
+                    readyKeys.addLast(key);
+                }
+                budget = budget();
+            }
+
+            CallBudget callBudget = budget == null ? null : CallBudget.start(budget);
+            try {
+                if (budget == null || budget.isAfter(Instant.now())) {
+                    task.run();
+                } else {
+                    synchronized (this) {
+                        skippedAtDeadline = true;
+                    }
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Warning: task failed: " + e.getMessage());
+            } finally {
+                if (callBudget != null) {
+                    callBudget.close();
+                }
+                synchronized (this) {
+                    pending--;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    private boolean isPastDeadline() {
+        return deadline != null && !deadline.isAfter(Instant.now());
+    }
+
+    /**
+     * @return when the task being started must finish, or null without a deadline
+     */
+    private Instant budget() {
+        if (deadline == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        long remaining = deadline.toEpochMilli() - now;
+        if (remaining <= 0 || pending <= workers.size()) {
+            return deadline;
+        }
+        return Instant.ofEpochMilli(now + remaining * workers.size() / pending);
+    }
+}
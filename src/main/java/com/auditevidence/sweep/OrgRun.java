@@ -0,0 +1,746 @@
+package com.auditevidence.sweep;
+
+import com.auditevidence.access.AccessIndex;
+import com.auditevidence.auditlog.AuditLogCollector;
+import com.auditevidence.checks.CheckRegistry;
+import com.auditevidence.checks.Soc2Check;
+import com.auditevidence.checks.Standard;
+import com.auditevidence.exporter.DigestingOutputStream;
+import com.auditevidence.exporter.EvidenceManifest;
+import com.auditevidence.exporter.FileDigest;
+import com.auditevidence.exporter.RenderCache;
+import com.auditevidence.exporter.arrow.AnalyticsExport;
+import com.auditevidence.exporter.html.HtmlReportWriter;
+import com.auditevidence.exporter.json.JsonExporter;
+import com.auditevidence.exporter.pdf.PdfExporter;
+import com.auditevidence.exporter.zip.ZipArchiveWriter;
+import com.auditevidence.exporter.zip.ZipExporter;
+import com.auditevidence.github.GithubApiException;
+import com.auditevidence.github.GithubClient;
+import com.auditevidence.github.RawResponse;
+import com.auditevidence.github.ResponseCapture;
+import com.auditevidence.license.LicenseValidator;
+import com.auditevidence.model.AuditReport;
+import com.auditevidence.model.CheckResult;
+import com.auditevidence.model.RepoCollaborator;
+import com.auditevidence.policy.CompiledPolicy;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class OrgRun {
+    public static final String README_FILE = "README_FOR_AUDITOR.txt";
+    public static final String REPORT_FILE = "audit-report.json";
+
+    private static final ObjectMapper COLLABORATORS = new ObjectMapper();
+
+    private final String orgName;
+    private final Path outputDir;
+    private final String format;
+    private final LicenseValidator.LicenseInfo licenseInfo;
+    private final boolean repoSubdirectories;
+    private final String logPrefix;
+    private final AccessIndex accessIndex = new AccessIndex();
+    private final RepoCosts repoCosts;
+    private final EvidenceManifest manifest;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final Map<String, String> errors = new LinkedHashMap<>();
+    private final Map<String, Expected> expected = new LinkedHashMap<>();
+    private final Set<String> unfinished = new LinkedHashSet<>();
+    private ProgressJournal journal;
+    private CompiledPolicy policy;
+    private CheckRegistry registry;
+    private List<Standard> standards = List.of(Standard.SOC2);
+    private RenderCache renderCache;
+    private String manifestKey;
+    private boolean htmlReport;
+    private AnalyticsExport analytics;
+    private RepoSample.Draw sample;
+    private volatile EvidencePipeline pipeline;
+    private volatile ZipArchiveWriter archive;
+
+    public record Entry(String repo, CheckResult result, Path file) {}
+
+    private record Expected(Soc2Check check, String repo) {}
+
+    public OrgRun(String orgName, Path outputDir, String format, LicenseValidator.LicenseInfo licenseInfo,
+                  boolean repoSubdirectories, String logPrefix) {
+        this.orgName = orgName;
+        this.outputDir = outputDir;
+        this.format = format;
+        this.licenseInfo = licenseInfo;
+        this.repoSubdirectories = repoSubdirectories;
+        this.logPrefix = logPrefix;
+        this.repoCosts = RepoCosts.load(outputDir);
+        this.manifest = new EvidenceManifest(outputDir);
+    }
+
+    public String getOrgName() {
+        return orgName;
+    }
+
+    public Path getOutputDir() {
+        return outputDir;
+    }
+
+    public String getLogPrefix() {
+        return logPrefix;
+    }
+
+    public AccessIndex getAccessIndex() {
+        return accessIndex;
+    }
+
+    public RepoCosts getRepoCosts() {
+        return repoCosts;
+    }
+
+    /**
+     * Restores the results recorded in {@code journal} and journals every result exported from now on.
+     */
+    public void useJournal(ProgressJournal journal) {
+        this.journal = journal;
+        for (String discarded : journal.getDiscarded()) {
+            System.out.println(logPrefix + "↻ Redoing " + discarded);
+        }
+        List<ProgressJournal.Record> completed = journal.getCompleted();
+        for (ProgressJournal.Record entry : completed) {
+            record(entry.repo(), entry.result(), journal.resolve(entry));
+            manifest.record(journal.resolve(entry), new FileDigest(entry.size(), entry.sha256()));
+            restoreAccess(entry);
+        }
+        if (!completed.isEmpty()) {
+            System.out.println(logPrefix + "↻ Resuming: " + completed.size() + " results already collected");
+        }
+    }
+
+    public void usePolicy(CompiledPolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Files every result under {@code standards} using the clauses in {@code registry}.
+     */
+    public void useStandards(CheckRegistry registry, List<Standard> standards) {
+        this.registry = registry;
+        this.standards = List.copyOf(standards);
+    }
+
+    /**
+     * Renders results on {@code pipeline} until {@link #finish} and, when {@code createZip} is allowed by the
+     * license, adds each rendered file to the ZIP as soon as it is written.
+     */
+    public void usePipeline(EvidencePipeline pipeline, boolean createZip) {
+        this.pipeline = pipeline;
+        if (createZip && licenseInfo.canExportZip()) {
+            try {
+                archive = new ZipArchiveWriter(outputDir, outputDir.resolve(zipFileName(orgName)));
+            } catch (IOException e) {
+                System.err.println("Warning: Could not start ZIP archive, it will be written at the end: "
+                        + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reuses evidence files from {@code renderCache} for results that only changed their timestamp.
+     */
+    public void useRenderCache(RenderCache renderCache) {
+        this.renderCache = renderCache;
+    }
+
+    /**
+     * Signs the evidence manifest with {@code key}; without one the manifest is written unsigned.
+     */
+    public void useManifestKey(String key) {
+        this.manifestKey = key;
+    }
+
+    /**
+     * Also writes {@link HtmlReportWriter#FILE}, a browsable report of every result, when the run finishes.
+     */
+    public void useHtmlReport(boolean htmlReport) {
+        this.htmlReport = htmlReport;
+    }
+
+    /**
+     * Writes the repository and access tables of {@link AnalyticsExport} as results come in, starting with
+     * the results already recorded (e.g. restored from the journal).
+     */
+    public void useAnalyticsExport(boolean analyticsExport) {
+        if (!analyticsExport) {
+            return;
+        }
+        try {
+            analytics = new AnalyticsExport(outputDir, orgName);
+            for (Entry entry : getEntries()) {
+                analytics.add(entry.result());
+            }
+        } catch (IOException e) {
+            System.err.println("Warning: Could not start " + AnalyticsExport.DIRECTORY + " export: " + e.getMessage());
+            analytics = null;
+        }
+    }
+
+    /**
+     * Reports the pass rates of repository checks estimated from {@code sample}, the repositories they ran on.
+     */
+    public void useSample(RepoSample.Draw sample) {
+        this.sample = sample;
+    }
+
+    public boolean isCompleted(Soc2Check check, String repoName) {
+        return journal != null && journal.isCompleted(label(check.getCheckName(), repoName));
+    }
+
+    /**
+     * Notes that {@code check} was scheduled for {@code repoName}, so {@link #recordUnfinished} can account
+     * for it. A repository check expected with a null {@code repoName} stands for repositories that are not
+     * listed yet, and is replaced by the checks of the listed repositories.
+     */
+    public synchronized void expect(Soc2Check check, String repoName) {
+        if (repoName != null) {
+            expected.remove(label(check.getCheckName(), null));
+        }
+        expected.put(label(check.getCheckName(), repoName), new Expected(check, repoName));
+    }
+
+    /**
+     * Records a PARTIAL result, without an evidence file, for every expected check that has neither a result
+     * nor an error, e.g. because the run deadline passed before it ran. Like other unavailable results they
+     * are not journaled, so {@code --resume} collects them.
+     *
+     * @return the number of results recorded
+     */
+    public synchronized int recordUnfinished(String reason) {
+        int recorded = 0;
+        for (Map.Entry<String, Expected> item : expected.entrySet()) {
+            String label = item.getKey();
+            if (entries.containsKey(label) || errors.containsKey(label)) {
+                continue;
+            }
+            Soc2Check check = item.getValue().check();
+            String repoName = item.getValue().repo();
+            String dataSource = repoName != null ? "GitHub REST API /repos/" + orgName + "/" + repoName
+                    : check.requiresRepo() ? "GitHub REST API /orgs/" + orgName + "/repos"
+                    : "GitHub REST API /orgs/" + orgName;
+            Map<String, Object> rawData = new LinkedHashMap<>();
+            rawData.put("reason", reason);
+            String finding = repoName == null && check.requiresRepo()
+                    ? "Repositories were not listed: " + reason
+                    : reason;
+            record(repoName, mapToStandards(CheckResult.partial("SOC2", check.getClauseId(), check.getCheckName(),
+                    "Evidence could not be collected before the run deadline", dataSource, rawData,
+                    List.of(finding))), null);
+            unfinished.add(label);
+            recorded++;
+        }
+        return recorded;
+    }
+
+    public void runCheck(Soc2Check check, GithubClient client, String repoName) {
+        runCheck(check, client, repoName, () -> {});
+    }
+
+    /**
+     * @param rendered run once the check's evidence is written, or once the check or its export has failed;
+     *                 the data the check read can be released from then on
+     */
+    public void runCheck(Soc2Check check, GithubClient client, String repoName, Runnable rendered) {
+        String label = label(check.getCheckName(), repoName);
+
+        CheckResult result;
+        List<RawResponse> responses;
+        try (ResponseCapture capture = ResponseCapture.start()) {
+            long start = System.nanoTime();
+            try {
+                result = mapToStandards(check.run(client, orgName, repoName));
+            } finally {
+                repoCosts.add(repoName, System.nanoTime() - start);
+            }
+            responses = capture.getResponses();
+            if (policy != null) {
+                result = policy.apply(result);
+            }
+            // Held until the evidence file is rendered
+            RawResponse.retainAll(responses);
+        } catch (GithubApiException e) {
+            if (e.getStatusCode() >= 500) {
+                recordUnavailable(check, repoName, label, e, rendered);
+            } else {
+                error(label, "✗ API Error: " + e.getMessage());
+                rendered.run();
+            }
+            return;
+        } catch (Exception e) {
+            error(label, "✗ Unexpected error: " + e.getMessage());
+            rendered.run();
+            return;
+        }
+
+        String statusIcon = switch (result.status()) {
+            case PASS -> "✓";
+            case FAIL -> "✗";
+            case PARTIAL -> "◐";
+        };
+        System.out.println(logPrefix + "▶ " + label + "... " + statusIcon + " " + result.status());
+        render(label, repoName, result, responses, true, rendered);
+    }
+
+    /**
+     * Records a PARTIAL result for a check whose GitHub endpoint failed with a server error, was skipped
+     * by its circuit breaker or ran out of its share of the run deadline. These results are not journaled,
+     * so {@code --resume} collects them again.
+     */
+    private void recordUnavailable(Soc2Check check, String repoName, String label, GithubApiException e,
+                                   Runnable rendered) {
+        boolean deadline = e.getStatusCode() == GithubApiException.DEADLINE_EXCEEDED;
+        String dataSource = repoName == null ? "GitHub REST API /orgs/" + orgName
+                : "GitHub REST API /repos/" + orgName + "/" + repoName;
+        Map<String, Object> rawData = new LinkedHashMap<>();
+        rawData.put("statusCode", e.getStatusCode());
+        rawData.put("error", e.getMessage());
+        CheckResult result = mapToStandards(CheckResult.partial("SOC2", check.getClauseId(), check.getCheckName(),
+                deadline ? "Evidence could not be collected before the run deadline"
+                        : "Evidence could not be collected because the GitHub API was unavailable",
+                dataSource, rawData,
+                List.of((deadline ? "Not collected before --deadline: " : "GitHub API unavailable: ") + e.getMessage())));
+        System.out.println(logPrefix + "▶ " + label + "... ◐ PARTIAL ("
+                + (deadline ? "run deadline" : "GitHub API unavailable") + ")");
+        render(label, repoName, result, List.of(), false, rendered);
+    }
+
+    private CheckResult mapToStandards(CheckResult result) {
+        return registry == null ? result : registry.map(result, standards);
+    }
+
+    /**
+     * Exports, records and archives {@code result} on the pipeline's render stage, or inline when the run
+     * has no pipeline (e.g. webhook updates after the initial sweep).
+     */
+    private void render(String label, String repoName, CheckResult result, List<RawResponse> responses,
+                        boolean journaled, Runnable rendered) {
+        CheckResult filed = result.withRepository(repoName);
+        EvidencePipeline stages = pipeline;
+        if (stages != null) {
+            stages.render(() -> export(label, repoName, filed, responses, journaled, rendered));
+        } else {
+            export(label, repoName, filed, responses, journaled, rendered);
+        }
+    }
+
+    private void export(String label, String repoName, CheckResult result, List<RawResponse> responses,
+                        boolean journaled, Runnable rendered) {
+        Path filePath;
+        try {
+            filePath = exportResult(result, responses, repoName);
+        } catch (IOException e) {
+            error(label, "✗ Export error: " + e.getMessage());
+            return;
+        } catch (RuntimeException e) {
+            error(label, "✗ Unexpected error: " + e.getMessage());
+            return;
+        } finally {
+            RawResponse.releaseAll(responses);
+            rendered.run();
+        }
+
+        record(repoName, result, filePath);
+        exportAnalytics(result);
+        if (journaled && journal != null) {
+            try {
+                journal.append(label, repoName, result, filePath, manifest.get(filePath));
+            } catch (IOException e) {
+                System.err.println("Warning: Could not update " + ProgressJournal.JOURNAL_FILE + ": " + e.getMessage());
+            }
+        }
+
+        EvidencePipeline stages = pipeline;
+        ZipArchiveWriter zip = archive;
+        if (stages != null && zip != null) {
+            stages.archive(() -> {
+                try {
+                    zip.add(filePath);
+                } catch (IOException e) {
+                    System.err.println("Warning: Could not add " + filePath + " to ZIP: " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    private void exportAnalytics(CheckResult result) {
+        AnalyticsExport export = analytics;
+        if (export == null) {
+            return;
+        }
+        try {
+            export.add(result);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Warning: Could not add to " + AnalyticsExport.DIRECTORY + " export, it is incomplete: "
+                    + e.getMessage());
+            analytics = null;
+        }
+    }
+
+    public synchronized void record(String repoName, CheckResult result, Path file) {
+        String label = label(result.checkName(), repoName);
+        entries.put(label, new Entry(repoName, result.withRepository(repoName), file));
+        errors.remove(label);
+        if (file != null) {
+            unfinished.remove(label);
+        }
+    }
+
+    /**
+     * @return whether any evidence of {@code repoName} was removed, so the run's reports need to be written again
+     */
+    public synchronized boolean removeRepo(String repoName) throws IOException {
+        boolean removed = false;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (repoName.equals(entry.repo())) {
+                if (entry.file() != null) {
+                    Files.deleteIfExists(entry.file());
+                }
+                it.remove();
+                removed = true;
+            }
+        }
+        errors.keySet().removeIf(label -> label.endsWith(" [" + repoName + "]"));
+        expected.keySet().removeIf(label -> label.endsWith(" [" + repoName + "]"));
+        unfinished.removeIf(label -> label.endsWith(" [" + repoName + "]"));
+        accessIndex.removeRepository(repoName);
+        return removed;
+    }
+
+    public synchronized Set<String> getRepos() {
+        Set<String> repos = new TreeSet<>();
+        for (Entry entry : entries.values()) {
+            if (entry.repo() != null) {
+                repos.add(entry.repo());
+            }
+        }
+        return repos;
+    }
+
+    public synchronized List<Entry> getEntries() {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        sorted.sort(Comparator.comparing((Entry e) -> e.repo() == null ? "" : e.repo())
+                .thenComparing(e -> e.result().clauseId())
+                .thenComparing(e -> e.result().checkName()));
+        return sorted;
+    }
+
+    public List<CheckResult> getResults() {
+        return getEntries().stream().map(Entry::result).toList();
+    }
+
+    public synchronized List<String> getErrors() {
+        List<String> messages = new ArrayList<>();
+        errors.forEach((label, message) -> messages.add(label + ": " + message));
+        return messages;
+    }
+
+    /**
+     * @return the labels of the results {@link #recordUnfinished} recorded
+     */
+    public synchronized List<String> getUnfinished() {
+        return new ArrayList<>(unfinished);
+    }
+
+    public long count(CheckResult.Status status) {
+        return getResults().stream().filter(r -> r.status() == status).count();
+    }
+
+    public List<Path> finish(boolean createZip) {
+        List<Path> generatedFiles = new ArrayList<>();
+        for (Entry entry : getEntries()) {
+            if (entry.file() != null) {
+                generatedFiles.add(entry.file());
+            }
+        }
+
+        try {
+            generatedFiles.addAll(auditLogSegments());
+        } catch (IOException e) {
+            System.err.println("Warning: Could not list audit log segments: " + e.getMessage());
+        }
+
+        if (accessIndex.repoCount() > 0) {
+            try {
+                Path accessReview = outputDir.resolve(AccessIndex.ACCESS_REVIEW_FILE);
+                manifest.record(accessReview, accessIndex.writeAccessReview(accessReview));
+                generatedFiles.add(accessReview);
+            } catch (IOException e) {
+                System.err.println("Warning: Could not create " + AccessIndex.ACCESS_REVIEW_FILE + ": " + e.getMessage());
+            }
+        }
+
+        try {
+            writeReadme();
+            generatedFiles.add(outputDir.resolve(README_FILE));
+        } catch (IOException e) {
+            System.err.println("Warning: Could not create " + README_FILE + ": " + e.getMessage());
+        }
+
+        try {
+            writeReport();
+            generatedFiles.add(outputDir.resolve(REPORT_FILE));
+        } catch (IOException e) {
+            System.err.println("Warning: Could not create " + REPORT_FILE + ": " + e.getMessage());
+        }
+
+        AnalyticsExport export = analytics;
+        analytics = null;
+        if (export != null) {
+            try {
+                Map<Path, FileDigest> written = export.finish();
+                written.forEach(manifest::record);
+                generatedFiles.addAll(written.keySet());
+            } catch (IOException e) {
+                System.err.println("Warning: Could not finish " + AnalyticsExport.DIRECTORY + " export: " + e.getMessage());
+            }
+        }
+
+        if (htmlReport) {
+            try {
+                generatedFiles.addAll(writeHtmlReport());
+            } catch (IOException e) {
+                System.err.println("Warning: Could not create " + HtmlReportWriter.FILE + ": " + e.getMessage());
+            }
+        }
+
+        boolean zip = createZip && licenseInfo.canExportZip();
+        if (createZip && !zip) {
+            System.out.println(logPrefix + "⚠ ZIP export is only available in the paid tier.");
+        }
+        ZipArchiveWriter streamingZip = zip ? archive : null;
+        try {
+            if (streamingZip != null) {
+                // Files not digested while written (e.g. earlier audit log segments) are digested as they are zipped
+                for (Path file : generatedFiles) {
+                    manifest.recordIfAbsent(file, streamingZip.add(file));
+                }
+            }
+            generatedFiles.addAll(manifest.write(generatedFiles, manifestKey));
+        } catch (IOException e) {
+            System.err.println("Warning: Could not create " + EvidenceManifest.FILE + ": " + e.getMessage());
+        }
+
+        if (zip) {
+            try {
+                Path zipPath = outputDir.resolve(zipFileName(orgName));
+                FileDigest zipDigest;
+                if (streamingZip != null) {
+                    for (Path file : generatedFiles) {
+                        streamingZip.add(file);
+                    }
+                    streamingZip.close();
+                    zipDigest = streamingZip.getDigest();
+                } else {
+                    zipDigest = new ZipExporter().createZip(generatedFiles, outputDir, zipPath);
+                }
+                EvidenceManifest.writeChecksum(zipPath, zipDigest);
+                System.out.println(logPrefix + "📦 Created ZIP archive: " + zipPath);
+            } catch (IOException e) {
+                System.err.println("Error creating ZIP: " + e.getMessage());
+            }
+        }
+        archive = null;
+        pipeline = null;
+        return generatedFiles;
+    }
+
+    public AuditReport toReport() {
+        return new AuditReport(orgName, standardNames(), Instant.now(), getResults(),
+                new AuditReport.LicenseInfo(licenseInfo.tier() == LicenseValidator.Tier.PAID && licenseInfo.isValid(),
+                        licenseInfo.tier().name()),
+                getSampleSummary());
+    }
+
+    /**
+     * @return the sample and estimated pass rates of a {@code --sample} run, or null for other runs
+     */
+    public AuditReport.Sample getSampleSummary() {
+        RepoSample.Draw drawn = sample;
+        return drawn == null ? null : drawn.summarize(getEntries());
+    }
+
+    private synchronized void error(String label, String message) {
+        System.out.println(logPrefix + "▶ " + label + "... " + message);
+        errors.put(label, message);
+    }
+
+    /**
+     * Writes the evidence file of {@code result} and records its digest in the manifest.
+     */
+    private Path exportResult(CheckResult result, List<RawResponse> responses, String repoName) throws IOException {
+        String fileName = evidenceFileName(result.standard(), result.clauseId(), result.checkName());
+        Path dir = repoSubdirectories && repoName != null ? outputDir.resolve(sanitizeFileName(repoName)) : outputDir;
+
+        if (format.equalsIgnoreCase("json")) {
+            Path jsonPath = dir.resolve(fileName + ".json");
+            JsonExporter jsonExporter = new JsonExporter();
+            manifest.record(jsonPath, render(result, responses, "json", jsonPath,
+                    (r, path) -> jsonExporter.export(r, responses, path)));
+            return jsonPath;
+        } else {
+            Path pdfPath = dir.resolve(fileName + ".pdf");
+            PdfExporter pdfExporter = new PdfExporter(licenseInfo.showWatermark());
+            manifest.record(pdfPath, render(result, responses,
+                    "pdf:" + licenseInfo.showWatermark() + ":" + ZoneId.systemDefault(), pdfPath,
+                    (r, path) -> pdfExporter.export(r, responses, path)));
+            return pdfPath;
+        }
+    }
+
+    private FileDigest render(CheckResult result, List<RawResponse> responses, String variant, Path path,
+                              RenderCache.Renderer renderer) throws IOException {
+        if (renderCache == null) {
+            return renderer.render(result, path);
+        }
+        return renderCache.export(result, responses, variant, path, renderer);
+    }
+
+    private List<Path> auditLogSegments() throws IOException {
+        Path dir = outputDir.resolve(AuditLogCollector.DIRECTORY);
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(".ndjson.gz")).sorted().toList();
+        }
+    }
+
+    private void writeReport() throws IOException {
+        Path report = outputDir.resolve(REPORT_FILE);
+        manifest.record(report, new JsonExporter().exportReport(toReport(), report));
+    }
+
+    private List<Path> writeHtmlReport() throws IOException {
+        HtmlReportWriter html = new HtmlReportWriter(outputDir);
+        for (Entry entry : getEntries()) {
+            html.add(entry.result(), entry.file() == null ? null
+                    : outputDir.relativize(entry.file()).toString().replace('\\', '/'));
+        }
+        Map<Path, FileDigest> written = html.finish(orgName, standardNames(), Instant.now(),
+                licenseInfo.showWatermark() ? HtmlReportWriter.FREE_TIER_NOTICE : null);
+        written.forEach(manifest::record);
+        return new ArrayList<>(written.keySet());
+    }
+
+    private void writeReadme() throws IOException {
+        Files.createDirectories(outputDir);
+
+        StringBuilder sb = new StringBuilder();
+        AuditorReadme.writeHeader(sb, orgName, standardNames());
+        for (Entry entry : getEntries()) {
+            CheckResult result = entry.result();
+            AuditorReadme.writeEntry(sb, result.clauseId(), result.checkName(), entry.repo(),
+                    result.status().name());
+        }
+
+        List<String> runErrors = getErrors();
+        if (!runErrors.isEmpty()) {
+            AuditorReadme.writeSection(sb, AuditorReadme.NOT_COLLECTED, runErrors);
+        }
+
+        List<String> notCollectedInTime = getUnfinished();
+        if (!notCollectedInTime.isEmpty()) {
+            AuditorReadme.writeSection(sb, AuditorReadme.DEADLINE, notCollectedInTime);
+        }
+
+        if (standards.size() > 1) {
+            Map<String, String> mappings = new TreeMap<>();
+            for (Entry entry : getEntries()) {
+                CheckResult result = entry.result();
+                if (!result.mappedClauses().isEmpty()) {
+                    mappings.putIfAbsent(result.checkName(), result.checkName() + ": " + result.mappedClauses()
+                            .entrySet().stream()
+                            .map(clause -> clause.getKey() + " " + clause.getValue())
+                            .collect(Collectors.joining(", ")));
+                }
+            }
+            AuditorReadme.writeSection(sb, AuditorReadme.CLAUSE_MAPPING, new ArrayList<>(mappings.values()));
+        }
+
+        if (policy != null) {
+            List<String> rules = new ArrayList<>();
+            for (CompiledPolicy.CompiledRule rule : policy.getRules()) {
+                rules.add(rule.id() + " (" + rule.check() + "): " + rule.path() + " " + rule.condition()
+                        + ", otherwise " + rule.status());
+            }
+            AuditorReadme.writeSection(sb, AuditorReadme.POLICY_PREFIX + policy.getName(), rules);
+        }
+
+        AuditReport.Sample sampleSummary = getSampleSummary();
+        if (sampleSummary != null) {
+            AuditorReadme.writeSection(sb, AuditorReadme.SAMPLE, AuditorReadme.sampleLines(sampleSummary));
+        }
+
+        if (renderCache != null) {
+            AuditorReadme.writeSection(sb, AuditorReadme.UNCHANGED_EVIDENCE, List.of(AuditorReadme.UNCHANGED_EVIDENCE_NOTE));
+        }
+
+        AuditorReadme.writeNotes(sb);
+        Path readme = outputDir.resolve(README_FILE);
+        DigestingOutputStream digest = DigestingOutputStream.create(readme);
+        try (OutputStream out = digest) {
+            out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        manifest.record(readme, digest.getDigest());
+    }
+
+    private void restoreAccess(ProgressJournal.Record entry) {
+        if (entry.repo() != null && entry.result().rawData() instanceof Map<?, ?> rawData
+                && rawData.get("allCollaborators") != null) {
+            accessIndex.addRepository(entry.repo(), COLLABORATORS.convertValue(rawData.get("allCollaborators"),
+                    new TypeReference<List<RepoCollaborator>>() {}));
+        }
+    }
+
+    private String standardNames() {
+        return standards.stream().map(Standard::displayName).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * @return the name, without extension, of the evidence file of a result; repository results are in a
+     *         {@link #sanitizeFileName sanitized} directory named after the repository when repository
+     *         subdirectories are used
+     */
+    public static String evidenceFileName(String standard, String clauseId, String checkName) {
+        return sanitizeFileName(standard) + "_" + clauseId + "_" + sanitizeFileName(checkName);
+    }
+
+    public static String zipFileName(String orgName) {
+        return "SOC2_Evidence_" + orgName + ".zip";
+    }
+
+    static String label(String checkName, String repoName) {
+        return repoName == null ? checkName : checkName + " [" + repoName + "]";
+    }
+
+    public static String sanitizeFileName(String name) {
+        return name.replaceAll("[^a-zA-Z0-9]", "_");
+    }
+}
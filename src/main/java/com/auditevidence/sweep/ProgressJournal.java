@@ -0,0 +1,160 @@
+package com.auditevidence.sweep;
+
+import com.auditevidence.exporter.FileDigest;
+import com.auditevidence.model.CheckResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only record of completed (check, repo) results. Each line is written and forced to disk only
+ * after the evidence file is complete, together with the file's size and SHA-256, so a crash can at
+ * worst lose the line being written. On resume, lines whose file is missing or differs are discarded.
+ */
+public class ProgressJournal implements AutoCloseable {
+    public static final String JOURNAL_FILE = "progress-journal.ndjson";
+
+    private final Path outputDir;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Record> completed = new LinkedHashMap<>();
+    private final List<String> discarded = new ArrayList<>();
+    private FileChannel channel;
+
+    public record Record(
+        String repo,
+        String file,
+        long size,
+        String sha256,
+        CheckResult result
+    ) {}
+
+    private ProgressJournal(Path outputDir) {
+        this.outputDir = outputDir;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * Opens the journal in {@code outputDir}. Without {@code resume} any previous journal is discarded.
+     */
+    public static ProgressJournal open(Path outputDir, boolean resume) throws IOException {
+        ProgressJournal journal = new ProgressJournal(outputDir);
+        Path file = outputDir.resolve(JOURNAL_FILE);
+        Files.createDirectories(outputDir);
+        if (resume && Files.exists(file)) {
+            journal.load(file);
+        }
+        journal.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                resume ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+        return journal;
+    }
+
+    public synchronized List<Record> getCompleted() {
+        return new ArrayList<>(completed.values());
+    }
+
+    /**
+     * Journal lines that could not be trusted on resume (torn writes, missing or altered files).
+     */
+    public synchronized List<String> getDiscarded() {
+        return new ArrayList<>(discarded);
+    }
+
+    public synchronized boolean isCompleted(String label) {
+        return completed.containsKey(label);
+    }
+
+    /**
+     * @param digest the digest taken while {@code file} was written, or null to read the file for it
+     */
+    public synchronized void append(String label, String repo, CheckResult result, Path file, FileDigest digest)
+            throws IOException {
+        if (digest == null) {
+            digest = FileDigest.of(file);
+        }
+        Record record = new Record(repo, outputDir.relativize(file).toString().replace('\\', '/'),
+                digest.size(), digest.sha256(), result);
+        byte[] line = (objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        completed.put(label, record);
+    }
+
+    public Path resolve(Record record) {
+        return outputDir.resolve(record.file());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void load(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                Record record;
+                try {
+                    record = objectMapper.readValue(line, Record.class);
+                } catch (JsonProcessingException e) {
+                    discarded.add("incomplete journal line " + lineNumber);
+                    continue;
+                }
+                String label = OrgRun.label(record.result().checkName(), record.repo());
+                if (verify(record)) {
+                    completed.put(label, record);
+                } else {
+                    completed.remove(label);
+                    discarded.add(label + " (" + record.file() + " is missing or was modified)");
+                }
+            }
+        }
+        compact(file);
+    }
+
+    private boolean verify(Record record) throws IOException {
+        Path evidence = resolve(record);
+        return Files.isRegularFile(evidence)
+                && Files.size(evidence) == record.size()
+                && FileDigest.of(evidence).sha256().equals(record.sha256());
+    }
+
+    private void compact(Path file) throws IOException {
+        Path temp = file.resolveSibling(JOURNAL_FILE + ".tmp");
+        StringBuilder sb = new StringBuilder();
+        for (Record record : completed.values()) {
+            sb.append(objectMapper.writeValueAsString(record)).append('\n');
+        }
+        Files.writeString(temp, sb.toString());
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,107 @@
+package com.auditevidence.sweep;
+
+import com.auditevidence.model.GithubRepo;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * How long each repository of an organization took to sweep: the time spent in its API calls and check
+ * evaluations. Costs measured in this run are saved to {@link #FILE} and used by the next run to start the
+ * most expensive repositories first. A repository the previous run did not see is estimated from its size,
+ * at the previous run's cost per kilobyte.
+ */
+public class RepoCosts {
+    public static final String FILE = "repo-costs.json";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Map<String, Cost> previous;
+    private final double microsPerKb;
+    private final Map<String, AtomicLong> measured = new ConcurrentHashMap<>();
+    private final Map<String, Long> sizes = new ConcurrentHashMap<>();
+
+    public record Cost(long micros, long size) {}
+
+    private RepoCosts(Map<String, Cost> previous) {
+        this.previous = previous;
+        long micros = 0;
+        long size = 0;
+        for (Cost cost : previous.values()) {
+            micros += cost.micros();
+            size += cost.size();
+        }
+        this.microsPerKb = size > 0 ? (double) micros / size : 0;
+    }
+
+    public static RepoCosts load(Path dir) {
+        Path file = dir.resolve(FILE);
+        if (Files.exists(file)) {
+            try {
+                return new RepoCosts(OBJECT_MAPPER.readValue(file.toFile(), new TypeReference<Map<String, Cost>>() {}));
+            } catch (IOException e) {
+                System.err.println("Warning: Ignoring unreadable " + file + ": " + e.getMessage());
+            }
+        }
+        return none();
+    }
+
+    public static RepoCosts none() {
+        return new RepoCosts(Map.of());
+    }
+
+    /**
+     * Notes the size GitHub reports for {@code repo}, used when it has no earlier measurement.
+     */
+    public void observe(GithubRepo repo) {
+        sizes.put(repo.name(), repo.size());
+    }
+
+    /**
+     * @return the expected cost of the repository named {@code repoName} in microseconds: what this run has
+     *         measured so far, else the previous run's cost, else its size scaled by the previous run's cost
+     *         per kilobyte (or its size in kilobytes when there is no previous run)
+     */
+    public long estimate(String repoName) {
+        AtomicLong current = measured.get(repoName);
+        if (current != null) {
+            return current.get();
+        }
+        Cost cost = previous.get(repoName);
+        if (cost != null) {
+            return cost.micros();
+        }
+        long size = sizes.getOrDefault(repoName, 0L);
+        return microsPerKb > 0 ? (long) (size * microsPerKb) : size;
+    }
+
+    public void add(String repoName, long nanos) {
+        if (repoName != null) {
+            measured.computeIfAbsent(repoName, name -> new AtomicLong()).addAndGet(nanos / 1000);
+        }
+    }
+
+    /**
+     * Saves the costs measured in this run, keeping the previous cost of repositories this run did not sweep.
+     */
+    public void save(Path dir) throws IOException {
+        if (measured.isEmpty()) {
+            return;
+        }
+        Map<String, Cost> costs = new TreeMap<>(previous);
+        measured.forEach((repo, micros) -> costs.put(repo, new Cost(micros.get(),
+                sizes.getOrDefault(repo, previous.containsKey(repo) ? previous.get(repo).size() : 0L))));
+        Files.createDirectories(dir);
+        Path temp = dir.resolve(FILE + ".tmp");
+        OBJECT_MAPPER.writeValue(temp.toFile(), costs);
+        Files.move(temp, dir.resolve(FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
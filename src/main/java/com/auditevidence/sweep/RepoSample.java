@@ -0,0 +1,284 @@
+package com.auditevidence.sweep;
+
+import com.auditevidence.model.AuditReport;
+import com.auditevidence.model.CheckResult;
+import com.auditevidence.model.GithubRepo;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Draws a stratified random sample of an organization's repositories for {@code --sample}, so repository
+ * checks run on a fraction of the repositories and their organization-wide pass rates are estimated with
+ * confidence intervals. Repositories are stratified by visibility and activity: active when pushed within
+ * {@link #ACTIVE_WITHIN} of the organization's most recent push, so the strata depend only on the listing
+ * and the same seed draws the same sample from the same listing. The sample is allocated to strata in
+ * proportion to their size, with at least {@link #MIN_PER_STRATUM} from each so every stratum has a
+ * variance estimate, unless the sample is too small to give every stratum its minimum.
+ */
+public final class RepoSample {
+    public static final Duration ACTIVE_WITHIN = Duration.ofDays(90);
+    public static final double CONFIDENCE = 0.95;
+
+    private static final int MIN_PER_STRATUM = 2;
+    private static final double Z = 1.959963984540054;
+    private static final String ACTIVE = "active";
+    private static final String INACTIVE = "inactive";
+    private static final String UNKNOWN = "unknown";
+
+    private final double fraction;
+    private final int size;
+    private final long seed;
+
+    private RepoSample(double fraction, int size, long seed) {
+        this.fraction = fraction;
+        this.size = size;
+        this.seed = seed;
+    }
+
+    /**
+     * Parses a sample size: a percentage of the repositories such as {@code 5%}, or a number of
+     * repositories such as {@code 200}.
+     */
+    public static RepoSample parse(String spec, long seed) {
+        String trimmed = spec.trim();
+        try {
+            if (trimmed.endsWith("%")) {
+                double percent = Double.parseDouble(trimmed.substring(0, trimmed.length() - 1).trim());
+                if (percent <= 0 || percent > 100) {
+                    throw new IllegalArgumentException("Sample percentage must be above 0 and at most 100");
+                }
+                return new RepoSample(percent / 100, 0, seed);
+            }
+            int count = Integer.parseInt(trimmed);
+            if (count < 1) {
+                throw new IllegalArgumentException("Sample size must be at least 1");
+            }
+            return new RepoSample(0, count, seed);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Sample must be a percentage such as 5% or a number of repositories");
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Draw draw(List<GithubRepo> repos) {
+        Instant latestPush = null;
+        for (GithubRepo repo : repos) {
+            Instant pushed = pushedAt(repo);
+            if (pushed != null && (latestPush == null || pushed.isAfter(latestPush))) {
+                latestPush = pushed;
+            }
+        }
+
+        Map<String, List<String>> strata = new TreeMap<>();
+        Map<String, String> stratumOf = new HashMap<>();
+        for (GithubRepo repo : repos) {
+            String key = stratumKey(repo, latestPush);
+            strata.computeIfAbsent(key, k -> new ArrayList<>()).add(repo.name());
+            stratumOf.put(repo.name(), key);
+        }
+
+        int population = repos.size();
+        int target = Math.min(population, size > 0 ? size : (int) Math.ceil(fraction * population));
+        Map<String, Integer> allocation = allocate(strata, population, target);
+
+        Set<String> selected = new HashSet<>();
+        Map<String, int[]> counts = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> stratum : strata.entrySet()) {
+            List<String> names = new ArrayList<>(stratum.getValue());
+            Collections.sort(names);
+            Collections.shuffle(names, new Random(seed * 31 + stratum.getKey().hashCode()));
+            int sampled = allocation.get(stratum.getKey());
+            selected.addAll(names.subList(0, sampled));
+            counts.put(stratum.getKey(), new int[]{names.size(), sampled});
+        }
+        return new Draw(seed, population, selected, stratumOf, counts);
+    }
+
+    /**
+     * Proportional allocation by largest remainder, after giving every stratum its minimum. The minimum is
+     * dropped when the target cannot cover it in every stratum, so the sample never exceeds the target.
+     */
+    private static Map<String, Integer> allocate(Map<String, List<String>> strata, int population, int target) {
+        int minimums = 0;
+        for (List<String> stratum : strata.values()) {
+            minimums += Math.min(MIN_PER_STRATUM, stratum.size());
+        }
+        boolean floored = minimums <= target;
+
+        Map<String, Integer> allocation = new HashMap<>();
+        Map<String, Double> remainders = new HashMap<>();
+        int allocated = 0;
+        for (Map.Entry<String, List<String>> stratum : strata.entrySet()) {
+            int stratumSize = stratum.getValue().size();
+            double ideal = (double) target * stratumSize / population;
+            int count = floored ? Math.min(MIN_PER_STRATUM, stratumSize) : 0;
+            allocation.put(stratum.getKey(), count);
+            remainders.put(stratum.getKey(), ideal - count);
+            allocated += count;
+        }
+        while (allocated < target) {
+            String next = null;
+            for (Map.Entry<String, List<String>> stratum : strata.entrySet()) {
+                String key = stratum.getKey();
+                if (allocation.get(key) < stratum.getValue().size()
+                        && (next == null || remainders.get(key) > remainders.get(next))) {
+                    next = key;
+                }
+            }
+            allocation.merge(next, 1, Integer::sum);
+            remainders.merge(next, -1.0, Double::sum);
+            allocated++;
+        }
+        return allocation;
+    }
+
+    private static String stratumKey(GithubRepo repo, Instant latestPush) {
+        String visibility = repo.visibility() != null ? repo.visibility() : repo.isPrivate() ? "private" : "public";
+        Instant pushed = pushedAt(repo);
+        String activity = pushed == null ? UNKNOWN
+                : pushed.isBefore(latestPush.minus(ACTIVE_WITHIN)) ? INACTIVE : ACTIVE;
+        return visibility + "/" + activity;
+    }
+
+    private static Instant pushedAt(GithubRepo repo) {
+        if (repo.pushedAt() == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(repo.pushedAt());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The repositories drawn from one listing.
+     */
+    public static final class Draw {
+        private final long seed;
+        private final int population;
+        private final Set<String> selected;
+        private final Map<String, String> stratumOf;
+        private final Map<String, int[]> counts;
+
+        private Draw(long seed, int population, Set<String> selected, Map<String, String> stratumOf,
+                     Map<String, int[]> counts) {
+            this.seed = seed;
+            this.population = population;
+            this.selected = selected;
+            this.stratumOf = stratumOf;
+            this.counts = counts;
+        }
+
+        public boolean contains(String repo) {
+            return selected.contains(repo);
+        }
+
+        public int size() {
+            return selected.size();
+        }
+
+        public int population() {
+            return population;
+        }
+
+        /**
+         * Estimates the pass rate of every repository check in {@code entries}. Each stratum's pass rate is
+         * weighted by its share of the repositories; strata without an evaluated result are left out and the
+         * other weights scaled up. The interval is a Wilson score interval for the effective sample size of
+         * the stratified estimate, so it stays inside [0, 1] and is not empty when every sampled result
+         * passes or fails.
+         */
+        public AuditReport.Sample summarize(List<OrgRun.Entry> entries) {
+            // check name -> stratum -> {evaluated, passed, partial}
+            Map<String, Map<String, int[]>> tallies = new TreeMap<>();
+            Map<String, String> clauses = new HashMap<>();
+            for (OrgRun.Entry entry : entries) {
+                if (entry.repo() == null || !selected.contains(entry.repo())) {
+                    continue;
+                }
+                CheckResult result = entry.result();
+                clauses.putIfAbsent(result.checkName(), result.clauseId());
+                int[] tally = tallies.computeIfAbsent(result.checkName(), name -> new HashMap<>())
+                        .computeIfAbsent(stratumOf.get(entry.repo()), key -> new int[3]);
+                switch (result.status()) {
+                    case PASS -> {
+                        tally[0]++;
+                        tally[1]++;
+                    }
+                    case FAIL -> tally[0]++;
+                    case PARTIAL -> tally[2]++;
+                }
+            }
+
+            List<AuditReport.PassRate> passRates = new ArrayList<>();
+            for (Map.Entry<String, Map<String, int[]>> check : tallies.entrySet()) {
+                passRates.add(estimate(clauses.get(check.getKey()), check.getKey(), check.getValue()));
+            }
+            List<AuditReport.Stratum> strata = new ArrayList<>();
+            for (Map.Entry<String, int[]> stratum : counts.entrySet()) {
+                String[] key = stratum.getKey().split("/", 2);
+                strata.add(new AuditReport.Stratum(key[0], key[1], stratum.getValue()[0], stratum.getValue()[1]));
+            }
+            return new AuditReport.Sample(seed, population, selected.size(), strata, passRates);
+        }
+
+        private AuditReport.PassRate estimate(String clauseId, String checkName, Map<String, int[]> byStratum) {
+            int evaluated = 0;
+            int passed = 0;
+            int partial = 0;
+            double weight = 0;
+            double rate = 0;
+            double variance = 0;
+            boolean census = true;
+            for (Map.Entry<String, int[]> stratum : byStratum.entrySet()) {
+                int[] tally = stratum.getValue();
+                evaluated += tally[0];
+                passed += tally[1];
+                partial += tally[2];
+                if (tally[0] == 0) {
+                    continue;
+                }
+                int stratumSize = counts.get(stratum.getKey())[0];
+                double w = (double) stratumSize / population;
+                double p = (double) tally[1] / tally[0];
+                weight += w;
+                rate += w * p;
+                if (tally[0] > 1) {
+                    variance += w * w * (1 - (double) tally[0] / stratumSize) * p * (1 - p) / (tally[0] - 1);
+                }
+                census &= tally[0] == stratumSize;
+            }
+            if (evaluated == 0) {
+                return new AuditReport.PassRate(clauseId, checkName, 0, 0, partial, null, 0, 1, CONFIDENCE);
+            }
+            rate /= weight;
+            variance /= weight * weight;
+            if (census && weight >= 1 - 1e-9) {
+                return new AuditReport.PassRate(clauseId, checkName, evaluated, passed, partial, rate, rate, rate,
+                        CONFIDENCE);
+            }
+            double n = variance > 0 ? rate * (1 - rate) / variance : evaluated;
+            double z2 = Z * Z;
+            double center = (rate + z2 / (2 * n)) / (1 + z2 / n);
+            double half = Z * Math.sqrt(rate * (1 - rate) / n + z2 / (4 * n * n)) / (1 + z2 / n);
+            return new AuditReport.PassRate(clauseId, checkName, evaluated, passed, partial, rate,
+                    Math.max(0, center - half), Math.min(1, center + half), CONFIDENCE);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.auditevidence.sweep;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Assigns repositories to one of N shards with a consistent-hash ring, so separate processes can split an
+ * organization sweep and changing N only moves about 1/N of the repositories. Organization-level checks
+ * run in shard 1 only.
+ */
+public final class ShardAssignment {
+    public static final String SHARD_FILE = "shard.json";
+
+    private static final int VIRTUAL_NODES = 128;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final int index;
+    private final int count;
+    private final TreeMap<Long, Integer> ring = new TreeMap<>();
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Marker(int index, int count) {}
+
+    public ShardAssignment(int index, int count) {
+        if (count < 1 || index < 1 || index > count) {
+            throw new IllegalArgumentException("Shard must be i/N with 1 <= i <= N");
+        }
+        this.index = index;
+        this.count = count;
+        for (int shard = 1; shard <= count; shard++) {
+            for (int node = 0; node < VIRTUAL_NODES; node++) {
+                ring.putIfAbsent(hash("shard-" + shard + "#" + node), shard);
+            }
+        }
+    }
+
+    /**
+     * Parses {@code i/N}, e.g. {@code 2/4}.
+     */
+    public static ShardAssignment parse(String spec) {
+        int slash = spec.indexOf('/');
+        if (slash < 0) {
+            throw new IllegalArgumentException("Shard must be i/N, e.g. 1/4");
+        }
+        try {
+            return new ShardAssignment(Integer.parseInt(spec.substring(0, slash).trim()),
+                    Integer.parseInt(spec.substring(slash + 1).trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Shard must be i/N, e.g. 1/4");
+        }
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public boolean isPrimary() {
+        return index == 1;
+    }
+
+    public int shardOf(String repoName) {
+        Map.Entry<Long, Integer> node = ring.ceilingEntry(hash(repoName));
+        return node != null ? node.getValue() : ring.firstEntry().getValue();
+    }
+
+    public boolean owns(String repoName) {
+        return count == 1 || shardOf(repoName) == index;
+    }
+
+    /**
+     * Records this shard in {@code outputDir} so {@code merge} can tell whether every shard's output is present.
+     */
+    public void writeMarker(Path outputDir) throws IOException {
+        Files.createDirectories(outputDir);
+        OBJECT_MAPPER.writeValue(outputDir.resolve(SHARD_FILE).toFile(), new Marker(index, count));
+    }
+
+    public static Marker readMarker(Path outputDir) throws IOException {
+        Path file = outputDir.resolve(SHARD_FILE);
+        return Files.exists(file) ? OBJECT_MAPPER.readValue(file.toFile(), Marker.class) : null;
+    }
+
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}
@@ -0,0 +1,343 @@
+package com.auditevidence.webhook;
+
+import com.auditevidence.access.TeamGraph;
+import com.auditevidence.access.TeamGraphCache;
+import com.auditevidence.checks.BranchProtectionCheck;
+import com.auditevidence.checks.DataRequirement;
+import com.auditevidence.checks.MfaEnabledCheck;
+import com.auditevidence.checks.PrReviewsRequiredCheck;
+import com.auditevidence.checks.RepoAccessControlCheck;
+import com.auditevidence.checks.Soc2Check;
+import com.auditevidence.github.GithubApiException;
+import com.auditevidence.github.GithubClient;
+import com.auditevidence.model.GithubRepo;
+import com.auditevidence.model.Ruleset;
+import com.auditevidence.prefetch.PrefetchPlanner;
+import com.auditevidence.rulesets.RulesetCache;
+import com.auditevidence.rulesets.RulesetMatcher;
+import com.auditevidence.snapshot.InMemorySnapshot;
+import com.auditevidence.snapshot.SnapshotGithubClient;
+import com.auditevidence.sweep.OrgRun;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionException;
+
+public class IncrementalUpdater {
+    private final GithubClient client;
+    private final List<Soc2Check> checks;
+    private final Map<String, OrgRun> runs = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final boolean allRepos;
+    private final boolean createZip;
+
+    private record Task(Soc2Check check, String repo) {}
+
+    /**
+     * @param evidenceRemoved whether the event removed a repository's evidence, so the reports are written
+     *                        again even when no check is re-run
+     */
+    private record Update(List<Task> tasks, boolean evidenceRemoved) {}
+
+    public IncrementalUpdater(GithubClient client, List<Soc2Check> checks, List<OrgRun> runs,
+                              boolean allRepos, boolean createZip) {
+        this.client = client;
+        this.checks = checks;
+        this.allRepos = allRepos;
+        this.createZip = createZip;
+        for (OrgRun run : runs) {
+            this.runs.put(run.getOrgName(), run);
+        }
+    }
+
+    public synchronized int handle(WebhookEvent event) {
+        String org = event.organization();
+        OrgRun run = org == null ? null : runs.get(org);
+        if (run == null) {
+            System.out.println("⏭  Ignoring " + event.name() + " event for untracked organization " + org);
+            return 0;
+        }
+
+        Update update;
+        try {
+            update = affectedChecks(event, run);
+        } catch (IOException e) {
+            System.err.println("Warning: Could not remove stale evidence: " + e.getMessage());
+            return 0;
+        }
+
+        List<Task> tasks = update.tasks();
+        if (tasks.isEmpty()) {
+            if (update.evidenceRemoved()) {
+                System.out.println(run.getLogPrefix() + "🗑  " + describe(event) + ": evidence removed");
+                run.finish(createZip);
+            } else {
+                System.out.println(run.getLogPrefix() + "⏭  " + describe(event) + ": no evidence affected");
+            }
+            return 0;
+        }
+
+        System.out.println(run.getLogPrefix() + "↻ " + describe(event) + ": re-running " + tasks.size() + " check(s)");
+        InMemorySnapshot snapshot = prefetch(run, tasks);
+        GithubClient evaluator = snapshot == null ? client : new SnapshotGithubClient(snapshot, client);
+        try {
+            for (Task task : tasks) {
+                run.runCheck(task.check(), evaluator, task.repo());
+            }
+        } finally {
+            if (snapshot != null) {
+                snapshot.release();
+            }
+        }
+        run.finish(createZip);
+        return tasks.size();
+    }
+
+    private Update affectedChecks(WebhookEvent event, OrgRun run) throws IOException {
+        String repo = event.repository();
+        String action = event.action() == null ? "" : event.action();
+        List<Task> tasks = new ArrayList<>();
+        boolean evidenceRemoved = false;
+
+        switch (event.name().toLowerCase(Locale.ROOT)) {
+            case "branch_protection_rule" -> {
+                if (isTracked(run, repo)) {
+                    addRepoChecks(tasks, repo, BranchProtectionCheck.class, PrReviewsRequiredCheck.class);
+                }
+            }
+            case "repository_ruleset" -> {
+                for (String target : rulesetTargets(event, run)) {
+                    addRepoChecks(tasks, target, BranchProtectionCheck.class, PrReviewsRequiredCheck.class);
+                }
+            }
+            case "member" -> {
+                if (isTracked(run, repo)) {
+                    addRepoChecks(tasks, repo, RepoAccessControlCheck.class);
+                }
+            }
+            case "team_add" -> {
+                invalidateTeams(run.getOrgName());
+                if (isTracked(run, repo)) {
+                    addRepoChecks(tasks, repo, RepoAccessControlCheck.class);
+                }
+            }
+            case "membership", "team" -> {
+                for (String target : teamTargets(event, run)) {
+                    addRepoChecks(tasks, target, RepoAccessControlCheck.class);
+                }
+            }
+            case "repository" -> {
+                if (repo == null) {
+                    break;
+                }
+                if (action.equals("deleted") || action.equals("archived") || action.equals("transferred")) {
+                    evidenceRemoved = run.removeRepo(repo);
+                    break;
+                }
+                String previousName = event.previousRepositoryName();
+                boolean renamedTracked = action.equals("renamed") && previousName != null
+                        && run.getRepos().contains(previousName);
+                if (renamedTracked) {
+                    evidenceRemoved = run.removeRepo(previousName);
+                }
+                if (renamedTracked || isTracked(run, repo)) {
+                    addRepoChecks(tasks, repo, Soc2Check.class);
+                }
+            }
+            case "organization" -> {
+                if (action.startsWith("member_")) {
+                    for (Soc2Check check : checks) {
+                        if (check instanceof MfaEnabledCheck) {
+                            tasks.add(new Task(check, null));
+                        }
+                    }
+                }
+            }
+            default -> {
+                // ping and other events do not change collected evidence
+            }
+        }
+        return new Update(tasks, evidenceRemoved);
+    }
+
+    /**
+     * @return the tracked repositories whose access the team in {@code event} reaches before or after the
+     *         change, or every tracked repository when the organization's team graph cannot tell. The graph
+     *         is read again here, so the re-run checks use it as it is after the change.
+     */
+    private Set<String> teamTargets(WebhookEvent event, OrgRun run) {
+        String org = run.getOrgName();
+        TeamGraphCache graphs = teamGraphs();
+        if (graphs == null) {
+            return Set.of();
+        }
+        boolean knownBefore = graphs.isCached(org);
+        TeamGraph before = graphs.getIfCached(org);
+        graphs.invalidate(org);
+
+        String team = event.team();
+        if (team == null || !knownBefore || before == null) {
+            return run.getRepos();
+        }
+        TeamGraph after;
+        try {
+            after = graphs.get(client, org);
+        } catch (GithubApiException e) {
+            return run.getRepos();
+        }
+        if (after == null) {
+            return run.getRepos();
+        }
+        Set<String> targets = new TreeSet<>(before.repositoriesAffectedBy(team));
+        targets.addAll(after.repositoriesAffectedBy(team));
+        targets.retainAll(run.getRepos());
+        if (isTracked(run, event.repository())) {
+            targets.add(event.repository());
+        }
+        return targets;
+    }
+
+    /**
+     * @return the tracked repositories whose default branch the ruleset in {@code event} applies to before or
+     *         after the change, or every tracked repository when that cannot be told: the ruleset's previous
+     *         conditions are unknown, or the organization's repositories cannot be listed
+     */
+    private Set<String> rulesetTargets(WebhookEvent event, OrgRun run) {
+        String org = run.getOrgName();
+        Ruleset changed = event.ruleset();
+        Ruleset before = null;
+        boolean knownBefore = false;
+        for (RulesetCache cache : rulesetCaches()) {
+            RulesetCache.OrgRulesets cached = cache.getIfCached(org);
+            if (cached != null && cached.available() && !knownBefore && changed != null) {
+                knownBefore = true;
+                before = cached.rulesets().stream().filter(r -> r.id() == changed.id()).findFirst().orElse(null);
+            }
+            cache.invalidate(org);
+        }
+
+        String repo = event.repository();
+        if (repo != null) {
+            // A repository's own ruleset applies to that repository alone
+            return isTracked(run, repo) ? Set.of(repo) : Set.of();
+        }
+        if (changed == null || (!knownBefore && !"created".equals(event.action()))) {
+            return run.getRepos();
+        }
+        List<GithubRepo> listed;
+        try {
+            listed = client.getOrganizationRepos(org);
+        } catch (GithubApiException e) {
+            return run.getRepos();
+        }
+        List<Ruleset> versions = before == null ? List.of(changed) : List.of(before, changed);
+        Set<String> tracked = run.getRepos();
+        Set<String> targets = new TreeSet<>();
+        for (GithubRepo listedRepo : listed) {
+            if (tracked.contains(listedRepo.name())
+                    && !RulesetMatcher.forDefaultBranch(versions, listedRepo).isEmpty()) {
+                targets.add(listedRepo.name());
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Fetches what the affected checks read once for all of them, so e.g. a membership change re-evaluates
+     * every repository the team reaches from one read of the organization's teams. Teams and rulesets are
+     * not read again while the checks still hold them.
+     *
+     * @return the fetched data, or null when the prefetch itself fails and the live client is used instead
+     */
+    private InMemorySnapshot prefetch(OrgRun run, List<Task> tasks) {
+        Set<DataRequirement> requirements = PrefetchPlanner.requirementsOf(tasks.stream().map(Task::check).toList());
+        if (teamGraphsCached(run.getOrgName())) {
+            requirements.remove(DataRequirement.ORGANIZATION_TEAMS);
+        }
+        if (rulesetsCached(run.getOrgName())) {
+            requirements.remove(DataRequirement.ORGANIZATION_RULESETS);
+        }
+        List<String> repos = tasks.stream().map(Task::repo).filter(Objects::nonNull).distinct().toList();
+        try {
+            PrefetchPlanner.Result result = new PrefetchPlanner(client)
+                    .prefetch(run.getOrgName(), requirements, repos, Runnable::run)
+                    .join();
+            return result.snapshot();
+        } catch (CompletionException e) {
+            return null;
+        }
+    }
+
+    @SafeVarargs
+    private void addRepoChecks(List<Task> tasks, String repo, Class<? extends Soc2Check>... types) {
+        for (Soc2Check check : checks) {
+            if (!check.requiresRepo()) {
+                continue;
+            }
+            for (Class<? extends Soc2Check> type : types) {
+                if (type.isInstance(check)) {
+                    tasks.add(new Task(check, repo));
+                    break;
+                }
+            }
+        }
+    }
+
+    private void invalidateTeams(String org) {
+        TeamGraphCache graphs = teamGraphs();
+        if (graphs != null) {
+            graphs.invalidate(org);
+        }
+    }
+
+    private boolean teamGraphsCached(String org) {
+        TeamGraphCache graphs = teamGraphs();
+        return graphs == null || graphs.isCached(org);
+    }
+
+    private TeamGraphCache teamGraphs() {
+        for (Soc2Check check : checks) {
+            if (check instanceof RepoAccessControlCheck access) {
+                return access.getTeamGraphs();
+            }
+        }
+        return null;
+    }
+
+    private boolean rulesetsCached(String org) {
+        return rulesetCaches().stream().allMatch(rulesets -> rulesets.getIfCached(org) != null);
+    }
+
+    private List<RulesetCache> rulesetCaches() {
+        List<RulesetCache> caches = new ArrayList<>();
+        for (Soc2Check check : checks) {
+            RulesetCache rulesets = check instanceof BranchProtectionCheck branch ? branch.getRulesets()
+                    : check instanceof PrReviewsRequiredCheck reviews ? reviews.getRulesets() : null;
+            if (rulesets != null && caches.stream().noneMatch(cache -> cache == rulesets)) {
+                caches.add(rulesets);
+            }
+        }
+        return caches;
+    }
+
+    private boolean isTracked(OrgRun run, String repo) {
+        return repo != null && (allRepos || run.getRepos().contains(repo));
+    }
+
+    private String describe(WebhookEvent event) {
+        StringBuilder sb = new StringBuilder(event.name());
+        if (event.action() != null) {
+            sb.append(".").append(event.action());
+        }
+        if (event.repository() != null) {
+            sb.append(" (").append(event.repository()).append(")");
+        }
+        return sb.toString();
+    }
+}
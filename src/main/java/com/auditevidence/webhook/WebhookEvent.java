@@ -0,0 +1,66 @@
+package com.auditevidence.webhook;
+
+import com.auditevidence.model.Ruleset;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+public record WebhookEvent(
+    String name,
+    JsonNode payload
+) {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    public static WebhookEvent parse(String name, byte[] body) throws IOException {
+        return new WebhookEvent(name, OBJECT_MAPPER.readTree(body));
+    }
+
+    public String action() {
+        return text(payload.path("action"));
+    }
+
+    public String organization() {
+        String org = text(payload.path("organization").path("login"));
+        if (org == null) {
+            org = text(payload.path("repository").path("owner").path("login"));
+        }
+        return org;
+    }
+
+    public String repository() {
+        return text(payload.path("repository").path("name"));
+    }
+
+    /**
+     * @return the slug of the team a {@code membership}, {@code team} or {@code team_add} event is about
+     */
+    public String team() {
+        return text(payload.path("team").path("slug"));
+    }
+
+    /**
+     * @return the ruleset a {@code repository_ruleset} event is about, as it is after the change (or was
+     *         before it was deleted), or null when the payload has none
+     */
+    public Ruleset ruleset() {
+        JsonNode ruleset = payload.path("repository_ruleset");
+        if (!ruleset.isObject()) {
+            return null;
+        }
+        try {
+            return OBJECT_MAPPER.treeToValue(ruleset, Ruleset.class);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    public String previousRepositoryName() {
+        return text(payload.path("changes").path("repository").path("name").path("from"));
+    }
+
+    private static String text(JsonNode node) {
+        return node.isTextual() ? node.asText() : null;
+    }
+}
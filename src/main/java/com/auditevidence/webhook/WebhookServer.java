@@ -0,0 +1,110 @@
+package com.auditevidence.webhook;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class WebhookServer {
+    public static final String PATH = "/webhook";
+    /** GitHub caps webhook payloads at 25 MB; larger bodies are refused before the signature is checked. */
+    public static final int MAX_BODY_BYTES = 25 * 1024 * 1024;
+
+    private final IncrementalUpdater updater;
+    private final WebhookSignature signature;
+    private final ExecutorService updateExecutor = Executors.newSingleThreadExecutor();
+    private HttpServer server;
+
+    public WebhookServer(IncrementalUpdater updater, WebhookSignature signature) {
+        this.updater = updater;
+        this.signature = signature;
+    }
+
+    public void start(String host, int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext(PATH, this::handleExchange);
+        server.start();
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+        updateExecutor.shutdown();
+    }
+
+    private void handleExchange(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                respond(exchange, 405, "Method not allowed");
+                return;
+            }
+
+            String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+            if (contentLength != null && isOverLimit(contentLength)) {
+                respond(exchange, 413, "Payload too large");
+                return;
+            }
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readNBytes(MAX_BODY_BYTES + 1);
+            }
+            if (body.length > MAX_BODY_BYTES) {
+                respond(exchange, 413, "Payload too large");
+                return;
+            }
+
+            if (!signature.verify(body, exchange.getRequestHeaders().getFirst("X-Hub-Signature-256"))) {
+                respond(exchange, 401, "Invalid signature");
+                return;
+            }
+
+            String eventName = exchange.getRequestHeaders().getFirst("X-GitHub-Event");
+            if (eventName == null || eventName.isBlank()) {
+                respond(exchange, 400, "Missing X-GitHub-Event header");
+                return;
+            }
+
+            WebhookEvent event;
+            try {
+                event = WebhookEvent.parse(eventName, body);
+            } catch (IOException e) {
+                respond(exchange, 400, "Invalid JSON payload");
+                return;
+            }
+
+            updateExecutor.execute(() -> {
+                try {
+                    updater.handle(event);
+                } catch (RuntimeException e) {
+                    // The evidence of this event's organization stays as it was until a later event or run
+                    System.err.println("Warning: Could not update evidence for " + event.name() + " event of "
+                            + event.organization() + ": " + e);
+                }
+            });
+            respond(exchange, 202, "Accepted");
+        }
+    }
+
+    private static boolean isOverLimit(String contentLength) {
+        try {
+            return Long.parseLong(contentLength.trim()) > MAX_BODY_BYTES;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
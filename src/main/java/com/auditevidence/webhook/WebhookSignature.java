@@ -0,0 +1,38 @@
+package com.auditevidence.webhook;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+public class WebhookSignature {
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String PREFIX = "sha256=";
+
+    private final SecretKeySpec keySpec;
+
+    public WebhookSignature(String secret) {
+        this.keySpec = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+    }
+
+    public boolean verify(byte[] body, String signatureHeader) {
+        if (signatureHeader == null || !signatureHeader.startsWith(PREFIX)) {
+            return false;
+        }
+        byte[] expected = sign(body).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = signatureHeader.trim().getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    public String sign(byte[] body) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(keySpec);
+            return PREFIX + HexFormat.of().formatHex(mac.doFinal(body));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}